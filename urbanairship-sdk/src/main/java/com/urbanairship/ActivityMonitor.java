@@ -21,7 +21,7 @@ public class ActivityMonitor implements Application.ActivityLifecycleCallbacks {
     // Brief delay, to give the app a chance to perform screen rotation cleanup
     private static final long BACKGROUND_DELAY_MS = 500;
 
-    private static ActivityMonitor singleton;
+    private static volatile ActivityMonitor singleton;
 
     private final Handler handler;
     private final List<Listener> listeners = new ArrayList<>();
@@ -51,12 +51,16 @@ public class ActivityMonitor implements Application.ActivityLifecycleCallbacks {
      * @return The singleton.
      */
     public static ActivityMonitor shared(@NonNull Context context) {
-        if (singleton != null) {
-            return singleton;
+        if (singleton == null) {
+            synchronized (ActivityMonitor.class) {
+                if (singleton == null) {
+                    ActivityMonitor monitor = new ActivityMonitor();
+                    ((Application) context.getApplicationContext()).registerActivityLifecycleCallbacks(monitor);
+                    singleton = monitor;
+                }
+            }
         }
 
-        singleton = new ActivityMonitor();
-        ((Application) context.getApplicationContext()).registerActivityLifecycleCallbacks(singleton);
         return singleton;
     }
 
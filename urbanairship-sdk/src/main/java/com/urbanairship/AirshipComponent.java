@@ -20,6 +20,16 @@ public abstract class AirshipComponent {
      */
     protected void init() {}
 
+    /**
+     * Finishes initializing the manager. Called in {@link UAirship} on a background thread after
+     * takeoff, for work that does not need to finish before airship is ready. Listeners should
+     * still be registered in {@link #init()} so no events are missed.
+     *
+     * @hide
+     */
+    @WorkerThread
+    protected void initDeferred() {}
+
     /**
      * Tear down the manager.
      * Called in {@link UAirship} during land.
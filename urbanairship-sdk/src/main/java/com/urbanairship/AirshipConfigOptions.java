@@ -125,6 +125,14 @@ public class AirshipConfigOptions {
      */
     public final boolean analyticsEnabled;
 
+    /**
+     * Flag indicating whether analytic events are stored in append-only log files instead of a
+     * SQLite database. Events that are stored but not yet uploaded are lost when this is changed.
+     * <p/>
+     * Defaults to <code>false</code>.
+     */
+    public final boolean analyticsLogStoreEnabled;
+
     /**
      * Minimum delta in milliseconds between analytics uploads when
      * adding location events while in the background.
@@ -222,6 +230,7 @@ public class AirshipConfigOptions {
         this.whitelist = builder.whitelist;
         this.inProduction = builder.inProduction;
         this.analyticsEnabled = builder.analyticsEnabled;
+        this.analyticsLogStoreEnabled = builder.analyticsLogStoreEnabled;
         this.backgroundReportingIntervalMS = builder.backgroundReportingIntervalMS;
         this.clearNamedUser = builder.clearNamedUser;
         this.developmentLogLevel = builder.developmentLogLevel;
@@ -301,6 +310,7 @@ public class AirshipConfigOptions {
         private static final String FIELD_WHITELIST = "whitelist";
         private static final String FIELD_IN_PRODUCTION = "inProduction";
         private static final String FIELD_ANALYTICS_ENABLED = "analyticsEnabled";
+        private static final String FIELD_ANALYTICS_LOG_STORE_ENABLED = "analyticsLogStoreEnabled";
         private static final String FIELD_BACKGROUND_REPORTING_INTERVAL_MS = "backgroundReportingIntervalMS";
         private static final String FIELD_CLEAR_NAMED_USER = "clearNamedUser";
         private static final String FIELD_DEVELOPMENT_LOG_LEVEL = "developmentLogLevel";
@@ -324,6 +334,7 @@ public class AirshipConfigOptions {
         private String[] whitelist = null;
         private boolean inProduction = false;
         private boolean analyticsEnabled = true;
+        private boolean analyticsLogStoreEnabled = false;
         private long backgroundReportingIntervalMS = 15 * 60 * 1000;
         private boolean clearNamedUser = false;
         private int developmentLogLevel = DEFAULT_DEVELOPMENT_LOG_LEVEL;
@@ -484,6 +495,10 @@ public class AirshipConfigOptions {
                             this.setAnalyticsEnabled(configParser.getBoolean(i));
                             break;
 
+                        case FIELD_ANALYTICS_LOG_STORE_ENABLED:
+                            this.setAnalyticsLogStoreEnabled(configParser.getBoolean(i));
+                            break;
+
                         case FIELD_BACKGROUND_REPORTING_INTERVAL_MS:
                             this.setBackgroundReportingIntervalMS(configParser.getLong(i));
                             break;
@@ -689,6 +704,18 @@ public class AirshipConfigOptions {
             return this;
         }
 
+        /**
+         * Set the flag indicating whether analytic events are stored in append-only log files
+         * instead of a SQLite database.
+         *
+         * @param analyticsLogStoreEnabled The flag indicating whether to use the log store.
+         * @return The config options builder.
+         */
+        public Builder setAnalyticsLogStoreEnabled(boolean analyticsLogStoreEnabled) {
+            this.analyticsLogStoreEnabled = analyticsLogStoreEnabled;
+            return this;
+        }
+
         /**
          * Set the background reporting interval.
          *
@@ -15,6 +15,8 @@ import android.support.v4.content.WakefulBroadcastReceiver;
 
 import com.urbanairship.job.Job;
 import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.metrics.Metrics;
+import com.urbanairship.metrics.Span;
 import com.urbanairship.util.UAStringUtil;
 
 import java.util.HashMap;
@@ -158,10 +160,32 @@ public class AirshipService extends Service {
         }
 
         runningJobs++;
+        final long queuedNanos = System.nanoTime();
         executor.execute(new Runnable() {
             @Override
             public void run() {
-                int result = component.onPerformJob(airship, job);
+                String metricSuffix = Metrics.isEnabled() ? component.getClass().getSimpleName() : "";
+                Metrics.record(Metrics.JOB_QUEUE_WAIT, metricSuffix, (System.nanoTime() - queuedNanos) / 1000);
+
+                Span span = Metrics.startSpan(Metrics.JOB_RUN, metricSuffix);
+                int result;
+                try {
+                    result = component.onPerformJob(airship, job);
+                } finally {
+                    span.end();
+                }
+
+                if (result == Job.JOB_PENDING) {
+                    // Keep the service running until the job's background work finishes
+                    job.setFinishCallback(new Runnable() {
+                        @Override
+                        public void run() {
+                            handler.sendMessage(msg);
+                        }
+                    });
+                    return;
+                }
+
                 if (result == Job.JOB_RETRY) {
 
                     long backOff = delay;
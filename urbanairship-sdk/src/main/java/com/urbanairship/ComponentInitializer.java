@@ -0,0 +1,389 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs named initialization tasks that declare dependencies on each other. Tasks whose
+ * dependencies are satisfied run in parallel on the executor, and {@link #run()} blocks until
+ * every non-deferred task has finished. Deferred tasks are held back until {@link #runDeferred()}
+ * is called and then run in dependency order on a single executor thread, until they finish or
+ * {@link #cancelDeferred()} is called.
+ */
+class ComponentInitializer {
+
+    private static final ThreadLocal<Boolean> initializerThread = new ThreadLocal<>();
+
+    private final Executor executor;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+
+    private CountDownLatch latch;
+    private RuntimeException error;
+
+    private volatile boolean deferredCancelled;
+    private CountDownLatch deferredLatch;
+
+    /**
+     * Default constructor.
+     *
+     * @param executor The executor used to run the tasks.
+     */
+    ComponentInitializer(@NonNull Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Checks if the current thread is running a non-deferred initializer task.
+     *
+     * @return {@code true} if the current thread is running an initializer task, otherwise {@code false}.
+     */
+    static boolean isInitializerThread() {
+        return Boolean.TRUE.equals(initializerThread.get());
+    }
+
+    /**
+     * Adds a task that has to finish before {@link #run()} returns.
+     *
+     * @param name The task name.
+     * @param task The task.
+     * @param dependencies Names of the tasks that have to finish first.
+     * @return The component initializer.
+     */
+    @NonNull
+    ComponentInitializer add(@NonNull String name, @NonNull Runnable task, String... dependencies) {
+        return add(name, task, false, dependencies);
+    }
+
+    /**
+     * Adds a task that only runs once {@link #runDeferred()} is called.
+     *
+     * @param name The task name.
+     * @param task The task.
+     * @param dependencies Names of the tasks that have to finish first.
+     * @return The component initializer.
+     */
+    @NonNull
+    ComponentInitializer addDeferred(@NonNull String name, @NonNull Runnable task, String... dependencies) {
+        return add(name, task, true, dependencies);
+    }
+
+    /**
+     * Runs all the non-deferred tasks and blocks until they are finished.
+     *
+     * @throws IllegalStateException if a dependency is missing or the dependencies contain a cycle.
+     * @throws RuntimeException the first exception thrown by a task.
+     */
+    void run() {
+        List<Node> ready = new ArrayList<>();
+        int count = 0;
+
+        synchronized (this) {
+            validate();
+
+            for (Node node : nodes.values()) {
+                if (node.deferred) {
+                    continue;
+                }
+
+                count++;
+                node.pending = node.dependencies.size();
+                if (node.pending == 0) {
+                    ready.add(node);
+                }
+            }
+
+            latch = new CountDownLatch(count);
+        }
+
+        for (Node node : ready) {
+            submit(node);
+        }
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Runs the deferred tasks in dependency order on the executor. Should be called after {@link #run()}.
+     */
+    void runDeferred() {
+        final List<Node> deferred = new ArrayList<>();
+        for (Node node : sort()) {
+            if (node.deferred) {
+                deferred.add(node);
+            }
+        }
+
+        if (deferred.isEmpty()) {
+            return;
+        }
+
+        final CountDownLatch finished = new CountDownLatch(1);
+        synchronized (this) {
+            deferredLatch = finished;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (Node node : deferred) {
+                        if (deferredCancelled) {
+                            Logger.debug("ComponentInitializer - Deferred tasks canceled before %s.", node.name);
+                            break;
+                        }
+
+                        try {
+                            perform(node);
+                        } catch (RuntimeException e) {
+                            Logger.error("ComponentInitializer - Deferred task %s failed.", node.name, e);
+                        }
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels the deferred tasks that have not started yet and blocks until the running deferred
+     * task, if any, finishes. Must not be called while holding a lock the deferred tasks need.
+     */
+    void cancelDeferred() {
+        deferredCancelled = true;
+
+        CountDownLatch finished;
+        synchronized (this) {
+            finished = deferredLatch;
+        }
+
+        if (finished == null) {
+            return;
+        }
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the run time of each finished task in milliseconds, in the order the tasks finished.
+     *
+     * @return A map of task name to run time in milliseconds.
+     */
+    @NonNull
+    Map<String, Long> getTimings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+
+    private ComponentInitializer add(String name, Runnable task, boolean deferred, String[] dependencies) {
+        synchronized (this) {
+            if (nodes.containsKey(name)) {
+                throw new IllegalArgumentException("Duplicate initializer task: " + name);
+            }
+
+            Node node = new Node(name, task, deferred);
+            Collections.addAll(node.dependencies, dependencies);
+            nodes.put(name, node);
+        }
+
+        return this;
+    }
+
+    /**
+     * Submits a task to the executor.
+     *
+     * @param node The task node.
+     */
+    private void submit(final Node node) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                initializerThread.set(true);
+                try {
+                    perform(node);
+                } catch (RuntimeException e) {
+                    synchronized (ComponentInitializer.this) {
+                        if (error == null) {
+                            error = e;
+                        }
+                    }
+                } finally {
+                    initializerThread.remove();
+                }
+
+                onFinished(node);
+            }
+        });
+    }
+
+    /**
+     * Runs the task and records its timing.
+     *
+     * @param node The task node.
+     */
+    private void perform(Node node) {
+        long start = System.nanoTime();
+        node.task.run();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        timings.put(node.name, millis);
+        Logger.debug("ComponentInitializer - %s finished in %s ms.", node.name, millis);
+    }
+
+    /**
+     * Called when a non-deferred task finishes. Submits any dependent tasks that are now ready.
+     *
+     * @param finished The finished task node.
+     */
+    private void onFinished(Node finished) {
+        List<Node> ready = new ArrayList<>();
+
+        synchronized (this) {
+            for (Node node : nodes.values()) {
+                if (!node.deferred && node.dependencies.contains(finished.name)) {
+                    node.pending--;
+                    if (node.pending == 0) {
+                        ready.add(node);
+                    }
+                }
+            }
+        }
+
+        latch.countDown();
+
+        for (Node node : ready) {
+            submit(node);
+        }
+    }
+
+    /**
+     * Validates the dependencies.
+     *
+     * @throws IllegalStateException if a dependency is missing, if a non-deferred task depends on
+     * a deferred task, or if the dependencies contain a cycle.
+     */
+    private void validate() {
+        for (Node node : nodes.values()) {
+            for (String dependency : node.dependencies) {
+                Node dependencyNode = nodes.get(dependency);
+                if (dependencyNode == null) {
+                    throw new IllegalStateException("Task " + node.name + " depends on missing task " + dependency);
+                }
+
+                if (dependencyNode.deferred && !node.deferred) {
+                    throw new IllegalStateException("Task " + node.name + " depends on deferred task " + dependency);
+                }
+            }
+        }
+
+        sort();
+    }
+
+    /**
+     * Sorts the tasks so every task comes after its dependencies.
+     *
+     * @return The sorted tasks.
+     * @throws IllegalStateException if the dependencies contain a cycle.
+     */
+    private List<Node> sort() {
+        List<Node> sorted = new ArrayList<>();
+        List<Node> remaining;
+
+        synchronized (this) {
+            remaining = new ArrayList<>(nodes.values());
+        }
+
+        while (!remaining.isEmpty()) {
+            boolean progress = false;
+
+            for (int i = 0; i < remaining.size(); i++) {
+                Node node = remaining.get(i);
+                if (containsAll(sorted, node.dependencies)) {
+                    sorted.add(node);
+                    remaining.remove(i);
+                    i--;
+                    progress = true;
+                }
+            }
+
+            if (!progress) {
+                throw new IllegalStateException("Initializer tasks contain a dependency cycle.");
+            }
+        }
+
+        return sorted;
+    }
+
+    private static boolean containsAll(List<Node> nodes, List<String> names) {
+        for (String name : names) {
+            boolean found = false;
+            for (Node node : nodes) {
+                if (node.name.equals(name)) {
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static class Node {
+        final String name;
+        final Runnable task;
+        final boolean deferred;
+        final List<String> dependencies = new ArrayList<>();
+        int pending;
+
+        Node(String name, Runnable task, boolean deferred) {
+            this.name = name;
+            this.task = task;
+            this.deferred = deferred;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.urbanairship.push.PushMessage;
 import com.urbanairship.push.iam.InAppMessage;
 import com.urbanairship.push.iam.InAppMessageManager;
 import com.urbanairship.push.iam.ResolutionEvent;
+import com.urbanairship.util.NotificationIdGenerator;
 import com.urbanairship.util.UAStringUtil;
 
 
@@ -99,6 +100,9 @@ public class CoreReceiver extends BroadcastReceiver {
 
         Logger.info("Notification opened ID: " + notificationId);
 
+        // Notifications are auto canceled when opened
+        NotificationIdGenerator.release(notificationId);
+
         // ConversionId needs to be the send id and not the push id, naming is hard.
         UAirship.shared().getAnalytics().setConversionSendId(message.getSendId());
 
@@ -154,6 +158,7 @@ public class CoreReceiver extends BroadcastReceiver {
 
         // Dismiss the notification
         NotificationManagerCompat.from(context).cancel(notificationId);
+        NotificationIdGenerator.release(notificationId);
 
         // Add the interactive notification event
         InteractiveNotificationEvent event = new InteractiveNotificationEvent(message, notificationActionId, description, isForegroundAction, remoteInput);
@@ -188,7 +193,7 @@ public class CoreReceiver extends BroadcastReceiver {
         int notificationId = intent.getIntExtra(PushManager.EXTRA_NOTIFICATION_ID, -1);
 
         Logger.info("Notification dismissed ID: " + notificationId);
-
+        NotificationIdGenerator.release(notificationId);
 
         PendingIntent deleteIntent = (PendingIntent) intent.getExtras().get(PushManager.EXTRA_NOTIFICATION_DELETE_INTENT);
         if (deleteIntent != null) {
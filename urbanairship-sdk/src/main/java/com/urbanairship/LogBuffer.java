@@ -0,0 +1,157 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed size ring buffer of recent log messages. Once the buffer is full, the oldest message is
+ * replaced by the newest one.
+ * <p/>
+ * Set a buffer with {@link Logger#setLogBuffer(LogBuffer)} to record messages for diagnostics,
+ * for example to attach to a support request. Messages logged with the format methods, such as
+ * {@link Logger#debug(String, Object...)}, are stored with their arguments and only formatted
+ * when the messages are read.
+ */
+public class LogBuffer {
+
+    private final Entry[] entries;
+    private final int logLevel;
+    private int next;
+    private int count;
+
+    /**
+     * Default constructor.
+     *
+     * @param capacity The max number of messages to keep.
+     * @param logLevel The minimum log level to record, as defined by <code>android.util.Log</code>.
+     * @throws IllegalArgumentException if the capacity is less than 1.
+     */
+    public LogBuffer(int capacity, int logLevel) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than 0.");
+        }
+
+        this.entries = new Entry[capacity];
+        this.logLevel = logLevel;
+    }
+
+    /**
+     * Gets the minimum log level that is recorded.
+     *
+     * @return The log level.
+     */
+    public int getLogLevel() {
+        return logLevel;
+    }
+
+    /**
+     * Adds a message to the buffer.
+     *
+     * @param priority The message priority.
+     * @param message The message.
+     * @param throwable An optional exception.
+     */
+    void add(int priority, @NonNull String message, @Nullable Throwable throwable) {
+        add(new Entry(System.currentTimeMillis(), priority, message, null, throwable));
+    }
+
+    /**
+     * Adds an unformatted message to the buffer. The message is formatted when it is read.
+     *
+     * @param priority The message priority.
+     * @param format The message format.
+     * @param args The format arguments.
+     * @param throwable An optional exception.
+     */
+    void addFormat(int priority, @NonNull String format, @Nullable Object[] args, @Nullable Throwable throwable) {
+        add(new Entry(System.currentTimeMillis(), priority, format, args, throwable));
+    }
+
+    private synchronized void add(@NonNull Entry entry) {
+        entries[next] = entry;
+        next = (next + 1) % entries.length;
+        count = Math.min(count + 1, entries.length);
+    }
+
+    /**
+     * Gets the recorded messages, oldest first. Each message is prefixed with its time and
+     * priority and followed by the exception's stack trace if it has one.
+     *
+     * @return The recorded messages.
+     */
+    @NonNull
+    public synchronized List<String> getMessages() {
+        List<String> messages = new ArrayList<>(count);
+        int start = (next - count + entries.length) % entries.length;
+        for (int i = 0; i < count; i++) {
+            messages.add(entries[(start + i) % entries.length].toString());
+        }
+
+        return messages;
+    }
+
+    /**
+     * Clears the recorded messages.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+
+        next = 0;
+        count = 0;
+    }
+
+    /**
+     * A recorded message. Formatting is deferred until the messages are read.
+     */
+    private static class Entry {
+        final long time;
+        final int priority;
+        final String message;
+        final Object[] args;
+        final Throwable throwable;
+
+        Entry(long time, int priority, String message, Object[] args, Throwable throwable) {
+            this.time = time;
+            this.priority = priority;
+            this.message = message;
+            this.args = args;
+            this.throwable = throwable;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(time).append(' ').append(priorityName(priority)).append(' ').append(Logger.format(message, args));
+            if (throwable != null) {
+                builder.append('\n').append(Log.getStackTraceString(throwable));
+            }
+
+            return builder.toString();
+        }
+
+        private static String priorityName(int priority) {
+            switch (priority) {
+                case Log.VERBOSE:
+                    return "V";
+                case Log.DEBUG:
+                    return "D";
+                case Log.INFO:
+                    return "I";
+                case Log.WARN:
+                    return "W";
+                case Log.ERROR:
+                    return "E";
+                default:
+                    return "A";
+            }
+        }
+    }
+}
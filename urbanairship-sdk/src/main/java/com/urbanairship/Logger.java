@@ -2,14 +2,26 @@
 
 package com.urbanairship;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
 import com.urbanairship.util.UAStringUtil;
 
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+
 /**
  * Shared logging wrapper for all Urban Airship log entries.
  * This class serves to consolidate the tag and log level in a
  * single location.
+ * <p/>
+ * The format methods, such as {@link #debug(String, Object...)}, only format the message if it
+ * will be logged, so building log messages costs nothing when the log level is disabled.
+ * If the last format argument is a {@link Throwable}, it is logged as the message's exception.
+ * Messages can also be recorded in a {@link LogBuffer} for diagnostics. Messages that are only
+ * recorded are stored unformatted and formatted when the buffer is read.
  *
  * @author Urban Airship
  * @see android.util.Log
@@ -28,6 +40,11 @@ public class Logger {
      */
     public static String TAG = "UALib";
 
+    /**
+     * Optional buffer that records recent log messages.
+     */
+    private static volatile LogBuffer logBuffer;
+
     /**
      * Private, unused constructor
      */
@@ -42,6 +59,10 @@ public class Logger {
         if (logLevel <= Log.WARN && s != null) {
             Log.w(TAG, s);
         }
+
+        if (s != null) {
+            record(Log.WARN, s, null);
+        }
     }
 
     /**
@@ -54,6 +75,10 @@ public class Logger {
         if (logLevel <= Log.WARN && s != null && t != null) {
             Log.w(TAG, s, t);
         }
+
+        if (s != null && t != null) {
+            record(Log.WARN, s, t);
+        }
     }
 
     /**
@@ -65,6 +90,10 @@ public class Logger {
         if (logLevel <= Log.WARN && t != null) {
             Log.w(TAG, t);
         }
+
+        if (t != null) {
+            record(Log.WARN, "", t);
+        }
     }
 
     /**
@@ -76,6 +105,10 @@ public class Logger {
         if (logLevel <= Log.VERBOSE && s != null) {
             Log.v(TAG, s);
         }
+
+        if (s != null) {
+            record(Log.VERBOSE, s, null);
+        }
     }
 
     /**
@@ -87,6 +120,10 @@ public class Logger {
         if (logLevel <= Log.DEBUG && s != null) {
             Log.d(TAG, s);
         }
+
+        if (s != null) {
+            record(Log.DEBUG, s, null);
+        }
     }
 
     /**
@@ -99,6 +136,10 @@ public class Logger {
         if (logLevel <= Log.DEBUG && s != null && t != null) {
             Log.d(TAG, s, t);
         }
+
+        if (s != null && t != null) {
+            record(Log.DEBUG, s, t);
+        }
     }
 
     /**
@@ -110,6 +151,10 @@ public class Logger {
         if (logLevel <= Log.INFO && s != null) {
             Log.i(TAG, s);
         }
+
+        if (s != null) {
+            record(Log.INFO, s, null);
+        }
     }
 
     /**
@@ -122,6 +167,10 @@ public class Logger {
         if (logLevel <= Log.INFO && s != null && t != null) {
             Log.i(TAG, s, t);
         }
+
+        if (s != null && t != null) {
+            record(Log.INFO, s, t);
+        }
     }
 
     /**
@@ -133,6 +182,10 @@ public class Logger {
         if (logLevel <= Log.ERROR && s != null) {
             Log.e(TAG, s);
         }
+
+        if (s != null) {
+            record(Log.ERROR, s, null);
+        }
     }
 
     /**
@@ -144,6 +197,10 @@ public class Logger {
         if (logLevel <= Log.ERROR && t != null) {
             Log.e(TAG, "", t);
         }
+
+        if (t != null) {
+            record(Log.ERROR, "", t);
+        }
     }
 
     /**
@@ -156,6 +213,167 @@ public class Logger {
         if (logLevel <= Log.ERROR && s != null && t != null) {
             Log.e(TAG, s, t);
         }
+
+        if (s != null && t != null) {
+            record(Log.ERROR, s, t);
+        }
+    }
+
+    /**
+     * Send a verbose log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format, as defined by {@link String#format(String, Object...)}.
+     * @param args The format arguments.
+     */
+    public static void verbose(@NonNull String format, Object... args) {
+        log(Log.VERBOSE, format, args);
+    }
+
+    /**
+     * Send a debug log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format, as defined by {@link String#format(String, Object...)}.
+     * @param args The format arguments.
+     */
+    public static void debug(@NonNull String format, Object... args) {
+        log(Log.DEBUG, format, args);
+    }
+
+    /**
+     * Send an info log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format, as defined by {@link String#format(String, Object...)}.
+     * @param args The format arguments.
+     */
+    public static void info(@NonNull String format, Object... args) {
+        log(Log.INFO, format, args);
+    }
+
+    /**
+     * Send a warning log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format, as defined by {@link String#format(String, Object...)}.
+     * @param args The format arguments.
+     */
+    public static void warn(@NonNull String format, Object... args) {
+        log(Log.WARN, format, args);
+    }
+
+    /**
+     * Send an error log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format, as defined by {@link String#format(String, Object...)}.
+     * @param args The format arguments.
+     */
+    public static void error(@NonNull String format, Object... args) {
+        log(Log.ERROR, format, args);
+    }
+
+    /**
+     * Checks if a message with the given priority will be logged or recorded. Use this to guard
+     * expensive log message construction.
+     *
+     * @param priority The message priority, as defined by <code>android.util.Log</code>.
+     * @return <code>true</code> if the message will be logged or recorded, otherwise <code>false</code>.
+     */
+    public static boolean isLoggable(int priority) {
+        if (logLevel <= priority) {
+            return true;
+        }
+
+        LogBuffer buffer = logBuffer;
+        return buffer != null && buffer.getLogLevel() <= priority;
+    }
+
+    /**
+     * Sets the buffer that records recent log messages. The buffer records messages at or above
+     * its own log level, independent of {@link #logLevel}.
+     *
+     * @param buffer The log buffer, or <code>null</code> to stop recording.
+     */
+    public static void setLogBuffer(@Nullable LogBuffer buffer) {
+        logBuffer = buffer;
+    }
+
+    /**
+     * Gets the buffer that records recent log messages.
+     *
+     * @return The log buffer, or <code>null</code> if messages are not recorded.
+     */
+    @Nullable
+    public static LogBuffer getLogBuffer() {
+        return logBuffer;
+    }
+
+    /**
+     * Logs a format message. The message is formatted right away if it is sent to logcat,
+     * otherwise the buffer stores the format and arguments and formats them when it is read.
+     *
+     * @param priority The message priority.
+     * @param format The message format.
+     * @param args The format arguments. A trailing {@link Throwable} is logged as the exception.
+     */
+    private static void log(int priority, @NonNull String format, Object... args) {
+        if (!isLoggable(priority)) {
+            return;
+        }
+
+        Throwable t = null;
+        if (args != null && args.length > 0 && args[args.length - 1] instanceof Throwable) {
+            t = (Throwable) args[args.length - 1];
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+
+        if (logLevel <= priority) {
+            String message = format(format, args);
+            Log.println(priority, TAG, t == null ? message : message + '\n' + Log.getStackTraceString(t));
+            record(priority, message, t);
+            return;
+        }
+
+        LogBuffer buffer = logBuffer;
+        if (buffer != null && buffer.getLogLevel() <= priority) {
+            buffer.addFormat(priority, format, args, t);
+        }
+    }
+
+    /**
+     * Records a message in the log buffer if one is set.
+     *
+     * @param priority The message priority.
+     * @param message The message.
+     * @param t An optional exception.
+     */
+    private static void record(int priority, @NonNull String message, @Nullable Throwable t) {
+        LogBuffer buffer = logBuffer;
+        if (buffer != null && buffer.getLogLevel() <= priority) {
+            buffer.add(priority, message, t);
+        }
+    }
+
+    /**
+     * Formats a message.
+     *
+     * @param format The message format.
+     * @param args The format arguments.
+     * @return The formatted message, or the format and arguments if the format is invalid.
+     */
+    @NonNull
+    static String format(@NonNull String format, Object... args) {
+        if (args == null || args.length == 0) {
+            return format;
+        }
+
+        try {
+            return String.format(Locale.ROOT, format, args);
+        } catch (IllegalFormatException e) {
+            StringBuilder builder = new StringBuilder(format);
+            for (Object arg : args) {
+                builder.append(' ').append(arg);
+            }
+
+            return builder.toString();
+        }
     }
 
     /**
@@ -34,6 +34,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * UAirship manages the shared state for all Urban Airship
@@ -71,6 +73,11 @@ public class UAirship {
      */
     private static final String LIBRARY_VERSION_KEY = "com.urbanairship.application.device.LIBRARY_VERSION";
 
+    /**
+     * Number of threads used to construct and initialize the components during takeoff.
+     */
+    private static final int INIT_THREAD_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     private final static Object airshipLock = new Object();
     volatile static boolean isFlying = false;
     volatile static boolean isTakingOff = false;
@@ -104,6 +111,9 @@ public class UAirship {
     NamedUser namedUser;
     Automation automation;
 
+    // Runs the deferred component init after takeoff, canceled on land
+    private ComponentInitializer deferredInitializer;
+
     /**
      * Constructs an instance of UAirship.
      *
@@ -123,6 +133,15 @@ public class UAirship {
      */
     @NonNull
     public static UAirship shared() {
+        // Components initializing on the takeoff worker threads can not wait on the airship lock
+        // since it is held by the takeoff thread until initialization finishes. They get the
+        // instance before it is ready: every component is constructed, but only the components
+        // a task declares as dependencies are guaranteed to be initialized. Component constructors
+        // run before any component exists and must not call shared().
+        if (isFlying && ComponentInitializer.isInitializerThread()) {
+            return sharedAirship;
+        }
+
         synchronized (airshipLock) {
             if (!isTakingOff && !isFlying) {
                 throw new IllegalStateException("Take off must be called before shared()");
@@ -393,15 +412,27 @@ public class UAirship {
      * Cleans up and closes any connections or other resources.
      */
     public static void land() {
+        UAirship airship;
         synchronized (airshipLock) {
             if (!isTakingOff && !isFlying) {
                 return;
             }
 
-            application.unregisterActivityLifecycleCallbacks(ActivityMonitor.shared(application));
-
             // Block until takeoff is finished
-            UAirship airship = UAirship.shared();
+            airship = UAirship.shared();
+        }
+
+        // Stop the deferred init before tearing down. Waits outside of the lock since the deferred
+        // tasks may call shared().
+        airship.cancelDeferredInit();
+
+        synchronized (airshipLock) {
+            if (sharedAirship != airship) {
+                // Landed while waiting
+                return;
+            }
+
+            application.unregisterActivityLifecycleCallbacks(ActivityMonitor.shared(application));
 
             airship.tearDown();
 
@@ -558,24 +589,112 @@ public class UAirship {
         this.preferenceDataStore = new PreferenceDataStore(application);
         this.preferenceDataStore.init();
 
-        // Airship components
-        this.analytics = new Analytics(application, preferenceDataStore, airshipConfigOptions, getPlatformType(), ActivityMonitor.shared(application));
-        this.applicationMetrics = new ApplicationMetrics(application, preferenceDataStore, ActivityMonitor.shared(application));
-        this.inbox = new RichPushInbox(application, preferenceDataStore, ActivityMonitor.shared(application));
-        this.locationManager = new UALocationManager(application, preferenceDataStore, ActivityMonitor.shared(application));
-        this.inAppMessageManager = new InAppMessageManager(preferenceDataStore, ActivityMonitor.shared(application));
-        this.pushManager = new PushManager(application, preferenceDataStore, airshipConfigOptions);
-        this.namedUser = new NamedUser(application, preferenceDataStore);
-        this.channelCapture = new ChannelCapture(application, airshipConfigOptions, this.pushManager, ActivityMonitor.shared(application));
-        this.whitelist = Whitelist.createDefaultWhitelist(airshipConfigOptions);
-        this.actionRegistry = new ActionRegistry();
-        this.actionRegistry.registerDefaultActions();
-        this.messageCenter = new MessageCenter();
-        this.automation = new Automation(application, airshipConfigOptions, analytics, preferenceDataStore, ActivityMonitor.shared(application));
+        final ActivityMonitor activityMonitor = ActivityMonitor.shared(application);
+        ExecutorService executor = Executors.newFixedThreadPool(INIT_THREAD_COUNT);
 
-        for (AirshipComponent component : getComponents()) {
-            component.init();
-        }
+        // Airship components
+        ComponentInitializer constructors = new ComponentInitializer(executor)
+                .add("Analytics", new Runnable() {
+                    @Override
+                    public void run() {
+                        analytics = new Analytics(application, preferenceDataStore, airshipConfigOptions, getPlatformType(), activityMonitor);
+                    }
+                })
+                .add("ApplicationMetrics", new Runnable() {
+                    @Override
+                    public void run() {
+                        applicationMetrics = new ApplicationMetrics(application, preferenceDataStore, activityMonitor);
+                    }
+                })
+                .add("RichPushInbox", new Runnable() {
+                    @Override
+                    public void run() {
+                        inbox = new RichPushInbox(application, preferenceDataStore, activityMonitor);
+                    }
+                })
+                .add("UALocationManager", new Runnable() {
+                    @Override
+                    public void run() {
+                        locationManager = new UALocationManager(application, preferenceDataStore, activityMonitor);
+                    }
+                })
+                .add("InAppMessageManager", new Runnable() {
+                    @Override
+                    public void run() {
+                        inAppMessageManager = new InAppMessageManager(preferenceDataStore, activityMonitor);
+                    }
+                })
+                .add("PushManager", new Runnable() {
+                    @Override
+                    public void run() {
+                        pushManager = new PushManager(application, preferenceDataStore, airshipConfigOptions);
+                    }
+                })
+                .add("NamedUser", new Runnable() {
+                    @Override
+                    public void run() {
+                        namedUser = new NamedUser(application, preferenceDataStore);
+                    }
+                })
+                .add("ChannelCapture", new Runnable() {
+                    @Override
+                    public void run() {
+                        channelCapture = new ChannelCapture(application, airshipConfigOptions, pushManager, activityMonitor);
+                    }
+                }, "PushManager")
+                .add("Whitelist", new Runnable() {
+                    @Override
+                    public void run() {
+                        whitelist = Whitelist.createDefaultWhitelist(airshipConfigOptions);
+                    }
+                })
+                .add("ActionRegistry", new Runnable() {
+                    @Override
+                    public void run() {
+                        actionRegistry = new ActionRegistry();
+                        actionRegistry.registerDefaultActions();
+                    }
+                })
+                .add("MessageCenter", new Runnable() {
+                    @Override
+                    public void run() {
+                        messageCenter = new MessageCenter();
+                    }
+                })
+                .add("Automation", new Runnable() {
+                    @Override
+                    public void run() {
+                        automation = new Automation(application, airshipConfigOptions, analytics, preferenceDataStore, activityMonitor);
+                    }
+                }, "Analytics");
+
+        constructors.run();
+
+        // Components may look each other up through UAirship.shared() during init, so every
+        // component is constructed before any of them are initialized. Init registers the
+        // listeners so nothing is missed once airship is ready, the heavy work is deferred.
+        ComponentInitializer initializers = new ComponentInitializer(executor)
+                .add("Analytics", createInitTask(analytics))
+                .add("ApplicationMetrics", createInitTask(applicationMetrics))
+                .add("RichPushInbox", createInitTask(inbox))
+                .add("PushManager", createInitTask(pushManager))
+                .add("NamedUser", createInitTask(namedUser))
+                .add("ChannelCapture", createInitTask(channelCapture), "PushManager")
+                .add("InAppMessageManager", createInitTask(inAppMessageManager), "Analytics")
+                .add("UALocationManager", createInitTask(locationManager), "Analytics")
+                .add("MessageCenter", createInitTask(messageCenter), "RichPushInbox")
+                .add("Automation", createInitTask(automation), "Analytics")
+                .addDeferred("UALocationManager.deferred", createDeferredInitTask(locationManager), "UALocationManager")
+                .addDeferred("MessageCenter.deferred", createDeferredInitTask(messageCenter), "MessageCenter")
+                .addDeferred("Automation.deferred", createDeferredInitTask(automation), "Automation");
+
+        initializers.run();
+        initializers.runDeferred();
+        deferredInitializer = initializers;
+        executor.shutdown();
+
+        Logger.info("UAirship - Component construction timings (ms): %s", constructors.getTimings());
+        Logger.info("UAirship - Component init timings (ms): %s", initializers.getTimings());
 
         // Store the version
         String currentVersion = getVersion();
@@ -590,6 +709,45 @@ public class UAirship {
         this.preferenceDataStore.put(LIBRARY_VERSION_KEY, getVersion());
     }
 
+    /**
+     * Creates a task that initializes the component.
+     *
+     * @param component The component.
+     * @return The init task.
+     */
+    private static Runnable createInitTask(final AirshipComponent component) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                component.init();
+            }
+        };
+    }
+
+    /**
+     * Creates a task that runs the component's deferred init.
+     *
+     * @param component The component.
+     * @return The deferred init task.
+     */
+    private static Runnable createDeferredInitTask(final AirshipComponent component) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                component.initDeferred();
+            }
+        };
+    }
+
+    /**
+     * Cancels the deferred init tasks that have not started and waits for the running one.
+     */
+    private void cancelDeferredInit() {
+        if (deferredInitializer != null) {
+            deferredInitializer.cancelDeferred();
+        }
+    }
+
     /**
      * Tears down the UAirship instance.
      */
@@ -57,6 +57,11 @@ public final class UrbanAirshipProvider extends ContentProvider {
 
     private static String authorityString;
 
+    /**
+     * The provider instance running in this process, if any.
+     */
+    private static volatile UrbanAirshipProvider localProvider;
+
 
     /**
      * Creates the rich push content URI.
@@ -106,9 +111,43 @@ public final class UrbanAirshipProvider extends ContentProvider {
 
         UAirship.isMainProcess = true;
         ActivityMonitor.shared(getContext().getApplicationContext());
+
+        localProvider = this;
         return true;
     }
 
+    /**
+     * Gets the provider instance running in the current process. Callers in the same process
+     * can use it to access the data directly instead of going through the content resolver.
+     *
+     * @return The provider instance, or {@code null} if the provider runs in another process.
+     */
+    @Nullable
+    static UrbanAirshipProvider getLocalProvider() {
+        return localProvider;
+    }
+
+    /**
+     * Queries the provider from the current process. The cursor is not registered for content
+     * resolver notifications.
+     *
+     * @param uri The URI to query.
+     * @param projection The projection.
+     * @param selection The selection.
+     * @param selectionArgs The selection arguments.
+     * @param sortOrder The sort order.
+     * @return A cursor, or {@code null} if the query failed.
+     */
+    @Nullable
+    Cursor queryLocal(@NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        DatabaseModel model = getDatabaseModel(uri);
+        if (model == null || getContext() == null) {
+            return null;
+        }
+
+        return model.dataManager.query(model.table, projection, selection, selectionArgs, sortOrder);
+    }
+
     @Override
     public int delete(@NonNull Uri uri, String selection, String[] selectionArgs) {
         DatabaseModel model = getDatabaseModel(uri);
@@ -168,14 +207,8 @@ public final class UrbanAirshipProvider extends ContentProvider {
 
     @Override
     public Cursor query(@NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
-        DatabaseModel model = getDatabaseModel(uri);
-        if (model == null || getContext() == null) {
-            return null;
-        }
-
-        Cursor cursor = model.dataManager.query(model.table, projection, selection, selectionArgs, sortOrder);
-
-        if (cursor != null) {
+        Cursor cursor = queryLocal(uri, projection, selection, selectionArgs, sortOrder);
+        if (cursor != null && getContext() != null) {
             cursor.setNotificationUri(this.getContext().getContentResolver(), uri);
         }
 
@@ -2,19 +2,44 @@
 
 package com.urbanairship;
 
+import android.annotation.TargetApi;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Build;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * An ContentResolver wrapper used to access data from the
  * {@link com.urbanairship.UrbanAirshipProvider}.
+ * <p/>
+ * When the provider runs in the current process, data is accessed directly on the provider and
+ * change notifications are delivered to observers in this process without going through the
+ * content resolver. Changes are always broadcast through the content resolver for observers in
+ * other processes, tagged with the originating process so observers in this process that were
+ * already notified skip the duplicate.
  */
 public class UrbanAirshipResolver {
 
+    /**
+     * Observers registered in the current process.
+     */
+    private static final List<LocalObserver> localObservers = new ArrayList<>();
+
+    /**
+     * Query parameter added to the URIs broadcast through the content resolver after the
+     * observers in the originating process were notified directly.
+     */
+    private static final String ORIGIN_PROCESS_PARAMETER = "ua_origin_pid";
+
     private final Context context;
 
     public UrbanAirshipResolver(Context context) {
@@ -24,6 +49,11 @@ public class UrbanAirshipResolver {
     protected Cursor query(Uri uri, String[] projection, String whereClause, String[] whereArgs, String sortOrder) {
 
         try {
+            UrbanAirshipProvider provider = UrbanAirshipProvider.getLocalProvider();
+            if (provider != null) {
+                return provider.queryLocal(uri, projection, whereClause, whereArgs, sortOrder);
+            }
+
             return this.getResolver().query(uri, projection, whereClause, whereArgs, sortOrder);
         } catch (Exception e) {
             Logger.error("Failed to query the UrbanAirshipProvider.", e);
@@ -33,6 +63,11 @@ public class UrbanAirshipResolver {
 
     protected int delete(Uri uri, String whereClause, String[] whereArgs) {
         try {
+            UrbanAirshipProvider provider = UrbanAirshipProvider.getLocalProvider();
+            if (provider != null) {
+                return provider.delete(uri, whereClause, whereArgs);
+            }
+
             return this.getResolver().delete(uri, whereClause, whereArgs);
         } catch (Exception e) {
             Logger.error("Failed to perform a delete in UrbanAirshipProvider.", e);
@@ -42,6 +77,11 @@ public class UrbanAirshipResolver {
 
     protected int update(Uri uri, ContentValues values, String whereClause, String[] whereArgs) {
         try {
+            UrbanAirshipProvider provider = UrbanAirshipProvider.getLocalProvider();
+            if (provider != null) {
+                return provider.update(uri, values, whereClause, whereArgs);
+            }
+
             return this.getResolver().update(uri, values, whereClause, whereArgs);
         } catch (Exception e) {
             Logger.error("Failed to perform an update in UrbanAirshipProvider.", e);
@@ -51,6 +91,11 @@ public class UrbanAirshipResolver {
 
     protected Uri insert(Uri uri, ContentValues values) {
         try {
+            UrbanAirshipProvider provider = UrbanAirshipProvider.getLocalProvider();
+            if (provider != null) {
+                return provider.insert(uri, values);
+            }
+
             return this.getResolver().insert(uri, values);
         } catch (Exception e) {
             Logger.error("Failed to insert in UrbanAirshipProvider.", e);
@@ -60,6 +105,11 @@ public class UrbanAirshipResolver {
 
     protected int bulkInsert(Uri uri, ContentValues[] values) {
         try {
+            UrbanAirshipProvider provider = UrbanAirshipProvider.getLocalProvider();
+            if (provider != null) {
+                return provider.bulkInsert(uri, values);
+            }
+
             return this.getResolver().bulkInsert(uri, values);
         } catch (Exception e) {
             Logger.error("Failed to bulk insert in UrbanAirshipProvider.", e);
@@ -78,8 +128,14 @@ public class UrbanAirshipResolver {
      * @param observer The ContentObserver you want to alert when the supplied URI is updated.
      */
     public void registerContentObserver(Uri uri, boolean notifyForDescendants, ContentObserver observer) {
+        LocalObserver localObserver = new LocalObserver(uri, notifyForDescendants, observer);
+        synchronized (localObservers) {
+            localObservers.add(localObserver);
+        }
+
+        // Still register with the content resolver to receive changes made in other processes
         try {
-            this.getResolver().registerContentObserver(uri, notifyForDescendants, observer);
+            this.getResolver().registerContentObserver(uri, notifyForDescendants, localObserver.resolverObserver);
         } catch (IllegalArgumentException e) {
             Logger.warn("Unable to register content observer for uri: " + uri);
         }
@@ -91,12 +147,40 @@ public class UrbanAirshipResolver {
      * @param observer The ContentObserver you wish to unregister
      */
     public void unregisterContentObserver(ContentObserver observer) {
-        this.getResolver().unregisterContentObserver(observer);
+        List<LocalObserver> removed = new ArrayList<>();
+        synchronized (localObservers) {
+            for (int i = localObservers.size() - 1; i >= 0; i--) {
+                if (localObservers.get(i).observer == observer) {
+                    removed.add(localObservers.remove(i));
+                }
+            }
+        }
+
+        for (LocalObserver localObserver : removed) {
+            this.getResolver().unregisterContentObserver(localObserver.resolverObserver);
+        }
     }
 
+    /**
+     * Notifies registered observers that a row was updated.
+     *
+     * @param uri The URI that changed.
+     * @param observer The observer that originated the change, may be {@code null}.
+     */
     public void notifyChange(Uri uri, ContentObserver observer) {
+        Uri broadcastUri = uri;
+
+        if (UrbanAirshipProvider.getLocalProvider() != null) {
+            notifyLocalObservers(uri, observer);
+
+            // Tag the broadcast so the observers in this process ignore it
+            broadcastUri = uri.buildUpon()
+                              .appendQueryParameter(ORIGIN_PROCESS_PARAMETER, String.valueOf(Process.myPid()))
+                              .build();
+        }
+
         try {
-            this.getResolver().notifyChange(uri, observer);
+            this.getResolver().notifyChange(broadcastUri, getResolverObserver(observer));
         } catch (IllegalArgumentException ex) {
             Logger.warn("Unable to notify observers of change for uri: " + uri);
         }
@@ -104,8 +188,131 @@ public class UrbanAirshipResolver {
 
     // helpers
 
+    /**
+     * Notifies the observers registered in the current process.
+     *
+     * @param uri The URI that changed.
+     * @param originator The observer that originated the change, may be {@code null}.
+     */
+    private static void notifyLocalObservers(@NonNull Uri uri, @Nullable ContentObserver originator) {
+        List<LocalObserver> matches = new ArrayList<>();
+        synchronized (localObservers) {
+            for (LocalObserver localObserver : localObservers) {
+                if (localObserver.matches(uri)) {
+                    matches.add(localObserver);
+                }
+            }
+        }
+
+        for (LocalObserver localObserver : matches) {
+            ContentObserver observer = localObserver.observer;
+            boolean selfChange = observer == originator;
+            if (selfChange && !observer.deliverSelfNotifications()) {
+                continue;
+            }
+
+            observer.dispatchChange(selfChange);
+        }
+    }
+
+    /**
+     * Gets the observer registered with the content resolver for an observer in the current process.
+     *
+     * @param observer The observer.
+     * @return The observer registered with the content resolver, or {@code null} if the observer
+     * is not registered.
+     */
+    @Nullable
+    private static ContentObserver getResolverObserver(@Nullable ContentObserver observer) {
+        if (observer == null) {
+            return null;
+        }
+
+        synchronized (localObservers) {
+            for (LocalObserver localObserver : localObservers) {
+                if (localObserver.observer == observer) {
+                    return localObserver.resolverObserver;
+                }
+            }
+        }
+
+        return null;
+    }
+
     private ContentResolver getResolver() {
         return this.context.getContentResolver();
     }
 
+    /**
+     * An observer registered in the current process.
+     */
+    private static class LocalObserver {
+        final String uri;
+        final boolean notifyForDescendants;
+        final ContentObserver observer;
+        final ResolverObserver resolverObserver;
+
+        LocalObserver(Uri uri, boolean notifyForDescendants, ContentObserver observer) {
+            this.uri = uri.toString();
+            this.notifyForDescendants = notifyForDescendants;
+            this.observer = observer;
+            this.resolverObserver = new ResolverObserver(observer);
+        }
+
+        /**
+         * Checks if a change to the URI should be delivered to the observer, following the same
+         * rules as the content resolver.
+         *
+         * @param changedUri The URI that changed.
+         * @return {@code true} if the observer should be notified, otherwise {@code false}.
+         */
+        boolean matches(Uri changedUri) {
+            String changed = changedUri.toString();
+            if (changed.equals(uri)) {
+                return true;
+            }
+
+            // Changes to a URI notify the observers of its descendants
+            if (uri.startsWith(changed + "/")) {
+                return true;
+            }
+
+            return notifyForDescendants && changed.startsWith(uri + "/");
+        }
+    }
+
+    /**
+     * Observer registered with the content resolver on behalf of an observer in the current
+     * process. Forwards changes made in other processes and skips the changes broadcast from
+     * this process, since those were already delivered directly. The originating process is
+     * only known from API 16, older devices receive both notifications.
+     */
+    private static class ResolverObserver extends ContentObserver {
+        final ContentObserver observer;
+
+        ResolverObserver(ContentObserver observer) {
+            super(null);
+            this.observer = observer;
+        }
+
+        @Override
+        public boolean deliverSelfNotifications() {
+            return observer.deliverSelfNotifications();
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            observer.dispatchChange(selfChange);
+        }
+
+        @Override
+        @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+        public void onChange(boolean selfChange, Uri uri) {
+            if (uri != null && String.valueOf(Process.myPid()).equals(uri.getQueryParameter(ORIGIN_PROCESS_PARAMETER))) {
+                return;
+            }
+
+            observer.dispatchChange(selfChange, uri);
+        }
+    }
 }
@@ -100,11 +100,11 @@ public abstract class Action {
     final ActionResult run(@NonNull ActionArguments arguments) {
         try {
             if (!acceptsArguments(arguments)) {
-                Logger.debug("Action " + this + " is unable to accept arguments: " + arguments);
+                Logger.debug("Action %s is unable to accept arguments: %s", this, arguments);
                 return ActionResult.newEmptyResultWithStatus(ActionResult.STATUS_REJECTED_ARGUMENTS);
             }
 
-            Logger.info("Running action: " + this + " arguments: " + arguments);
+            Logger.info("Running action: %s arguments: %s", this, arguments);
             onStart(arguments);
             ActionResult result = perform(arguments);
 
@@ -0,0 +1,259 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.actions;
+
+import android.os.Bundle;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.urbanairship.Logger;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.UAStringUtil;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Dispatches actions in process.
+ * <p/>
+ * Each situation has a concurrency limit. Actions over the limit are queued and started as the
+ * running actions finish, so a payload with many actions does not start a thread per action.
+ * When too many actions are queued for a situation, callers on a worker thread without a looper
+ * are blocked until the queue drains. Callers on a looper thread are never blocked, since the
+ * action callbacks may need that thread to finish.
+ *
+ * @hide
+ */
+public class ActionDispatcher {
+
+    /**
+     * Default max number of actions that run at once per situation.
+     */
+    static final int DEFAULT_CONCURRENCY_LIMIT = 4;
+
+    /**
+     * Max number of push received actions that run at once.
+     */
+    static final int PUSH_RECEIVED_CONCURRENCY_LIMIT = 2;
+
+    /**
+     * Max number of queued actions per situation before worker thread callers are blocked.
+     */
+    static final int MAX_PENDING_ACTIONS = 32;
+
+    private static ActionDispatcher shared;
+
+    private final ActionRunRequestFactory actionRunRequestFactory;
+    private final Map<Integer, Lane> lanes = new HashMap<>();
+    private final Object lock = new Object();
+
+    /**
+     * Default constructor.
+     *
+     * @param actionRunRequestFactory The action request factory.
+     */
+    @VisibleForTesting
+    ActionDispatcher(@NonNull ActionRunRequestFactory actionRunRequestFactory) {
+        this.actionRunRequestFactory = actionRunRequestFactory;
+        setConcurrencyLimit(Action.SITUATION_PUSH_RECEIVED, PUSH_RECEIVED_CONCURRENCY_LIMIT);
+    }
+
+    /**
+     * Gets the shared action dispatcher.
+     *
+     * @return The shared action dispatcher.
+     */
+    @NonNull
+    public static synchronized ActionDispatcher shared() {
+        if (shared == null) {
+            shared = new ActionDispatcher(new ActionRunRequestFactory());
+        }
+
+        return shared;
+    }
+
+    /**
+     * Parses an actions payload into a map of action name to action values.
+     *
+     * @param actionsPayload The actions payload.
+     * @return The map of action name to action values. Empty if the payload is empty or invalid.
+     */
+    @NonNull
+    public static Map<String, ActionValue> parseActions(@Nullable String actionsPayload) {
+        Map<String, ActionValue> actions = new HashMap<>();
+
+        if (UAStringUtil.isEmpty(actionsPayload)) {
+            return actions;
+        }
+
+        try {
+            JsonMap actionsJson = JsonValue.parseString(actionsPayload).getMap();
+            if (actionsJson != null) {
+                for (Map.Entry<String, JsonValue> entry : actionsJson) {
+                    actions.put(entry.getKey(), new ActionValue(entry.getValue()));
+                }
+            }
+        } catch (JsonException e) {
+            Logger.error("Unable to parse action payload: %s", actionsPayload);
+        }
+
+        return actions;
+    }
+
+    /**
+     * Sets the max number of actions that run at once for a situation.
+     *
+     * @param situation The action situation.
+     * @param limit The max number of running actions.
+     * @throws IllegalArgumentException if the limit is less than 1.
+     */
+    public void setConcurrencyLimit(@Action.Situation int situation, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be greater than 0.");
+        }
+
+        synchronized (lock) {
+            getLane(situation).limit = limit;
+        }
+
+        startPendingActions(situation);
+    }
+
+    /**
+     * Dispatches actions.
+     *
+     * @param actions Map of action name to action values.
+     * @param situation The action situation.
+     * @param metadata The action metadata.
+     * @param callback Optional callback, called once for every action when it finishes.
+     */
+    public void dispatch(@NonNull Map<String, ActionValue> actions, @Action.Situation int situation,
+                         @Nullable Bundle metadata, @Nullable ActionCompletionCallback callback) {
+
+        boolean canBlock = Looper.myLooper() == null;
+
+        for (Map.Entry<String, ActionValue> entry : actions.entrySet()) {
+            PendingAction pendingAction = new PendingAction(actionRunRequestFactory.createActionRequest(entry.getKey())
+                                                                                   .setMetadata(metadata)
+                                                                                   .setValue(entry.getValue())
+                                                                                   .setSituation(situation), callback);
+
+            synchronized (lock) {
+                Lane lane = getLane(situation);
+                while (canBlock && lane.pending.size() >= MAX_PENDING_ACTIONS) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Logger.error("ActionDispatcher - Interrupted while waiting to dispatch actions.", e);
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+
+                lane.pending.add(pendingAction);
+            }
+
+            startPendingActions(situation);
+        }
+    }
+
+    /**
+     * Starts queued actions up to the situation's concurrency limit.
+     *
+     * @param situation The action situation.
+     */
+    private void startPendingActions(final int situation) {
+        while (true) {
+            final PendingAction pendingAction;
+            synchronized (lock) {
+                Lane lane = getLane(situation);
+                if (lane.running >= lane.limit || lane.pending.isEmpty()) {
+                    return;
+                }
+
+                pendingAction = lane.pending.poll();
+                lane.running++;
+                lock.notifyAll();
+            }
+
+            pendingAction.request.run(new ActionCompletionCallback() {
+                @Override
+                public void onFinish(@NonNull ActionArguments arguments, @NonNull ActionResult result) {
+                    synchronized (lock) {
+                        getLane(situation).running--;
+                    }
+
+                    if (pendingAction.callback != null) {
+                        pendingAction.callback.onFinish(arguments, result);
+                    }
+
+                    startPendingActions(situation);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the number of queued actions for a situation.
+     *
+     * @param situation The action situation.
+     * @return The number of queued actions.
+     */
+    @VisibleForTesting
+    int getPendingCount(@Action.Situation int situation) {
+        synchronized (lock) {
+            return getLane(situation).pending.size();
+        }
+    }
+
+    /**
+     * Gets the number of running actions for a situation.
+     *
+     * @param situation The action situation.
+     * @return The number of running actions.
+     */
+    @VisibleForTesting
+    int getRunningCount(@Action.Situation int situation) {
+        synchronized (lock) {
+            return getLane(situation).running;
+        }
+    }
+
+    private Lane getLane(int situation) {
+        Lane lane = lanes.get(situation);
+        if (lane == null) {
+            lane = new Lane();
+            lanes.put(situation, lane);
+        }
+
+        return lane;
+    }
+
+    /**
+     * Running and queued actions for a situation.
+     */
+    private static class Lane {
+        int limit = DEFAULT_CONCURRENCY_LIMIT;
+        int running;
+        final Queue<PendingAction> pending = new ArrayDeque<>();
+    }
+
+    /**
+     * A queued action.
+     */
+    private static class PendingAction {
+        final ActionRunRequest request;
+        final ActionCompletionCallback callback;
+
+        PendingAction(ActionRunRequest request, ActionCompletionCallback callback) {
+            this.request = request;
+            this.callback = callback;
+        }
+    }
+}
@@ -12,6 +12,8 @@ import android.support.annotation.WorkerThread;
 
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
+import com.urbanairship.metrics.Metrics;
+import com.urbanairship.metrics.Span;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -322,18 +324,41 @@ public class ActionRunRequest {
             if (entry == null) {
                 return ActionResult.newEmptyResultWithStatus(ActionResult.STATUS_ACTION_NOT_FOUND);
             } else if (entry.getPredicate() != null && !entry.getPredicate().apply(arguments)) {
-                Logger.info("Action " + actionName + " will not be run. Registry predicate rejected the arguments: " + arguments);
+                Logger.info("Action %s will not be run. Registry predicate rejected the arguments: %s", actionName, arguments);
                 return ActionResult.newEmptyResultWithStatus(ActionResult.STATUS_REJECTED_ARGUMENTS);
             } else {
-                return entry.getActionForSituation(situation).run(arguments);
+                return runAction(entry.getActionForSituation(situation), actionName, arguments);
             }
         } else if (action != null) {
-            return action.run(arguments);
+            return runAction(action, null, arguments);
         } else {
             return ActionResult.newEmptyResultWithStatus(ActionResult.STATUS_ACTION_NOT_FOUND);
         }
     }
 
+    /**
+     * Runs the action and records its run time.
+     *
+     * @param action The action.
+     * @param name The action name used for the run time metric, or {@code null} to use the
+     * action's class name.
+     * @param arguments The action arguments.
+     * @return The action's result.
+     */
+    @NonNull
+    private static ActionResult runAction(@NonNull Action action, @Nullable String name, ActionArguments arguments) {
+        if (name == null) {
+            name = Metrics.isEnabled() ? action.getClass().getSimpleName() : "";
+        }
+
+        Span span = Metrics.startSpan(Metrics.ACTION_RUN, name);
+        try {
+            return action.run(arguments);
+        } finally {
+            span.end();
+        }
+    }
+
     /**
      * Helper runnable for running the action request and retaining the result.
      */
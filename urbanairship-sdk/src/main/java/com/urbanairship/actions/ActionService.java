@@ -14,11 +14,8 @@ import android.support.annotation.VisibleForTesting;
 import com.urbanairship.Autopilot;
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
-import com.urbanairship.json.JsonException;
-import com.urbanairship.json.JsonMap;
-import com.urbanairship.json.JsonValue;
-import com.urbanairship.util.UAStringUtil;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -51,7 +48,7 @@ public class ActionService extends Service {
     // Number of currently running actions
     private int runningActions = 0;
 
-    private final ActionRunRequestFactory actionRunRequestFactory;
+    private final ActionDispatcher actionDispatcher;
 
     /**
      * ActionService constructor, allowing an injectable ActionRunRequestFactory instance.
@@ -60,14 +57,24 @@ public class ActionService extends Service {
      */
     @VisibleForTesting
     ActionService(ActionRunRequestFactory actionRunRequestFactory) {
-        this.actionRunRequestFactory = actionRunRequestFactory;
+        this(new ActionDispatcher(actionRunRequestFactory));
+    }
+
+    /**
+     * ActionService constructor, allowing an injectable ActionDispatcher instance.
+     *
+     * @param actionDispatcher The action dispatcher.
+     */
+    @VisibleForTesting
+    ActionService(ActionDispatcher actionDispatcher) {
+        this.actionDispatcher = actionDispatcher;
     }
 
     /**
      * Default ActionService constructor.
      */
     public ActionService() {
-        this(new ActionRunRequestFactory());
+        this(ActionDispatcher.shared());
     }
 
     @Override
@@ -87,7 +94,7 @@ public class ActionService extends Service {
         lastStartId = startId;
 
         if (intent != null && ACTION_RUN_ACTIONS.equals(intent.getAction())) {
-            Logger.verbose("ActionService - Received intent: " + intent.getAction() + " startId: " + startId);
+            Logger.verbose("ActionService - Received intent: %s startId: %d", intent.getAction(), startId);
             onRunActions(intent);
         }
 
@@ -112,21 +119,7 @@ public class ActionService extends Service {
      * @param metadata The action metadata.
      */
     public static void runActions(@NonNull Context context, @NonNull String actionsPayload, @Action.Situation int situation, @Nullable Bundle metadata) {
-        Bundle actions = createActionsBundle(actionsPayload);
-        if (actions.isEmpty()) {
-            return;
-        }
-
-        Intent intent = new Intent(ACTION_RUN_ACTIONS)
-                .setClass(context, ActionService.class)
-                .putExtra(EXTRA_ACTIONS_BUNDLE, actions)
-                .putExtra(EXTRA_SITUATION, situation);
-
-        if (metadata != null) {
-            intent.putExtra(EXTRA_METADATA, metadata);
-        }
-
-        context.startService(intent);
+        runActions(context, ActionDispatcher.parseActions(actionsPayload), situation, metadata);
     }
 
     /**
@@ -209,54 +202,25 @@ public class ActionService extends Service {
             return;
         }
 
+        Map<String, ActionValue> actionValues = new HashMap<>();
         for (String actionName : actions.keySet()) {
-            runningActions++;
-
-            // ActionCompletionCallback posts the runnable on the callers handle,
-            // so we don't have to worry about any threading issues.  onFinish
-            // can safely call stopSelf without worrying about any actions about to
-            // run.
-            actionRunRequestFactory.createActionRequest(actionName)
-                                   .setMetadata(metadata)
-                                   .setValue((ActionValue) actions.getParcelable(actionName))
-                                   .setSituation(situation)
-                                   .run(new ActionCompletionCallback() {
-                                       @Override
-                                       public void onFinish(@NonNull ActionArguments arguments, @NonNull ActionResult result) {
-                                           runningActions--;
-                                           if (runningActions == 0) {
-                                               stopSelf(lastStartId);
-                                           }
-                                       }
-                                   });
-        }
-    }
-
-
-    /**
-     * Creates a Bundle of action name to action values from an action payload.
-     *
-     * @param actionsPayload The action payload.
-     * @return A bundle of actions to run.
-     */
-    private static Bundle createActionsBundle(@NonNull String actionsPayload) {
-        Bundle actions = new Bundle();
-
-        if (UAStringUtil.isEmpty(actionsPayload)) {
-            return actions;
+            actionValues.put(actionName, (ActionValue) actions.getParcelable(actionName));
         }
 
-        try {
-            JsonMap actionsJson = JsonValue.parseString(actionsPayload).getMap();
-            if (actionsJson != null) {
-                for (Map.Entry<String, JsonValue> entry : actionsJson) {
-                    actions.putParcelable(entry.getKey(), new ActionValue(entry.getValue()));
+        runningActions += actionValues.size();
+
+        // ActionCompletionCallback posts the runnable on the callers handle,
+        // so we don't have to worry about any threading issues.  onFinish
+        // can safely call stopSelf without worrying about any actions about to
+        // run.
+        actionDispatcher.dispatch(actionValues, situation, metadata, new ActionCompletionCallback() {
+            @Override
+            public void onFinish(@NonNull ActionArguments arguments, @NonNull ActionResult result) {
+                runningActions--;
+                if (runningActions == 0) {
+                    stopSelf(lastStartId);
                 }
             }
-        } catch (JsonException e) {
-            Logger.error("Unable to parse action payload: " + actionsPayload);
-        }
-
-        return actions;
+        });
     }
 }
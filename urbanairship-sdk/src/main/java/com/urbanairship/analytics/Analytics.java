@@ -21,6 +21,7 @@ import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.json.JsonException;
 import com.urbanairship.location.LocationRequestOptions;
 import com.urbanairship.location.RegionEvent;
+import com.urbanairship.metrics.Metrics;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -165,7 +166,9 @@ public class Analytics extends AirshipComponent {
             Logger.error("Analytics - Failed to add event " + event.getType());
         }
 
-        Logger.verbose("Analytics - Adding event: " + event.getType());
+        Logger.verbose("Analytics - Adding event: %s", event.getType());
+        Metrics.increment(Metrics.EVENTS_ADDED, 1);
+
         Job addEventJob = Job.newBuilder(AnalyticsJobHandler.ACTION_ADD)
                              .setAirshipComponent(Analytics.class)
                              .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TYPE, event.getType())
@@ -478,6 +481,18 @@ public class Analytics extends AirshipComponent {
                                   .build());
     }
 
+    /**
+     * Called after another Airship request finishes so a pending event upload can be sent while
+     * the radio is still active instead of waking it up again later.
+     *
+     * @hide
+     */
+    public void onAirshipRequestFinished() {
+        jobDispatcher.dispatch(Job.newBuilder(AnalyticsJobHandler.ACTION_PIGGYBACK_SEND)
+                                  .setAirshipComponent(Analytics.class)
+                                  .build());
+    }
+
     /**
      * Adds an {@link AnalyticsListener} for analytics events.
      *
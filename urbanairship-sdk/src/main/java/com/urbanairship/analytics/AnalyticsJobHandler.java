@@ -16,9 +16,13 @@ import com.urbanairship.UAirship;
 import com.urbanairship.google.PlayServicesUtils;
 import com.urbanairship.job.Job;
 import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.metrics.Metrics;
+import com.urbanairship.util.Clock;
 import com.urbanairship.util.UAStringUtil;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -49,6 +53,11 @@ class AnalyticsJobHandler {
      */
     static final String ACTION_UPDATE_ADVERTISING_ID = "com.urbanairship.com.analytics.UPDATE_ADVERTISING_ID";
 
+    /**
+     * Intent action to send pending events early while the radio is active from another request.
+     */
+    static final String ACTION_PIGGYBACK_SEND = "com.urbanairship.analytics.PIGGYBACK_SEND";
+
     /**
      * Intent extra for the event's type.
      */
@@ -112,31 +121,55 @@ class AnalyticsJobHandler {
     private static final long LOW_PRIORITY_BATCH_DELAY = 30000; // 30s
 
     private final Context context;
-    private final EventDataManager dataManager;
+    private final EventStore dataManager;
     private final PreferenceDataStore preferenceDataStore;
     private final EventApiClient apiClient;
     private final UAirship airship;
     private final JobDispatcher dispatcher;
+    private final UploadPolicy uploadPolicy;
+    private final Clock clock;
     private boolean isScheduled;
+    private int failedUploadCount;
+    private long retryTime;
 
     AnalyticsJobHandler(Context context, UAirship airship, PreferenceDataStore preferenceDataStore) {
-        this(context, airship, preferenceDataStore, JobDispatcher.shared(context), new EventDataManager(context, airship.getAirshipConfigOptions().getAppKey()), new EventApiClient(context));
+        this(context, airship, preferenceDataStore, JobDispatcher.shared(context), createEventStore(context, airship),
+                new EventApiClient(context), new DefaultUploadPolicy(context), Clock.DEFAULT_CLOCK);
     }
 
     @VisibleForTesting
-    AnalyticsJobHandler(Context context, UAirship airship, PreferenceDataStore preferenceDataStore, JobDispatcher dispatcher, EventDataManager dataManager, EventApiClient apiClient) {
+    AnalyticsJobHandler(Context context, UAirship airship, PreferenceDataStore preferenceDataStore, JobDispatcher dispatcher, EventStore dataManager,
+                        EventApiClient apiClient, UploadPolicy uploadPolicy, Clock clock) {
         this.airship = airship;
         this.context = context;
         this.dataManager = dataManager;
         this.preferenceDataStore = preferenceDataStore;
         this.apiClient = apiClient;
         this.dispatcher = dispatcher;
+        this.uploadPolicy = uploadPolicy;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates the event store.
+     *
+     * @param context The application context.
+     * @param airship The airship instance.
+     * @return The event store selected by the config options.
+     */
+    private static EventStore createEventStore(Context context, UAirship airship) {
+        String appKey = airship.getAirshipConfigOptions().getAppKey();
+        if (airship.getAirshipConfigOptions().analyticsLogStoreEnabled) {
+            return new SegmentedEventStore(new File(context.getFilesDir(), SegmentedEventStore.DIRECTORY_PREFIX + appKey));
+        }
+
+        return new EventDataManager(context, appKey);
     }
 
     public
     @Job.JobResult
     int performJob(Job job) {
-        Logger.verbose("AnalyticsJobHandler - Received job with action: " + job.getAction());
+        Logger.verbose("AnalyticsJobHandler - Received job with action: %s", job.getAction());
 
         switch (job.getAction()) {
             case ACTION_DELETE_ALL:
@@ -148,6 +181,9 @@ class AnalyticsJobHandler {
             case ACTION_SEND:
                 return onUploadEvents();
 
+            case ACTION_PIGGYBACK_SEND:
+                return onPiggybackUpload();
+
             case ACTION_UPDATE_ADVERTISING_ID:
                 return onUpdateAdvertisingId();
 
@@ -250,41 +286,42 @@ class AnalyticsJobHandler {
 
         // Handle database max size exceeded
         if (dataManager.getDatabaseSize() > preferenceDataStore.getInt(MAX_TOTAL_DB_SIZE_KEY, EventResponse.MAX_TOTAL_DB_SIZE_BYTES)) {
-            Logger.info("Event database size exceeded. Deleting oldest session.");
-            String oldestSessionId = dataManager.getOldestSessionId();
-            if (oldestSessionId != null && oldestSessionId.length() > 0) {
-                dataManager.deleteSession(oldestSessionId);
-            }
+            Logger.info("Event database size exceeded. Deleting oldest events.");
+            dataManager.trimOldestEvents();
         }
 
         if (dataManager.insertEvent(eventType, eventData, eventId, sessionId, eventTimeStamp) <= 0) {
             Logger.error("AnalyticsJobHandler - Unable to insert event into database.");
         }
 
+        long delay;
         switch (priority) {
             case Event.HIGH_PRIORITY:
-                scheduleEventUpload(HIGH_PRIORITY_BATCH_DELAY);
+                delay = HIGH_PRIORITY_BATCH_DELAY;
                 break;
 
             case Event.NORMAL_PRIORITY:
-                scheduleEventUpload(Math.max(getNextSendDelay(), NORMAL_PRIORITY_BATCH_DELAY));
+                delay = Math.max(getNextSendDelay(), NORMAL_PRIORITY_BATCH_DELAY);
                 break;
 
             case Event.LOW_PRIORITY:
             default:
+                priority = Event.LOW_PRIORITY;
                 if (airship.getAnalytics().isAppInForeground()) {
-                    scheduleEventUpload(Math.max(getNextSendDelay(), LOW_PRIORITY_BATCH_DELAY));
+                    delay = Math.max(getNextSendDelay(), LOW_PRIORITY_BATCH_DELAY);
                 } else {
-                    long currentTime = System.currentTimeMillis();
+                    long currentTime = clock.currentTimeMillis();
                     long lastSendTime = preferenceDataStore.getLong(LAST_SEND_KEY, 0);
                     long sendDelta = currentTime - lastSendTime;
                     long throttleDelta = airship.getAirshipConfigOptions().backgroundReportingIntervalMS;
                     long minimumWait = Math.max(throttleDelta - sendDelta, getNextSendDelay());
-                    scheduleEventUpload(Math.max(minimumWait, LOW_PRIORITY_BATCH_DELAY));
+                    delay = Math.max(minimumWait, LOW_PRIORITY_BATCH_DELAY);
                 }
                 break;
         }
 
+        scheduleEventUpload(uploadPolicy.getUploadDelay(priority, delay));
+
         return Job.JOB_FINISHED;
     }
 
@@ -298,7 +335,7 @@ class AnalyticsJobHandler {
         isScheduled = false;
         dispatcher.cancel(ACTION_SEND);
 
-        preferenceDataStore.put(LAST_SEND_KEY, System.currentTimeMillis());
+        preferenceDataStore.put(LAST_SEND_KEY, clock.currentTimeMillis());
 
         final int eventCount = dataManager.getEventCount();
 
@@ -319,18 +356,26 @@ class AnalyticsJobHandler {
         final int avgSize = dataManager.getDatabaseSize() / eventCount;
 
         //pull enough events to fill a batch (roughly)
-        int batchEventCount = Math.min(MAX_BATCH_EVENT_COUNT, preferenceDataStore.getInt(MAX_BATCH_SIZE_KEY, EventResponse.MAX_BATCH_SIZE_BYTES) / avgSize);
-        Map<String, String> events = dataManager.getEvents(batchEventCount);
+        int maxBatchSize = preferenceDataStore.getInt(MAX_BATCH_SIZE_KEY, EventResponse.MAX_BATCH_SIZE_BYTES);
+        int batchEventCount = Math.min(MAX_BATCH_EVENT_COUNT, maxBatchSize / avgSize);
+        Map<String, String> events = limitBatchSize(dataManager.getEvents(batchEventCount), maxBatchSize);
 
         EventResponse response = apiClient.sendEvents(airship, events.values());
 
         if (response == null || response.getStatus() != 200) {
-            Logger.debug("Analytic events failed, retrying.");
-            isScheduled = true;
-            return Job.JOB_RETRY;
+            failedUploadCount++;
+            long retryDelay = uploadPolicy.getRetryDelay(failedUploadCount);
+            retryTime = clock.currentTimeMillis() + retryDelay;
+
+            Logger.debug("Analytic events failed, retrying in %sms.", retryDelay);
+            scheduleEventUpload(retryDelay);
+            return Job.JOB_FINISHED;
         }
 
         Logger.debug("Analytic events uploaded.");
+        Metrics.increment(Metrics.EVENTS_UPLOADED, events.size());
+        failedUploadCount = 0;
+        retryTime = 0;
         dataManager.deleteEvents(events.keySet());
 
         // Update preferences
@@ -346,6 +391,65 @@ class AnalyticsJobHandler {
         return Job.JOB_FINISHED;
     }
 
+    /**
+     * Limits a batch of events to the max batch size. Stored event sizes are compressed, so a
+     * batch estimated from them can hold more event data than the max batch size.
+     *
+     * @param events Map of event ID to event payload.
+     * @param maxBatchSize The max batch size in bytes.
+     * @return The events that fit in the batch. Contains at least one event if the events are
+     * not empty.
+     */
+    private static Map<String, String> limitBatchSize(Map<String, String> events, int maxBatchSize) {
+        int size = 0;
+        for (String payload : events.values()) {
+            size += payload.length();
+        }
+
+        if (size <= maxBatchSize) {
+            return events;
+        }
+
+        Map<String, String> batch = new LinkedHashMap<>();
+        size = 0;
+        for (Map.Entry<String, String> entry : events.entrySet()) {
+            int eventSize = entry.getValue().length();
+            if (!batch.isEmpty() && size + eventSize > maxBatchSize) {
+                break;
+            }
+
+            batch.put(entry.getKey(), entry.getValue());
+            size += eventSize;
+        }
+
+        return batch;
+    }
+
+    /**
+     * Uploads a pending batch early if another Airship request just woke up the radio.
+     *
+     * @return The job result.
+     */
+    @Job.JobResult
+    private int onPiggybackUpload() {
+        if (!isScheduled) {
+            return Job.JOB_FINISHED;
+        }
+
+        long now = clock.currentTimeMillis();
+        if (retryTime > now || getNextSendDelay() > 0) {
+            Logger.verbose("AnalyticsJobHandler - Unable to piggyback event upload, still waiting on the batch interval or a retry.");
+            return Job.JOB_FINISHED;
+        }
+
+        if (!uploadPolicy.canPiggyback()) {
+            return Job.JOB_FINISHED;
+        }
+
+        Logger.verbose("AnalyticsJobHandler - Piggybacking event upload on an active connection.");
+        return onUploadEvents();
+    }
+
     /**
      * Gets the next upload delay in milliseconds.
      *
@@ -353,7 +457,7 @@ class AnalyticsJobHandler {
      */
     private long getNextSendDelay() {
         long nextSendTime = preferenceDataStore.getLong(LAST_SEND_KEY, 0) + preferenceDataStore.getInt(MIN_BATCH_INTERVAL_KEY, EventResponse.MIN_BATCH_INTERVAL_MS);
-        return Math.max(nextSendTime - System.currentTimeMillis(), 0);
+        return Math.max(nextSendTime - clock.currentTimeMillis(), 0);
     }
 
     /**
@@ -361,15 +465,20 @@ class AnalyticsJobHandler {
      *
      * @param milliseconds The milliseconds from the current time to schedule the event upload.
      */
-    private void scheduleEventUpload(final long milliseconds) {
-        Logger.verbose("AnalyticsJobHandler - Requesting to schedule event upload with delay " + milliseconds + "ms.");
+    private void scheduleEventUpload(long milliseconds) {
+        long now = clock.currentTimeMillis();
+
+        // Never send before a pending retry
+        milliseconds = Math.max(milliseconds, retryTime - now);
+
+        Logger.verbose("AnalyticsJobHandler - Requesting to schedule event upload with delay %dms.", milliseconds);
 
-        long sendTime = System.currentTimeMillis() + milliseconds;
+        long sendTime = now + milliseconds;
         long previousScheduledTime = preferenceDataStore.getLong(SCHEDULED_SEND_TIME, 0);
 
         if (isScheduled) {
             // If its currently scheduled at an earlier time then skip rescheduling
-            if (previousScheduledTime <= sendTime && previousScheduledTime >= System.currentTimeMillis()) {
+            if (previousScheduledTime <= sendTime && previousScheduledTime >= now) {
                 Logger.verbose("AnalyticsJobHandler - Event upload already scheduled for an earlier time.");
                 return;
             }
@@ -378,7 +487,7 @@ class AnalyticsJobHandler {
             dispatcher.cancel(ACTION_SEND);
         }
 
-        Logger.verbose("AnalyticsJobHandler - Scheduling event uploads in " + milliseconds + "ms.");
+        Logger.verbose("AnalyticsJobHandler - Scheduling event uploads in %dms.", milliseconds);
 
         Job job = Job.newBuilder(ACTION_SEND)
                      .setAirshipComponent(Analytics.class)
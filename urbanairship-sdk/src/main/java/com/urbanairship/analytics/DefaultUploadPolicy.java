@@ -0,0 +1,178 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+import android.support.annotation.NonNull;
+import android.support.v4.net.ConnectivityManagerCompat;
+import android.telephony.TelephonyManager;
+
+import com.urbanairship.Logger;
+
+import java.util.Random;
+
+/**
+ * Default {@link UploadPolicy}. Holds off normal and low priority uploads on metered or poor
+ * networks and when the battery is low, and backs off exponentially with jitter after failures.
+ */
+class DefaultUploadPolicy implements UploadPolicy {
+
+    /**
+     * Min upload delay for normal and low priority events on a metered network.
+     */
+    static final long METERED_NETWORK_DELAY = 60000; // 1 minute
+
+    /**
+     * Min upload delay for normal and low priority events on a poor network or a low battery.
+     */
+    static final long DEFERRED_DELAY = 300000; // 5 minutes
+
+    /**
+     * Initial retry delay.
+     */
+    static final long INITIAL_RETRY_DELAY = 10000; // 10s
+
+    /**
+     * Max retry delay.
+     */
+    static final long MAX_RETRY_DELAY = 1280000; // ~21 minutes
+
+    /**
+     * Battery percent considered low when not charging.
+     */
+    private static final int LOW_BATTERY_PERCENT = 15;
+
+    private final Context context;
+    private final Random random;
+
+    /**
+     * Default constructor.
+     *
+     * @param context The application context.
+     */
+    DefaultUploadPolicy(@NonNull Context context) {
+        this(context, new Random());
+    }
+
+    /**
+     * Creates a DefaultUploadPolicy.
+     *
+     * @param context The application context.
+     * @param random Random used for the retry jitter.
+     */
+    DefaultUploadPolicy(@NonNull Context context, @NonNull Random random) {
+        this.context = context;
+        this.random = random;
+    }
+
+    @Override
+    public long getUploadDelay(@Event.Priority int priority, long delay) {
+        if (priority == Event.HIGH_PRIORITY) {
+            return delay;
+        }
+
+        if (isPoorNetwork() || isBatteryLow()) {
+            Logger.verbose("DefaultUploadPolicy - Poor network or low battery, deferring upload.");
+            return Math.max(delay, DEFERRED_DELAY);
+        }
+
+        if (isMeteredNetwork()) {
+            return Math.max(delay, METERED_NETWORK_DELAY);
+        }
+
+        return delay;
+    }
+
+    @Override
+    public long getRetryDelay(int failedAttempts) {
+        int exponent = Math.min(Math.max(failedAttempts - 1, 0), 7);
+        long delay = Math.min(INITIAL_RETRY_DELAY << exponent, MAX_RETRY_DELAY);
+
+        // Keep half the delay and randomize the rest so devices that failed together spread out
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * half);
+    }
+
+    @Override
+    public boolean canPiggyback() {
+        return !isBatteryLow() && !isPoorNetwork();
+    }
+
+    /**
+     * Checks if the active network is metered.
+     *
+     * @return {@code true} if the active network is metered, otherwise {@code false}.
+     */
+    boolean isMeteredNetwork() {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        return cm != null && ConnectivityManagerCompat.isActiveNetworkMetered(cm);
+    }
+
+    /**
+     * Checks if there is no network or the active network is a 2G cell connection.
+     *
+     * @return {@code true} if the network is poor, otherwise {@code false}.
+     */
+    boolean isPoorNetwork() {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) {
+            return false;
+        }
+
+        NetworkInfo info = cm.getActiveNetworkInfo();
+        if (info == null || !info.isConnected()) {
+            return true;
+        }
+
+        if (info.getType() != ConnectivityManager.TYPE_MOBILE) {
+            return false;
+        }
+
+        switch (info.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if the battery is low and not charging.
+     *
+     * @return {@code true} if the battery is low, otherwise {@code false}.
+     */
+    boolean isBatteryLow() {
+        Intent battery;
+        try {
+            battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        } catch (Exception e) {
+            Logger.debug("DefaultUploadPolicy - Unable to read battery status.", e);
+            return false;
+        }
+
+        if (battery == null) {
+            return false;
+        }
+
+        if (battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0) {
+            return false;
+        }
+
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if (level < 0 || scale <= 0) {
+            return false;
+        }
+
+        return level * 100 / scale <= LOW_BATTERY_PERCENT;
+    }
+}
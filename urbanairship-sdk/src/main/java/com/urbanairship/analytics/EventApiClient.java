@@ -16,18 +16,13 @@ import com.urbanairship.UAirship;
 import com.urbanairship.http.Request;
 import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
-import com.urbanairship.json.JsonException;
-import com.urbanairship.json.JsonList;
-import com.urbanairship.json.JsonValue;
 import com.urbanairship.util.ManifestUtils;
 import com.urbanairship.util.Network;
 import com.urbanairship.util.UAStringUtil;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
@@ -82,17 +77,7 @@ class EventApiClient {
             return null;
         }
 
-        List<JsonValue> eventJSON = new ArrayList<>();
-
-        for (String eventPayload : events) {
-            try {
-                eventJSON.add(JsonValue.parseString(eventPayload));
-            } catch (JsonException e) {
-                Logger.error("EventApiClient - Invalid eventPayload.", e);
-            }
-        }
-
-        String payload = new JsonList(eventJSON).toString();
+        String payload = buildPayload(events);
 
         String url = airship.getAirshipConfigOptions().analyticsServer + "warp9/";
         URL analyticsServerUrl = null;
@@ -158,17 +143,48 @@ class EventApiClient {
             request.setHeader("X-UA-Push-Address", channelID);
         }
 
-        Logger.debug("EventApiClient - Sending analytic events. Request:  " + request + " Events: " + events);
+        Logger.debug("EventApiClient - Sending analytic events. Request:  %s Events: %s", request, events);
 
         Response response = request.execute();
 
 
-        Logger.debug("EventApiClient - Analytic event send response: " + response);
+        Logger.debug("EventApiClient - Analytic event send response: %s", response);
 
 
         return response == null ? null : new EventResponse(response);
     }
 
+    /**
+     * Builds the request payload. The events are stored as serialized JSON objects, so they are
+     * joined into a JSON array as is instead of being parsed and serialized again.
+     *
+     * @param events The event payloads.
+     * @return The request payload.
+     */
+    private static String buildPayload(@NonNull Collection<String> events) {
+        int length = 2;
+        for (String eventPayload : events) {
+            length += eventPayload.length() + 1;
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+        builder.append('[');
+        for (String eventPayload : events) {
+            String trimmed = eventPayload.trim();
+            if (!trimmed.startsWith("{") || !trimmed.endsWith("}")) {
+                Logger.error("EventApiClient - Invalid eventPayload: %s", eventPayload);
+                continue;
+            }
+
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            builder.append(trimmed);
+        }
+
+        return builder.append(']').toString();
+    }
+
     /**
      * Gets the location permission for the app.
      *
@@ -0,0 +1,115 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.urbanairship.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses stored event payloads.
+ * <p/>
+ * Payloads are compressed with raw deflate and a preset dictionary of the keys and values that
+ * every event envelope repeats. Event payloads are small, so without the dictionary most of them
+ * would barely compress. The dictionary is part of the storage format and must never change,
+ * otherwise stored events can no longer be decoded.
+ */
+class EventCodec {
+
+    /**
+     * Preset dictionary. Deflate prefers matches closer to the end, so the most common strings
+     * are last.
+     */
+    private static final byte[] DICTIONARY = toBytes(
+            "\"install_attribution\"\"associate_identifiers\"\"interactive_notification_action\""
+                    + "\"button_group\":\"\"button_id\":\"\"button_description\":\"\"foreground\":\"true\""
+                    + "\"region_event\"\"location\"\"lat\":\"\"long\":\"\"requested_accuracy\":\""
+                    + "\"update_type\":\"\"provider\":\"\"h_accuracy\":\"\"v_accuracy\":\""
+                    + "\"screen_tracking\"\"screen\":\"\"previous_screen\":\"\"entered_time\":\"\"exited_time\":\""
+                    + "\"custom_event\"\"event_name\":\"\"event_value\":\"\"transaction\":\"\"properties\":{"
+                    + "\"interaction_id\":\"\"interaction_type\":\"\"conversion_send_id\":\"\"conversion_metadata\":\""
+                    + "\"push_arrived\"\"push_id\":\"\"metadata\":\"\"last_metadata\":\""
+                    + "\"app_background\"\"app_foreground\"\"notification_types\":[\"connection_type\":\"wifi\""
+                    + "\"connection_subtype\":\"\"carrier\":\"\"time_zone\":\"\"daylight_savings\":\"false\""
+                    + "\"os_version\":\"\"lib_version\":\"\"package_version\":\""
+                    + "{\"type\":\"\",\"event_id\":\"\",\"time\":\"\",\"data\":{\"session_id\":\"");
+
+    private static final int BUFFER_SIZE = 512;
+
+    /**
+     * Encodes an event payload.
+     *
+     * @param payload The event payload.
+     * @return The compressed payload.
+     */
+    @NonNull
+    static byte[] encode(@NonNull String payload) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(toBytes(payload));
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length());
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decodes an event payload.
+     *
+     * @param data The compressed payload.
+     * @return The event payload, or {@code null} if the data is corrupt.
+     */
+    @Nullable
+    static String decode(@NonNull byte[] data) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(data);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    Logger.error("EventCodec - Truncated event data.");
+                    return null;
+                }
+
+                out.write(buffer, 0, count);
+            }
+
+            return out.toString("UTF-8");
+        } catch (DataFormatException | UnsupportedEncodingException e) {
+            Logger.error("EventCodec - Unable to decode event data.", e);
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] toBytes(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+}
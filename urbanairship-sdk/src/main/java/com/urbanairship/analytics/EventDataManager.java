@@ -14,10 +14,14 @@ import com.urbanairship.Logger;
 import com.urbanairship.util.DataManager;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-class EventDataManager extends DataManager {
+/**
+ * Stores analytic events in a SQLite database.
+ */
+class EventDataManager extends DataManager implements EventStore {
 
     /**
      * The database that the provider uses as its underlying data store
@@ -61,7 +65,11 @@ class EventDataManager extends DataManager {
          */
         private static final String COLUMN_NAME_TIME = "time";
 
-        //serialized
+        /**
+         * Column name for the event payload
+         * <P>Type: BLOB (compressed with {@link EventCodec}), or TEXT for events stored by
+         * older versions of the SDK</P>
+         */
         private static final String COLUMN_NAME_DATA = "data";
 
         private static final String COLUMN_NAME_SESSION_ID = "session_id";
@@ -103,7 +111,13 @@ class EventDataManager extends DataManager {
     protected void bindValuesToSqliteStatement(@NonNull String table, @NonNull SQLiteStatement statement, @NonNull ContentValues values) {
         bind(statement, 1, values.getAsString(Events.COLUMN_NAME_TYPE));
         bind(statement, 2, values.getAsString(Events.COLUMN_NAME_EVENT_ID));
-        bind(statement, 3, values.getAsString(Events.COLUMN_NAME_DATA));
+        byte[] data = values.getAsByteArray(Events.COLUMN_NAME_DATA);
+        if (data == null) {
+            statement.bindNull(3);
+        } else {
+            statement.bindBlob(3, data);
+        }
+
         bind(statement, 4, values.getAsInteger(Events.COLUMN_NAME_TIME));
         bind(statement, 5, values.getAsString(Events.COLUMN_NAME_SESSION_ID));
         bind(statement, 6, values.getAsInteger(Events.COLUMN_NAME_EVENT_SIZE));
@@ -133,8 +147,9 @@ class EventDataManager extends DataManager {
      * @param count Number of events to return, starts from the oldest to the newest.
      * @return Map of event id to event data
      */
+    @Override
     @NonNull
-    Map<String, String> getEvents(int count) {
+    public Map<String, String> getEvents(int count) {
         HashMap<String, String> events = new HashMap<>(count);
 
         String[] columns = new String[] {
@@ -148,20 +163,51 @@ class EventDataManager extends DataManager {
             return events;
         }
 
+        Set<String> corruptEventIds = new HashSet<>();
+
         c.moveToFirst();
         while (!c.isAfterLast()) {
-            events.put(c.getString(0), c.getString(1));
+            String payload = readPayload(c, 1);
+            if (payload == null) {
+                corruptEventIds.add(c.getString(0));
+            } else {
+                events.put(c.getString(0), payload);
+            }
             c.moveToNext();
         }
         c.close();
 
+        // Events that can not be decoded will never be uploaded, delete them so they do not block
+        // the oldest first queue
+        if (!corruptEventIds.isEmpty()) {
+            Logger.error("EventDataManager - Deleting %s events that could not be decoded.", corruptEventIds.size());
+            deleteEvents(corruptEventIds);
+        }
+
         return events;
     }
 
+    /**
+     * Reads an event payload.
+     *
+     * @param cursor The cursor.
+     * @param index The data column index.
+     * @return The event payload, or {@code null} if it could not be decoded.
+     */
+    private static String readPayload(Cursor cursor, int index) {
+        // Events stored before payloads were compressed are plain text
+        if (cursor.getType(index) != Cursor.FIELD_TYPE_BLOB) {
+            return cursor.getString(index);
+        }
+
+        return EventCodec.decode(cursor.getBlob(index));
+    }
+
     /**
      * Deletes all events.
      */
-    void deleteAllEvents() {
+    @Override
+    public void deleteAllEvents() {
         delete(Events.TABLE_NAME, null, null);
     }
 
@@ -191,7 +237,8 @@ class EventDataManager extends DataManager {
      * @param eventIds Ids of the events to delete
      * @return <code>true</code> if any events where deleted, otherwise <code>false</code>
      */
-    boolean deleteEvents(Set<String> eventIds) {
+    @Override
+    public boolean deleteEvents(Set<String> eventIds) {
         if (eventIds == null || eventIds.size() == 0) {
             Logger.verbose("EventDataManager - Nothing to delete. Returning.");
             return false;
@@ -232,6 +279,17 @@ class EventDataManager extends DataManager {
         return false;
     }
 
+    /**
+     * Deletes the events of the oldest session.
+     */
+    @Override
+    public void trimOldestEvents() {
+        String oldestSessionId = getOldestSessionId();
+        if (oldestSessionId != null && oldestSessionId.length() > 0) {
+            deleteSession(oldestSessionId);
+        }
+    }
+
     /**
      * Gets the oldest session id in the
      * database
@@ -261,7 +319,8 @@ class EventDataManager extends DataManager {
      *
      * @return The current event count
      */
-    int getEventCount() {
+    @Override
+    public int getEventCount() {
         Integer result = null;
         String[] columns = new String[] { "COUNT(*) as _cnt" };
         Cursor cursor = query(Events.TABLE_NAME, columns, null, null, null, null);
@@ -281,11 +340,12 @@ class EventDataManager extends DataManager {
     }
 
     /**
-     * Returns the sum of the events data fields in bytes
+     * Returns the sum of the stored, compressed event data fields in bytes
      *
      * @return The current size of the database in bytes
      */
-    int getDatabaseSize() {
+    @Override
+    public int getDatabaseSize() {
         Integer result = null;
         String[] columns = new String[] { "SUM(" + Events.COLUMN_NAME_EVENT_SIZE + ") as _size" };
         Cursor cursor = query(Events.TABLE_NAME, columns, null, null, null, null);
@@ -305,14 +365,7 @@ class EventDataManager extends DataManager {
 
 
     /**
-     * Inserts an event into the database.
-     *
-     *
-     * @return Row Id of the event or -1 if the insert failed.
-     */
-
-    /**
-     * Inserts an event into the database.
+     * Inserts an event into the database. The event data is stored compressed.
      *
      * @param eventType The event type.
      * @param eventData The event data.
@@ -322,14 +375,16 @@ class EventDataManager extends DataManager {
      *
      * @return Row Id of the event or -1 if the insert failed.
      */
-    long insertEvent(String eventType, String eventData, String eventId, String sessionId, String eventTime) {
+    @Override
+    public long insertEvent(String eventType, String eventData, String eventId, String sessionId, String eventTime) {
         ContentValues values = new ContentValues();
         values.put(EventDataManager.Events.COLUMN_NAME_TYPE, eventType);
         values.put(EventDataManager.Events.COLUMN_NAME_EVENT_ID, eventId);
-        values.put(EventDataManager.Events.COLUMN_NAME_DATA, eventData);
+        byte[] data = EventCodec.encode(eventData);
+        values.put(EventDataManager.Events.COLUMN_NAME_DATA, data);
         values.put(EventDataManager.Events.COLUMN_NAME_TIME, eventTime);
         values.put(EventDataManager.Events.COLUMN_NAME_SESSION_ID, sessionId);
-        values.put(EventDataManager.Events.COLUMN_NAME_EVENT_SIZE, eventData.length());
+        values.put(EventDataManager.Events.COLUMN_NAME_EVENT_SIZE, data.length);
 
         return insert(Events.TABLE_NAME, values);
     }
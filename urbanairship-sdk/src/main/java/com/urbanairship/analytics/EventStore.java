@@ -0,0 +1,67 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores analytic events until they are uploaded.
+ */
+interface EventStore {
+
+    /**
+     * Inserts an event.
+     *
+     * @param eventType The event type.
+     * @param eventData The event data.
+     * @param eventId The event ID.
+     * @param sessionId The session ID.
+     * @param eventTime The time the event occurred.
+     * @return A positive ID for the stored event, or -1 if the insert failed.
+     */
+    long insertEvent(String eventType, String eventData, String eventId, String sessionId, String eventTime);
+
+    /**
+     * Gets the oldest events.
+     *
+     * @param count Number of events to return, starts from the oldest to the newest.
+     * @return Map of event ID to event data.
+     */
+    @NonNull
+    Map<String, String> getEvents(int count);
+
+    /**
+     * Deletes a set of events.
+     *
+     * @param eventIds IDs of the events to delete.
+     * @return <code>true</code> if any events were deleted, otherwise <code>false</code>.
+     */
+    boolean deleteEvents(Set<String> eventIds);
+
+    /**
+     * Deletes all events.
+     */
+    void deleteAllEvents();
+
+    /**
+     * Deletes the oldest events to make room for new ones once the store is over its max size.
+     */
+    void trimOldestEvents();
+
+    /**
+     * Gets the number of stored events.
+     *
+     * @return The event count, or -1 if the store could not be read.
+     */
+    int getEventCount();
+
+    /**
+     * Gets the size of the stored event data.
+     *
+     * @return The size in bytes, or -1 if the store could not be read.
+     */
+    int getDatabaseSize();
+}
@@ -0,0 +1,765 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.urbanairship.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Stores analytic events in append-only segment files.
+ * <p/>
+ * Events are uploaded oldest first, so the store is a log. New events are appended to the newest
+ * segment, batches are read from the head of the log, and uploaded events are consumed by moving
+ * the head forward. A segment file is deleted once the head moves past it, and trimming drops the
+ * oldest segment as a whole. Events that are deleted out of order are remembered until the head
+ * reaches them.
+ * <p/>
+ * Each record is the body length, a CRC32 of the body, and the body: the event ID, type, session
+ * ID, time and the data compressed with {@link EventCodec}. When the store is opened, each segment
+ * is truncated at its first incomplete or corrupt record, which drops a record torn by a crash.
+ * The head position and the out of order deletes are kept in a small index file.
+ * <p/>
+ * The store is opened lazily on first use, so it can be created on the main thread.
+ */
+class SegmentedEventStore implements EventStore {
+
+    /**
+     * Prefix of the store directory name. The directory name ends with the app key.
+     */
+    static final String DIRECTORY_PREFIX = "ua_analytics_log_";
+
+    /**
+     * Default segment size in bytes. A segment only grows past it if it holds a single record.
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_FILE = "index";
+    private static final String INDEX_TEMP_FILE = "index.tmp";
+    private static final int INDEX_VERSION = 1;
+
+    private final File directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Set<String> deletedEventIds = new HashSet<>();
+
+    private boolean isOpen;
+    private long headSequence;
+    private long headOffset;
+    private int eventCount;
+    private int dataSize;
+    private FileChannel writeChannel;
+    private ByteBuffer readBuffer;
+
+    /**
+     * Default constructor.
+     *
+     * @param directory The store directory.
+     */
+    SegmentedEventStore(@NonNull File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a store with a custom segment size.
+     *
+     * @param directory The store directory.
+     * @param segmentSize The segment size in bytes.
+     */
+    @VisibleForTesting
+    SegmentedEventStore(@NonNull File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public synchronized long insertEvent(String eventType, String eventData, String eventId, String sessionId, String eventTime) {
+        open();
+
+        byte[] data = EventCodec.encode(eventData);
+        byte[] record;
+        try {
+            record = encodeRecord(eventType, eventId, sessionId, eventTime, data);
+        } catch (IOException e) {
+            Logger.error("SegmentedEventStore - Unable to encode event.", e);
+            return -1;
+        }
+
+        if (record.length - HEADER_SIZE > MAX_RECORD_SIZE) {
+            Logger.error("SegmentedEventStore - Event %s is too large to store.", eventId);
+            return -1;
+        }
+
+        Segment segment = null;
+        try {
+            segment = getWritableSegment(record.length);
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                writeChannel.write(buffer);
+            }
+        } catch (IOException e) {
+            Logger.error("SegmentedEventStore - Unable to write event.", e);
+
+            // Drop any partial record so the next append starts at a record boundary
+            if (segment != null && writeChannel != null) {
+                try {
+                    writeChannel.truncate(segment.size);
+                } catch (IOException truncateException) {
+                    Logger.error("SegmentedEventStore - Unable to truncate segment.", truncateException);
+                }
+            }
+
+            closeWriter();
+            return -1;
+        }
+
+        long position = segment.size;
+        segment.size += record.length;
+        eventCount++;
+        dataSize += data.length;
+
+        return position + 1;
+    }
+
+    @Override
+    @NonNull
+    public synchronized Map<String, String> getEvents(int count) {
+        open();
+
+        Map<String, String> events = new LinkedHashMap<>();
+        Set<String> corruptEventIds = new HashSet<>();
+
+        try {
+            LogReader reader = new LogReader();
+            Record record;
+            while (events.size() < count && (record = reader.next()) != null) {
+                if (deletedEventIds.contains(record.eventId)) {
+                    continue;
+                }
+
+                String payload = EventCodec.decode(record.data);
+                if (payload == null) {
+                    corruptEventIds.add(record.eventId);
+                } else {
+                    events.put(record.eventId, payload);
+                }
+            }
+        } catch (IOException e) {
+            Logger.error("SegmentedEventStore - Unable to read events.", e);
+        }
+
+        // Events that can not be decoded will never be uploaded, delete them so the head can move on
+        if (!corruptEventIds.isEmpty()) {
+            deleteEvents(corruptEventIds);
+        }
+
+        return events;
+    }
+
+    @Override
+    public synchronized boolean deleteEvents(Set<String> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            Logger.verbose("SegmentedEventStore - Nothing to delete. Returning.");
+            return false;
+        }
+
+        open();
+
+        Set<String> remaining = new HashSet<>(eventIds);
+        boolean atHead = true;
+        int deleted = 0;
+
+        try {
+            LogReader reader = new LogReader();
+            Record record;
+            while ((atHead || !remaining.isEmpty()) && (record = reader.next()) != null) {
+                boolean isDeleted = deletedEventIds.contains(record.eventId);
+                if (!isDeleted && remaining.remove(record.eventId)) {
+                    isDeleted = true;
+                    deleted++;
+                    eventCount--;
+                    dataSize -= record.data.length;
+
+                    if (!atHead) {
+                        deletedEventIds.add(record.eventId);
+                    }
+                }
+
+                if (atHead) {
+                    if (isDeleted) {
+                        deletedEventIds.remove(record.eventId);
+                        headSequence = reader.sequence;
+                        headOffset = reader.offset;
+                    } else {
+                        atHead = false;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Logger.error("SegmentedEventStore - Unable to delete events.", e);
+            count();
+        }
+
+        deleteConsumedSegments();
+        writeIndex();
+
+        return deleted > 0;
+    }
+
+    @Override
+    public synchronized void deleteAllEvents() {
+        open();
+        closeWriter();
+
+        for (Segment segment : segments) {
+            deleteFile(segment.file);
+        }
+
+        deleteFile(new File(directory, INDEX_FILE));
+
+        segments.clear();
+        deletedEventIds.clear();
+        headSequence = 0;
+        headOffset = 0;
+        eventCount = 0;
+        dataSize = 0;
+    }
+
+    /**
+     * Deletes the oldest segment.
+     */
+    @Override
+    public synchronized void trimOldestEvents() {
+        open();
+
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        Segment oldest = segments.remove(0);
+        if (segments.isEmpty()) {
+            closeWriter();
+            headSequence = oldest.sequence + 1;
+        } else {
+            headSequence = segments.get(0).sequence;
+        }
+
+        headOffset = 0;
+        deleteFile(oldest.file);
+        count();
+        writeIndex();
+    }
+
+    @Override
+    public synchronized int getEventCount() {
+        open();
+        return eventCount;
+    }
+
+    @Override
+    public synchronized int getDatabaseSize() {
+        open();
+        return dataSize;
+    }
+
+    /**
+     * Opens the store if it is not already open. Loads the index, recovers the segments and counts
+     * the stored events.
+     */
+    private void open() {
+        if (isOpen) {
+            return;
+        }
+
+        isOpen = true;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Logger.error("SegmentedEventStore - Unable to create directory %s.", directory);
+            return;
+        }
+
+        readIndex();
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (!name.endsWith(SEGMENT_SUFFIX)) {
+                    continue;
+                }
+
+                long sequence;
+                try {
+                    sequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+
+                // Segments before the head were consumed before they could be deleted
+                if (sequence < headSequence) {
+                    deleteFile(file);
+                    continue;
+                }
+
+                segments.add(new Segment(sequence, file));
+            }
+        }
+
+        Collections.sort(segments, new Comparator<Segment>() {
+            @Override
+            public int compare(Segment lhs, Segment rhs) {
+                return lhs.sequence < rhs.sequence ? -1 : (lhs.sequence == rhs.sequence ? 0 : 1);
+            }
+        });
+
+        for (Segment segment : segments) {
+            recover(segment);
+        }
+
+        if (segments.isEmpty() || segments.get(0).sequence != headSequence) {
+            headSequence = segments.isEmpty() ? headSequence : segments.get(0).sequence;
+            headOffset = 0;
+        } else {
+            headOffset = Math.min(headOffset, segments.get(0).size);
+        }
+
+        count();
+    }
+
+    /**
+     * Truncates a segment at its first incomplete or corrupt record.
+     *
+     * @param segment The segment.
+     */
+    private void recover(@NonNull Segment segment) {
+        segment.size = segment.file.length();
+
+        try {
+            ByteBuffer buffer = readSegment(segment, 0);
+            while (readRecord(buffer) != null) {
+                // Skip to the end of the valid records
+            }
+
+            int validSize = buffer.position();
+            if (validSize < segment.size) {
+                Logger.warn("SegmentedEventStore - Truncating %d bytes from segment %s.", segment.size - validSize, segment.file.getName());
+                RandomAccessFile file = new RandomAccessFile(segment.file, "rw");
+                try {
+                    file.getChannel().truncate(validSize);
+                } finally {
+                    closeQuietly(file);
+                }
+
+                segment.size = validSize;
+            }
+        } catch (IOException e) {
+            Logger.error("SegmentedEventStore - Unable to recover segment %s", segment.file.getName(), e);
+        }
+    }
+
+    /**
+     * Counts the stored events from the head and forgets out of order deletes for events that no
+     * longer exist.
+     */
+    private void count() {
+        eventCount = 0;
+        dataSize = 0;
+
+        Set<String> seenDeletedIds = new HashSet<>();
+        try {
+            LogReader reader = new LogReader();
+            Record record;
+            while ((record = reader.next()) != null) {
+                if (deletedEventIds.contains(record.eventId)) {
+                    seenDeletedIds.add(record.eventId);
+                } else {
+                    eventCount++;
+                    dataSize += record.data.length;
+                }
+            }
+        } catch (IOException e) {
+            Logger.error("SegmentedEventStore - Unable to count events.", e);
+            return;
+        }
+
+        deletedEventIds.retainAll(seenDeletedIds);
+    }
+
+    /**
+     * Deletes the segments the head has moved past.
+     */
+    private void deleteConsumedSegments() {
+        while (!segments.isEmpty()) {
+            Segment segment = segments.get(0);
+            boolean isConsumed = segment.sequence < headSequence
+                    || (segment.sequence == headSequence && headOffset >= segment.size);
+
+            if (!isConsumed) {
+                return;
+            }
+
+            segments.remove(0);
+            deleteFile(segment.file);
+
+            if (segment.sequence != headSequence) {
+                continue;
+            }
+
+            // The head segment was fully consumed, move the head to the start of the next one
+            if (segments.isEmpty()) {
+                closeWriter();
+                headSequence = segment.sequence + 1;
+            } else {
+                headSequence = segments.get(0).sequence;
+            }
+
+            headOffset = 0;
+        }
+    }
+
+    /**
+     * Gets the segment to append a record to, starting a new segment if the newest one is full.
+     *
+     * @param recordLength The record length in bytes.
+     * @return The segment.
+     * @throws IOException if the segment can not be opened.
+     */
+    private Segment getWritableSegment(int recordLength) throws IOException {
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+
+        if (segment == null || (segment.size > 0 && segment.size + recordLength > segmentSize)) {
+            closeWriter();
+
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create directory " + directory);
+            }
+
+            long sequence = segment == null ? headSequence : segment.sequence + 1;
+            segment = new Segment(sequence, new File(directory, String.format(Locale.US, "%016d%s", sequence, SEGMENT_SUFFIX)));
+            segments.add(segment);
+        }
+
+        if (writeChannel == null) {
+            writeChannel = new FileOutputStream(segment.file, true).getChannel();
+        }
+
+        return segment;
+    }
+
+    /**
+     * Closes the write channel.
+     */
+    private void closeWriter() {
+        closeQuietly(writeChannel);
+        writeChannel = null;
+    }
+
+    /**
+     * Reads a segment into the shared read buffer.
+     *
+     * @param segment The segment.
+     * @param start The offset to start reading from.
+     * @return The read buffer, positioned at the start offset's data.
+     * @throws IOException if the segment can not be read.
+     */
+    private ByteBuffer readSegment(@NonNull Segment segment, long start) throws IOException {
+        int length = (int) Math.max(0, segment.size - start);
+        if (readBuffer == null || readBuffer.capacity() < length) {
+            readBuffer = ByteBuffer.allocate(Math.max(length, segmentSize));
+        }
+
+        readBuffer.clear();
+        readBuffer.limit(length);
+
+        FileInputStream stream = new FileInputStream(segment.file);
+        try {
+            FileChannel channel = stream.getChannel();
+            long position = start;
+            while (readBuffer.hasRemaining()) {
+                int read = channel.read(readBuffer, position);
+                if (read < 0) {
+                    break;
+                }
+
+                position += read;
+            }
+        } finally {
+            closeQuietly(stream);
+        }
+
+        readBuffer.flip();
+        return readBuffer;
+    }
+
+    /**
+     * Loads the head position and the out of order deletes from the index file.
+     */
+    private void readIndex() {
+        File file = new File(directory, INDEX_FILE);
+        if (!file.exists()) {
+            return;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != INDEX_VERSION) {
+                Logger.warn("SegmentedEventStore - Ignoring index with an unknown version.");
+                return;
+            }
+
+            headSequence = in.readLong();
+            headOffset = in.readLong();
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                deletedEventIds.add(in.readUTF());
+            }
+        } catch (IOException e) {
+            // Starting from the oldest segment may upload events again, but none are lost
+            Logger.error("SegmentedEventStore - Unable to read index.", e);
+            headSequence = 0;
+            headOffset = 0;
+            deletedEventIds.clear();
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Writes the head position and the out of order deletes to the index file.
+     */
+    private void writeIndex() {
+        File temp = new File(directory, INDEX_TEMP_FILE);
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(headSequence);
+            out.writeLong(headOffset);
+            out.writeInt(deletedEventIds.size());
+            for (String eventId : deletedEventIds) {
+                out.writeUTF(eventId);
+            }
+            out.close();
+            out = null;
+
+            if (!temp.renameTo(new File(directory, INDEX_FILE))) {
+                Logger.error("SegmentedEventStore - Unable to replace index.");
+            }
+        } catch (IOException e) {
+            Logger.error("SegmentedEventStore - Unable to write index.", e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Encodes a record.
+     *
+     * @return The record, including the header.
+     * @throws IOException if the record can not be encoded.
+     */
+    private static byte[] encodeRecord(String eventType, String eventId, String sessionId, String eventTime, byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + data.length + 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        // Header placeholder
+        out.writeInt(0);
+        out.writeInt(0);
+
+        out.writeUTF(eventId);
+        out.writeUTF(eventType);
+        out.writeUTF(sessionId == null ? "" : sessionId);
+        out.writeUTF(eventTime);
+        out.writeInt(data.length);
+        out.write(data);
+        out.flush();
+
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        ByteBuffer.wrap(record).putInt(record.length - HEADER_SIZE).putInt((int) crc.getValue());
+
+        return record;
+    }
+
+    /**
+     * Reads a record from the buffer's position. The position is only moved past the record if it
+     * is complete and valid.
+     *
+     * @param buffer The buffer.
+     * @return The record, or {@code null} if the buffer does not start with a valid record.
+     */
+    @Nullable
+    private static Record readRecord(@NonNull ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+
+        int length = buffer.getInt(start);
+        int checksum = buffer.getInt(start + 4);
+        if (length <= 0 || length > MAX_RECORD_SIZE || buffer.remaining() - HEADER_SIZE < length) {
+            return null;
+        }
+
+        byte[] body = new byte[length];
+        buffer.position(start + HEADER_SIZE);
+        buffer.get(body);
+
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return null;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            String eventId = in.readUTF();
+
+            // Skip the type, session ID and time
+            in.readUTF();
+            in.readUTF();
+            in.readUTF();
+
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+
+            return new Record(eventId, data);
+        } catch (IOException | NegativeArraySizeException e) {
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    private static void deleteFile(@NonNull File file) {
+        if (file.exists() && !file.delete()) {
+            Logger.error("SegmentedEventStore - Unable to delete %s.", file);
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            Logger.debug("SegmentedEventStore - Failed to close: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads records in order starting from the head.
+     */
+    private class LogReader {
+
+        private int index = -1;
+        private ByteBuffer buffer;
+        private long start;
+
+        /**
+         * The sequence of the segment that holds the last record read.
+         */
+        long sequence;
+
+        /**
+         * The offset just past the last record read.
+         */
+        long offset;
+
+        /**
+         * Reads the next record.
+         *
+         * @return The next record, or {@code null} if there are no more records.
+         * @throws IOException if a segment can not be read.
+         */
+        @Nullable
+        Record next() throws IOException {
+            while (true) {
+                if (buffer != null) {
+                    Record record = readRecord(buffer);
+                    if (record != null) {
+                        offset = start + buffer.position();
+                        return record;
+                    }
+                }
+
+                index++;
+                if (index >= segments.size()) {
+                    return null;
+                }
+
+                Segment segment = segments.get(index);
+                if (segment.sequence < headSequence) {
+                    buffer = null;
+                    continue;
+                }
+
+                sequence = segment.sequence;
+                start = segment.sequence == headSequence ? headOffset : 0;
+                buffer = readSegment(segment, start);
+            }
+        }
+    }
+
+    /**
+     * A segment file.
+     */
+    private static class Segment {
+        final long sequence;
+        final File file;
+        long size;
+
+        Segment(long sequence, File file) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+    }
+
+    /**
+     * A stored event.
+     */
+    private static class Record {
+        final String eventId;
+        final byte[] data;
+
+        Record(String eventId, byte[] data) {
+            this.eventId = eventId;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+/**
+ * Decides when batches of analytic events are uploaded.
+ */
+interface UploadPolicy {
+
+    /**
+     * Adjusts the delay for an upload based on the current device conditions.
+     *
+     * @param priority The priority of the event that triggered the upload.
+     * @param delay The requested delay in milliseconds.
+     * @return The delay to use in milliseconds. Must be greater than or equal to the requested delay.
+     */
+    long getUploadDelay(@Event.Priority int priority, long delay);
+
+    /**
+     * Gets the delay before retrying a failed upload.
+     *
+     * @param failedAttempts The number of consecutive failed uploads.
+     * @return The delay in milliseconds.
+     */
+    long getRetryDelay(int failedAttempts);
+
+    /**
+     * Checks if a pending upload can be sent early because another request just used the radio.
+     *
+     * @return {@code true} if the upload can be sent now, otherwise {@code false}.
+     */
+    boolean canPiggyback();
+}
@@ -8,6 +8,7 @@ import android.os.Handler;
 import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import android.support.annotation.WorkerThread;
 
 import com.urbanairship.ActivityMonitor;
@@ -23,9 +24,12 @@ import com.urbanairship.actions.ActionRunRequest;
 import com.urbanairship.analytics.Analytics;
 import com.urbanairship.analytics.AnalyticsListener;
 import com.urbanairship.analytics.CustomEvent;
+import com.urbanairship.job.Job;
+import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.json.JsonSerializable;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.location.RegionEvent;
+import com.urbanairship.util.Clock;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -35,8 +39,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is the primary interface to the Urban Airship On Device Automation API. If accessed outside
@@ -46,6 +52,33 @@ public class Automation extends AirshipComponent {
 
     private static final String KEY_PREFIX = "com.urbanairship.automation";
     private static final String AUTOMATION_ENABLED_KEY = KEY_PREFIX + ".AUTOMATION_ENABLED";
+    private static final String NEXT_COMPACTION_TIME_KEY = KEY_PREFIX + ".NEXT_COMPACTION_TIME";
+
+    /**
+     * Job action to process the timers that are due.
+     */
+    static final String ACTION_PROCESS_TIMERS = KEY_PREFIX + ".ACTION_PROCESS_TIMERS";
+
+    /**
+     * Job action to remove expired and exhausted schedules.
+     */
+    static final String ACTION_COMPACT_SCHEDULES = KEY_PREFIX + ".ACTION_COMPACT_SCHEDULES";
+
+    /**
+     * Delay between schedule compactions in milliseconds.
+     */
+    static final long COMPACTION_INTERVAL_MS = 24 * 60 * 60 * 1000; // 1 day
+
+    /**
+     * Timer wheel resolution in milliseconds.
+     */
+    private static final long TIMER_TICK_MS = 1000;
+
+    /**
+     * Timer key prefixes for trigger deadlines and schedule end times.
+     */
+    private static final String TRIGGER_TIMER_PREFIX = "trigger:";
+    private static final String END_TIMER_PREFIX = "end:";
 
     private final AutomationDataManager dataManager;
     private final Executor eventProcessingExecutor = Executors.newSingleThreadExecutor();
@@ -54,13 +87,22 @@ public class Automation extends AirshipComponent {
     private final ActivityMonitor.Listener listener;
     private final Analytics analytics;
     private final ActivityMonitor activityMonitor;
+    private final JobDispatcher jobDispatcher;
+    private final Clock clock;
+
+    // Only accessed on the event processing executor
+    private final TimerWheel<String> timerWheel;
+    private final Map<String, Set<String>> triggerTimerKeys = new HashMap<>();
+    private long scheduledTimerDeadline = -1;
 
     private AnalyticsListener analyticsListener;
 
     private boolean automationEnabled = false;
 
+    private volatile long scheduleLimit = SCHEDULES_LIMIT;
+
     /**
-     * Automation schedules limit.
+     * Default automation schedules limit.
      */
     public static final long SCHEDULES_LIMIT = 1000;
 
@@ -75,14 +117,19 @@ public class Automation extends AirshipComponent {
     public Automation(@NonNull Context context, @NonNull AirshipConfigOptions configOptions,
                       @NonNull Analytics analytics, @NonNull PreferenceDataStore preferenceDataStore,
                       @NonNull ActivityMonitor activityMonitor) {
-        this(analytics, new AutomationDataManager(context, configOptions.getAppKey()), preferenceDataStore, activityMonitor);
+        this(analytics, new AutomationDataManager(context, configOptions.getAppKey()), preferenceDataStore, activityMonitor,
+                JobDispatcher.shared(context), Clock.DEFAULT_CLOCK);
     }
 
     Automation(@NonNull Analytics analytics, @NonNull AutomationDataManager dataManager,
-               @NonNull PreferenceDataStore preferenceDataStore, @NonNull ActivityMonitor activityMonitor) {
+               @NonNull PreferenceDataStore preferenceDataStore, @NonNull ActivityMonitor activityMonitor,
+               @NonNull JobDispatcher jobDispatcher, @NonNull Clock clock) {
         this.analytics = analytics;
         this.dataManager = dataManager;
         this.preferenceDataStore = preferenceDataStore;
+        this.jobDispatcher = jobDispatcher;
+        this.clock = clock;
+        this.timerWheel = new TimerWheel<>(TIMER_TICK_MS, clock.currentTimeMillis());
         this.listener = new ActivityMonitor.Listener() {
             @Override
             public void onForeground(long time) {
@@ -134,6 +181,51 @@ public class Automation extends AirshipComponent {
         automationEnabled = preferenceDataStore.getBoolean(AUTOMATION_ENABLED_KEY, false);
     }
 
+    @Override
+    protected void initDeferred() {
+        if (!UAirship.isMainProcess()) {
+            return;
+        }
+
+        if (automationEnabled) {
+            reloadTimers();
+            scheduleCompactionJob();
+        }
+    }
+
+    @Override
+    protected int onPerformJob(@NonNull UAirship airship, Job job) {
+        if (ACTION_COMPACT_SCHEDULES.equals(job.getAction())) {
+            compactSchedules();
+            preferenceDataStore.put(NEXT_COMPACTION_TIME_KEY, clock.currentTimeMillis() + COMPACTION_INTERVAL_MS);
+            scheduleCompactionJob();
+            return Job.JOB_FINISHED;
+        }
+
+        if (!ACTION_PROCESS_TIMERS.equals(job.getAction())) {
+            return Job.JOB_FINISHED;
+        }
+
+        // Wait for the timers so the process is kept alive until the actions are dispatched
+        final CountDownLatch latch = new CountDownLatch(1);
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                scheduledTimerDeadline = -1;
+                processTimers();
+                latch.countDown();
+            }
+        });
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Logger.error("Automation - Interrupted while processing timers.", e);
+        }
+
+        return Job.JOB_FINISHED;
+    }
+
     @Override
     protected void tearDown() {
         if (!UAirship.isMainProcess()) {
@@ -151,7 +243,7 @@ public class Automation extends AirshipComponent {
      * @return The scheduled {@link ActionSchedule} containing the relevant
      * {@link ActionScheduleInfo} and generated schedule ID. May return null
      * if the scheduling failed or the schedule count is greater than or equal
-     * to {@link #SCHEDULES_LIMIT}.
+     * to the {@link #getScheduleLimit()}.
      */
     @WorkerThread
     public ActionSchedule schedule(ActionScheduleInfo scheduleInfo) {
@@ -160,12 +252,12 @@ public class Automation extends AirshipComponent {
             return null;
         }
 
-        if (dataManager.getScheduleCount() >= SCHEDULES_LIMIT) {
+        if (!hasScheduleCapacity(1)) {
             Logger.error("AutomationDataManager - unable to insert schedule due to exceeded schedule limit.");
             return null;
         }
 
-        List<ActionSchedule> insertSchedules = dataManager.insertSchedules(Collections.singletonList(scheduleInfo));
+        List<ActionSchedule> insertSchedules = dataManager.insertSchedules(Collections.singletonList(scheduleInfo), clock.currentTimeMillis());
 
         if (insertSchedules.isEmpty()) {
             return null;
@@ -176,9 +268,11 @@ public class Automation extends AirshipComponent {
         if (!automationEnabled) {
             automationEnabled = true;
             preferenceDataStore.put(AUTOMATION_ENABLED_KEY, true);
+            scheduleCompactionJob();
         }
 
         Logger.debug("Automation - action schedule inserted: " + insertedSchedule);
+        addTimers(insertSchedules);
 
         return insertedSchedule;
     }
@@ -189,7 +283,7 @@ public class Automation extends AirshipComponent {
      * @param scheduleInfo The {@link ActionScheduleInfo} instance.
      * @param callback An {@link com.urbanairship.PendingResult.ResultCallback} implementation. The value
      * returned to {@link com.urbanairship.PendingResult.ResultCallback#onResult(Object)} may be null
-     * if the scheduling failed, the schedule count is greater than or equal to {@link #SCHEDULES_LIMIT},
+     * if the scheduling failed, the schedule count is greater than or equal to {@link #getScheduleLimit()},
      * or the scheduling was attempted off of the main process.
      */
     public void scheduleAsync(final ActionScheduleInfo scheduleInfo, @Nullable final PendingResult.ResultCallback<ActionSchedule> callback) {
@@ -217,7 +311,7 @@ public class Automation extends AirshipComponent {
      * @return The list of scheduled {@link ActionSchedule} instances, each containing the relevant
      * {@link ActionScheduleInfo} and generated schedule ID. May return {@link Collections#emptyList()}
      * if the scheduling failed or the schedule count is greater than or equal
-     * to {@link #SCHEDULES_LIMIT}.
+     * to {@link #getScheduleLimit()}.
      */
     @WorkerThread
     public List<ActionSchedule> schedule(List<ActionScheduleInfo> scheduleInfos) {
@@ -226,19 +320,21 @@ public class Automation extends AirshipComponent {
             return Collections.emptyList();
         }
 
-        if (dataManager.getScheduleCount() + scheduleInfos.size() >= SCHEDULES_LIMIT) {
+        if (!hasScheduleCapacity(scheduleInfos.size())) {
             Logger.error("AutomationDataManager - unable to insert schedule due to schedule exceeded limit.");
             return Collections.emptyList();
         }
 
-        List<ActionSchedule> actionSchedules = dataManager.insertSchedules(scheduleInfos);
+        List<ActionSchedule> actionSchedules = dataManager.insertSchedules(scheduleInfos, clock.currentTimeMillis());
         if (!actionSchedules.isEmpty()) {
             if (!automationEnabled) {
                 automationEnabled = true;
                 preferenceDataStore.put(AUTOMATION_ENABLED_KEY, true);
+                scheduleCompactionJob();
             }
 
             Logger.debug("Automation - action schedule inserted: " + actionSchedules);
+            addTimers(actionSchedules);
         }
 
         return actionSchedules;
@@ -252,7 +348,7 @@ public class Automation extends AirshipComponent {
      * @param callback An {@link com.urbanairship.PendingResult.ResultCallback} implementation. The value
      * returned to {@link com.urbanairship.PendingResult.ResultCallback#onResult(Object)} may be
      * {@link Collections#emptyList()} if the scheduling failed, the schedule count is greater than or equal
-     * to {@link #SCHEDULES_LIMIT}, or the scheduling was attempted off of the main process.
+     * to {@link #getScheduleLimit()}, or the scheduling was attempted off of the main process.
      */
     public void scheduleAsync(final List<ActionScheduleInfo> scheduleInfos, final PendingResult.ResultCallback<List<ActionSchedule>> callback) {
         final Looper looper = Looper.myLooper() != null ? Looper.myLooper() : Looper.getMainLooper();
@@ -272,6 +368,28 @@ public class Automation extends AirshipComponent {
         });
     }
 
+    /**
+     * Sets the maximum number of schedules that can be stored. Defaults to {@link #SCHEDULES_LIMIT}.
+     *
+     * @param scheduleLimit The schedule limit.
+     */
+    public void setScheduleLimit(long scheduleLimit) {
+        if (scheduleLimit <= 0) {
+            throw new IllegalArgumentException("Schedule limit must be greater than 0.");
+        }
+
+        this.scheduleLimit = scheduleLimit;
+    }
+
+    /**
+     * Gets the maximum number of schedules that can be stored.
+     *
+     * @return The schedule limit.
+     */
+    public long getScheduleLimit() {
+        return scheduleLimit;
+    }
+
     /**
      * Cancels a schedule for a given schedule ID.
      *
@@ -285,6 +403,7 @@ public class Automation extends AirshipComponent {
         }
 
         dataManager.deleteSchedule(id);
+        removeTimersAsync(Collections.singleton(id));
     }
 
     /**
@@ -319,6 +438,7 @@ public class Automation extends AirshipComponent {
         }
 
         dataManager.bulkDeleteSchedules(ids);
+        removeTimersAsync(new HashSet<>(ids));
     }
 
     /**
@@ -352,7 +472,9 @@ public class Automation extends AirshipComponent {
             return;
         }
 
+        Set<String> ids = dataManager.getScheduleIds(group);
         dataManager.deleteSchedules(group);
+        removeTimersAsync(ids);
     }
 
     /**
@@ -385,6 +507,7 @@ public class Automation extends AirshipComponent {
         }
 
         dataManager.deleteSchedules();
+        clearTimers();
     }
 
     /**
@@ -549,98 +672,468 @@ public class Automation extends AirshipComponent {
             return;
         }
 
-        Logger.debug("Automation - updating triggers with type: " + type);
+        Logger.debug("Automation - updating triggers with type: %s", type);
 
         eventProcessingExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                List<TriggerEntry> triggerEntries = dataManager.getTriggers(type);
+                processEvent(json, type, value);
+            }
+        });
+    }
 
-                if (triggerEntries.isEmpty()) {
-                    return;
+    /**
+     * Runs a task on the event processing executor and waits for it to finish. Lets tests call
+     * the event processing methods on the same thread they run on in production.
+     *
+     * @param runnable The task.
+     * @throws InterruptedException if interrupted while waiting for the task.
+     */
+    @VisibleForTesting
+    void runOnEventExecutor(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    latch.countDown();
                 }
+            }
+        });
 
-                List<String> triggersToIncrement = new ArrayList<>();
-                List<String> triggersToReset = new ArrayList<>();
-                // Schedule ID to triggers map
-                Map<String, String> triggerMap = new HashMap<>();
+        latch.await();
+    }
 
-                Set<String> schedulesToIncrement = new HashSet<>();
-                Set<String> schedulesToDelete = new HashSet<>();
-                Set<String> triggeredSchedules = new HashSet<>();
+    /**
+     * Updates the triggers of the given type for an event and runs any schedules whose triggers
+     * reached their goal. Must be called on the event processing executor.
+     *
+     * @param json The relevant event data.
+     * @param type The event type.
+     * @param value The trigger value to increment by.
+     */
+    @VisibleForTesting
+    @WorkerThread
+    void processEvent(JsonSerializable json, int type, double value) {
+        List<TriggerEntry> triggerEntries = dataManager.getTriggers(type);
 
-                for (TriggerEntry trigger : triggerEntries) {
-                    if ((json != null && (trigger.getPredicate() != null && !trigger.getPredicate().apply(json)))) {
-                        continue;
-                    }
+        if (triggerEntries.isEmpty()) {
+            return;
+        }
 
-                    double progress = trigger.getProgress() + value;
-                    if (progress >= trigger.getGoal()) {
-                        triggersToReset.add(trigger.getId());
-                        triggeredSchedules.add(trigger.getScheduleId());
-                    } else {
-                        triggersToIncrement.add(trigger.getId());
-                    }
+        List<String> triggersToIncrement = new ArrayList<>();
+        List<String> triggersToReset = new ArrayList<>();
+        // Schedule ID to triggers map
+        Map<String, String> triggerMap = new HashMap<>();
 
-                    triggerMap.put(trigger.getScheduleId(), trigger.getId());
-                }
+        Set<String> schedulesToIncrement = new HashSet<>();
+        Set<String> schedulesToDelete = new HashSet<>();
+        Set<String> triggeredSchedules = new HashSet<>();
 
-                if (!triggeredSchedules.isEmpty()) {
-                    List<ActionSchedule> scheduleEntries = dataManager.getSchedules(triggeredSchedules);
+        for (TriggerEntry trigger : triggerEntries) {
+            if ((json != null && (trigger.getPredicate() != null && !trigger.getPredicate().apply(json)))) {
+                continue;
+            }
 
-                    for (ActionSchedule schedule : scheduleEntries) {
-                        if (schedule.getInfo().getEnd() > 0 && schedule.getInfo().getEnd() < System.currentTimeMillis()) {
-                            schedulesToDelete.add(schedule.getId());
-                            continue;
-                        }
+            double progress = trigger.getProgress() + value;
+            if (progress >= trigger.getGoal()) {
+                triggersToReset.add(trigger.getId());
+                triggeredSchedules.add(trigger.getScheduleId());
+            } else {
+                triggersToIncrement.add(trigger.getId());
+            }
+
+            triggerMap.put(trigger.getScheduleId(), trigger.getId());
+        }
 
-                        Bundle metadata = new Bundle();
-                        metadata.putParcelable(ActionArguments.ACTION_SCHEDULE_METADATA, schedule);
+        runTriggeredSchedules(triggeredSchedules, schedulesToIncrement, schedulesToDelete);
 
-                        for (Map.Entry<String, JsonValue> entry : schedule.getInfo().getActions().entrySet()) {
-                            ActionRunRequest.createRequest(entry.getKey())
-                                            .setValue(entry.getValue())
-                                            .setSituation(Action.SITUATION_AUTOMATION)
-                                            .setMetadata(metadata)
-                                            .run();
-                        }
+        HashMap<String, List<String>> updatesMap = new HashMap<>();
+        updatesMap.put(AutomationDataManager.SCHEDULES_TO_DELETE_QUERY, new ArrayList<>(schedulesToDelete));
+        updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, new ArrayList<>(schedulesToIncrement));
+
+        // Don't need to waste DB time updating triggers if they'll be deleted in a schedule
+        // delete propagation.
+        List<String> triggersToDelete = new ArrayList<>();
+        for (String id : schedulesToDelete) {
+            triggersToDelete.add(triggerMap.get(id));
+        }
+
+        triggersToIncrement.removeAll(triggersToDelete);
+        triggersToReset.removeAll(triggersToDelete);
+
+        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, value), triggersToIncrement);
+        updatesMap.put(AutomationDataManager.TRIGGERS_TO_RESET_QUERY, triggersToReset);
 
-                        if (schedule.getCount() + 1 >= schedule.getInfo().getLimit()) {
-                            schedulesToDelete.add(schedule.getId());
-                        } else {
-                            schedulesToIncrement.add(schedule.getId());
+        Logger.debug("Automation - Retrieved %d triggers and %d schedules for event type %s", triggerEntries.size(), triggeredSchedules.size(), type);
+        Logger.debug("Automation - Incrementing %d schedules for event type %s", schedulesToIncrement.size(), type);
+        Logger.debug("Automation - Deleting %d schedules for event type %s", schedulesToDelete.size(), type);
+        Logger.debug("Automation - Updating values for %d triggers for event type %s", triggersToIncrement.size(), type);
+        Logger.debug("Automation - Resetting values for %d triggers for event type %s", triggersToReset.size(), type);
+
+        dataManager.updateLists(updatesMap);
+        removeTimers(schedulesToDelete);
+    }
+
+    /**
+     * Runs the actions for triggered schedules. Schedules that are past their end time or reached
+     * their limit are added to the delete set, the rest are added to the increment set.
+     *
+     * @param triggeredSchedules The triggered schedule IDs.
+     * @param schedulesToIncrement Set of schedule IDs to increment.
+     * @param schedulesToDelete Set of schedule IDs to delete.
+     */
+    @WorkerThread
+    private void runTriggeredSchedules(Set<String> triggeredSchedules, Set<String> schedulesToIncrement, Set<String> schedulesToDelete) {
+        if (triggeredSchedules.isEmpty()) {
+            return;
+        }
+
+        List<ActionSchedule> scheduleEntries = dataManager.getSchedules(triggeredSchedules);
+
+        for (ActionSchedule schedule : scheduleEntries) {
+            if (schedule.getInfo().getEnd() > 0 && schedule.getInfo().getEnd() < clock.currentTimeMillis()) {
+                schedulesToDelete.add(schedule.getId());
+                continue;
+            }
+
+            Bundle metadata = new Bundle();
+            metadata.putParcelable(ActionArguments.ACTION_SCHEDULE_METADATA, schedule);
+
+            for (Map.Entry<String, JsonValue> entry : schedule.getInfo().getActions().entrySet()) {
+                ActionRunRequest.createRequest(entry.getKey())
+                                .setValue(entry.getValue())
+                                .setSituation(Action.SITUATION_AUTOMATION)
+                                .setMetadata(metadata)
+                                .run();
+            }
+
+            if (schedule.getCount() + 1 >= schedule.getInfo().getLimit()) {
+                schedulesToDelete.add(schedule.getId());
+            } else {
+                schedulesToIncrement.add(schedule.getId());
+            }
+        }
+    }
+
+    /**
+     * Adds the trigger deadlines and end times of newly inserted schedules to the timer wheel.
+     *
+     * @param schedules The inserted schedules.
+     */
+    private void addTimers(final List<ActionSchedule> schedules) {
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Set<String> timeTriggerSchedules = new HashSet<>();
+                for (ActionSchedule schedule : schedules) {
+                    if (schedule.getInfo().getEnd() > 0) {
+                        timerWheel.add(END_TIMER_PREFIX + schedule.getId(), schedule.getInfo().getEnd(), schedule.getId());
+                    }
+
+                    for (Trigger trigger : schedule.getInfo().getTriggers()) {
+                        if (trigger.isTimeBased()) {
+                            timeTriggerSchedules.add(schedule.getId());
+                            break;
                         }
                     }
                 }
 
-                HashMap<String, List<String>> updatesMap = new HashMap<>();
-                updatesMap.put(AutomationDataManager.SCHEDULES_TO_DELETE_QUERY, new ArrayList<>(schedulesToDelete));
-                updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, new ArrayList<>(schedulesToIncrement));
+                if (!timeTriggerSchedules.isEmpty()) {
+                    for (TriggerEntry trigger : dataManager.getTimeTriggers(timeTriggerSchedules)) {
+                        addTriggerTimer(trigger, trigger.getDeadline());
+                    }
+                }
 
-                // Don't need to waste DB time updating triggers if they'll be deleted in a schedule
-                // delete propagation.
-                List<String> triggersToDelete = new ArrayList<>();
-                for (String id : schedulesToDelete) {
-                    triggersToDelete.add(triggerMap.get(id));
+                scheduleTimerJob();
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the timer wheel from the stored trigger deadlines and schedule end times.
+     */
+    private void reloadTimers() {
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                timerWheel.clear();
+                triggerTimerKeys.clear();
+
+                for (Map.Entry<String, Long> entry : dataManager.getScheduleEnds().entrySet()) {
+                    timerWheel.add(END_TIMER_PREFIX + entry.getKey(), entry.getValue(), entry.getKey());
+                }
+
+                for (TriggerEntry trigger : dataManager.getTimeTriggers()) {
+                    addTriggerTimer(trigger, trigger.getDeadline());
                 }
 
-                triggersToIncrement.removeAll(triggersToDelete);
-                triggersToReset.removeAll(triggersToDelete);
+                Logger.debug("Automation - Loaded %s timers.", timerWheel.size());
+                processTimers();
+            }
+        });
+    }
 
-                updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, value), triggersToIncrement);
-                updatesMap.put(AutomationDataManager.TRIGGERS_TO_RESET_QUERY, triggersToReset);
+    /**
+     * Adds a timer for a time based trigger and indexes it by the trigger's schedule ID.
+     *
+     * @param trigger The trigger.
+     * @param deadline The trigger deadline in milliseconds.
+     */
+    @WorkerThread
+    private void addTriggerTimer(TriggerEntry trigger, long deadline) {
+        String key = TRIGGER_TIMER_PREFIX + trigger.getId();
+        timerWheel.add(key, deadline, trigger.getScheduleId());
+
+        Set<String> keys = triggerTimerKeys.get(trigger.getScheduleId());
+        if (keys == null) {
+            keys = new HashSet<>();
+            triggerTimerKeys.put(trigger.getScheduleId(), keys);
+        }
 
-                Logger.debug("Automation - Retrieved " + triggerEntries.size() + " triggers and " + triggeredSchedules.size() + " schedules for event type " + type);
-                Logger.debug("Automation - Incrementing " + schedulesToIncrement.size() + " schedules for event type " + type);
-                Logger.debug("Automation - Deleting " + schedulesToDelete.size() + " schedules for event type " + type);
-                Logger.debug("Automation - Updating values for " + triggersToIncrement.size() + " triggers for event type " + type);
-                Logger.debug("Automation - Resetting values for " + triggersToReset.size() + " triggers for event type " + type);
+        keys.add(key);
+    }
 
-                dataManager.updateLists(updatesMap);
+    /**
+     * Removes the timers for deleted schedules on the event processing executor.
+     *
+     * @param scheduleIds The deleted schedule IDs.
+     */
+    private void removeTimersAsync(final Set<String> scheduleIds) {
+        if (scheduleIds.isEmpty()) {
+            return;
+        }
+
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                removeTimers(scheduleIds);
             }
         });
     }
 
+    /**
+     * Removes every timer on the event processing executor.
+     */
+    private void clearTimers() {
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                timerWheel.clear();
+                triggerTimerKeys.clear();
+                scheduleTimerJob();
+            }
+        });
+    }
+
+    /**
+     * Removes the timers for deleted schedules.
+     *
+     * @param scheduleIds The deleted schedule IDs.
+     */
+    @WorkerThread
+    private void removeTimers(Set<String> scheduleIds) {
+        if (scheduleIds.isEmpty()) {
+            return;
+        }
+
+        for (String id : scheduleIds) {
+            timerWheel.remove(END_TIMER_PREFIX + id);
+
+            Set<String> keys = triggerTimerKeys.remove(id);
+            if (keys != null) {
+                for (String key : keys) {
+                    timerWheel.remove(key);
+                }
+            }
+        }
+
+        scheduleTimerJob();
+    }
+
+    /**
+     * Fires every timer that is due: expired schedules are deleted and time based triggers
+     * run their schedules. Afterwards a job is scheduled for the next deadline.
+     */
+    @WorkerThread
+    private void processTimers() {
+        List<TimerWheel.Timer<String>> expired = timerWheel.advance(clock.currentTimeMillis());
+
+        Set<String> endedSchedules = new HashSet<>();
+        List<String> triggerIds = new ArrayList<>();
+        for (TimerWheel.Timer<String> timer : expired) {
+            if (timer.key.startsWith(END_TIMER_PREFIX)) {
+                endedSchedules.add(timer.value);
+            } else {
+                triggerIds.add(timer.key.substring(TRIGGER_TIMER_PREFIX.length()));
+
+                // Rearmed triggers are indexed again when their timer is added back
+                Set<String> keys = triggerTimerKeys.get(timer.value);
+                if (keys != null) {
+                    keys.remove(timer.key);
+                    if (keys.isEmpty()) {
+                        triggerTimerKeys.remove(timer.value);
+                    }
+                }
+            }
+        }
+
+        if (!endedSchedules.isEmpty()) {
+            Logger.debug("Automation - Deleting %s expired schedules.", endedSchedules.size());
+            dataManager.bulkDeleteSchedules(new ArrayList<>(endedSchedules));
+        }
+
+        if (!triggerIds.isEmpty()) {
+            onTimeTriggersFired(triggerIds);
+        }
+
+        scheduleTimerJob();
+    }
+
+    /**
+     * Handles time based triggers whose deadline passed. Interval triggers are rearmed for the
+     * next interval, delay and date triggers are done after firing once.
+     *
+     * @param triggerIds The trigger IDs.
+     */
+    @WorkerThread
+    private void onTimeTriggersFired(List<String> triggerIds) {
+        long now = clock.currentTimeMillis();
+
+        Set<String> triggeredSchedules = new HashSet<>();
+        Map<String, Long> deadlines = new HashMap<>();
+
+        for (TriggerEntry trigger : dataManager.getTriggerEntries(triggerIds)) {
+            if (trigger.getDeadline() < 0) {
+                continue;
+            }
+
+            if (trigger.getDeadline() > now) {
+                // Deadline moved since the timer was added
+                addTriggerTimer(trigger, trigger.getDeadline());
+                continue;
+            }
+
+            triggeredSchedules.add(trigger.getScheduleId());
+
+            if (trigger.getType() == Trigger.INTERVAL) {
+                long interval = (long) (trigger.getGoal() * 1000);
+
+                // Missed intervals are collapsed into a single trigger
+                long next = trigger.getDeadline() + interval;
+                if (next <= now) {
+                    next = now + interval;
+                }
+
+                deadlines.put(trigger.getId(), next);
+                addTriggerTimer(trigger, next);
+            } else {
+                deadlines.put(trigger.getId(), -1L);
+            }
+        }
+
+        dataManager.updateTriggerDeadlines(deadlines);
+
+        Set<String> schedulesToIncrement = new HashSet<>();
+        Set<String> schedulesToDelete = new HashSet<>();
+        runTriggeredSchedules(triggeredSchedules, schedulesToIncrement, schedulesToDelete);
+
+        Logger.debug("Automation - Time triggers fired for %d schedules.", triggeredSchedules.size());
+
+        HashMap<String, List<String>> updatesMap = new HashMap<>();
+        updatesMap.put(AutomationDataManager.SCHEDULES_TO_DELETE_QUERY, new ArrayList<>(schedulesToDelete));
+        updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, new ArrayList<>(schedulesToIncrement));
+        dataManager.updateLists(updatesMap);
+
+        removeTimers(schedulesToDelete);
+    }
+
+    /**
+     * Schedules a job for the earliest timer deadline. Only a single job is ever scheduled, the
+     * timer wheel handles everything after it.
+     */
+    @WorkerThread
+    private void scheduleTimerJob() {
+        long nextDeadline = timerWheel.getNextDeadline();
+        if (nextDeadline == scheduledTimerDeadline) {
+            return;
+        }
+
+        scheduledTimerDeadline = nextDeadline;
+
+        if (nextDeadline < 0) {
+            jobDispatcher.cancel(ACTION_PROCESS_TIMERS);
+            return;
+        }
+
+        long delay = Math.max(0, nextDeadline - clock.currentTimeMillis());
+        Logger.verbose("Automation - Scheduling timer job in %dms.", delay);
+
+        Job job = Job.newBuilder(ACTION_PROCESS_TIMERS)
+                     .setAirshipComponent(Automation.class)
+                     .build();
+
+        jobDispatcher.dispatch(job, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks if schedules can be added without going over the schedule limit. Finished schedules
+     * are compacted first if the limit would be exceeded.
+     *
+     * @param count The number of schedules to add.
+     * @return {@code true} if the schedules fit, otherwise {@code false}.
+     */
+    @WorkerThread
+    private boolean hasScheduleCapacity(int count) {
+        long current = dataManager.getScheduleCount();
+        if (current >= 0 && current + count <= scheduleLimit) {
+            return true;
+        }
+
+        if (compactSchedules() <= 0) {
+            return false;
+        }
+
+        current = dataManager.getScheduleCount();
+        return current >= 0 && current + count <= scheduleLimit;
+    }
+
+    /**
+     * Deletes the schedules that are past their end time or reached their limit.
+     *
+     * @return The number of deleted schedules.
+     */
+    @WorkerThread
+    private int compactSchedules() {
+        int deleted = dataManager.deleteFinishedSchedules(clock.currentTimeMillis());
+        if (deleted > 0) {
+            Logger.debug("Automation - Compacted %s finished schedules.", deleted);
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Schedules the next schedule compaction. The compaction time is persisted so app restarts
+     * do not keep pushing it back.
+     */
+    private void scheduleCompactionJob() {
+        long now = clock.currentTimeMillis();
+        long nextCompaction = preferenceDataStore.getLong(NEXT_COMPACTION_TIME_KEY, -1);
+        if (nextCompaction < 0) {
+            nextCompaction = now + COMPACTION_INTERVAL_MS;
+            preferenceDataStore.put(NEXT_COMPACTION_TIME_KEY, nextCompaction);
+        }
+
+        Job job = Job.newBuilder(ACTION_COMPACT_SCHEDULES)
+                     .setAirshipComponent(Automation.class)
+                     .build();
+
+        jobDispatcher.dispatch(job, Math.max(0, nextCompaction - now), TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Runs a {@link com.urbanairship.PendingResult.ResultCallback} instance for a given result. The
      * callback is posted to the thread's looper, and will default to the main looper if one doesn't exist.
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * {@link DataManager} class for automation schedules.
@@ -50,6 +51,8 @@ class AutomationDataManager extends DataManager {
         static final String COLUMN_NAME_GROUP = "s_group";
         static final String COLUMN_NAME_START = "s_start";
         static final String COLUMN_NAME_END = "s_end";
+
+        static final String INDEX_GROUP = "action_schedules_group_index";
     }
 
     /**
@@ -65,6 +68,11 @@ class AutomationDataManager extends DataManager {
         static final String COLUMN_NAME_PROGRESS = "t_progress";
         static final String COLUMN_NAME_GOAL = "t_goal";
         static final String COLUMN_NAME_START = "t_start";
+        static final String COLUMN_NAME_DEADLINE = "t_deadline";
+
+        static final String INDEX_TYPE_START = "triggers_type_start_index";
+        static final String INDEX_SCHEDULE_ID = "triggers_schedule_id_index";
+        static final String INDEX_DEADLINE = "triggers_deadline_index";
     }
 
     /**
@@ -80,7 +88,7 @@ class AutomationDataManager extends DataManager {
     /**
      * The database version
      */
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 3;
 
     /**
      * Appended to the end of schedules GET queries to group rows by schedule ID.
@@ -112,6 +120,11 @@ class AutomationDataManager extends DataManager {
      */
     static final String TRIGGERS_TO_INCREMENT_QUERY = "UPDATE " + TriggersTable.TABLE_NAME + " SET " + TriggersTable.COLUMN_NAME_PROGRESS + " = " + TriggersTable.COLUMN_NAME_PROGRESS + " + %s WHERE " + TriggersTable._ID;
 
+    /**
+     * Cached schedule count, -1 until it is first read from the database.
+     */
+    private final AtomicLong scheduleCount = new AtomicLong(-1);
+
     /**
      * Class constructor.
      *
@@ -124,6 +137,17 @@ class AutomationDataManager extends DataManager {
 
     @Override
     protected void onUpgrade(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+        switch (oldVersion) {
+            case 1:
+                Logger.debug("AutomationDataManager - Adding trigger deadlines to the automation database.");
+                db.execSQL("ALTER TABLE " + TriggersTable.TABLE_NAME + " ADD COLUMN " + TriggersTable.COLUMN_NAME_DEADLINE + " INTEGER DEFAULT -1");
+                // Fall through
+            case 2:
+                Logger.debug("AutomationDataManager - Adding indexes to the automation database.");
+                createIndexes(db);
+                return;
+        }
+
         // Logs that the database is being upgraded
         Logger.debug("AutomationDataManager - Upgrading automation database from version " + oldVersion + " to "
                 + newVersion + ", which will destroy all old data");
@@ -159,12 +183,34 @@ class AutomationDataManager extends DataManager {
                 + TriggersTable.COLUMN_NAME_PROGRESS + " DOUBLE,"
                 + TriggersTable.COLUMN_NAME_GOAL + " DOUBLE,"
                 + TriggersTable.COLUMN_NAME_START + " INTEGER,"
+                + TriggersTable.COLUMN_NAME_DEADLINE + " INTEGER DEFAULT -1,"
                 + "FOREIGN KEY(" + TriggersTable.COLUMN_NAME_SCHEDULE_ID + ") REFERENCES " + ActionSchedulesTable.TABLE_NAME + "(" + ActionSchedulesTable.COLUMN_NAME_SCHEDULE_ID + ") ON DELETE CASCADE"
                 + ");");
 
+        createIndexes(db);
+
         Logger.debug("AutomationDataManager - Automation database created");
     }
 
+    /**
+     * Creates the indexes used by the trigger lookups, the schedule join and group queries.
+     *
+     * @param db The database.
+     */
+    private void createIndexes(@NonNull SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TriggersTable.INDEX_TYPE_START + " ON " + TriggersTable.TABLE_NAME
+                + " (" + TriggersTable.COLUMN_NAME_TYPE + ", " + TriggersTable.COLUMN_NAME_START + ");");
+
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TriggersTable.INDEX_SCHEDULE_ID + " ON " + TriggersTable.TABLE_NAME
+                + " (" + TriggersTable.COLUMN_NAME_SCHEDULE_ID + ");");
+
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TriggersTable.INDEX_DEADLINE + " ON " + TriggersTable.TABLE_NAME
+                + " (" + TriggersTable.COLUMN_NAME_DEADLINE + ");");
+
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + ActionSchedulesTable.INDEX_GROUP + " ON " + ActionSchedulesTable.TABLE_NAME
+                + " (" + ActionSchedulesTable.COLUMN_NAME_GROUP + ");");
+    }
+
     @Override
     protected void bindValuesToSqliteStatement(@NonNull String table, @NonNull SQLiteStatement statement, @NonNull ContentValues values) {
         if (TriggersTable.TABLE_NAME.equals(table)) {
@@ -174,6 +220,7 @@ class AutomationDataManager extends DataManager {
             bind(statement, 4, values.getAsDouble(TriggersTable.COLUMN_NAME_PROGRESS));
             bind(statement, 5, values.getAsDouble(TriggersTable.COLUMN_NAME_GOAL));
             bind(statement, 6, values.getAsLong(TriggersTable.COLUMN_NAME_START));
+            bind(statement, 7, values.getAsLong(TriggersTable.COLUMN_NAME_DEADLINE));
         } else if (ActionSchedulesTable.TABLE_NAME.equals(table)) {
             bind(statement, 1, values.getAsString(ActionSchedulesTable.COLUMN_NAME_SCHEDULE_ID));
             bind(statement, 2, values.getAsString(ActionSchedulesTable.COLUMN_NAME_ACTIONS));
@@ -191,7 +238,7 @@ class AutomationDataManager extends DataManager {
             String sql = this.buildInsertStatement(table, TriggersTable.COLUMN_NAME_TYPE,
                     TriggersTable.COLUMN_NAME_SCHEDULE_ID, TriggersTable.COLUMN_NAME_PREDICATE,
                     TriggersTable.COLUMN_NAME_PROGRESS, TriggersTable.COLUMN_NAME_GOAL,
-                    TriggersTable.COLUMN_NAME_START);
+                    TriggersTable.COLUMN_NAME_START, TriggersTable.COLUMN_NAME_DEADLINE);
 
             return db.compileStatement(sql);
         } else if (table.equals(ActionSchedulesTable.TABLE_NAME)) {
@@ -238,9 +285,12 @@ class AutomationDataManager extends DataManager {
      * @param scheduleId The schedule ID.
      */
     void deleteSchedule(String scheduleId) {
-        if (delete(ActionSchedulesTable.TABLE_NAME, ActionSchedulesTable.COLUMN_NAME_SCHEDULE_ID + " = ?", new String[] { scheduleId }) < 0) {
+        int deleted = delete(ActionSchedulesTable.TABLE_NAME, ActionSchedulesTable.COLUMN_NAME_SCHEDULE_ID + " = ?", new String[] { scheduleId });
+        if (deleted < 0) {
             Logger.warn("AutomationDataManager - failed to delete schedule for schedule ID " + scheduleId);
         }
+
+        onSchedulesDeleted(deleted);
     }
 
     /**
@@ -249,9 +299,12 @@ class AutomationDataManager extends DataManager {
      * @param group The schedule group.
      */
     void deleteSchedules(String group) {
-        if (delete(ActionSchedulesTable.TABLE_NAME, ActionSchedulesTable.COLUMN_NAME_GROUP + " = ?", new String[] { group }) < 0) {
+        int deleted = delete(ActionSchedulesTable.TABLE_NAME, ActionSchedulesTable.COLUMN_NAME_GROUP + " = ?", new String[] { group });
+        if (deleted < 0) {
             Logger.warn("AutomationDataManager - failed to delete schedules for group " + group);
         }
+
+        onSchedulesDeleted(deleted);
     }
 
     /**
@@ -260,7 +313,30 @@ class AutomationDataManager extends DataManager {
     void deleteSchedules() {
         if (delete(ActionSchedulesTable.TABLE_NAME, null, null) < 0) {
             Logger.warn("AutomationDataManager - failed to delete schedules");
+            scheduleCount.set(-1);
+            return;
         }
+
+        scheduleCount.set(0);
+    }
+
+    /**
+     * Deletes schedules that are past their end time or have reached their limit.
+     *
+     * @param time The current time in MS.
+     * @return The number of deleted schedules, or -1 if the delete failed.
+     */
+    int deleteFinishedSchedules(long time) {
+        String selection = "(" + ActionSchedulesTable.COLUMN_NAME_END + " > 0 AND " + ActionSchedulesTable.COLUMN_NAME_END + " < ?) OR ("
+                + ActionSchedulesTable.COLUMN_NAME_LIMIT + " > 0 AND " + ActionSchedulesTable.COLUMN_NAME_COUNT + " >= " + ActionSchedulesTable.COLUMN_NAME_LIMIT + ")";
+
+        int deleted = delete(ActionSchedulesTable.TABLE_NAME, selection, new String[] { String.valueOf(time) });
+        if (deleted < 0) {
+            Logger.warn("AutomationDataManager - failed to delete finished schedules");
+        }
+
+        onSchedulesDeleted(deleted);
+        return deleted;
     }
 
     /**
@@ -269,9 +345,8 @@ class AutomationDataManager extends DataManager {
      * @param schedulesToDelete The list of schedule IDs.
      */
     void bulkDeleteSchedules(@NonNull List<String> schedulesToDelete) {
-        String query = "DELETE FROM " + ActionSchedulesTable.TABLE_NAME + " WHERE " + ActionSchedulesTable.COLUMN_NAME_SCHEDULE_ID;
         HashMap<String, List<String>> deleteMap = new HashMap<>();
-        deleteMap.put(query, schedulesToDelete);
+        deleteMap.put(SCHEDULES_TO_DELETE_QUERY, schedulesToDelete);
         updateLists(deleteMap);
     }
 
@@ -306,6 +381,33 @@ class AutomationDataManager extends DataManager {
         return generateSchedules(c);
     }
 
+    /**
+     * Gets the schedule IDs for a given group.
+     *
+     * @param group The schedule group.
+     * @return The set of schedule IDs.
+     */
+    @NonNull
+    Set<String> getScheduleIds(String group) {
+        Set<String> ids = new HashSet<>();
+        Cursor cursor = query(ActionSchedulesTable.TABLE_NAME, new String[] { ActionSchedulesTable.COLUMN_NAME_SCHEDULE_ID },
+                ActionSchedulesTable.COLUMN_NAME_GROUP + " = ?", new String[] { String.valueOf(group) }, null);
+
+        if (cursor == null) {
+            return ids;
+        }
+
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return ids;
+    }
+
     /**
      * Gets all schedules.
      *
@@ -321,9 +423,10 @@ class AutomationDataManager extends DataManager {
      * Bulk inserts schedules.
      *
      * @param schedules The list of {@link ActionScheduleInfo} instances.
+     * @param now The current time in MS, used for the initial trigger deadlines.
      * @return A list of inserted {@link ActionSchedule} instances.
      */
-    List<ActionSchedule> insertSchedules(List<ActionScheduleInfo> schedules) {
+    List<ActionSchedule> insertSchedules(List<ActionScheduleInfo> schedules, long now) {
         Map<String, ActionSchedule> added = new HashMap<>();
         Set<ContentValues> schedulesToAdd = new HashSet<>();
         Set<ContentValues> triggersToAdd = new HashSet<>();
@@ -333,7 +436,7 @@ class AutomationDataManager extends DataManager {
             schedulesToAdd.add(getScheduleInfoContentValues(actionScheduleInfo, id));
 
             for (Trigger trigger : actionScheduleInfo.getTriggers()) {
-                ContentValues value = getTriggerContentValues(trigger, id, actionScheduleInfo.getStart());
+                ContentValues value = getTriggerContentValues(trigger, id, actionScheduleInfo.getStart(), now);
                 triggersToAdd.add(value);
             }
 
@@ -357,6 +460,7 @@ class AutomationDataManager extends DataManager {
             }
         }
 
+        adjustScheduleCount(inserted.size());
         return inserted;
     }
 
@@ -391,26 +495,111 @@ class AutomationDataManager extends DataManager {
      * @return THe list of {@link TriggerEntry} instances.
      */
     List<TriggerEntry> getTriggers(int type) {
-        List<TriggerEntry> triggers = new ArrayList<>();
         Cursor cursor = query(TriggersTable.TABLE_NAME, null, TriggersTable.COLUMN_NAME_TYPE + " =? AND " + TriggersTable.COLUMN_NAME_START + " < ?", new String[] { String.valueOf(type), String.valueOf(System.currentTimeMillis()) }, null, null);
+        return generateTriggers(cursor);
+    }
+
+    /**
+     * Gets triggers for a given collection of trigger IDs.
+     *
+     * @param ids The trigger IDs.
+     * @return The list of {@link TriggerEntry} instances.
+     */
+    List<TriggerEntry> getTriggerEntries(Collection<String> ids) {
+        final List<TriggerEntry> triggers = new ArrayList<>(ids.size());
+
+        performSubSetOperations(ids, MAX_ARG_COUNT, new SetOperation<String>() {
+            @Override
+            public void perform(List<String> subset) {
+                String selection = TriggersTable._ID + " IN ( " + UAStringUtil.repeat("?", subset.size(), ", ") + ")";
+                Cursor cursor = query(TriggersTable.TABLE_NAME, null, selection, subset.toArray(new String[subset.size()]), null, null);
+                triggers.addAll(generateTriggers(cursor));
+            }
+        });
+
+        return triggers;
+    }
+
+    /**
+     * Gets all triggers that are waiting on a deadline.
+     *
+     * @return The list of {@link TriggerEntry} instances.
+     */
+    List<TriggerEntry> getTimeTriggers() {
+        Cursor cursor = query(TriggersTable.TABLE_NAME, null, TriggersTable.COLUMN_NAME_DEADLINE + " >= 0", null, null, null);
+        return generateTriggers(cursor);
+    }
 
+    /**
+     * Gets the triggers that are waiting on a deadline for a given collection of schedule IDs.
+     *
+     * @param scheduleIds The schedule IDs.
+     * @return The list of {@link TriggerEntry} instances.
+     */
+    List<TriggerEntry> getTimeTriggers(Collection<String> scheduleIds) {
+        final List<TriggerEntry> triggers = new ArrayList<>();
+
+        performSubSetOperations(scheduleIds, MAX_ARG_COUNT, new SetOperation<String>() {
+            @Override
+            public void perform(List<String> subset) {
+                String selection = TriggersTable.COLUMN_NAME_DEADLINE + " >= 0 AND " + TriggersTable.COLUMN_NAME_SCHEDULE_ID + " IN ( " + UAStringUtil.repeat("?", subset.size(), ", ") + ")";
+                Cursor cursor = query(TriggersTable.TABLE_NAME, null, selection, subset.toArray(new String[subset.size()]), null, null);
+                triggers.addAll(generateTriggers(cursor));
+            }
+        });
+
+        return triggers;
+    }
+
+    /**
+     * Gets the end times of all schedules that have one.
+     *
+     * @return A map of schedule IDs to end times in MS.
+     */
+    Map<String, Long> getScheduleEnds() {
+        Cursor cursor = query(ActionSchedulesTable.TABLE_NAME, new String[] { ActionSchedulesTable.COLUMN_NAME_SCHEDULE_ID, ActionSchedulesTable.COLUMN_NAME_END },
+                ActionSchedulesTable.COLUMN_NAME_END + " > 0", null, null, null);
+
+        Map<String, Long> ends = new HashMap<>();
         if (cursor == null) {
-            return triggers;
+            return ends;
         }
 
-        // create triggers
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
-            TriggerEntry triggerEntry = generateTrigger(cursor);
-            if (triggerEntry != null) {
-                triggers.add(triggerEntry);
-            }
-
+            ends.put(cursor.getString(0), cursor.getLong(1));
             cursor.moveToNext();
         }
 
         cursor.close();
-        return triggers;
+        return ends;
+    }
+
+    /**
+     * Updates trigger deadlines.
+     *
+     * @param deadlines A map of trigger IDs to deadlines in MS. A deadline of -1 stops the trigger's timer.
+     */
+    void updateTriggerDeadlines(Map<String, Long> deadlines) {
+        if (deadlines.isEmpty()) {
+            return;
+        }
+
+        SQLiteDatabase db = getWritableDatabase();
+        if (db == null) {
+            Logger.error("AutomationDataManager - Unable to update trigger deadlines.");
+            return;
+        }
+
+        String sql = "UPDATE " + TriggersTable.TABLE_NAME + " SET " + TriggersTable.COLUMN_NAME_DEADLINE + " = ? WHERE " + TriggersTable._ID + " = ?";
+
+        db.beginTransaction();
+        for (Map.Entry<String, Long> entry : deadlines.entrySet()) {
+            executeUpdateDelete(db, sql, entry.getValue(), entry.getKey());
+        }
+
+        db.setTransactionSuccessful();
+        db.endTransaction();
     }
 
     /**
@@ -430,6 +619,8 @@ class AutomationDataManager extends DataManager {
             return;
         }
 
+        final int[] deleted = new int[] { 0 };
+
         db.beginTransaction();
 
         for (final Map.Entry<String, List<String>> entry : updatesMap.entrySet()) {
@@ -438,32 +629,77 @@ class AutomationDataManager extends DataManager {
                 continue;
             }
 
+            final boolean isScheduleDelete = SCHEDULES_TO_DELETE_QUERY.equals(entry.getKey());
+
             performSubSetOperations(entry.getValue(), MAX_ARG_COUNT, new SetOperation<String>() {
                 @Override
                 public void perform(List<String> subset) {
 
                     String inStatement = UAStringUtil.repeat("?", subset.size(), ", ");
-                    SQLiteStatement statement = db.compileStatement(entry.getKey() + " IN ( " + inStatement + " )");
-                    for (int i = 0; i < subset.size(); i++) {
-                        statement.bindString(i + 1, subset.get(i));
+                    int rows = executeUpdateDelete(db, entry.getKey() + " IN ( " + inStatement + " )", subset.toArray());
+                    if (isScheduleDelete) {
+                        deleted[0] += rows;
                     }
-
-                    statement.execute();
                 }
             });
         }
 
         db.setTransactionSuccessful();
         db.endTransaction();
+
+        onSchedulesDeleted(deleted[0]);
     }
 
+    /**
+     * Gets the number of schedules. The count is only read from the database the first time, after
+     * that it is kept up to date by the inserts and deletes.
+     *
+     * @return The schedule count, or -1 if the database is unavailable.
+     */
     long getScheduleCount() {
+        long count = scheduleCount.get();
+        if (count >= 0) {
+            return count;
+        }
+
         final SQLiteDatabase db = getReadableDatabase();
         if (db == null) {
             return -1;
         }
 
-        return DatabaseUtils.queryNumEntries(db, ActionSchedulesTable.TABLE_NAME);
+        count = DatabaseUtils.queryNumEntries(db, ActionSchedulesTable.TABLE_NAME);
+
+        // Only store the count if nothing changed it while querying
+        scheduleCount.compareAndSet(-1, count);
+        return count;
+    }
+
+    /**
+     * Updates the cached schedule count after schedules are deleted.
+     *
+     * @param deleted The number of deleted schedules, or a negative value if the delete failed.
+     */
+    private void onSchedulesDeleted(int deleted) {
+        if (deleted < 0) {
+            // Unknown state, reload the count on the next read
+            scheduleCount.set(-1);
+        } else {
+            adjustScheduleCount(-deleted);
+        }
+    }
+
+    /**
+     * Adjusts the cached schedule count if it has been loaded.
+     *
+     * @param delta The amount to adjust the count by.
+     */
+    private void adjustScheduleCount(long delta) {
+        while (true) {
+            long count = scheduleCount.get();
+            if (count < 0 || scheduleCount.compareAndSet(count, Math.max(0, count + delta))) {
+                return;
+            }
+        }
     }
 
     // Helpers
@@ -580,6 +816,33 @@ class AutomationDataManager extends DataManager {
         return schedules;
     }
 
+    /**
+     * Generates a list of triggers from a cursor.
+     *
+     * @param cursor The {@link Cursor} instance.
+     * @return The list of {@link TriggerEntry} instances.
+     */
+    private List<TriggerEntry> generateTriggers(Cursor cursor) {
+        List<TriggerEntry> triggers = new ArrayList<>();
+        if (cursor == null) {
+            return triggers;
+        }
+
+        // create triggers
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            TriggerEntry triggerEntry = generateTrigger(cursor);
+            if (triggerEntry != null) {
+                triggers.add(triggerEntry);
+            }
+
+            cursor.moveToNext();
+        }
+
+        cursor.close();
+        return triggers;
+    }
+
     /**
      * Generates a trigger from a cursor.
      *
@@ -596,9 +859,11 @@ class AutomationDataManager extends DataManager {
             JsonPredicate predicate = predicateJson.optMap().isEmpty() ? null : JsonPredicate.parse(predicateJson);
             String id = cursor.getString(cursor.getColumnIndex(TriggersTable._ID));
             String scheduleId = cursor.getString(cursor.getColumnIndex(TriggersTable.COLUMN_NAME_SCHEDULE_ID));
+            int deadlineIndex = cursor.getColumnIndex(TriggersTable.COLUMN_NAME_DEADLINE);
+            long deadline = deadlineIndex == -1 || cursor.isNull(deadlineIndex) ? -1 : cursor.getLong(deadlineIndex);
 
             //noinspection WrongConstant
-            return new TriggerEntry(type, goal, predicate, id, scheduleId, count);
+            return new TriggerEntry(type, goal, predicate, id, scheduleId, count, deadline);
         } catch (JsonException e) {
             Logger.error("AutomationDataManager - failed to generate trigger from cursor.");
             return null;
@@ -631,9 +896,10 @@ class AutomationDataManager extends DataManager {
      * @param trigger The {@link Trigger} instance.
      * @param id The schedule ID.
      * @param start The schedule start time in MS.
+     * @param now The current time in MS.
      * @return The {@link ContentValues} instance.
      */
-    private ContentValues getTriggerContentValues(Trigger trigger, String id, long start) {
+    private ContentValues getTriggerContentValues(Trigger trigger, String id, long start, long now) {
         ContentValues value = new ContentValues();
         value.put(TriggersTable.COLUMN_NAME_TYPE, trigger.getType());
         value.put(TriggersTable.COLUMN_NAME_SCHEDULE_ID, id);
@@ -641,7 +907,32 @@ class AutomationDataManager extends DataManager {
         value.put(TriggersTable.COLUMN_NAME_GOAL, trigger.getGoal());
         value.put(TriggersTable.COLUMN_NAME_PROGRESS, 0.0);
         value.put(TriggersTable.COLUMN_NAME_START, start);
+        value.put(TriggersTable.COLUMN_NAME_DEADLINE, getInitialDeadline(trigger, start, now));
 
         return value;
     }
+
+    /**
+     * Gets the first deadline for a time based trigger.
+     *
+     * @param trigger The {@link Trigger} instance.
+     * @param start The schedule start time in MS.
+     * @param now The current time in MS.
+     * @return The deadline in MS, or -1 if the trigger is not time based.
+     */
+    private static long getInitialDeadline(Trigger trigger, long start, long now) {
+        long base = Math.max(start, now);
+
+        switch (trigger.getType()) {
+            case Trigger.DELAY:
+            case Trigger.INTERVAL:
+                return base + (long) (trigger.getGoal() * 1000);
+
+            case Trigger.DATE:
+                return (long) trigger.getGoal();
+
+            default:
+                return -1;
+        }
+    }
 }
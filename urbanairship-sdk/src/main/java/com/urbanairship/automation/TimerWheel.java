@@ -0,0 +1,307 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timer wheel. Each level has {@link #SLOT_COUNT} slots, with every slot on a level
+ * spanning a full rotation of the level below it. Adding and removing a timer is constant time and
+ * advancing only touches the slots that pass, cascading timers from upper levels down as their
+ * deadlines get closer. Each timer tracks the slot it is in and its position in that slot, so a
+ * timer is removed by moving the slot's last timer into its place.
+ * <p/>
+ * Not thread safe.
+ *
+ * @param <T> The timer value type.
+ */
+class TimerWheel<T> {
+
+    /**
+     * Slot count per level. Must be a power of 2.
+     */
+    static final int SLOT_COUNT = 64;
+
+    /**
+     * Number of levels. Timers past the last level are kept in an overflow list.
+     */
+    static final int LEVEL_COUNT = 4;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+
+    /**
+     * A timer entry.
+     *
+     * @param <T> The timer value type.
+     */
+    static class Timer<T> {
+        final String key;
+        final long deadline;
+        final T value;
+        private long tick;
+        private List<Timer<T>> slot;
+        private int position;
+
+        Timer(String key, long deadline, T value) {
+            this.key = key;
+            this.deadline = deadline;
+            this.value = value;
+        }
+    }
+
+    private final long tickMs;
+    private final List<List<Timer<T>>> slots = new ArrayList<>();
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    private final Map<String, Timer<T>> timers = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * Creates a timer wheel.
+     *
+     * @param tickMs The resolution of the lowest level in milliseconds.
+     * @param now The current time in milliseconds.
+     */
+    TimerWheel(long tickMs, long now) {
+        this.tickMs = tickMs;
+        this.currentTick = now / tickMs;
+
+        for (int i = 0; i < SLOT_COUNT * LEVEL_COUNT; i++) {
+            slots.add(new ArrayList<Timer<T>>());
+        }
+    }
+
+    /**
+     * Adds a timer, replacing any existing timer with the same key.
+     *
+     * @param key The timer key.
+     * @param deadline The deadline in milliseconds.
+     * @param value The timer value.
+     */
+    void add(@NonNull String key, long deadline, T value) {
+        remove(key);
+
+        Timer<T> timer = new Timer<>(key, deadline, value);
+        timer.tick = Math.max(deadline / tickMs, currentTick);
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    /**
+     * Removes a timer.
+     *
+     * @param key The timer key.
+     * @return {@code true} if a timer was removed, otherwise {@code false}.
+     */
+    boolean remove(@NonNull String key) {
+        Timer<T> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Removes all timers.
+     */
+    void clear() {
+        for (List<Timer<T>> slot : slots) {
+            slot.clear();
+        }
+
+        overflow.clear();
+        timers.clear();
+    }
+
+    /**
+     * Gets the number of timers.
+     *
+     * @return The number of timers.
+     */
+    int size() {
+        return timers.size();
+    }
+
+    /**
+     * Advances the wheel and removes every timer whose deadline has passed.
+     *
+     * @param now The current time in milliseconds.
+     * @return The expired timers.
+     */
+    @NonNull
+    List<Timer<T>> advance(long now) {
+        List<Timer<T>> expired = new ArrayList<>();
+        long targetTick = now / tickMs;
+
+        if (targetTick - currentTick >= SLOT_COUNT) {
+            // Skipping a full rotation, cheaper to rebuild than to walk every slot
+            List<Timer<T>> all = new ArrayList<>(timers.values());
+            for (List<Timer<T>> slot : slots) {
+                slot.clear();
+            }
+            overflow.clear();
+
+            currentTick = targetTick;
+            for (Timer<T> timer : all) {
+                timer.tick = Math.max(timer.deadline / tickMs, currentTick);
+                place(timer);
+            }
+
+            collect(slots.get(slotIndex(0, currentTick)), now, expired);
+        } else {
+            // Timers in the current tick may not have been due the last time it was checked
+            collect(slots.get(slotIndex(0, currentTick)), now, expired);
+
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                collect(slots.get(slotIndex(0, currentTick)), now, expired);
+            }
+        }
+
+        return expired;
+    }
+
+    /**
+     * Gets the earliest deadline.
+     *
+     * @return The earliest deadline in milliseconds, or -1 if there are no timers.
+     */
+    long getNextDeadline() {
+        if (timers.isEmpty()) {
+            return -1;
+        }
+
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            long levelTick = currentTick >> (SLOT_BITS * level);
+
+            // Above the first level the current slot was already cascaded, so anything in it
+            // belongs to the next rotation and is checked last.
+            int first = level == 0 ? 0 : 1;
+            for (int i = first; i < first + SLOT_COUNT; i++) {
+                List<Timer<T>> slot = slots.get(slotIndex(level, (levelTick + i) << (SLOT_BITS * level)));
+                if (slot.isEmpty()) {
+                    continue;
+                }
+
+                // Slots on a level are ordered by time, so the first non-empty one holds
+                // the earliest timers for that level
+                for (Timer<T> timer : slot) {
+                    next = Math.min(next, timer.deadline);
+                }
+                break;
+            }
+        }
+
+        for (Timer<T> timer : overflow) {
+            next = Math.min(next, timer.deadline);
+        }
+
+        return next;
+    }
+
+    /**
+     * Places a timer on the level that covers its tick.
+     *
+     * @param timer The timer.
+     */
+    private void place(Timer<T> timer) {
+        long delta = timer.tick - currentTick;
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            if (delta < (1L << (SLOT_BITS * (level + 1)))) {
+                link(slots.get(slotIndex(level, timer.tick)), timer);
+                return;
+            }
+        }
+
+        link(overflow, timer);
+    }
+
+    /**
+     * Adds a timer to the end of a slot.
+     *
+     * @param slot The slot.
+     * @param timer The timer.
+     */
+    private static <T> void link(List<Timer<T>> slot, Timer<T> timer) {
+        timer.slot = slot;
+        timer.position = slot.size();
+        slot.add(timer);
+    }
+
+    /**
+     * Removes a timer from its slot by moving the slot's last timer into its position.
+     *
+     * @param timer The timer.
+     */
+    private static <T> void unlink(Timer<T> timer) {
+        List<Timer<T>> slot = timer.slot;
+        if (slot == null) {
+            return;
+        }
+
+        Timer<T> last = slot.remove(slot.size() - 1);
+        if (last != timer) {
+            slot.set(timer.position, last);
+            last.position = timer.position;
+        }
+
+        timer.slot = null;
+    }
+
+    /**
+     * Moves timers down from upper levels when the level below completes a rotation.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVEL_COUNT; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+
+            List<Timer<T>> slot = slots.get(slotIndex(level, currentTick));
+            List<Timer<T>> moving = new ArrayList<>(slot);
+            slot.clear();
+            for (Timer<T> timer : moving) {
+                place(timer);
+            }
+        }
+
+        // Every level rotated, pull in anything from the overflow that now fits
+        List<Timer<T>> moving = new ArrayList<>(overflow);
+        overflow.clear();
+        for (Timer<T> timer : moving) {
+            place(timer);
+        }
+    }
+
+    /**
+     * Removes the due timers from a slot.
+     *
+     * @param slot The slot.
+     * @param now The current time in milliseconds.
+     * @param expired The list to add the expired timers to.
+     */
+    private void collect(List<Timer<T>> slot, long now, List<Timer<T>> expired) {
+        // Walk backwards so the timers moved by unlink were already checked
+        for (int i = slot.size() - 1; i >= 0; i--) {
+            Timer<T> timer = slot.get(i);
+            if (timer.deadline <= now) {
+                unlink(timer);
+                timers.remove(timer.key);
+                expired.add(timer);
+            }
+        }
+    }
+
+    private static int slotIndex(int level, long tick) {
+        return level * SLOT_COUNT + (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+}
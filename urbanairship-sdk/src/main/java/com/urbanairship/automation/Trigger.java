@@ -11,6 +11,7 @@ import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonPredicate;
 import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.DateUtils;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -21,7 +22,7 @@ import java.lang.annotation.RetentionPolicy;
  */
 public class Trigger implements Parcelable {
 
-    @IntDef({ LIFE_CYCLE_FOREGROUND, LIFE_CYCLE_BACKGROUND, REGION_ENTER, REGION_EXIT, CUSTOM_EVENT_COUNT, CUSTOM_EVENT_VALUE, SCREEN_VIEW })
+    @IntDef({ LIFE_CYCLE_FOREGROUND, LIFE_CYCLE_BACKGROUND, REGION_ENTER, REGION_EXIT, CUSTOM_EVENT_COUNT, CUSTOM_EVENT_VALUE, SCREEN_VIEW, DELAY, INTERVAL, DATE })
     @Retention(RetentionPolicy.SOURCE)
     public @interface TriggerType {}
 
@@ -69,6 +70,25 @@ public class Trigger implements Parcelable {
      */
     public static final int SCREEN_VIEW = 7;
 
+    /**
+     * Trigger type that fires once after a delay from the schedule's start. The goal is the
+     * delay in seconds. Delay triggers can be created with {@link Triggers#newDelayTriggerBuilder()}.
+     */
+    public static final int DELAY = 8;
+
+    /**
+     * Trigger type that fires repeatedly on an interval from the schedule's start. The goal is
+     * the interval in seconds. Interval triggers can be created with
+     * {@link Triggers#newIntervalTriggerBuilder()}.
+     */
+    public static final int INTERVAL = 9;
+
+    /**
+     * Trigger type that fires once at an absolute time. The goal is the time in milliseconds
+     * since the epoch. Date triggers can be created with {@link Triggers#newDateTriggerBuilder()}.
+     */
+    public static final int DATE = 10;
+
     public static final Creator<Trigger> CREATOR = new Creator<Trigger>() {
         @Override
         public Trigger createFromParcel(Parcel in) {
@@ -118,6 +138,15 @@ public class Trigger implements Parcelable {
             case SCREEN_VIEW:
                 type = SCREEN_VIEW;
                 break;
+            case DELAY:
+                type = DELAY;
+                break;
+            case INTERVAL:
+                type = INTERVAL;
+                break;
+            case DATE:
+                type = DATE;
+                break;
             default:
                 throw new IllegalStateException("Invalid trigger type from parcel.");
         }
@@ -181,15 +210,27 @@ public class Trigger implements Parcelable {
         return predicate;
     }
 
+    /**
+     * Checks if the trigger fires on a timer instead of an event.
+     *
+     * @return {@code true} for {@link #DELAY}, {@link #INTERVAL} and {@link #DATE} triggers,
+     * otherwise {@code false}.
+     */
+    boolean isTimeBased() {
+        return type == DELAY || type == INTERVAL || type == DATE;
+    }
+
     /**
      * Parses a Trigger from a JsonValue.
      * <p/>
      * The expected JsonValue is a map containing:
      * <pre>
-     * - "goal": Required. The trigger's goal. Either the count of event occurrences or the aggregate value of custom event values ("custom_event_value").
+     * - "goal": Required. The trigger's goal. Either the count of event occurrences, the aggregate value of custom event values ("custom_event_value"),
+     *           the number of seconds ("delay", "interval"), or the time in milliseconds since the epoch ("date").
+     * - "date": Optional. ISO 8601 timestamp used instead of the goal for "date" triggers.
      * - "predicate": Optional. Json predicate as defined by {@link JsonPredicate} scheme.
      * - "type": Required. Either "custom_event_value", "custom_event_count", "foreground", "background",
-     *           "region_enter", "region_exit", or "screen".
+     *           "region_enter", "region_exit", "screen", "delay", "interval", or "date".
      * </pre>
      *
      * @param value The trigger JSON.
@@ -201,12 +242,19 @@ public class Trigger implements Parcelable {
 
         @TriggerType int type;
         JsonPredicate predicate = jsonMap.containsKey("predicate") ? JsonPredicate.parse(jsonMap.opt("predicate")) : null;
-        double goal = jsonMap.opt("goal").getDouble(-1);
+        String typeString = jsonMap.opt("type").getString("").toLowerCase();
+
+        double goal;
+        if ("date".equals(typeString) && jsonMap.containsKey("date")) {
+            goal = DateUtils.parseIso8601(jsonMap.opt("date").getString(""), -1);
+        } else {
+            goal = jsonMap.opt("goal").getDouble(-1);
+        }
+
         if (goal < 0) {
             throw new JsonException("Trigger goal must be defined and greater than 0.");
         }
 
-        String typeString = jsonMap.opt("type").getString("").toLowerCase();
         switch (typeString) {
             case "custom_event_count":
                 type = CUSTOM_EVENT_COUNT;
@@ -236,6 +284,21 @@ public class Trigger implements Parcelable {
                 type = REGION_EXIT;
                 break;
 
+            case "delay":
+                type = DELAY;
+                break;
+
+            case "interval":
+                if (goal <= 0) {
+                    throw new JsonException("Interval trigger goal must be greater than 0.");
+                }
+                type = INTERVAL;
+                break;
+
+            case "date":
+                type = DATE;
+                break;
+
             default:
                 throw new JsonException("Invalid trigger type: " + typeString);
         }
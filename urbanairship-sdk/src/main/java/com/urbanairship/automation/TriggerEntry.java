@@ -14,6 +14,7 @@ class TriggerEntry extends Trigger {
     private final String id;
     private final String scheduleId;
     private final double progress;
+    private final long deadline;
 
     // TriggerEntry should never be used as a Parceable, this is here to please the linter.
     public static final Creator<Trigger> CREATOR = new Creator<Trigger>() {
@@ -30,10 +31,15 @@ class TriggerEntry extends Trigger {
 
 
     TriggerEntry(@TriggerType  int type, double goal, JsonPredicate predicate, String id, String scheduleId, double progress) {
+        this(type, goal, predicate, id, scheduleId, progress, -1);
+    }
+
+    TriggerEntry(@TriggerType  int type, double goal, JsonPredicate predicate, String id, String scheduleId, double progress, long deadline) {
         super(type, goal, predicate);
         this.id = id;
         this.scheduleId = scheduleId;
         this.progress = progress;
+        this.deadline = deadline;
     }
 
     /**
@@ -62,4 +68,13 @@ class TriggerEntry extends Trigger {
     String getScheduleId() {
         return scheduleId;
     }
+
+    /**
+     * The time the trigger fires next for time based triggers.
+     *
+     * @return The deadline in MS, or -1 if the trigger is not waiting on a timer.
+     */
+    long getDeadline() {
+        return deadline;
+    }
 }
@@ -69,6 +69,33 @@ public class Triggers {
         return new CustomEventTriggerBuilder();
     }
 
+    /**
+     * Creates a new delay trigger builder.
+     *
+     * @return The new delay trigger builder.
+     */
+    public static TimeTriggerBuilder newDelayTriggerBuilder() {
+        return new TimeTriggerBuilder(Trigger.DELAY);
+    }
+
+    /**
+     * Creates a new interval trigger builder.
+     *
+     * @return The new interval trigger builder.
+     */
+    public static TimeTriggerBuilder newIntervalTriggerBuilder() {
+        return new TimeTriggerBuilder(Trigger.INTERVAL);
+    }
+
+    /**
+     * Creates a new date trigger builder.
+     *
+     * @return The new date trigger builder.
+     */
+    public static DateTriggerBuilder newDateTriggerBuilder() {
+        return new DateTriggerBuilder();
+    }
+
     /**
      * Lifecycle trigger Builder class.
      */
@@ -280,4 +307,72 @@ public class Triggers {
         }
     }
 
+    /**
+     * Delay and interval trigger Builder class.
+     */
+    public static class TimeTriggerBuilder {
+        private final int type;
+        private double seconds;
+
+        private TimeTriggerBuilder(int type) {
+            this.type = type;
+        }
+
+        /**
+         * Sets the delay or interval in seconds.
+         *
+         * @param seconds The number of seconds.
+         * @return The Builder instance.
+         */
+        public TimeTriggerBuilder setSeconds(double seconds) {
+            this.seconds = seconds;
+            return this;
+        }
+
+        /**
+         * Builds the trigger instance.
+         *
+         * @return The trigger instance.
+         * @throws IllegalArgumentException if an interval is not greater than 0.
+         */
+        public Trigger build() {
+            if (type == Trigger.INTERVAL && seconds <= 0) {
+                throw new IllegalArgumentException("Interval must be greater than 0.");
+            }
+
+            return new Trigger(type, seconds, null);
+        }
+    }
+
+    /**
+     * Date trigger Builder class.
+     */
+    public static class DateTriggerBuilder {
+        private long date;
+
+        private DateTriggerBuilder() {
+
+        }
+
+        /**
+         * Sets the time to trigger at.
+         *
+         * @param date The time in milliseconds since the epoch.
+         * @return The Builder instance.
+         */
+        public DateTriggerBuilder setDate(long date) {
+            this.date = date;
+            return this;
+        }
+
+        /**
+         * Builds the trigger instance.
+         *
+         * @return The trigger instance.
+         */
+        public Trigger build() {
+            return new Trigger(Trigger.DATE, date, null);
+        }
+    }
+
 }
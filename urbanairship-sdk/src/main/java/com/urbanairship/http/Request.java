@@ -4,24 +4,32 @@ package com.urbanairship.http;
 
 import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Base64;
 
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
+import com.urbanairship.metrics.Metrics;
+import com.urbanairship.metrics.Span;
+import com.urbanairship.util.UAHttpStatusUtil;
 import com.urbanairship.util.UAStringUtil;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -38,6 +46,9 @@ public class Request {
 
     protected final Map<String, String> responseProperties;
     private static final String USER_AGENT_FORMAT = "%s (%s; %s; UrbanAirshipLib-%s/%s; %s; %s)";
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+    private static final int BUFFER_SIZE = 4096;
     private long ifModifiedSince = 0;
     private boolean compressRequestBody = false;
 
@@ -136,11 +147,55 @@ public class Request {
      * @return The request response.
      */
     public Response execute() {
+        return execute(null);
+    }
+
+    /**
+     * Executes the request. A successful response body is handed to the parser as it is read
+     * instead of being buffered as a string. The parsed body is available from
+     * {@link Response#getParsedBody()}. Any other response body is available from
+     * {@link Response#getResponseBody()}.
+     *
+     * @param parser The response parser, or {@code null} to read the body as a string.
+     * @param <T> The parsed type.
+     * @return The request response.
+     */
+    public <T> Response execute(@Nullable ResponseParser<T> parser) {
+        ByteCounter byteCounter = Metrics.isEnabled() ? new ByteCounter() : null;
+        Span span = Metrics.startSpan(Metrics.HTTP_REQUEST);
+
+        Response response = performRequest(parser, byteCounter);
+
+        span.end();
+        if (response == null) {
+            Metrics.increment(Metrics.HTTP_FAILURES, 1);
+        }
+
+        if (byteCounter != null) {
+            Metrics.increment(Metrics.HTTP_BYTES_SENT, byteCounter.sent);
+            Metrics.increment(Metrics.HTTP_BYTES_RECEIVED, byteCounter.received);
+        }
+
+        return response;
+    }
+
+    /**
+     * Performs the request.
+     *
+     * @param parser The response parser, or {@code null} to read the body as a string.
+     * @param byteCounter Optional counter for the bytes sent and received.
+     * @param <T> The parsed type.
+     * @return The request response, or {@code null} if the request failed.
+     */
+    @Nullable
+    private <T> Response performRequest(@Nullable ResponseParser<T> parser, @Nullable ByteCounter byteCounter) {
         HttpURLConnection conn = null;
 
         try {
             conn = (HttpURLConnection) url.openConnection();
             conn.setRequestMethod(requestMethod);
+            conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            conn.setReadTimeout(READ_TIMEOUT_MS);
 
             if (body != null) {
                 conn.setDoOutput(true);
@@ -150,6 +205,7 @@ public class Request {
             conn.setDoInput(true);
             conn.setUseCaches(false);
             conn.setAllowUserInteraction(false);
+            conn.setRequestProperty("Accept-Encoding", "gzip");
 
             if (ifModifiedSince > 0) {
                 conn.setIfModifiedSince(ifModifiedSince);
@@ -166,10 +222,9 @@ public class Request {
 
             // Create the form content
             if (body != null) {
-
                 if (compressRequestBody) {
                     conn.setRequestProperty("Content-Encoding", "gzip");
-                    OutputStream out = conn.getOutputStream();
+                    OutputStream out = countBytes(conn.getOutputStream(), byteCounter);
                     GZIPOutputStream gos = new GZIPOutputStream(out);
                     Writer writer = new OutputStreamWriter(gos, "UTF-8");
                     writer.write(body);
@@ -177,7 +232,7 @@ public class Request {
                     gos.close();
                     out.close();
                 } else {
-                    OutputStream out = conn.getOutputStream();
+                    OutputStream out = countBytes(conn.getOutputStream(), byteCounter);
                     Writer writer = new OutputStreamWriter(out, "UTF-8");
                     writer.write(body);
                     writer.close();
@@ -185,27 +240,59 @@ public class Request {
                 }
             }
 
-            Response.Builder responseBuilder = new Response.Builder(conn.getResponseCode())
+            int status = conn.getResponseCode();
+            Response.Builder responseBuilder = new Response.Builder(status)
                     .setResponseMessage(conn.getResponseMessage())
                     .setResponseHeaders(conn.getHeaderFields())
                     .setLastModified(conn.getLastModified());
 
-
+            InputStream inputStream;
             try {
-                responseBuilder.setResponseBody(readEntireStream(conn.getInputStream()));
+                inputStream = conn.getInputStream();
             } catch (IOException ex) {
-                responseBuilder.setResponseBody(readEntireStream(conn.getErrorStream()));
+                inputStream = conn.getErrorStream();
             }
 
+            Reader reader = openReader(countBytes(inputStream, byteCounter), conn.getContentEncoding());
+            if (reader == null) {
+                return responseBuilder.create();
+            }
+
+            try {
+                if (parser != null && UAHttpStatusUtil.inSuccessRange(status)) {
+                    try {
+                        responseBuilder.setParsedBody(parser.parseResponseBody(reader));
+                    } catch (IOException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        Logger.error("Request - Unable to parse response body for URL: %s", url, e);
+
+                        // The body was only partially read so the connection can not be reused
+                        conn.disconnect();
+                        return responseBuilder.create();
+                    }
+
+                    // Drain anything left so the connection can be reused
+                    readEntireStream(reader);
+                } else {
+                    responseBuilder.setResponseBody(readEntireStream(reader));
+                }
+            } finally {
+                reader.close();
+            }
+
+            // The connection is not disconnected so it can be kept alive and reused by the
+            // next request to the same host.
             return responseBuilder.create();
 
         } catch (Exception ex) {
             Logger.debug("Request - Request failed URL: " + url + " method: " + requestMethod, ex);
-            return null;
-        } finally {
+
             if (conn != null) {
                 conn.disconnect();
             }
+
+            return null;
         }
     }
 
@@ -223,31 +310,120 @@ public class Request {
                 UAirship.shared().getAirshipConfigOptions().getAppKey(), Locale.getDefault());
     }
 
-    private String readEntireStream(InputStream input) throws IOException {
+    /**
+     * Opens a reader for the response body, decoding gzip if needed.
+     *
+     * @param input The response input stream.
+     * @param contentEncoding The response content encoding.
+     * @return The reader, or {@code null} if the response does not have a body.
+     * @throws IOException
+     */
+    @Nullable
+    private static Reader openReader(@Nullable InputStream input, @Nullable String contentEncoding) throws IOException {
         if (input == null) {
             return null;
         }
 
-        BufferedReader br = new BufferedReader(new InputStreamReader(input));
-        StringBuilder sb = new StringBuilder();
-
-        try {
-            String inputLine;
-            while ((inputLine = br.readLine()) != null) {
-                sb.append(inputLine).append("\n");
-            }
-            br.close();
-        } finally {
+        InputStream decoded = input;
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
             try {
+                decoded = new GZIPInputStream(input);
+            } catch (EOFException e) {
+                // Empty body
                 input.close();
-                br.close();
-            } catch (Exception e) {
-                Logger.error("Failed to close streams", e);
+                return null;
             }
         }
 
-        return sb.toString();
+        return new InputStreamReader(decoded, "UTF-8");
+    }
+
+    /**
+     * Wraps an output stream to count the bytes written to it.
+     *
+     * @param output The output stream.
+     * @param byteCounter The byte counter, or {@code null} to not count bytes.
+     * @return The output stream.
+     */
+    private static OutputStream countBytes(@NonNull OutputStream output, @Nullable final ByteCounter byteCounter) {
+        if (byteCounter == null) {
+            return output;
+        }
+
+        return new FilterOutputStream(output) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                byteCounter.sent++;
+            }
+
+            @Override
+            public void write(@NonNull byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                byteCounter.sent += length;
+            }
+        };
+    }
+
+    /**
+     * Wraps an input stream to count the bytes read from it.
+     *
+     * @param input The input stream.
+     * @param byteCounter The byte counter, or {@code null} to not count bytes.
+     * @return The input stream.
+     */
+    @Nullable
+    private static InputStream countBytes(@Nullable InputStream input, @Nullable final ByteCounter byteCounter) {
+        if (input == null || byteCounter == null) {
+            return input;
+        }
+
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b != -1) {
+                    byteCounter.received++;
+                }
+
+                return b;
+            }
+
+            @Override
+            public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+                int read = in.read(buffer, offset, length);
+                if (read > 0) {
+                    byteCounter.received += read;
+                }
+
+                return read;
+            }
+        };
     }
 
+    /**
+     * Reads the entire stream into a string.
+     *
+     * @param reader The reader.
+     * @return The contents of the reader.
+     * @throws IOException
+     */
+    private static String readEntireStream(@NonNull Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
+        }
+
+        return sb.toString();
+    }
 
+    /**
+     * Counts the bytes sent and received by a request.
+     */
+    private static class ByteCounter {
+        long sent;
+        long received;
+    }
 }
@@ -18,6 +18,7 @@ public class Response {
     private int status;
     private String responseMessage;
     private long lastModified;
+    private Object parsedBody;
 
     private Response() {
 
@@ -74,6 +75,19 @@ public class Response {
         return responseBody;
     }
 
+    /**
+     * Returns the response body parsed by the request's {@link ResponseParser}.
+     *
+     * @param <T> The parsed type.
+     * @return The parsed body, or {@code null} if the request was executed without a parser,
+     * the response was not successful, or the body failed to parse.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T getParsedBody() {
+        return (T) parsedBody;
+    }
+
     /**
      * Gets the last modified header value in milliseconds.
      *
@@ -102,6 +116,7 @@ public class Response {
         private final int status;
         private String responseMessage;
         private long lastModified = 0;
+        private Object parsedBody;
 
         /**
          * Creates a new response builder.
@@ -157,6 +172,17 @@ public class Response {
             return this;
         }
 
+        /**
+         * Set the parsed response body.
+         *
+         * @param parsedBody The parsed response body.
+         * @return The builder with the parsed response body set.
+         */
+        public Builder setParsedBody(Object parsedBody) {
+            this.parsedBody = parsedBody;
+            return this;
+        }
+
         /**
          * Creates a response.
          *
@@ -170,6 +196,7 @@ public class Response {
             response.responseHeaders = responseHeaders;
             response.responseMessage = responseMessage;
             response.lastModified = lastModified;
+            response.parsedBody = parsedBody;
 
             return response;
         }
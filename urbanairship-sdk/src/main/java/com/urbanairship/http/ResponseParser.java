@@ -0,0 +1,25 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.Reader;
+
+/**
+ * Parses a successful response body while it is read from the connection, instead of
+ * buffering the entire body as a string first.
+ *
+ * @param <T> The parsed type.
+ */
+public interface ResponseParser<T> {
+
+    /**
+     * Parses the response body.
+     *
+     * @param body A reader for the response body.
+     * @return The parsed body.
+     * @throws Exception if the body is unable to be parsed.
+     */
+    T parseResponseBody(@NonNull Reader body) throws Exception;
+}
@@ -18,7 +18,7 @@ import java.lang.annotation.RetentionPolicy;
  */
 public class Job {
 
-    @IntDef({ JOB_FINISHED, JOB_RETRY })
+    @IntDef({ JOB_FINISHED, JOB_RETRY, JOB_PENDING })
     @Retention(RetentionPolicy.SOURCE)
     public @interface JobResult {}
 
@@ -32,10 +32,20 @@ public class Job {
      */
     public static final int JOB_RETRY = 1;
 
+    /**
+     * Job started work that continues on another thread. The job is finished once
+     * {@link #finish()} is called.
+     */
+    public static final int JOB_PENDING = 2;
+
     private final Bundle extras;
     private final String action;
     private final String airshipComponentName;
 
+    private final Object finishLock = new Object();
+    private boolean finished;
+    private Runnable finishCallback;
+
     private Job(@NonNull Builder builder) {
         this.action = builder.action;
         this.airshipComponentName = builder.airshipComponentName;
@@ -72,6 +82,54 @@ public class Job {
         return airshipComponentName;
     }
 
+    /**
+     * Finishes a job that returned {@link #JOB_PENDING}. Only the first call has any effect.
+     */
+    public void finish() {
+        Runnable callback;
+        synchronized (finishLock) {
+            if (finished) {
+                return;
+            }
+
+            finished = true;
+            callback = finishCallback;
+        }
+
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Checks if {@link #finish()} was called.
+     *
+     * @return {@code true} if the job is finished, otherwise {@code false}.
+     */
+    public boolean isFinished() {
+        synchronized (finishLock) {
+            return finished;
+        }
+    }
+
+    /**
+     * Sets the callback to run when a pending job finishes. The callback runs right away if the
+     * job already finished.
+     *
+     * @param callback The finish callback.
+     * @hide
+     */
+    public void setFinishCallback(@NonNull Runnable callback) {
+        synchronized (finishLock) {
+            if (!finished) {
+                finishCallback = callback;
+                return;
+            }
+        }
+
+        callback.run();
+    }
+
     /**
      * Creates a new job builder.
      *
@@ -28,7 +28,7 @@ import java.util.concurrent.TimeUnit;
 public class JobDispatcher {
 
     private final Context context;
-    private static JobDispatcher instance;
+    private static volatile JobDispatcher instance;
 
     /**
      * Gets the shared instance.
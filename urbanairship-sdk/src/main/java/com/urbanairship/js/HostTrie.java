@@ -0,0 +1,93 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.js;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trie of host names keyed by their labels in reverse order, so "www.urbanairship.com" is stored
+ * as com -> urbanairship -> www. Supports exact hosts and "*." wildcard domains that match the domain
+ * and any of its subdomains. A lookup walks the host labels once.
+ *
+ * @param <T> The type of value stored for each host.
+ */
+class HostTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Adds a value for an exact host.
+     *
+     * @param host The host.
+     * @param value The value.
+     */
+    void addExact(@NonNull String host, @NonNull T value) {
+        getOrCreateNode(host).exact.add(value);
+    }
+
+    /**
+     * Adds a value for a domain and all of its subdomains.
+     *
+     * @param domain The domain, without the leading "*.".
+     * @param value The value.
+     */
+    void addWildcard(@NonNull String domain, @NonNull T value) {
+        getOrCreateNode(domain).wildcard.add(value);
+    }
+
+    /**
+     * Collects all the values whose host matches the given host.
+     *
+     * @param host The host.
+     * @param results The list to add the matching values to.
+     */
+    void match(@NonNull String host, @NonNull List<T> results) {
+        Node<T> node = root;
+        int end = host.length();
+
+        while (end >= 0) {
+            int start = host.lastIndexOf('.', end - 1);
+            node = node.children.get(host.substring(start + 1, end));
+            if (node == null) {
+                return;
+            }
+
+            results.addAll(node.wildcard);
+
+            if (start < 0) {
+                results.addAll(node.exact);
+                return;
+            }
+
+            end = start;
+        }
+    }
+
+    private Node<T> getOrCreateNode(String host) {
+        Node<T> node = root;
+        String[] labels = host.split("\\.", -1);
+
+        for (int i = labels.length - 1; i >= 0; i--) {
+            Node<T> child = node.children.get(labels[i]);
+            if (child == null) {
+                child = new Node<>();
+                node.children.put(labels[i], child);
+            }
+
+            node = child;
+        }
+
+        return node;
+    }
+
+    private static class Node<T> {
+        final Map<String, Node<T>> children = new HashMap<>();
+        final List<T> exact = new ArrayList<>(1);
+        final List<T> wildcard = new ArrayList<>(1);
+    }
+}
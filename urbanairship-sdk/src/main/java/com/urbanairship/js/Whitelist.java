@@ -5,6 +5,7 @@ package com.urbanairship.js;
 import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
 
 import com.urbanairship.AirshipConfigOptions;
 import com.urbanairship.Logger;
@@ -55,7 +56,30 @@ public class Whitelist {
      */
     private static final Pattern VALID_PATTERN = Pattern.compile(PATTERN_REGEX, Pattern.CASE_INSENSITIVE);
 
-    private final List<UriPattern> uriPatterns = new ArrayList<>();
+    /**
+     * Schemes matched by a wild card scheme.
+     */
+    private static final String[] WILDCARD_SCHEMES = new String[] { "http", "https" };
+
+    /**
+     * Max number of URL decisions to cache.
+     */
+    private static final int DECISION_CACHE_SIZE = 64;
+
+    /**
+     * Patterns that match any host.
+     */
+    private final List<UriPattern> anyHostPatterns = new ArrayList<>();
+
+    /**
+     * Patterns indexed by their exact or wild card host.
+     */
+    private final HostTrie<UriPattern> hostPatterns = new HostTrie<>();
+
+    /**
+     * Recent URL decisions.
+     */
+    private final LruCache<String, Boolean> decisionCache = new LruCache<>(DECISION_CACHE_SIZE);
 
     /**
      * Adds an entry to the whitelist for URL matching. Patterns must be defined with the following
@@ -96,8 +120,8 @@ public class Whitelist {
         // If we have just a wild card, we need to add a special pattern for both file and https/http
         // URIs.
         if (pattern.equals("*")) {
-            uriPatterns.add(new UriPattern(Pattern.compile("(http)|(https)"), null, null));
-            uriPatterns.add(new UriPattern(Pattern.compile("file"), null, Pattern.compile("/.*")));
+            addPattern(null, new UriPattern(WILDCARD_SCHEMES, PathMatcher.ANY));
+            addPattern(null, new UriPattern(new String[] { "file" }, PathMatcher.create("/*")));
             return true;
         }
 
@@ -106,34 +130,36 @@ public class Whitelist {
         String host = uri.getEncodedAuthority();
         String path = uri.getPath();
 
-        Pattern schemePattern;
+        String[] schemes;
         if (UAStringUtil.isEmpty(scheme) || scheme.equals("*")) {
-            schemePattern = Pattern.compile("(http)|(https)");
+            schemes = WILDCARD_SCHEMES;
         } else {
-            schemePattern = Pattern.compile(scheme);
+            schemes = new String[] { scheme };
         }
 
-        Pattern hostPattern;
+        PathMatcher pathMatcher = UAStringUtil.isEmpty(path) ? PathMatcher.ANY : PathMatcher.create(path);
+        addPattern(host, new UriPattern(schemes, pathMatcher));
+        return true;
+    }
+
+    /**
+     * Adds the pattern to the host index.
+     *
+     * @param host The pattern's host, or {@code null} to match any host.
+     * @param uriPattern The pattern.
+     */
+    private void addPattern(@Nullable String host, @NonNull UriPattern uriPattern) {
         if (UAStringUtil.isEmpty(host) || host.equals("*")) {
-            hostPattern = null;
+            anyHostPatterns.add(uriPattern);
         } else if (host.startsWith("*.")) {
-            hostPattern = Pattern.compile("(.*\\.)?" + escapeRegEx(host.substring(2), true));
-        } else {
-            hostPattern = Pattern.compile(escapeRegEx(host, true));
-        }
-
-        Pattern pathPattern;
-        if (UAStringUtil.isEmpty(path)) {
-            pathPattern = null;
+            hostPatterns.addWildcard(host.substring(2), uriPattern);
         } else {
-            pathPattern = Pattern.compile(escapeRegEx(path, false));
+            hostPatterns.addExact(host, uriPattern);
         }
 
-        uriPatterns.add(new UriPattern(schemePattern, hostPattern, pathPattern));
-        return true;
+        decisionCache.evictAll();
     }
 
-
     /**
      * Checks if a given URL is whitelisted or not.
      *
@@ -145,9 +171,38 @@ public class Whitelist {
             return false;
         }
 
-        Uri uri = Uri.parse(url);
+        Boolean cached = decisionCache.get(url);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean whitelisted = matches(Uri.parse(url));
+        decisionCache.put(url, whitelisted);
+        return whitelisted;
+    }
+
+    /**
+     * Checks if a uri matches any of the patterns.
+     *
+     * @param uri The uri.
+     * @return <code>true</code> if the uri matches, otherwise <code>false</code>.
+     */
+    private boolean matches(@NonNull Uri uri) {
+        for (UriPattern pattern : anyHostPatterns) {
+            if (pattern.matches(uri)) {
+                return true;
+            }
+        }
+
+        String host = uri.getHost();
+        if (host == null) {
+            return false;
+        }
+
+        List<UriPattern> candidates = new ArrayList<>();
+        hostPatterns.match(host, candidates);
 
-        for (UriPattern pattern : uriPatterns) {
+        for (UriPattern pattern : candidates) {
             if (pattern.matches(uri)) {
                 return true;
             }
@@ -160,20 +215,17 @@ public class Whitelist {
      * Helper method to escape any regular expression.
      *
      * @param input The input to escape.
-     * @param escapeWildCards If wild cards '*' should be turned into '.*' or escape
-     * @return The input with any regular expression escaped.
+     * @return The input with any regular expression escaped and wild cards '*' turned into '.*'.
      */
-    private String escapeRegEx(@NonNull String input, boolean escapeWildCards) {
+    private static String escapeRegEx(@NonNull String input) {
 
         StringBuilder escapedInput = new StringBuilder();
 
         for (char c : input.toCharArray()) {
             String character = String.valueOf(c);
 
-            if (!escapeWildCards && character.equals("*")) {
-                if (character.equals("*")) {
-                    escapedInput.append(".");
-                }
+            if (character.equals("*")) {
+                escapedInput.append(".");
             } else if (REGEX_SPECIAL_CHARACTERS.contains(character)) {
                 escapedInput.append("\\");
             }
@@ -204,24 +256,22 @@ public class Whitelist {
     }
 
     /**
-     * Helper class that does the actual matching using the scheme and host patterns.
+     * Helper class that does the actual matching using the scheme and path. The host is matched
+     * by the host index.
      */
-    private class UriPattern {
+    private static class UriPattern {
 
-        private final Pattern scheme;
-        private final Pattern host;
-        private final Pattern path;
+        private final String[] schemes;
+        private final PathMatcher path;
 
         /**
          * Creates a new UriPattern.
          *
-         * @param scheme The pattern to use for scheme matching.
-         * @param host The pattern to use for host matching.
-         * @param path THe pattern to use for path matching.
+         * @param schemes The schemes to match.
+         * @param path The path matcher.
          */
-        UriPattern(@Nullable Pattern scheme, @Nullable Pattern host, @Nullable Pattern path) {
-            this.scheme = scheme;
-            this.host = host;
+        UriPattern(@NonNull String[] schemes, @NonNull PathMatcher path) {
+            this.schemes = schemes;
             this.path = path;
         }
 
@@ -232,19 +282,84 @@ public class Whitelist {
          * @return <code>true</code> if the uri matches, otherwise <code>false</code>.
          */
         boolean matches(@NonNull Uri uri) {
-            if (scheme != null && (uri.getScheme() == null || !scheme.matcher(uri.getScheme()).matches())) {
+            String scheme = uri.getScheme();
+            if (scheme == null) {
                 return false;
             }
 
-            if (host != null && (uri.getHost() == null || !host.matcher(uri.getHost()).matches())) {
+            boolean schemeMatch = false;
+            for (String candidate : schemes) {
+                if (candidate.equals(scheme)) {
+                    schemeMatch = true;
+                    break;
+                }
+            }
+
+            return schemeMatch && path.matches(uri.getPath());
+        }
+    }
+
+    /**
+     * Matches a path. Literal paths are compared directly, paths that only end in a wild card are
+     * prefix checked, and a regular expression is only used for any other wild cards.
+     */
+    private static class PathMatcher {
+
+        static final PathMatcher ANY = new PathMatcher(null, null, null);
+
+        private final String literal;
+        private final String prefix;
+        private final Pattern pattern;
+
+        private PathMatcher(String literal, String prefix, Pattern pattern) {
+            this.literal = literal;
+            this.prefix = prefix;
+            this.pattern = pattern;
+        }
+
+        /**
+         * Creates a path matcher.
+         *
+         * @param path The path pattern.
+         * @return The path matcher.
+         */
+        static PathMatcher create(@NonNull String path) {
+            int wildCardIndex = path.indexOf('*');
+            if (wildCardIndex < 0) {
+                return new PathMatcher(path, null, null);
+            }
+
+            if (wildCardIndex == path.length() - 1) {
+                return new PathMatcher(null, path.substring(0, wildCardIndex), null);
+            }
+
+            return new PathMatcher(null, path.substring(0, wildCardIndex), Pattern.compile(escapeRegEx(path)));
+        }
+
+        /**
+         * Checks if a path matches.
+         *
+         * @param path The path.
+         * @return <code>true</code> if the path matches, otherwise <code>false</code>.
+         */
+        boolean matches(@Nullable String path) {
+            if (literal == null && prefix == null) {
+                return true;
+            }
+
+            if (path == null) {
                 return false;
             }
 
-            if (path != null && (uri.getPath() == null || !path.matcher(uri.getPath()).matches())) {
+            if (literal != null) {
+                return literal.equals(path);
+            }
+
+            if (!path.startsWith(prefix)) {
                 return false;
             }
 
-            return true;
+            return pattern == null || pattern.matcher(path).matches();
         }
     }
 }
@@ -6,6 +6,8 @@ import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.util.JsonReader;
+import android.util.JsonToken;
 
 import com.urbanairship.Logger;
 import com.urbanairship.util.UAStringUtil;
@@ -16,6 +18,9 @@ import org.json.JSONObject;
 import org.json.JSONStringer;
 import org.json.JSONTokener;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -339,6 +344,103 @@ public class JsonValue implements Parcelable, JsonSerializable {
         }
     }
 
+    /**
+     * Parse JSON from a reader as it is read, without buffering the entire JSON string first.
+     *
+     * @param reader The reader.
+     * @return A JsonValue from the reader.
+     * @throws JsonException If the JSON was unable to be parsed.
+     */
+    public static JsonValue parseReader(@NonNull Reader reader) throws JsonException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+
+        try {
+            try {
+                jsonReader.peek();
+            } catch (EOFException e) {
+                // Empty document
+                return JsonValue.NULL;
+            }
+
+            return readValue(jsonReader);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonException("Unable to parse reader", e);
+        }
+    }
+
+    /**
+     * Reads the next value from the JsonReader.
+     *
+     * @param reader The JsonReader.
+     * @return The JsonValue.
+     * @throws IOException
+     * @throws JsonException
+     */
+    private static JsonValue readValue(JsonReader reader) throws IOException, JsonException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, JsonValue> map = new HashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    map.put(name, readValue(reader));
+                }
+                reader.endObject();
+                return new JsonValue(new JsonMap(map));
+
+            case BEGIN_ARRAY:
+                List<JsonValue> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readValue(reader));
+                }
+                reader.endArray();
+                return new JsonValue(new JsonList(list));
+
+            case BOOLEAN:
+                return new JsonValue(reader.nextBoolean());
+
+            case NUMBER:
+                return readNumber(reader.nextString());
+
+            case NULL:
+                reader.nextNull();
+                return JsonValue.NULL;
+
+            case STRING:
+                return new JsonValue(reader.nextString());
+
+            default:
+                throw new JsonException("Unexpected token: " + reader.peek());
+        }
+    }
+
+    /**
+     * Wraps a number the same way {@link JSONTokener} does: integers that fit in an int are
+     * wrapped as an int, larger integers as a long, and everything else as a double.
+     *
+     * @param number The number string.
+     * @return The JsonValue.
+     * @throws JsonException
+     */
+    private static JsonValue readNumber(String number) throws JsonException {
+        if (number.indexOf('.') == -1 && number.indexOf('e') == -1 && number.indexOf('E') == -1) {
+            try {
+                long longValue = Long.parseLong(number);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return new JsonValue((int) longValue);
+                }
+
+                return new JsonValue(longValue);
+            } catch (NumberFormatException ignored) {
+                // Fall through to double
+            }
+        }
+
+        return wrap(Double.valueOf(number));
+    }
+
     @Override
     public boolean equals(Object object) {
         if (!(object instanceof JsonValue)) {
@@ -128,6 +128,10 @@ public class UALocationManager extends AirshipComponent {
     protected void init() {
         preferenceDataStore.addListener(preferenceChangeListener);
         activityMonitor.addListener(listener);
+    }
+
+    @Override
+    protected void initDeferred() {
         updateServiceConnection();
     }
 
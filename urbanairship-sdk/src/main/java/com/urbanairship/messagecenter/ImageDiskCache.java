@@ -0,0 +1,223 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.urbanairship.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Disk cache for downsampled images. Images are stored at the size they are displayed at, so
+ * a cache hit only has to decode the small image instead of the original download. The least
+ * recently used files are removed once the cache grows past its max size.
+ */
+class ImageDiskCache {
+
+    private static final int JPEG_QUALITY = 90;
+
+    private final File directory;
+    private final long maxSize;
+    private final Object lock = new Object();
+    private long size = -1;
+
+    /**
+     * Creates an ImageDiskCache.
+     *
+     * @param directory The cache directory.
+     * @param maxSize The max size of the cache in bytes.
+     */
+    ImageDiskCache(@NonNull File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the cached file for a key.
+     *
+     * @param key The cache key.
+     * @return The cached file, or {@code null} if the key is not cached.
+     */
+    @Nullable
+    @WorkerThread
+    File get(@NonNull String key) {
+        File file = new File(directory, hash(key));
+
+        synchronized (lock) {
+            if (!file.exists()) {
+                return null;
+            }
+
+            // Track access time for LRU trimming
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+            return file;
+        }
+    }
+
+    /**
+     * Stores a bitmap in the cache.
+     *
+     * @param key The cache key.
+     * @param bitmap The bitmap.
+     * @return {@code true} if the bitmap was stored, otherwise {@code false}.
+     */
+    @WorkerThread
+    boolean put(@NonNull String key, @NonNull Bitmap bitmap) {
+        synchronized (lock) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                Logger.error("ImageDiskCache - Unable to create cache directory: %s", directory);
+                return false;
+            }
+
+            File file = new File(directory, hash(key));
+            File temp = new File(directory, file.getName() + ".tmp");
+
+            FileOutputStream outputStream = null;
+            try {
+                outputStream = new FileOutputStream(temp);
+                Bitmap.CompressFormat format = bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+                if (!bitmap.compress(format, JPEG_QUALITY, outputStream)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                Logger.debug("ImageDiskCache - Unable to write image: %s", key, e);
+                return false;
+            } finally {
+                close(outputStream);
+            }
+
+            long previousLength = file.length();
+            if (!temp.renameTo(file)) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+                return false;
+            }
+
+            if (size >= 0) {
+                size += file.length() - previousLength;
+            }
+
+            trim();
+            return true;
+        }
+    }
+
+    /**
+     * Removes all cached files.
+     */
+    @WorkerThread
+    void clear() {
+        synchronized (lock) {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+
+            size = 0;
+        }
+    }
+
+    /**
+     * Gets the size of the cache in bytes.
+     *
+     * @return The size of the cache in bytes.
+     */
+    @WorkerThread
+    long getSize() {
+        synchronized (lock) {
+            if (size < 0) {
+                size = 0;
+                File[] files = directory.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        size += file.length();
+                    }
+                }
+            }
+
+            return size;
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the cache fits in the max size.
+     */
+    private void trim() {
+        if (getSize() <= maxSize) {
+            return;
+        }
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long lhsModified = lhs.lastModified();
+                long rhsModified = rhs.lastModified();
+                return lhsModified < rhsModified ? -1 : (lhsModified == rhsModified ? 0 : 1);
+            }
+        });
+
+        for (File file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Hashes the key into a file name.
+     *
+     * @param key The cache key.
+     * @return The file name.
+     */
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(key.getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+                builder.append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            return String.valueOf(key.hashCode());
+        }
+    }
+
+    private static void close(FileOutputStream outputStream) {
+        if (outputStream == null) {
+            return;
+        }
+
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            Logger.debug("ImageDiskCache - Failed to close stream.", e);
+        }
+    }
+}
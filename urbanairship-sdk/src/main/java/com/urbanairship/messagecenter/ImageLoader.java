@@ -2,8 +2,10 @@
 
 package com.urbanairship.messagecenter;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
@@ -11,8 +13,10 @@ import android.graphics.drawable.TransitionDrawable;
 import android.net.http.HttpResponseCache;
 import android.os.AsyncTask;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
 import android.support.v4.content.ContextCompat;
 import android.support.v4.util.LruCache;
 import android.view.ViewTreeObserver;
@@ -25,6 +29,9 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.Executor;
@@ -32,11 +39,18 @@ import java.util.concurrent.Executors;
 
 /**
  * Asynchronous bitmap loader for image views.
+ * <p/>
+ * Images are loaded from three tiers: a memory cache of drawables, a disk cache of images that are
+ * already downsampled to the requested size, and finally the network. Concurrent requests for the
+ * same image and size share a single fetch, and bitmaps evicted from the memory cache are reused
+ * when decoding from the disk cache.
  */
 class ImageLoader {
 
     private static final String CACHE_DIR = "urbanairship-cache";
 
+    private static final String IMAGE_CACHE_DIR = "urbanairship-image-cache";
+
     /**
      * Max amount of memory cache.
      */
@@ -47,6 +61,11 @@ class ImageLoader {
      */
     private static final int DISK_CACHE_SIZE = 1024 * 1024 * 50; // 50MB
 
+    /**
+     * Downsampled image disk cache size.
+     */
+    private static final int IMAGE_DISK_CACHE_SIZE = 1024 * 1024 * 20; // 20MB
+
     /**
      * How long the fade in animation when loading a bitmap into the image view in milliseconds.
      */
@@ -55,7 +74,14 @@ class ImageLoader {
     private final Executor executor;
     private final Context context;
     private final Map<ImageView, Request> requestMap;
+    private final Map<ImageView, BitmapDrawable> displayedDrawables;
+    private final Map<String, BitmapAsyncTask> pendingTasks;
     private final LruCache<String, BitmapDrawable> memoryCache;
+    private final ImageDiskCache diskCache;
+    private final ReusableBitmapPool bitmapPool;
+
+    private int lastWidth;
+    private int lastHeight;
 
     /**
      * Creates an ImageLoader.
@@ -65,7 +91,11 @@ class ImageLoader {
     ImageLoader(Context context) {
         this.context = context.getApplicationContext();
         this.requestMap = new WeakHashMap<>();
+        this.displayedDrawables = new WeakHashMap<>();
+        this.pendingTasks = new HashMap<>();
         this.executor = Executors.newFixedThreadPool(2);
+        this.diskCache = new ImageDiskCache(new File(this.context.getCacheDir(), IMAGE_CACHE_DIR), IMAGE_DISK_CACHE_SIZE);
+        this.bitmapPool = new ReusableBitmapPool();
 
         // Memory Cache
         int memCacheSize = (int) Math.min(MAX_MEM_CACHE_SIZE, Runtime.getRuntime().maxMemory() / 8);
@@ -74,6 +104,14 @@ class ImageLoader {
             protected int sizeOf(String key, BitmapDrawable bitmapDrawable) {
                 return bitmapDrawable.getBitmap().getByteCount();
             }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, BitmapDrawable oldValue, BitmapDrawable newValue) {
+                // Only reuse bitmaps that are no longer on screen
+                if (evicted && !displayedDrawables.containsValue(oldValue)) {
+                    bitmapPool.add(oldValue.getBitmap());
+                }
+            }
         };
     }
 
@@ -82,6 +120,7 @@ class ImageLoader {
      *
      * @param imageView The imageView.
      */
+    @MainThread
     void cancelRequest(ImageView imageView) {
         if (imageView == null) {
             return;
@@ -99,6 +138,7 @@ class ImageLoader {
      * @param placeHolder The optional placeholder.
      * @param imageView The image view.
      */
+    @MainThread
     void load(String imageUrl, @DrawableRes int placeHolder, @NonNull ImageView imageView) {
         cancelRequest(imageView);
 
@@ -115,6 +155,80 @@ class ImageLoader {
         request.execute();
     }
 
+    /**
+     * Prefetches an image at the size of the most recently loaded image view so it is
+     * in the memory cache by the time it is displayed. Does nothing until an image view
+     * has been measured.
+     *
+     * @param imageUrl The url to prefetch.
+     */
+    @MainThread
+    void prefetch(@Nullable String imageUrl) {
+        if (imageUrl == null || (lastWidth == 0 && lastHeight == 0)) {
+            return;
+        }
+
+        String cacheKey = createCacheKey(imageUrl, lastWidth, lastHeight);
+        if (memoryCache.get(cacheKey) != null || pendingTasks.containsKey(cacheKey)) {
+            return;
+        }
+
+        BitmapAsyncTask task = new BitmapAsyncTask(imageUrl, lastWidth, lastHeight, true);
+        pendingTasks.put(cacheKey, task);
+        task.executeOnExecutor(executor);
+    }
+
+    /**
+     * Clears the memory cache and the reusable bitmaps.
+     */
+    @MainThread
+    void clearMemoryCache() {
+        memoryCache.evictAll();
+        bitmapPool.clear();
+    }
+
+    /**
+     * Releases memory at the given trim level. Moderate pressure halves the memory cache, anything
+     * more severe clears it.
+     *
+     * @param level The trim level from {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    @MainThread
+    void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            clearMemoryCache();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            memoryCache.trimToSize(memoryCache.maxSize() / 2);
+            bitmapPool.clear();
+        }
+    }
+
+    /**
+     * Sets the drawable on the image view and tracks it as displayed.
+     *
+     * @param imageView The image view.
+     * @param drawable The displayed bitmap drawable, or {@code null} to clear it.
+     */
+    private void setDisplayedDrawable(@NonNull ImageView imageView, @Nullable BitmapDrawable drawable) {
+        if (drawable == null) {
+            displayedDrawables.remove(imageView);
+        } else {
+            displayedDrawables.put(imageView, drawable);
+        }
+    }
+
+    /**
+     * Creates the cache key for an image.
+     *
+     * @param imageUrl The image url.
+     * @param width The requested width.
+     * @param height The requested height.
+     * @return The cache key.
+     */
+    private static String createCacheKey(String imageUrl, int width, int height) {
+        return imageUrl + ",size(" + width + "x" + height + ")";
+    }
+
     /**
      * Request to load a bitmap into an ImageView.
      */
@@ -152,7 +266,7 @@ class ImageLoader {
             }
 
             if (task != null) {
-                task.cancel(true);
+                task.removeRequest(this);
                 task = null;
             }
         }
@@ -192,9 +306,13 @@ class ImageLoader {
                 }
             }
 
+            lastWidth = width;
+            lastHeight = height;
+
             BitmapDrawable cachedBitmapDrawable = memoryCache.get(getCacheKey());
             if (cachedBitmapDrawable != null) {
                 imageView.setImageDrawable(cachedBitmapDrawable);
+                setDisplayedDrawable(imageView, cachedBitmapDrawable);
                 onFinish();
             } else {
                 if (placeHolder > 0) {
@@ -202,10 +320,41 @@ class ImageLoader {
                 } else {
                     imageView.setImageDrawable(null);
                 }
+                setDisplayedDrawable(imageView, null);
+
+                this.task = pendingTasks.get(getCacheKey());
+                if (task == null) {
+                    task = new BitmapAsyncTask(imageUrl, width, height, false);
+                    pendingTasks.put(getCacheKey(), task);
+                    task.addRequest(this);
+                    task.executeOnExecutor(executor);
+                } else {
+                    task.addRequest(this);
+                }
+            }
+        }
+
+        /**
+         * Called when the bitmap is loaded.
+         *
+         * @param bitmapDrawable The bitmap drawable, or {@code null} if the bitmap failed to load.
+         */
+        void onLoaded(@Nullable BitmapDrawable bitmapDrawable) {
+            task = null;
 
-                this.task = new BitmapAsyncTask(this);
-                task.executeOnExecutor(executor);
+            final ImageView imageView = getImageView();
+            if (bitmapDrawable != null && imageView != null) {
+                // Transition drawable with a transparent drawable and the final drawable
+                TransitionDrawable td = new TransitionDrawable(new Drawable[] {
+                        new ColorDrawable(ContextCompat.getColor(context, android.R.color.transparent)),
+                        bitmapDrawable
+                });
+                imageView.setImageDrawable(td);
+                setDisplayedDrawable(imageView, bitmapDrawable);
+                td.startTransition(FADE_IN_TIME_MS);
             }
+
+            onFinish();
         }
 
         @Override
@@ -231,37 +380,74 @@ class ImageLoader {
          * @return The memory cache key.
          */
         String getCacheKey() {
-            return imageUrl + ",size(" + width + "x" + height + ")";
+            return createCacheKey(imageUrl, width, height);
         }
     }
 
     /**
-     * Bitmap task to fetch the bitmap.
+     * Bitmap task to fetch the bitmap. A single task is shared by all requests for the
+     * same image and size.
      */
     private class BitmapAsyncTask extends AsyncTask<Void, Void, BitmapDrawable> {
-        private final Request request;
+        private final String imageUrl;
+        private final int width;
+        private final int height;
+        private final String cacheKey;
+        private final boolean isPrefetch;
+        private final List<Request> requests = new ArrayList<>();
+
+        BitmapAsyncTask(String imageUrl, int width, int height, boolean isPrefetch) {
+            this.imageUrl = imageUrl;
+            this.width = width;
+            this.height = height;
+            this.isPrefetch = isPrefetch;
+            this.cacheKey = createCacheKey(imageUrl, width, height);
+        }
+
+        /**
+         * Adds a request waiting on the bitmap.
+         *
+         * @param request The request.
+         */
+        void addRequest(Request request) {
+            requests.add(request);
+        }
 
-        BitmapAsyncTask(Request request) {
-            this.request = request;
+        /**
+         * Removes a request. Cancels the task once no requests are waiting on it unless
+         * the task is a prefetch.
+         *
+         * @param request The request.
+         */
+        void removeRequest(Request request) {
+            requests.remove(request);
+            if (requests.isEmpty() && !isPrefetch) {
+                cancel(true);
+                pendingTasks.remove(cacheKey);
+            }
         }
 
         @Override
         protected BitmapDrawable doInBackground(Void... params) {
-            installCache();
-
-            if (request.imageUrl == null) {
+            if (imageUrl == null) {
                 return null;
             }
 
+            Bitmap bitmap = decodeCachedBitmap();
+            if (bitmap != null) {
+                return new BitmapDrawable(context.getResources(), bitmap);
+            }
+
+            installCache();
+
             try {
-                Bitmap bitmap = BitmapUtils.fetchScaledBitmap(context, new URL(request.imageUrl), request.width, request.height);
+                bitmap = BitmapUtils.fetchScaledBitmap(context, new URL(imageUrl), width, height);
                 if (bitmap != null) {
-                    BitmapDrawable bitmapDrawable = new BitmapDrawable(context.getResources(), bitmap);
-                    memoryCache.put(request.getCacheKey(), bitmapDrawable);
-                    return bitmapDrawable;
+                    diskCache.put(cacheKey, bitmap);
+                    return new BitmapDrawable(context.getResources(), bitmap);
                 }
             } catch (IOException e) {
-                Logger.debug("Unable to fetch bitmap: " + request.imageUrl);
+                Logger.debug("Unable to fetch bitmap: %s", imageUrl);
             }
 
             return null;
@@ -269,15 +455,46 @@ class ImageLoader {
 
         @Override
         protected void onPostExecute(BitmapDrawable bitmapDrawable) {
-            final ImageView imageView = request.getImageView();
-            if (bitmapDrawable != null && imageView != null) {
-                // Transition drawable with a transparent drawable and the final drawable
-                TransitionDrawable td = new TransitionDrawable(new Drawable[] {
-                        new ColorDrawable(ContextCompat.getColor(context, android.R.color.transparent)),
-                        bitmapDrawable
-                });
-                imageView.setImageDrawable(td);
-                td.startTransition(FADE_IN_TIME_MS);
+            pendingTasks.remove(cacheKey);
+
+            if (bitmapDrawable != null) {
+                memoryCache.put(cacheKey, bitmapDrawable);
+            }
+
+            for (Request request : new ArrayList<>(requests)) {
+                request.onLoaded(bitmapDrawable);
+            }
+            requests.clear();
+        }
+
+        /**
+         * Decodes the downsampled bitmap from the disk cache, reusing a pooled bitmap if possible.
+         *
+         * @return The bitmap, or {@code null} if the bitmap is not cached.
+         */
+        @WorkerThread
+        @Nullable
+        private Bitmap decodeCachedBitmap() {
+            File file = diskCache.get(cacheKey);
+            if (file == null) {
+                return null;
+            }
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = 1;
+            options.inMutable = true;
+            options.inBitmap = bitmapPool.get(options);
+
+            try {
+                return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            } catch (IllegalArgumentException e) {
+                // The pooled bitmap could not be reused
+                options.inBitmap = null;
+                return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
             }
         }
 
@@ -0,0 +1,174 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.support.annotation.NonNull;
+
+import com.urbanairship.richpush.RichPushMessage;
+import com.urbanairship.util.UAStringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difference between two inbox snapshots, matched by message ID.
+ */
+class MessageListDiff {
+
+    private final List<Integer> inserted;
+    private final List<Integer> removed;
+    private final List<Integer> changed;
+    private final boolean moved;
+
+    private MessageListDiff(List<Integer> inserted, List<Integer> removed, List<Integer> changed, boolean moved) {
+        this.inserted = Collections.unmodifiableList(inserted);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+        this.moved = moved;
+    }
+
+    /**
+     * Calculates the difference between two snapshots.
+     *
+     * @param oldItems The old snapshot.
+     * @param newItems The new snapshot.
+     * @return The difference.
+     */
+    @NonNull
+    static MessageListDiff calculate(@NonNull List<Item> oldItems, @NonNull List<Item> newItems) {
+        Map<String, Integer> oldPositions = new HashMap<>();
+        for (int i = 0; i < oldItems.size(); i++) {
+            oldPositions.put(oldItems.get(i).messageId, i);
+        }
+
+        List<Integer> inserted = new ArrayList<>();
+        List<Integer> changed = new ArrayList<>();
+        Map<String, Integer> newPositions = new HashMap<>();
+        boolean moved = false;
+        int lastOldPosition = -1;
+
+        for (int i = 0; i < newItems.size(); i++) {
+            Item item = newItems.get(i);
+            newPositions.put(item.messageId, i);
+
+            Integer oldPosition = oldPositions.get(item.messageId);
+            if (oldPosition == null) {
+                inserted.add(i);
+                continue;
+            }
+
+            // Retained messages must keep their relative order
+            if (oldPosition < lastOldPosition) {
+                moved = true;
+            }
+            lastOldPosition = oldPosition;
+
+            if (!item.equals(oldItems.get(oldPosition))) {
+                changed.add(i);
+            }
+        }
+
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < oldItems.size(); i++) {
+            if (!newPositions.containsKey(oldItems.get(i).messageId)) {
+                removed.add(i);
+            }
+        }
+
+        return new MessageListDiff(inserted, removed, changed, moved);
+    }
+
+    /**
+     * Positions in the new snapshot of the messages that were not in the old snapshot.
+     *
+     * @return The inserted positions.
+     */
+    @NonNull
+    List<Integer> getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Positions in the old snapshot of the messages that are not in the new snapshot.
+     *
+     * @return The removed positions.
+     */
+    @NonNull
+    List<Integer> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Positions in the new snapshot of the messages whose displayed state changed.
+     *
+     * @return The changed positions.
+     */
+    @NonNull
+    List<Integer> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Checks if messages were inserted, removed or reordered.
+     *
+     * @return {@code true} if the structure of the list changed, otherwise {@code false}.
+     */
+    boolean isStructuralChange() {
+        return moved || !inserted.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * The displayed state of a message. Messages are mutable, so the state is captured when the
+     * snapshot is taken.
+     */
+    static class Item {
+        final String messageId;
+        final boolean read;
+        final String title;
+        final long sentDateMS;
+        final String listIconUrl;
+
+        Item(@NonNull RichPushMessage message) {
+            this(message.getMessageId(), message.isRead(), message.getTitle(), message.getSentDateMS(), message.getListIconUrl());
+        }
+
+        Item(String messageId, boolean read, String title, long sentDateMS, String listIconUrl) {
+            this.messageId = messageId;
+            this.read = read;
+            this.title = title;
+            this.sentDateMS = sentDateMS;
+            this.listIconUrl = listIconUrl;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Item)) {
+                return false;
+            }
+
+            Item that = (Item) o;
+            return read == that.read && sentDateMS == that.sentDateMS
+                    && UAStringUtil.equals(messageId, that.messageId)
+                    && UAStringUtil.equals(title, that.title)
+                    && UAStringUtil.equals(listIconUrl, that.listIconUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 17;
+            result = 31 * result + (messageId == null ? 0 : messageId.hashCode());
+            result = 31 * result + (read ? 1 : 0);
+            result = 31 * result + (title == null ? 0 : title.hashCode());
+            result = 31 * result + (int) (sentDateMS ^ (sentDateMS >>> 32));
+            result = 31 * result + (listIconUrl == null ? 0 : listIconUrl.hashCode());
+            return result;
+        }
+    }
+}
@@ -2,6 +2,8 @@
 
 package com.urbanairship.messagecenter;
 
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.PorterDuff;
 import android.graphics.Typeface;
@@ -61,6 +63,11 @@ public class MessageListFragment extends Fragment {
     private RichPushInbox.Predicate predicate;
     private final List<OnListViewReadyCallback> pendingCallbacks = new ArrayList<>();
 
+    /**
+     * Number of items past the visible items to prefetch icons for.
+     */
+    private static final int PREFETCH_ITEM_COUNT = 6;
+
 
     @DrawableRes
     private int placeHolder = R.drawable.ua_ic_image_placeholder;
@@ -72,6 +79,23 @@ public class MessageListFragment extends Fragment {
         }
     };
 
+    private final ComponentCallbacks2 componentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (imageLoader != null) {
+                imageLoader.onTrimMemory(level);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {}
+
+        @Override
+        public void onLowMemory() {
+            onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+    };
+
     /**
      * Gets messages from the inbox filtered by the local predicate
      * @return The filtered list of messages.
@@ -81,7 +105,7 @@ public class MessageListFragment extends Fragment {
     }
 
     private void updateAdapterMessages() {
-        adapter.set(getMessages());
+        adapter.update(getMessages());
     }
 
     @Override
@@ -89,7 +113,10 @@ public class MessageListFragment extends Fragment {
         super.onCreate(savedInstanceState);
         this.richPushInbox = UAirship.shared().getInbox();
         this.adapter = createMessageViewAdapter();
-        updateAdapterMessages();
+        adapter.set(getMessages());
+
+        // Fragments do not receive trim callbacks, so listen on the application context
+        getContext().getApplicationContext().registerComponentCallbacks(componentCallbacks);
     }
 
     /**
@@ -164,6 +191,7 @@ public class MessageListFragment extends Fragment {
         }
 
         absListView.setAdapter(adapter);
+        absListView.setOnScrollListener(new PrefetchScrollListener());
 
         // Pull to refresh
         refreshLayout = (SwipeRefreshLayout) view.findViewById(R.id.swipe_container);
@@ -336,6 +364,7 @@ public class MessageListFragment extends Fragment {
     public void onDestroy() {
         super.onDestroy();
         pendingCallbacks.clear();
+        getContext().getApplicationContext().unregisterComponentCallbacks(componentCallbacks);
     }
 
     /**
@@ -373,4 +402,42 @@ public class MessageListFragment extends Fragment {
             updateAdapterMessages();
         }
     }
+
+    /**
+     * Scroll listener that prefetches the list icons for the items about to scroll into view.
+     */
+    private class PrefetchScrollListener implements AbsListView.OnScrollListener {
+
+        private int lastFirstVisibleItem = -1;
+
+        @Override
+        public void onScrollStateChanged(AbsListView view, int scrollState) {}
+
+        @Override
+        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+            if (imageLoader == null || visibleItemCount == 0 || firstVisibleItem == lastFirstVisibleItem) {
+                return;
+            }
+
+            boolean scrollingUp = firstVisibleItem < lastFirstVisibleItem;
+            lastFirstVisibleItem = firstVisibleItem;
+
+            int start;
+            int end;
+            if (scrollingUp) {
+                start = Math.max(0, firstVisibleItem - PREFETCH_ITEM_COUNT);
+                end = firstVisibleItem;
+            } else {
+                start = firstVisibleItem + visibleItemCount;
+                end = Math.min(totalItemCount, start + PREFETCH_ITEM_COUNT);
+            }
+
+            for (int i = start; i < end; i++) {
+                RichPushMessage message = getMessage(i);
+                if (message != null) {
+                    imageLoader.prefetch(message.getListIconUrl());
+                }
+            }
+        }
+    }
 }
@@ -3,6 +3,8 @@
 package com.urbanairship.messagecenter;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,7 +14,13 @@ import com.urbanairship.richpush.RichPushMessage;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 
 /**
@@ -20,10 +28,18 @@ import java.util.List;
  */
 public abstract class MessageViewAdapter extends BaseAdapter {
 
+    /**
+     * Executor used to calculate the difference between inbox snapshots.
+     */
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
 
     private final List<RichPushMessage> items;
+    private List<MessageListDiff.Item> snapshot = new ArrayList<>();
+    private final Map<View, Integer> boundViews = new WeakHashMap<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
     private final Context context;
     private final int layout;
+    private int generation;
 
     /**
      * Creates a ViewBinder
@@ -70,6 +86,7 @@ public abstract class MessageViewAdapter extends BaseAdapter {
 
         if (position <= items.size()) {
             bindView(view, items.get(position), position);
+            boundViews.put(view, position);
         }
 
         return view;
@@ -90,6 +107,9 @@ public abstract class MessageViewAdapter extends BaseAdapter {
      * @param collection Collection of items
      */
     public void set(Collection<RichPushMessage> collection) {
+        generation++;
+        snapshot = createSnapshot(collection);
+
         synchronized (items) {
             items.clear();
             items.addAll(collection);
@@ -98,6 +118,88 @@ public abstract class MessageViewAdapter extends BaseAdapter {
         notifyDataSetChanged();
     }
 
+    /**
+     * Updates the items in the adapter to the collection. The difference with the current items
+     * is calculated in the background. Only the rows of changed messages are rebound, and the
+     * data set is only invalidated if messages were inserted, removed or reordered. Must be called
+     * on the main thread.
+     *
+     * @param collection Collection of items
+     */
+    public void update(Collection<RichPushMessage> collection) {
+        final int updateGeneration = ++generation;
+        final List<RichPushMessage> newItems = new ArrayList<>(collection);
+        final List<MessageListDiff.Item> oldSnapshot = snapshot;
+        final List<MessageListDiff.Item> newSnapshot = createSnapshot(newItems);
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final MessageListDiff diff = MessageListDiff.calculate(oldSnapshot, newSnapshot);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // A newer update was applied
+                        if (updateGeneration != generation) {
+                            return;
+                        }
+
+                        applyUpdate(newItems, newSnapshot, diff);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Applies an update.
+     *
+     * @param newItems The new items.
+     * @param newSnapshot The snapshot of the new items.
+     * @param diff The difference with the current items.
+     */
+    private void applyUpdate(List<RichPushMessage> newItems, List<MessageListDiff.Item> newSnapshot, MessageListDiff diff) {
+        snapshot = newSnapshot;
+
+        synchronized (items) {
+            items.clear();
+            items.addAll(newItems);
+        }
+
+        if (diff.isStructuralChange()) {
+            notifyDataSetChanged();
+            return;
+        }
+
+        if (diff.getChanged().isEmpty()) {
+            return;
+        }
+
+        // Rebind the views that currently display a changed message
+        Set<Integer> changed = new HashSet<>(diff.getChanged());
+        for (Map.Entry<View, Integer> entry : new ArrayList<>(boundViews.entrySet())) {
+            int position = entry.getValue();
+            if (changed.contains(position) && entry.getKey() != null) {
+                bindView(entry.getKey(), items.get(position), position);
+            }
+        }
+    }
+
+    /**
+     * Captures the displayed state of the messages.
+     *
+     * @param messages The messages.
+     * @return The snapshot.
+     */
+    private static List<MessageListDiff.Item> createSnapshot(Collection<RichPushMessage> messages) {
+        List<MessageListDiff.Item> snapshot = new ArrayList<>(messages.size());
+        for (RichPushMessage message : messages) {
+            snapshot.add(new MessageListDiff.Item(message));
+        }
+
+        return snapshot;
+    }
+
     /**
      * Returns the context.
      *
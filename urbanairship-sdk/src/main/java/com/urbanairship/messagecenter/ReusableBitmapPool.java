@@ -0,0 +1,107 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Pool of bitmaps that are no longer displayed or cached and can be reused through
+ * {@link BitmapFactory.Options#inBitmap} when decoding a new image.
+ */
+class ReusableBitmapPool {
+
+    private final List<SoftReference<Bitmap>> bitmaps = new LinkedList<>();
+
+    /**
+     * Adds a bitmap to the pool. Only mutable bitmaps can be reused.
+     *
+     * @param bitmap The bitmap.
+     */
+    void add(@NonNull Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+
+        synchronized (bitmaps) {
+            bitmaps.add(new SoftReference<>(bitmap));
+        }
+    }
+
+    /**
+     * Removes and returns a bitmap that can be used to decode an image with the given options.
+     * The options must have already been used to decode the image bounds.
+     *
+     * @param options The decode options.
+     * @return A reusable bitmap, or {@code null} if none are available.
+     */
+    @Nullable
+    Bitmap get(@NonNull BitmapFactory.Options options) {
+        synchronized (bitmaps) {
+            Iterator<SoftReference<Bitmap>> iterator = bitmaps.iterator();
+            while (iterator.hasNext()) {
+                Bitmap bitmap = iterator.next().get();
+                if (bitmap == null || !bitmap.isMutable() || bitmap.isRecycled()) {
+                    iterator.remove();
+                    continue;
+                }
+
+                if (canReuse(bitmap, options)) {
+                    iterator.remove();
+                    return bitmap;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Clears the pool.
+     */
+    void clear() {
+        synchronized (bitmaps) {
+            bitmaps.clear();
+        }
+    }
+
+    /**
+     * Checks if the bitmap can be reused to decode an image.
+     *
+     * @param bitmap The candidate bitmap.
+     * @param options The decode options.
+     * @return {@code true} if the bitmap can be reused, otherwise {@code false}.
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static boolean canReuse(Bitmap bitmap, BitmapFactory.Options options) {
+        int sampleSize = Math.max(1, options.inSampleSize);
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            // Before KitKat the bitmap must match the decoded size exactly
+            return sampleSize == 1 && bitmap.getWidth() == options.outWidth && bitmap.getHeight() == options.outHeight;
+        }
+
+        int width = options.outWidth / sampleSize;
+        int height = options.outHeight / sampleSize;
+        return width * height * getBytesPerPixel(bitmap.getConfig()) <= bitmap.getAllocationByteCount();
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ARGB_8888) {
+            return 4;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+
+        return 1;
+    }
+}
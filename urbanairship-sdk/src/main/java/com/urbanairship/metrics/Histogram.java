@@ -0,0 +1,112 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values. Values are counted in power of two buckets, so
+ * percentiles are approximate and reported as the upper bound of the bucket they fall in.
+ */
+public class Histogram {
+
+    /**
+     * Bucket {@code i} holds values less than {@code 2^i}. The last bucket holds everything else.
+     */
+    private static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value The value.
+     */
+    void record(long value) {
+        value = Math.max(0, value);
+
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        while (true) {
+            long currentMax = max.get();
+            if (value <= currentMax || max.compareAndSet(currentMax, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the sum of the recorded values.
+     *
+     * @return The sum of the recorded values.
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The largest recorded value, or 0 if no values have been recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return The mean, or 0 if no values have been recorded.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * Gets an approximate percentile of the recorded values.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket containing the percentile, capped at the max value.
+     * Returns 0 if no values have been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(count * Math.max(0, Math.min(100, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target && seen > 0) {
+                return i == BUCKET_COUNT - 1 ? getMax() : Math.min(getMax(), (1L << i) - 1);
+            }
+        }
+
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(50)
+                + ", p95=" + getPercentile(95) + ", max=" + getMax() + "}";
+    }
+}
@@ -0,0 +1,255 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records SDK performance metrics.
+ * <p/>
+ * Metrics are disabled by default. Once enabled, the SDK records counters and histograms for the
+ * work it does, such as job queue wait and run times, database and HTTP latency, and analytics
+ * event rates. Durations are recorded in microseconds. The recorders are lock-free, and when
+ * metrics are disabled recording only reads a flag.
+ * <p/>
+ * Set a {@link MetricsListener} to forward the metrics to an application performance monitoring
+ * service, or read the aggregated values with {@link #getCounters()} and {@link #getHistograms()}.
+ */
+public final class Metrics {
+
+    /**
+     * Time in microseconds a job waited for its component's executor. Suffixed with the
+     * component's class name.
+     */
+    public static final String JOB_QUEUE_WAIT = "job.queue_wait_us.";
+
+    /**
+     * Time in microseconds a job ran. Suffixed with the component's class name.
+     */
+    public static final String JOB_RUN = "job.run_us.";
+
+    /**
+     * Time in microseconds a database call took. Suffixed with the data manager's class name and
+     * the operation, for example {@code db_us.EventDataManager.query}.
+     */
+    public static final String DATABASE_CALL = "db_us.";
+
+    /**
+     * Time in microseconds an HTTP request took, including reading the response.
+     */
+    public static final String HTTP_REQUEST = "http.request_us";
+
+    /**
+     * Number of failed HTTP requests.
+     */
+    public static final String HTTP_FAILURES = "http.failures";
+
+    /**
+     * Number of HTTP request body bytes sent.
+     */
+    public static final String HTTP_BYTES_SENT = "http.bytes_sent";
+
+    /**
+     * Number of HTTP response body bytes received.
+     */
+    public static final String HTTP_BYTES_RECEIVED = "http.bytes_received";
+
+    /**
+     * Time in microseconds an action ran. Suffixed with the action name.
+     */
+    public static final String ACTION_RUN = "action.run_us.";
+
+    /**
+     * Number of analytics events added.
+     */
+    public static final String EVENTS_ADDED = "analytics.events_added";
+
+    /**
+     * Number of analytics events uploaded.
+     */
+    public static final String EVENTS_UPLOADED = "analytics.events_uploaded";
+
+    private static volatile boolean enabled;
+    private static volatile MetricsListener listener;
+
+    private static final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Private, unused constructor
+     */
+    private Metrics() {}
+
+    /**
+     * Enables or disables recording metrics.
+     *
+     * @param enabled {@code true} to record metrics, otherwise {@code false}.
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Checks if metrics are recorded. Use this to guard work that is only needed to record a
+     * metric, such as building a metric name.
+     *
+     * @return {@code true} if metrics are recorded, otherwise {@code false}.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the metrics listener. Setting a listener enables metrics.
+     *
+     * @param listener The listener, or {@code null} to remove the listener.
+     */
+    public static void setListener(@Nullable MetricsListener listener) {
+        Metrics.listener = listener;
+        if (listener != null) {
+            enabled = true;
+        }
+    }
+
+    /**
+     * Increments a counter.
+     *
+     * @param name The counter name.
+     * @param delta The amount to increment the counter by.
+     */
+    public static void increment(@NonNull String name, long delta) {
+        if (!enabled) {
+            return;
+        }
+
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(name, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+
+        counter.addAndGet(delta);
+
+        MetricsListener listener = Metrics.listener;
+        if (listener != null) {
+            listener.onCounterIncremented(name, delta);
+        }
+    }
+
+    /**
+     * Records a value in a histogram.
+     *
+     * @param name The histogram name.
+     * @param value The value.
+     */
+    public static void record(@NonNull String name, long value) {
+        if (!enabled) {
+            return;
+        }
+
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            Histogram newHistogram = new Histogram();
+            histogram = histograms.putIfAbsent(name, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+
+        histogram.record(value);
+
+        MetricsListener listener = Metrics.listener;
+        if (listener != null) {
+            listener.onValueRecorded(name, value);
+        }
+    }
+
+    /**
+     * Starts a span. The span's duration is recorded in the named histogram when it ends.
+     *
+     * @param name The histogram name.
+     * @return The span.
+     */
+    @NonNull
+    public static Span startSpan(@NonNull String name) {
+        if (!enabled) {
+            return Span.DISABLED;
+        }
+
+        return new Span(name, System.nanoTime());
+    }
+
+    /**
+     * Records a value in a histogram whose name is built from a prefix and a suffix. The name is
+     * only built if metrics are enabled.
+     *
+     * @param prefix The histogram name prefix.
+     * @param suffix The histogram name suffix.
+     * @param value The value.
+     */
+    public static void record(@NonNull String prefix, @NonNull String suffix, long value) {
+        if (enabled) {
+            record(prefix + suffix, value);
+        }
+    }
+
+    /**
+     * Starts a span whose name is built from a prefix and a suffix. The name is only built if
+     * metrics are enabled.
+     *
+     * @param prefix The histogram name prefix.
+     * @param suffix The histogram name suffix.
+     * @return The span.
+     */
+    @NonNull
+    public static Span startSpan(@NonNull String prefix, @NonNull String suffix) {
+        if (!enabled) {
+            return Span.DISABLED;
+        }
+
+        return new Span(prefix + suffix, System.nanoTime());
+    }
+
+    /**
+     * Gets the current counter values.
+     *
+     * @return A map of counter names to values.
+     */
+    @NonNull
+    public static Map<String, Long> getCounters() {
+        Map<String, Long> values = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return values;
+    }
+
+    /**
+     * Gets the histograms.
+     *
+     * @return A map of histogram names to histograms.
+     */
+    @NonNull
+    public static Map<String, Histogram> getHistograms() {
+        return new HashMap<>(histograms);
+    }
+
+    /**
+     * Clears the recorded counters and histograms.
+     */
+    public static void reset() {
+        counters.clear();
+        histograms.clear();
+    }
+}
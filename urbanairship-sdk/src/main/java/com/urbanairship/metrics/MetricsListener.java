@@ -0,0 +1,31 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.metrics;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A metrics listener. Used to forward SDK metrics to an application performance monitoring
+ * service by setting the listener with {@link Metrics#setListener(MetricsListener)}.
+ * <p/>
+ * The listener is called on the thread that recorded the metric, which is often a thread doing
+ * time sensitive SDK work. Implementations should hand the values off and return quickly.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when a counter is incremented.
+     *
+     * @param name The counter name.
+     * @param delta The amount the counter was incremented by.
+     */
+    void onCounterIncremented(@NonNull String name, long delta);
+
+    /**
+     * Called when a value is recorded in a histogram, including span durations.
+     *
+     * @param name The histogram name.
+     * @param value The recorded value.
+     */
+    void onValueRecorded(@NonNull String name, long value);
+}
@@ -0,0 +1,50 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.metrics;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Times a unit of work. Create a span with {@link Metrics#startSpan(String)} and call
+ * {@link #end()} when the work finishes to record its duration in microseconds.
+ */
+public class Span {
+
+    /**
+     * Span returned when metrics are disabled.
+     */
+    static final Span DISABLED = new Span(null, 0);
+
+    private final String name;
+    private final long startNanos;
+
+    Span(String name, long startNanos) {
+        this.name = name;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Ends the span and records its duration.
+     *
+     * @return The duration in microseconds, or 0 if metrics were disabled when the span started.
+     */
+    public long end() {
+        if (name == null) {
+            return 0;
+        }
+
+        long duration = (System.nanoTime() - startNanos) / 1000;
+        Metrics.record(name, duration);
+        return duration;
+    }
+
+    /**
+     * Gets the span name.
+     *
+     * @return The span name.
+     */
+    @NonNull
+    public String getName() {
+        return name == null ? "" : name;
+    }
+}
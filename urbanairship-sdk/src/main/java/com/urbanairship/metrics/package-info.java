@@ -0,0 +1,6 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+/**
+ * Contains classes for recording and observing SDK performance metrics.
+ */
+package com.urbanairship.metrics;
@@ -42,7 +42,7 @@ class ChannelApiClient extends BaseApiClient {
      * @return response or null if an error occurred
      */
     Response createChannelWithPayload(@NonNull ChannelRegistrationPayload channelPayload) {
-        String payload = channelPayload.toJsonValue().toString();
+        String payload = channelPayload.toString();
         Logger.verbose("ChannelApiClient - Creating channel with payload: " + payload);
         return performRequest(getDeviceUrl(CHANNEL_CREATION_PATH), "POST", payload);
     }
@@ -55,7 +55,7 @@ class ChannelApiClient extends BaseApiClient {
      * @return response or null if an error occurred
      */
     Response updateChannelWithPayload(@NonNull URL channelLocation, @NonNull ChannelRegistrationPayload channelPayload) {
-        String payload = channelPayload.toJsonValue().toString();
+        String payload = channelPayload.toString();
         Logger.verbose("ChannelApiClient - Updating channel with payload: " + payload);
         return performRequest(channelLocation, "PUT", payload);
     }
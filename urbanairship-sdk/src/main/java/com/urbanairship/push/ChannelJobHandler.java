@@ -30,8 +30,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
 
-import static com.urbanairship.push.TagUtils.migrateTagGroups;
-
 /**
  * Job handler for channel registration
  */
@@ -93,7 +91,8 @@ class ChannelJobHandler {
     static final String PENDING_REMOVE_TAG_GROUPS_KEY = "com.urbanairship.push.PENDING_REMOVE_TAG_GROUPS";
 
     /**
-     * Key for storing the pending tag group mutations in the {@link PreferenceDataStore}.
+     * Key for storing the pending tag group mutations in the {@link PreferenceDataStore}. Replaced
+     * by the {@link TagGroupRegistrar} operation log.
      */
     static final String PENDING_TAG_GROUP_MUTATIONS_KEY = "com.urbanairship.push.PENDING_TAG_GROUP_MUTATIONS";
 
@@ -121,7 +120,7 @@ class ChannelJobHandler {
     private final Context context;
     private final PreferenceDataStore dataStore;
     private final JobDispatcher jobDispatcher;
-
+    private final TagGroupRegistrar tagGroupRegistrar;
 
     /**
      * Default constructor.
@@ -131,12 +130,13 @@ class ChannelJobHandler {
      * @param dataStore The preference data store.
      */
     ChannelJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore) {
-        this(context, airship, dataStore, JobDispatcher.shared(context), new ChannelApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()));
+        this(context, airship, dataStore, JobDispatcher.shared(context), new ChannelApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()),
+                airship.getPushManager().getTagGroupRegistrar());
     }
 
     @VisibleForTesting
     ChannelJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore,
-                      JobDispatcher jobDispatcher, ChannelApiClient channelClient) {
+                      JobDispatcher jobDispatcher, ChannelApiClient channelClient, TagGroupRegistrar tagGroupRegistrar) {
         this.context = context;
         this.dataStore = dataStore;
         this.channelClient = channelClient;
@@ -144,6 +144,7 @@ class ChannelJobHandler {
         this.pushManager = airship.getPushManager();
         this.namedUser = airship.getNamedUser();
         this.jobDispatcher = jobDispatcher;
+        this.tagGroupRegistrar = tagGroupRegistrar;
     }
 
     /**
@@ -353,6 +354,9 @@ class ChannelJobHandler {
     private int updateChannel(@NonNull URL channelLocation, @NonNull ChannelRegistrationPayload payload) {
         if (!shouldUpdateRegistration(payload)) {
             Logger.verbose("ChannelJobHandler - Channel already up to date.");
+
+            // The payload matches the last registered payload, so later payloads can build on it
+            pushManager.getRegistrationJournal().onRegistrationSucceeded(payload);
             return Job.JOB_FINISHED;
         }
 
@@ -373,6 +377,9 @@ class ChannelJobHandler {
             // Set the last registration payload and time then notify registration succeeded
             setLastRegistrationPayload(payload);
             sendRegistrationFinishedBroadcast(true, false);
+
+            // Send any pending events while the radio is active
+            airship.getAnalytics().onAirshipRequestFinished();
             return Job.JOB_FINISHED;
         }
 
@@ -539,25 +546,36 @@ class ChannelJobHandler {
      * @param channelPayload A ChannelRegistrationPayload.
      */
     private void setLastRegistrationPayload(ChannelRegistrationPayload channelPayload) {
-        dataStore.put(LAST_REGISTRATION_PAYLOAD_KEY, channelPayload);
+        dataStore.put(LAST_REGISTRATION_PAYLOAD_KEY, channelPayload.toString());
         dataStore.put(LAST_REGISTRATION_TIME_KEY, System.currentTimeMillis());
+        pushManager.getRegistrationJournal().onRegistrationSucceeded(channelPayload);
     }
 
     /**
-     * Gets the last registration payload
+     * Gets the last registration payload. The payload is only parsed from the data store once,
+     * afterwards it is kept by the registration journal.
      *
      * @return a ChannelRegistrationPayload
      */
     @Nullable
     private ChannelRegistrationPayload getLastRegistrationPayload() {
+        ChannelRegistrationJournal journal = pushManager.getRegistrationJournal();
+        ChannelRegistrationPayload payload = journal.getLastPayload();
+        if (payload != null) {
+            return payload;
+        }
+
         String payloadJSON = dataStore.getString(LAST_REGISTRATION_PAYLOAD_KEY, null);
 
         try {
-            return ChannelRegistrationPayload.parseJson(payloadJSON);
+            payload = ChannelRegistrationPayload.parseJson(payloadJSON);
         } catch (JsonException e) {
             Logger.error("ChannelJobHandler - Failed to parse payload from JSON.", e);
             return null;
         }
+
+        journal.setLastPayload(payload);
+        return payload;
     }
 
     /**
@@ -602,55 +620,18 @@ class ChannelJobHandler {
 
     /**
      * Handles performing any tag group requests if any pending tag group changes are available.
+     * The channel and named user tag groups are uploaded together.
      *
      * @return The job result.
      */
     @Job.JobResult
     private int onUpdateTagGroup() {
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
-
         String channelId = pushManager.getChannelId();
         if (channelId == null) {
             Logger.verbose("Failed to update channel tags due to null channel ID.");
-            return Job.JOB_FINISHED;
-        }
-
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
-
-        if (mutations.isEmpty()) {
-            Logger.verbose( "ChannelJobHandler - No pending tag group updates. Skipping update.");
-            return Job.JOB_FINISHED;
-        }
-
-        Response response = channelClient.updateTagGroups(channelId, mutations.get(0));
-
-        // 5xx or no response
-        if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
-            Logger.info("ChannelJobHandler - Failed to update tag groups, will retry later.");
-            return Job.JOB_RETRY;
-        }
-
-        int status = response.getStatus();
-        Logger.info("ChannelJobHandler - Update tag groups finished with status: " + status);
-        if (UAHttpStatusUtil.inSuccessRange(status) || status == HttpURLConnection.HTTP_FORBIDDEN || status == HttpURLConnection.HTTP_BAD_REQUEST) {
-            mutations.remove(0);
-
-            if (mutations.isEmpty()) {
-                dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
-            } else {
-                dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
-            }
-
-            if (!mutations.isEmpty()) {
-                Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
-                                   .setAirshipComponent(PushManager.class)
-                                   .build();
-
-                jobDispatcher.dispatch(updateJob);
-            }
         }
 
-        return Job.JOB_FINISHED;
+        return tagGroupRegistrar.uploadMutations(channelId, namedUser.getId());
     }
 
     /**
@@ -661,22 +642,19 @@ class ChannelJobHandler {
      */
     @Job.JobResult
     private int onApplyTagGroupChanges(Job job) {
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
-
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
+        List<TagGroupsMutation> mutations;
         try {
             JsonValue jsonValue = JsonValue.parseString(job.getExtras().getString(TagGroupsEditor.EXTRA_TAG_GROUP_MUTATIONS));
-            mutations.addAll(TagGroupsMutation.fromJsonList(jsonValue.optList()));
+            mutations = TagGroupsMutation.fromJsonList(jsonValue.optList());
         } catch (JsonException e) {
             Logger.error("Failed to parse tag group change:", e);
             return Job.JOB_FINISHED;
         }
 
-        mutations = TagGroupsMutation.collapseMutations(mutations);
-        dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
+        tagGroupRegistrar.addMutations(TagGroupRegistrar.CHANNEL, mutations);
 
         if (pushManager.getChannelId() != null) {
-            Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
+            Job updateJob = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS)
                                .setAirshipComponent(PushManager.class)
                                .build();
 
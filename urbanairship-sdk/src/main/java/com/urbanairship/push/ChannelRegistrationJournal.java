@@ -0,0 +1,124 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Records which channel registration payload fields changed since the last successful
+ * registration, and keeps the last registered payload. The next payload is built on top of the
+ * last one, so only the fields that changed are read and encoded again.
+ * <p/>
+ * Changes made before the process started are not recorded, so every field is treated as changed
+ * until the first registration in the process succeeds.
+ */
+class ChannelRegistrationJournal {
+
+    private final Map<String, Long> changes = new HashMap<>();
+    private long version;
+    private long buildVersion;
+    private boolean isComplete;
+    private ChannelRegistrationPayload lastPayload;
+
+    /**
+     * Records a preference change.
+     *
+     * @param key The preference key.
+     */
+    void onPreferenceChange(@NonNull String key) {
+        switch (key) {
+            case PushManager.ALIAS_KEY:
+                recordChange(ChannelRegistrationPayload.ALIAS_KEY);
+                break;
+
+            case PushManager.TAGS_KEY:
+                recordChange(ChannelRegistrationPayload.TAGS_KEY);
+                break;
+
+            case PushManager.REGISTRATION_TOKEN_KEY:
+            case PushManager.PUSH_TOKEN_REGISTRATION_ENABLED_KEY:
+                recordChange(ChannelRegistrationPayload.PUSH_ADDRESS_KEY);
+                break;
+
+            case PushManager.APID_KEY:
+                recordChange(ChannelRegistrationPayload.APID_KEY);
+                break;
+        }
+    }
+
+    /**
+     * Records a changed payload field.
+     *
+     * @param field The payload field key.
+     */
+    synchronized void recordChange(@NonNull String field) {
+        version++;
+        changes.put(field, version);
+    }
+
+    /**
+     * Starts building a payload.
+     *
+     * @return The last registered payload to build on, or {@code null} if every field needs to be
+     * read.
+     */
+    @Nullable
+    synchronized ChannelRegistrationPayload startPayload() {
+        buildVersion = version;
+        return isComplete ? lastPayload : null;
+    }
+
+    /**
+     * Checks if a payload field changed since the last successful registration.
+     *
+     * @param field The payload field key.
+     * @return {@code true} if the field needs to be read, otherwise {@code false}.
+     */
+    synchronized boolean hasChanged(@NonNull String field) {
+        return !isComplete || changes.containsKey(field);
+    }
+
+    /**
+     * Called when a registration succeeds, or when the payload matches the last registered payload
+     * and no registration is needed. Forgets the changes that were included in the payload.
+     * Changes recorded after the payload was started are kept.
+     *
+     * @param payload The registered payload.
+     */
+    synchronized void onRegistrationSucceeded(@NonNull ChannelRegistrationPayload payload) {
+        lastPayload = payload;
+        isComplete = true;
+
+        Iterator<Long> iterator = changes.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() <= buildVersion) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the last registered payload.
+     *
+     * @return The last registered payload, or {@code null} if it has not been loaded.
+     */
+    @Nullable
+    synchronized ChannelRegistrationPayload getLastPayload() {
+        return lastPayload;
+    }
+
+    /**
+     * Sets the last registered payload loaded from storage. The payload is only used to compare
+     * against, fields are still read until a registration succeeds.
+     *
+     * @param payload The last registered payload.
+     */
+    synchronized void setLastPayload(@Nullable ChannelRegistrationPayload payload) {
+        lastPayload = payload;
+    }
+}
@@ -29,6 +29,7 @@ import android.support.annotation.NonNull;
 
 import com.urbanairship.Logger;
 import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonList;
 import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonSerializable;
 import com.urbanairship.json.JsonValue;
@@ -65,6 +66,11 @@ class ChannelRegistrationPayload implements JsonSerializable {
     private final String userId;
     private final String apid;
 
+    // Encoded lazily and cached, the payload is immutable
+    private volatile JsonList encodedTags;
+    private volatile JsonValue json;
+    private volatile String jsonString;
+
 
     /**
      * Builds the ChannelRegistrationPayload
@@ -77,9 +83,34 @@ class ChannelRegistrationPayload implements JsonSerializable {
         private String pushAddress;
         private boolean setTags;
         private Set<String> tags;
+        private JsonList encodedTags;
         private String userId;
         private String apid;
 
+        /**
+         * Default constructor.
+         */
+        Builder() {}
+
+        /**
+         * Creates a builder with the values of an existing payload. The payload's encoded tags
+         * are reused unless the tags are set again.
+         *
+         * @param payload The payload.
+         */
+        Builder(@NonNull ChannelRegistrationPayload payload) {
+            this.optIn = payload.optIn;
+            this.backgroundEnabled = payload.backgroundEnabled;
+            this.alias = payload.alias;
+            this.deviceType = payload.deviceType;
+            this.pushAddress = payload.pushAddress;
+            this.setTags = payload.setTags;
+            this.tags = payload.tags;
+            this.encodedTags = payload.encodedTags;
+            this.userId = payload.userId;
+            this.apid = payload.apid;
+        }
+
 
         /**
          * Set the optIn value
@@ -155,6 +186,7 @@ class ChannelRegistrationPayload implements JsonSerializable {
         Builder setTags(boolean channelTagRegistrationEnabled, Set<String> tags) {
             this.setTags = channelTagRegistrationEnabled;
             this.tags = tags;
+            this.encodedTags = null;
             return this;
         }
 
@@ -197,12 +229,28 @@ class ChannelRegistrationPayload implements JsonSerializable {
         this.pushAddress = builder.pushAddress;
         this.setTags = builder.setTags;
         this.tags = builder.setTags ? builder.tags : null;
+        this.encodedTags = builder.setTags ? builder.encodedTags : null;
         this.userId = builder.userId;
         this.apid = builder.apid;
     }
 
     @Override
     public JsonValue toJsonValue() {
+        JsonValue json = this.json;
+        if (json == null) {
+            json = createJsonValue();
+            this.json = json;
+        }
+
+        return json;
+    }
+
+    /**
+     * Encodes the payload.
+     *
+     * @return The payload as a JsonValue.
+     */
+    private JsonValue createJsonValue() {
         Map<String, Object> payload = new HashMap<>();
         Map<String, Object> identityHints = new HashMap<>();
         Map<String, Object> channel = new HashMap<>();
@@ -221,7 +269,13 @@ class ChannelRegistrationPayload implements JsonSerializable {
 
         // If setTags is TRUE, then include the tags
         if (setTags && tags != null) {
-            channel.put(TAGS_KEY, JsonValue.wrapOpt(tags).getList());
+            JsonList encodedTags = this.encodedTags;
+            if (encodedTags == null) {
+                encodedTags = JsonValue.wrapOpt(tags).getList();
+                this.encodedTags = encodedTags;
+            }
+
+            channel.put(TAGS_KEY, encodedTags);
         }
 
         payload.put(CHANNEL_KEY, channel);
@@ -254,7 +308,13 @@ class ChannelRegistrationPayload implements JsonSerializable {
      */
     @Override
     public String toString() {
-        return this.toJsonValue().toString();
+        String jsonString = this.jsonString;
+        if (jsonString == null) {
+            jsonString = toJsonValue().toString();
+            this.jsonString = jsonString;
+        }
+
+        return jsonString;
     }
 
     /**
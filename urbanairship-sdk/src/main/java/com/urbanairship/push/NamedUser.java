@@ -198,11 +198,12 @@ public class NamedUser extends AirshipComponent {
     }
 
     /**
-     * Dispatches a job to update the named user tag groups.
+     * Dispatches a job to update the named user tag groups. The channel and named user tag groups
+     * are uploaded by the same job.
      */
     void dispatchUpdateTagGroupsJob() {
-        Job job = Job.newBuilder(NamedUserJobHandler.ACTION_UPDATE_TAG_GROUPS)
-                     .setAirshipComponent(NamedUser.class)
+        Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS)
+                     .setAirshipComponent(PushManager.class)
                      .build();
 
         jobDispatcher.dispatch(job);
@@ -19,8 +19,6 @@ import com.urbanairship.util.UAStringUtil;
 import java.net.HttpURLConnection;
 import java.util.List;
 
-import static com.urbanairship.push.TagUtils.migrateTagGroups;
-
 
 /**
  * Job handler for the NamedUser.
@@ -48,7 +46,8 @@ class NamedUserJobHandler {
     static final String PENDING_REMOVE_TAG_GROUPS_KEY = "com.urbanairship.nameduser.PENDING_REMOVE_TAG_GROUPS_KEY";
 
     /**
-     * Key for storing the pending tag group mutations in the {@link PreferenceDataStore}.
+     * Key for storing the pending tag group mutations in the {@link PreferenceDataStore}. Replaced
+     * by the {@link TagGroupRegistrar} operation log.
      */
     static final String PENDING_TAG_GROUP_MUTATIONS_KEY = "com.urbanairship.nameduser.PENDING_TAG_GROUP_MUTATIONS_KEY";
 
@@ -74,8 +73,7 @@ class NamedUserJobHandler {
     private final PushManager pushManager;
     private final PreferenceDataStore dataStore;
     private final JobDispatcher jobDispatcher;
-
-
+    private final TagGroupRegistrar tagGroupRegistrar;
 
     /**
      * Default constructor.
@@ -85,16 +83,18 @@ class NamedUserJobHandler {
      * @param dataStore The preference data store.
      */
     NamedUserJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore) {
-        this(airship, dataStore, JobDispatcher.shared(context), new NamedUserApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()));
+        this(airship, dataStore, JobDispatcher.shared(context), new NamedUserApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()),
+                airship.getPushManager().getTagGroupRegistrar());
     }
 
     @VisibleForTesting
-    NamedUserJobHandler(UAirship airship, PreferenceDataStore dataStore, JobDispatcher jobDispatcher, NamedUserApiClient client) {
+    NamedUserJobHandler(UAirship airship, PreferenceDataStore dataStore, JobDispatcher jobDispatcher, NamedUserApiClient client, TagGroupRegistrar tagGroupRegistrar) {
         this.dataStore = dataStore;
         this.client = client;
         this.namedUser = airship.getNamedUser();
         this.pushManager = airship.getPushManager();
         this.jobDispatcher = jobDispatcher;
+        this.tagGroupRegistrar = tagGroupRegistrar;
     }
 
     /**
@@ -202,23 +202,19 @@ class NamedUserJobHandler {
             return Job.JOB_FINISHED;
         }
 
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
-
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
+        List<TagGroupsMutation> mutations;
         try {
             JsonValue jsonValue = JsonValue.parseString(job.getExtras().getString(TagGroupsEditor.EXTRA_TAG_GROUP_MUTATIONS));
-            mutations.addAll(TagGroupsMutation.fromJsonList(jsonValue.optList()));
+            mutations = TagGroupsMutation.fromJsonList(jsonValue.optList());
         } catch (JsonException e) {
             Logger.error("Failed to parse tag group change:", e);
             return Job.JOB_FINISHED;
         }
 
-        mutations = TagGroupsMutation.collapseMutations(mutations);
-        dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
-
+        tagGroupRegistrar.addMutations(TagGroupRegistrar.NAMED_USER, mutations);
 
-        Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
-                           .setAirshipComponent(NamedUser.class)
+        Job updateJob = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS)
+                           .setAirshipComponent(PushManager.class)
                            .build();
 
         jobDispatcher.dispatch(updateJob);
@@ -228,56 +224,19 @@ class NamedUserJobHandler {
 
     /**
      * Handles performing any tag group requests if any pending tag group changes are available.
+     * Named user tag groups are uploaded with the channel tag groups, the action is only handled
+     * for jobs scheduled by older SDK versions.
      *
      * @return The job result.
      */
     @Job.JobResult
     private int onUpdateTagGroup() {
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
-
         String namedUserId = namedUser.getId();
         if (namedUserId == null) {
             Logger.verbose("Failed to update named user tags due to null named user ID.");
-            return Job.JOB_FINISHED;
-        }
-
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
-
-        if (mutations.isEmpty()) {
-            Logger.verbose( "NamedUserJobHandler - No pending tag group updates. Skipping update.");
-            return Job.JOB_FINISHED;
         }
 
-        Response response = client.updateTagGroups(namedUserId, mutations.get(0));
-
-        // 5xx or no response
-        if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
-            Logger.info("NamedUserJobHandler - Failed to update tag groups, will retry later.");
-            return Job.JOB_RETRY;
-        }
-
-        int status = response.getStatus();
-        Logger.info("NamedUserJobHandler - Update tag groups finished with status: " + status);
-        if (UAHttpStatusUtil.inSuccessRange(status) || status == HttpURLConnection.HTTP_FORBIDDEN || status == HttpURLConnection.HTTP_BAD_REQUEST) {
-            mutations.remove(0);
-
-            if (mutations.isEmpty()) {
-                dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
-            } else {
-                dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
-            }
-
-
-            if (!mutations.isEmpty()) {
-                Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
-                                   .setAirshipComponent(PushManager.class)
-                                   .build();
-
-                jobDispatcher.dispatch(updateJob);
-            }
-        }
-
-        return Job.JOB_FINISHED;
+        return tagGroupRegistrar.uploadMutations(pushManager.getChannelId(), namedUserId);
     }
 
     /**
@@ -290,6 +249,7 @@ class NamedUserJobHandler {
         dataStore.remove(PENDING_ADD_TAG_GROUPS_KEY);
         dataStore.remove(PENDING_REMOVE_TAG_GROUPS_KEY);
         dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
+        tagGroupRegistrar.clearMutations(TagGroupRegistrar.NAMED_USER);
 
         return Job.JOB_FINISHED;
     }
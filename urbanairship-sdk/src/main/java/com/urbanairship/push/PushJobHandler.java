@@ -20,7 +20,10 @@ import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.UAirship;
 import com.urbanairship.actions.Action;
 import com.urbanairship.actions.ActionArguments;
-import com.urbanairship.actions.ActionService;
+import com.urbanairship.actions.ActionCompletionCallback;
+import com.urbanairship.actions.ActionDispatcher;
+import com.urbanairship.actions.ActionResult;
+import com.urbanairship.actions.ActionValue;
 import com.urbanairship.analytics.PushArrivedEvent;
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonList;
@@ -32,9 +35,11 @@ import com.urbanairship.util.UAStringUtil;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Job handler for incoming push messages.
@@ -71,6 +76,7 @@ class PushJobHandler {
     private final PreferenceDataStore dataStore;
     private final Context context;
     private final NotificationManagerCompat notificationManagerCompat;
+    private final ActionDispatcher actionDispatcher;
 
     /**
      * Default constructor.
@@ -80,17 +86,18 @@ class PushJobHandler {
      * @param dataStore The preference data store.
      */
     PushJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore) {
-        this(context, airship, dataStore, NotificationManagerCompat.from(context));
+        this(context, airship, dataStore, NotificationManagerCompat.from(context), ActionDispatcher.shared());
     }
 
     @VisibleForTesting
     PushJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore,
-                   NotificationManagerCompat notificationManager) {
+                   NotificationManagerCompat notificationManager, ActionDispatcher actionDispatcher) {
         this.context = context;
         this.dataStore = dataStore;
         this.airship = airship;
         this.notificationManager = notificationManager;
         this.notificationManagerCompat = NotificationManagerCompat.from(context);
+        this.actionDispatcher = actionDispatcher;
     }
 
     /**
@@ -103,11 +110,9 @@ class PushJobHandler {
     protected int performJob(Job job) {
         switch (job.getAction()) {
             case ACTION_RECEIVE_ADM_MESSAGE:
-                onAdmMessageReceived(job);
-                break;
+                return onAdmMessageReceived(job);
             case ACTION_RECEIVE_GCM_MESSAGE:
-                onGcmMessageReceived(job);
-                break;
+                return onGcmMessageReceived(job);
         }
 
         return Job.JOB_FINISHED;
@@ -117,65 +122,73 @@ class PushJobHandler {
      * Handles incoming GCM messages.
      *
      * @param job The received job.
+     * @return The job result.
      */
-    private void onGcmMessageReceived(@NonNull Job job) {
+    @Job.JobResult
+    private int onGcmMessageReceived(@NonNull Job job) {
         if (airship.getPlatformType() != UAirship.ANDROID_PLATFORM) {
             Logger.error("Received intent from invalid transport acting as GCM.");
-            return;
+            return Job.JOB_FINISHED;
         }
 
         if (!airship.getPushManager().isPushAvailable()) {
             Logger.error("PushJobHandler - Received intent from GCM without registering.");
-            return;
+            return Job.JOB_FINISHED;
         }
 
         String sender = job.getExtras().getString("from");
         if (sender != null && !sender.equals(airship.getAirshipConfigOptions().gcmSender)) {
             Logger.info("Ignoring GCM message from sender: " + sender);
-            return;
+            return Job.JOB_FINISHED;
         }
 
         if (GcmConstants.GCM_DELETED_MESSAGES_VALUE.equals(job.getExtras().getString(GcmConstants.EXTRA_GCM_MESSAGE_TYPE))) {
             Logger.info("GCM deleted " + job.getExtras().getString(GcmConstants.EXTRA_GCM_TOTAL_DELETED) + " pending messages.");
-            return;
+            return Job.JOB_FINISHED;
         }
 
-        processMessage(new PushMessage(job.getExtras()));
+        return processMessage(job, new PushMessage(job.getExtras()));
     }
 
     /**
      * Handles incoming ADM messages.
      *
      * @param job The received job.
+     * @return The job result.
      */
-    private void onAdmMessageReceived(@NonNull Job job) {
+    @Job.JobResult
+    private int onAdmMessageReceived(@NonNull Job job) {
         if (airship.getPlatformType() != UAirship.AMAZON_PLATFORM) {
             Logger.error("PushJobHandler - Received intent from invalid transport acting as ADM.");
-            return;
+            return Job.JOB_FINISHED;
         }
 
         if (!airship.getPushManager().isPushAvailable()) {
             Logger.error("PushJobHandler - Received intent from ADM without registering.");
-            return;
+            return Job.JOB_FINISHED;
         }
 
-        processMessage(new PushMessage(job.getExtras()));
+        return processMessage(job, new PushMessage(job.getExtras()));
     }
 
     /**
      * Processes the received message.
      *
+     * @param job The received job.
      * @param message The push message.
+     * @return {@link Job#JOB_PENDING} if push received actions are still running, otherwise
+     * {@link Job#JOB_FINISHED}.
      */
-    private void processMessage(@NonNull PushMessage message) {
+    @Job.JobResult
+    private int processMessage(@NonNull Job job, @NonNull PushMessage message) {
         if (!airship.getPushManager().isPushEnabled()) {
             Logger.info("Received a push when push is disabled! Ignoring.");
-            return;
+            return Job.JOB_FINISHED;
         }
 
         if (!isUniqueCanonicalId(message.getCanonicalPushId())) {
             Logger.info("Received a duplicate push with canonical ID: " + message.getCanonicalPushId());
-            return;
+            return Job.JOB_FINISHED;
         }
 
         airship.getPushManager().setLastReceivedMetadata(message.getMetadata());
@@ -183,18 +196,16 @@ class PushJobHandler {
 
         if (message.isExpired()) {
             Logger.debug("Received expired push message, ignoring.");
-            return;
+            return Job.JOB_FINISHED;
         }
 
         if (message.isPing()) {
             Logger.verbose("PushJobHandler - Received UA Ping");
-            return;
+            return Job.JOB_FINISHED;
         }
 
-        // Run any actions for the push
-        Bundle metadata = new Bundle();
-        metadata.putParcelable(ActionArguments.PUSH_MESSAGE_METADATA, message);
-        ActionService.runActions(UAirship.getApplicationContext(), message.getActions(), Action.SITUATION_PUSH_RECEIVED, metadata);
+        // Run any actions for the push in process, the dispatcher limits how many run at once
+        boolean actionsRunning = dispatchActions(job, message);
 
         // Store any pending in-app messages
         InAppMessage inAppMessage = message.getInAppMessage();
@@ -216,6 +227,39 @@ class PushJobHandler {
         }
 
         sendPushReceivedBroadcast(message, notificationId);
+
+        // Keep the job pending until the actions finish so the process is not killed under them,
+        // without holding up the other jobs on the job thread
+        return actionsRunning ? Job.JOB_PENDING : Job.JOB_FINISHED;
+    }
+
+    /**
+     * Dispatches the push received actions. The job is finished once every action finishes.
+     *
+     * @param job The received job.
+     * @param message The push message.
+     * @return {@code true} if actions were dispatched, otherwise {@code false}.
+     */
+    private boolean dispatchActions(@NonNull final Job job, @NonNull PushMessage message) {
+        Map<String, ActionValue> actions = message.getActions();
+        if (actions.isEmpty()) {
+            return false;
+        }
+
+        Bundle metadata = new Bundle();
+        metadata.putParcelable(ActionArguments.PUSH_MESSAGE_METADATA, message);
+
+        final AtomicInteger remaining = new AtomicInteger(actions.size());
+        actionDispatcher.dispatch(actions, Action.SITUATION_PUSH_RECEIVED, metadata, new ActionCompletionCallback() {
+            @Override
+            public void onFinish(@NonNull ActionArguments arguments, @NonNull ActionResult result) {
+                if (remaining.decrementAndGet() == 0) {
+                    job.finish();
+                }
+            }
+        });
+
+        return true;
     }
 
     /**
@@ -245,13 +289,15 @@ class PushJobHandler {
             return null;
         }
 
-        if (!airship.getPushManager().isVibrateEnabled() || airship.getPushManager().isInQuietTime()) {
+        boolean inQuietTime = airship.getPushManager().isInQuietTime();
+
+        if (!airship.getPushManager().isVibrateEnabled() || inQuietTime) {
             // Remove both the vibrate and the DEFAULT_VIBRATE flag
             notification.vibrate = null;
             notification.defaults &= ~Notification.DEFAULT_VIBRATE;
         }
 
-        if (!airship.getPushManager().isSoundEnabled() || airship.getPushManager().isInQuietTime()) {
+        if (!airship.getPushManager().isSoundEnabled() || inQuietTime) {
             // Remove both the sound and the DEFAULT_SOUND flag
             notification.sound = null;
             notification.defaults &= ~Notification.DEFAULT_SOUND;
@@ -260,7 +306,7 @@ class PushJobHandler {
         Intent contentIntent = new Intent(context, CoreReceiver.class)
                 .setAction(PushManager.ACTION_NOTIFICATION_OPENED_PROXY)
                 .addCategory(UUID.randomUUID().toString())
-                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, message.getPushBundle())
+                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, message.getRawPushBundle())
                 .putExtra(PushManager.EXTRA_NOTIFICATION_ID, notificationId);
 
         // If the notification already has an intent, add it to the extras to be sent later
@@ -271,7 +317,7 @@ class PushJobHandler {
         Intent deleteIntent = new Intent(context, CoreReceiver.class)
                 .setAction(PushManager.ACTION_NOTIFICATION_DISMISSED_PROXY)
                 .addCategory(UUID.randomUUID().toString())
-                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, message.getPushBundle())
+                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, message.getRawPushBundle())
                 .putExtra(PushManager.EXTRA_NOTIFICATION_ID, notificationId);
 
         if (notification.deleteIntent != null) {
@@ -281,7 +327,7 @@ class PushJobHandler {
         notification.contentIntent = PendingIntent.getBroadcast(context, 0, contentIntent, 0);
         notification.deleteIntent = PendingIntent.getBroadcast(context, 0, deleteIntent, 0);
 
-        Logger.info("Posting notification " + notification + " with ID " + notificationId);
+        Logger.info("Posting notification %s with ID %d", notification, notificationId);
         notificationManager.notify(notificationId, notification);
 
         return notificationId;
@@ -296,7 +342,7 @@ class PushJobHandler {
      */
     private void sendPushReceivedBroadcast(@NonNull PushMessage message, @Nullable Integer notificationId) {
         Intent intent = new Intent(PushManager.ACTION_PUSH_RECEIVED)
-                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, message.getPushBundle())
+                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, message.getRawPushBundle())
                 .addCategory(UAirship.getPackageName())
                 .setPackage(UAirship.getPackageName());
 
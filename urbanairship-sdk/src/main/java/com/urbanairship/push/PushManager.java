@@ -26,10 +26,11 @@ import com.urbanairship.util.UAStringUtil;
 
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is the primary interface for customizing the display and behavior
@@ -233,7 +234,7 @@ public class PushManager extends AirshipComponent {
     //singleton stuff
     private final Context context;
     private NotificationFactory notificationFactory;
-    private final Map<String, NotificationActionButtonGroup> actionGroupMap = new HashMap<>();
+    private final Map<String, NotificationActionButtonGroup> actionGroupMap = new ConcurrentHashMap<>();
     private boolean channelTagRegistrationEnabled = true;
     private final PreferenceDataStore preferenceDataStore;
     private final AirshipConfigOptions configOptions;
@@ -243,9 +244,14 @@ public class PushManager extends AirshipComponent {
     private final JobDispatcher jobDispatcher;
     private ChannelJobHandler channelJobHandler;
     private PushJobHandler pushJobHandler;
+    private TagGroupRegistrar tagGroupRegistrar;
 
     private final Object tagLock = new Object();
 
+    private final AtomicLong settingsVersion = new AtomicLong();
+    private volatile PushSettings pushSettings;
+    private final ChannelRegistrationJournal registrationJournal = new ChannelRegistrationJournal();
+
 
     /**
      * Creates a PushManager. Normally only one push manager instance should exist, and
@@ -283,6 +289,18 @@ public class PushManager extends AirshipComponent {
         }
 
         this.notificationManagerCompat = NotificationManagerCompat.from(context);
+
+        // Invalidates the settings snapshot, the next read rebuilds it
+        preferenceDataStore.addListener(new PreferenceDataStore.PreferenceChangeListener() {
+            @Override
+            public void onPreferenceChange(String key) {
+                if (PushSettings.KEYS.contains(key)) {
+                    settingsVersion.incrementAndGet();
+                }
+
+                registrationJournal.onPreferenceChange(key);
+            }
+        });
     }
 
     @Override
@@ -370,7 +388,7 @@ public class PushManager extends AirshipComponent {
      * This defaults to true, and must be explicitly set by the app.
      */
     public boolean isPushEnabled() {
-        return preferenceDataStore.getBoolean(PUSH_ENABLED_KEY, true);
+        return getPushSettings().isPushEnabled();
     }
 
     /**
@@ -395,7 +413,7 @@ public class PushManager extends AirshipComponent {
      * @return <code>true</code> if user push is enabled, <code>false</code> otherwise.
      */
     public boolean getUserNotificationsEnabled() {
-        return preferenceDataStore.getBoolean(USER_NOTIFICATIONS_ENABLED_KEY, false);
+        return getPushSettings().getUserNotificationsEnabled();
     }
 
     /**
@@ -497,13 +515,33 @@ public class PushManager extends AirshipComponent {
      * @return The ChannelRegistrationPayload payload
      */
     ChannelRegistrationPayload getNextChannelRegistrationPayload() {
-        ChannelRegistrationPayload.Builder builder = new ChannelRegistrationPayload.Builder()
-                .setAlias(getAlias())
-                .setTags(getChannelTagRegistrationEnabled(), getTags())
-                .setOptIn(isOptIn())
-                .setBackgroundEnabled(isPushEnabled() && isPushAvailable())
-                .setUserId(UAirship.shared().getInbox().getUser().getId())
-                .setApid(getApid());
+        PushSettings settings = getPushSettings();
+        boolean pushAvailable = settings.isPushAvailable();
+
+        // Fields that did not change since the last registration are taken from the last payload
+        ChannelRegistrationPayload lastPayload = registrationJournal.startPayload();
+        ChannelRegistrationPayload.Builder builder = lastPayload == null ? new ChannelRegistrationPayload.Builder() : new ChannelRegistrationPayload.Builder(lastPayload);
+
+        if (registrationJournal.hasChanged(ChannelRegistrationPayload.ALIAS_KEY)) {
+            builder.setAlias(settings.getAlias());
+        }
+
+        if (registrationJournal.hasChanged(ChannelRegistrationPayload.TAGS_KEY)) {
+            builder.setTags(getChannelTagRegistrationEnabled(), settings.getTags());
+        }
+
+        if (registrationJournal.hasChanged(ChannelRegistrationPayload.APID_KEY)) {
+            builder.setApid(settings.getApid());
+        }
+
+        if (registrationJournal.hasChanged(ChannelRegistrationPayload.PUSH_ADDRESS_KEY)) {
+            builder.setPushAddress(settings.getPushTokenRegistrationEnabled() ? settings.getRegistrationToken() : null);
+        }
+
+        // Opt-in also depends on the system notification settings and is always read
+        builder.setOptIn(settings.isPushEnabled() && pushAvailable && settings.getUserNotificationsEnabled() && notificationManagerCompat.areNotificationsEnabled())
+               .setBackgroundEnabled(settings.isPushEnabled() && pushAvailable)
+               .setUserId(UAirship.shared().getInbox().getUser().getId());
 
         switch (UAirship.shared().getPlatformType()) {
             case UAirship.ANDROID_PLATFORM:
@@ -514,14 +552,19 @@ public class PushManager extends AirshipComponent {
                 break;
         }
 
-        if (getPushTokenRegistrationEnabled()) {
-            builder.setPushAddress(getRegistrationToken());
-        }
-
         return builder.build();
     }
 
 
+    /**
+     * Gets the channel registration journal.
+     *
+     * @return The channel registration journal.
+     */
+    ChannelRegistrationJournal getRegistrationJournal() {
+        return registrationJournal;
+    }
+
     /**
      * Update registration.
      */
@@ -594,7 +637,8 @@ public class PushManager extends AirshipComponent {
     private boolean storeTags(@NonNull Set<String> tags) {
         synchronized (tagLock) {
             Set<String> normalizedTags = TagUtils.normalizeTags(tags);
-            if (!normalizedTags.equals(getTags())) {
+            PushSettings settings = getPushSettings();
+            if (!settings.storedTagsNormalized || !normalizedTags.equals(settings.getTags())) {
                 if (normalizedTags.isEmpty()) {
                     preferenceDataStore.remove(TAGS_KEY);
                 } else {
@@ -615,7 +659,7 @@ public class PushManager extends AirshipComponent {
      * @return The string alias, or null if one is not set.
      */
     public String getAlias() {
-        return preferenceDataStore.getString(ALIAS_KEY, null);
+        return getPushSettings().getAlias();
     }
 
     /**
@@ -627,28 +671,7 @@ public class PushManager extends AirshipComponent {
      */
     @NonNull
     public Set<String> getTags() {
-        synchronized (tagLock) {
-            Set<String> tags = new HashSet<>();
-
-            JsonValue jsonValue = preferenceDataStore.getJsonValue(TAGS_KEY);
-
-            if (jsonValue.isJsonList()) {
-                for (JsonValue tag : jsonValue.getList()) {
-                    if (tag.isString()) {
-                        tags.add(tag.getString());
-                    }
-                }
-            }
-
-            Set<String> normalizedTags = TagUtils.normalizeTags(tags);
-
-            //to prevent the getTags call from constantly logging tag set failures, sync tags
-            if (tags.size() != normalizedTags.size()) {
-                this.setTags(normalizedTags);
-            }
-
-            return normalizedTags;
-        }
+        return new HashSet<>(getPushSettings().getTags());
     }
 
     /**
@@ -669,7 +692,10 @@ public class PushManager extends AirshipComponent {
      * @param enabled A boolean indicating whether tags are enabled on the device.
      */
     public void setChannelTagRegistrationEnabled(boolean enabled) {
-        channelTagRegistrationEnabled = enabled;
+        if (channelTagRegistrationEnabled != enabled) {
+            channelTagRegistrationEnabled = enabled;
+            registrationJournal.recordChange(ChannelRegistrationPayload.TAGS_KEY);
+        }
     }
 
     /**
@@ -681,7 +707,7 @@ public class PushManager extends AirshipComponent {
      * {@code false} otherwise.
      */
     public boolean getPushTokenRegistrationEnabled() {
-        return preferenceDataStore.getBoolean(PUSH_TOKEN_REGISTRATION_ENABLED_KEY, true);
+        return getPushSettings().getPushTokenRegistrationEnabled();
     }
 
     /**
@@ -702,7 +728,7 @@ public class PushManager extends AirshipComponent {
      * @return A boolean indicated whether sound is enabled.
      */
     public boolean isSoundEnabled() {
-        return preferenceDataStore.getBoolean(SOUND_ENABLED_KEY, true);
+        return getPushSettings().isSoundEnabled();
     }
 
     /**
@@ -720,7 +746,7 @@ public class PushManager extends AirshipComponent {
      * @return A boolean indicating whether vibration is enabled.
      */
     public boolean isVibrateEnabled() {
-        return preferenceDataStore.getBoolean(VIBRATE_ENABLED_KEY, true);
+        return getPushSettings().isVibrateEnabled();
     }
 
     /**
@@ -738,7 +764,7 @@ public class PushManager extends AirshipComponent {
      * @return A boolean indicating whether Quiet Time is enabled.
      */
     public boolean isQuietTimeEnabled() {
-        return preferenceDataStore.getBoolean(QUIET_TIME_ENABLED, false);
+        return getPushSettings().isQuietTimeEnabled();
     }
 
     /**
@@ -757,12 +783,7 @@ public class PushManager extends AirshipComponent {
      * @return A boolean indicating whether it is currently "Quiet Time".
      */
     public boolean isInQuietTime() {
-        if (!this.isQuietTimeEnabled()) {
-            return false;
-        }
-
-        QuietTimeInterval quietTimeInterval = QuietTimeInterval.parseJson(preferenceDataStore.getString(QUIET_TIME_INTERVAL, null));
-        return quietTimeInterval != null && quietTimeInterval.isInQuietTime(Calendar.getInstance());
+        return getPushSettings().isInQuietTime(Calendar.getInstance());
     }
 
     /**
@@ -781,12 +802,7 @@ public class PushManager extends AirshipComponent {
      * @return An array of two Date instances, representing the start and end of Quiet Time.
      */
     public Date[] getQuietTimeInterval() {
-        QuietTimeInterval quietTimeInterval = QuietTimeInterval.parseJson(preferenceDataStore.getString(QUIET_TIME_INTERVAL, null));
-        if (quietTimeInterval != null) {
-            return quietTimeInterval.getQuietTimeIntervalDateArray();
-        } else {
-            return null;
-        }
+        return getPushSettings().getQuietTimeInterval();
     }
 
     /**
@@ -933,7 +949,7 @@ public class PushManager extends AirshipComponent {
      * @return The notification action group.
      */
     public NotificationActionButtonGroup getNotificationActionGroup(String id) {
-        return actionGroupMap.get(id);
+        return id == null ? null : actionGroupMap.get(id);
     }
 
     /**
@@ -943,7 +959,7 @@ public class PushManager extends AirshipComponent {
      */
     @Nullable
     public String getChannelId() {
-        return preferenceDataStore.getString(CHANNEL_ID_KEY, null);
+        return getPushSettings().getChannelId();
     }
 
     /**
@@ -953,7 +969,7 @@ public class PushManager extends AirshipComponent {
      */
     @Nullable
     String getChannelLocation() {
-        return preferenceDataStore.getString(CHANNEL_LOCATION_KEY, null);
+        return getPushSettings().getChannelLocation();
     }
 
     /**
@@ -969,7 +985,23 @@ public class PushManager extends AirshipComponent {
     }
 
     /**
-     * Dispatches a job to update the tag groups.
+     * Gets the tag group registrar shared by the channel and named user.
+     *
+     * @return The tag group registrar.
+     */
+    @NonNull
+    synchronized TagGroupRegistrar getTagGroupRegistrar() {
+        if (tagGroupRegistrar == null) {
+            int platform = UAirship.shared().getPlatformType();
+            tagGroupRegistrar = new TagGroupRegistrar(preferenceDataStore, new ChannelApiClient(platform, configOptions),
+                    new NamedUserApiClient(platform, configOptions));
+        }
+
+        return tagGroupRegistrar;
+    }
+
+    /**
+     * Dispatches a job to update the channel and named user tag groups.
      */
     void startUpdateTagsService() {
         Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS)
@@ -995,7 +1027,7 @@ public class PushManager extends AirshipComponent {
      */
     @Nullable
     public String getRegistrationToken() {
-        return preferenceDataStore.getString(REGISTRATION_TOKEN_KEY, null);
+        return getPushSettings().getRegistrationToken();
     }
 
     /**
@@ -1004,7 +1036,34 @@ public class PushManager extends AirshipComponent {
      * @return an APID string or null if it doesn't exist.
      */
     String getApid() {
-        return preferenceDataStore.getString(APID_KEY, null);
+        return getPushSettings().getApid();
+    }
+
+    /**
+     * Gets the current push settings. The snapshot is only rebuilt after one of its preferences
+     * changes, so repeated reads do not hit the preference data store or re-parse JSON.
+     *
+     * @return The push settings.
+     */
+    @NonNull
+    public PushSettings getPushSettings() {
+        PushSettings settings = pushSettings;
+        long version = settingsVersion.get();
+        if (settings != null && settings.version == version) {
+            return settings;
+        }
+
+        // Read the version before the preferences so a change while loading invalidates the result
+        settings = new PushSettings(preferenceDataStore, version);
+        pushSettings = settings;
+
+        // Prevents every rebuild from logging the same tag normalization failures
+        if (!settings.storedTagsNormalized) {
+            storeTags(settings.getTags());
+            updateRegistration();
+        }
+
+        return settings;
     }
 
     /**
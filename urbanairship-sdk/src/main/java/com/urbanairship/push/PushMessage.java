@@ -30,6 +30,10 @@ import java.util.Map;
 /**
  * A push message, usually created from handling a message intent from either GCM,
  * or another push notification service
+ * <p/>
+ * The push bundle is treated as immutable. Values that need to be parsed, such as the actions,
+ * priority, visibility and in-app message, are parsed the first time they are requested and
+ * reused afterwards, so a single message can be shared by every stage that handles the push.
  */
 public class PushMessage implements Parcelable {
 
@@ -191,6 +195,13 @@ public class PushMessage implements Parcelable {
     private final Bundle pushBundle;
     private Uri sound = null;
 
+    // Lazily parsed values
+    private volatile Map<String, ActionValue> actions;
+    private volatile Integer priority;
+    private volatile Integer visibility;
+    private volatile InAppMessage inAppMessage;
+    private volatile boolean isInAppMessageParsed;
+
     /**
      * Create a new PushMessage
      *
@@ -291,6 +302,16 @@ public class PushMessage implements Parcelable {
         return new Bundle(pushBundle);
     }
 
+    /**
+     * Returns the push bundle without copying it. The bundle must not be modified.
+     *
+     * @return The push bundle.
+     */
+    @NonNull
+    Bundle getRawPushBundle() {
+        return pushBundle;
+    }
+
     /**
      * Gets the push message's actions.
      *
@@ -298,6 +319,23 @@ public class PushMessage implements Parcelable {
      */
     @NonNull
     public Map<String, ActionValue> getActions() {
+        Map<String, ActionValue> actions = this.actions;
+        if (actions == null) {
+            actions = Collections.unmodifiableMap(parseActions());
+            this.actions = actions;
+        }
+
+        // Callers are free to modify the returned map
+        return new HashMap<>(actions);
+    }
+
+    /**
+     * Parses the actions payload.
+     *
+     * @return A map of action name to action value.
+     */
+    @NonNull
+    private Map<String, ActionValue> parseActions() {
         String actionsPayload = pushBundle.getString(EXTRA_ACTIONS);
         Map<String, ActionValue> actions = new HashMap<>();
 
@@ -403,12 +441,13 @@ public class PushMessage implements Parcelable {
      * @return The priority of the notification.
      */
     public int getPriority() {
-        try {
-            String value = pushBundle.getString(EXTRA_PRIORITY);
-            return UAMathUtil.constrain(Integer.parseInt(value), MIN_PRIORITY, MAX_PRIORITY);
-        } catch (NumberFormatException e) {
-            return 0;
+        Integer priority = this.priority;
+        if (priority == null) {
+            priority = parseInt(EXTRA_PRIORITY, MIN_PRIORITY, MAX_PRIORITY, 0);
+            this.priority = priority;
         }
+
+        return priority;
     }
 
     /**
@@ -419,11 +458,30 @@ public class PushMessage implements Parcelable {
      * @return The visibility of the notification for the lockscreen.
      */
     public int getVisibility() {
+        Integer visibility = this.visibility;
+        if (visibility == null) {
+            visibility = parseInt(EXTRA_VISIBILITY, MIN_VISIBILITY, MAX_VISIBILITY, VISIBILITY_PUBLIC);
+            this.visibility = visibility;
+        }
+
+        return visibility;
+    }
+
+    /**
+     * Parses an int extra.
+     *
+     * @param key The extra key.
+     * @param min The min value.
+     * @param max The max value.
+     * @param defaultValue The value to return if the extra is missing or invalid.
+     * @return The value constrained to the min and max values, or the default value.
+     */
+    private int parseInt(String key, int min, int max, int defaultValue) {
         try {
-            String value = pushBundle.getString(EXTRA_VISIBILITY);
-            return UAMathUtil.constrain(Integer.parseInt(value), MIN_VISIBILITY, MAX_VISIBILITY);
+            String value = pushBundle.getString(key);
+            return UAMathUtil.constrain(Integer.parseInt(value), min, max);
         } catch (NumberFormatException e) {
-            return VISIBILITY_PUBLIC;
+            return defaultValue;
         }
     }
 
@@ -478,6 +536,21 @@ public class PushMessage implements Parcelable {
      */
     @Nullable
     public InAppMessage getInAppMessage() {
+        if (!isInAppMessageParsed) {
+            inAppMessage = parseInAppMessage();
+            isInAppMessageParsed = true;
+        }
+
+        return inAppMessage;
+    }
+
+    /**
+     * Parses the {@link com.urbanairship.push.iam.InAppMessage} from the push bundle.
+     *
+     * @return The in-app message.
+     */
+    @Nullable
+    private InAppMessage parseInAppMessage() {
         if (pushBundle.containsKey(EXTRA_IN_APP_MESSAGE)) {
             try {
                 InAppMessage rawMessage = InAppMessage.parseJson(pushBundle.getString(EXTRA_IN_APP_MESSAGE));
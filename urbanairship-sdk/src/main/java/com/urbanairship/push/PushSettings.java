@@ -0,0 +1,243 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.UAStringUtil;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the push settings. The snapshot is parsed once from the preference data
+ * store and shared by every reader until one of its preferences changes.
+ * <p/>
+ * Use {@link PushManager#getPushSettings()} to get the current snapshot.
+ */
+public final class PushSettings {
+
+    /**
+     * Preference keys that make up the snapshot.
+     */
+    static final Set<String> KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            PushManager.PUSH_ENABLED_KEY,
+            PushManager.USER_NOTIFICATIONS_ENABLED_KEY,
+            PushManager.PUSH_TOKEN_REGISTRATION_ENABLED_KEY,
+            PushManager.SOUND_ENABLED_KEY,
+            PushManager.VIBRATE_ENABLED_KEY,
+            PushManager.QUIET_TIME_ENABLED,
+            PushManager.QUIET_TIME_INTERVAL,
+            PushManager.ALIAS_KEY,
+            PushManager.TAGS_KEY,
+            PushManager.CHANNEL_ID_KEY,
+            PushManager.CHANNEL_LOCATION_KEY,
+            PushManager.REGISTRATION_TOKEN_KEY,
+            PushManager.APID_KEY)));
+
+    final long version;
+    final boolean storedTagsNormalized;
+
+    private final boolean pushEnabled;
+    private final boolean userNotificationsEnabled;
+    private final boolean pushTokenRegistrationEnabled;
+    private final boolean soundEnabled;
+    private final boolean vibrateEnabled;
+    private final boolean quietTimeEnabled;
+    private final QuietTimeInterval quietTimeInterval;
+    private final String alias;
+    private final Set<String> tags;
+    private final String channelId;
+    private final String channelLocation;
+    private final String registrationToken;
+    private final String apid;
+
+    /**
+     * Loads the settings from the data store.
+     *
+     * @param dataStore The preference data store.
+     * @param version The settings version the snapshot is loaded for.
+     */
+    PushSettings(@NonNull PreferenceDataStore dataStore, long version) {
+        this.version = version;
+
+        this.pushEnabled = dataStore.getBoolean(PushManager.PUSH_ENABLED_KEY, true);
+        this.userNotificationsEnabled = dataStore.getBoolean(PushManager.USER_NOTIFICATIONS_ENABLED_KEY, false);
+        this.pushTokenRegistrationEnabled = dataStore.getBoolean(PushManager.PUSH_TOKEN_REGISTRATION_ENABLED_KEY, true);
+        this.soundEnabled = dataStore.getBoolean(PushManager.SOUND_ENABLED_KEY, true);
+        this.vibrateEnabled = dataStore.getBoolean(PushManager.VIBRATE_ENABLED_KEY, true);
+        this.quietTimeEnabled = dataStore.getBoolean(PushManager.QUIET_TIME_ENABLED, false);
+        this.quietTimeInterval = QuietTimeInterval.parseJson(dataStore.getString(PushManager.QUIET_TIME_INTERVAL, null));
+        this.alias = dataStore.getString(PushManager.ALIAS_KEY, null);
+        this.channelId = dataStore.getString(PushManager.CHANNEL_ID_KEY, null);
+        this.channelLocation = dataStore.getString(PushManager.CHANNEL_LOCATION_KEY, null);
+        this.registrationToken = dataStore.getString(PushManager.REGISTRATION_TOKEN_KEY, null);
+        this.apid = dataStore.getString(PushManager.APID_KEY, null);
+
+        Set<String> storedTags = new HashSet<>();
+        JsonValue jsonValue = dataStore.getJsonValue(PushManager.TAGS_KEY);
+        if (jsonValue.isJsonList()) {
+            for (JsonValue tag : jsonValue.getList()) {
+                if (tag.isString()) {
+                    storedTags.add(tag.getString());
+                }
+            }
+        }
+
+        Set<String> normalizedTags = TagUtils.normalizeTags(storedTags);
+        this.storedTagsNormalized = storedTags.size() == normalizedTags.size();
+        this.tags = Collections.unmodifiableSet(normalizedTags);
+    }
+
+    /**
+     * Returns if push is enabled.
+     *
+     * @return {@code true} if push is enabled, otherwise {@code false}.
+     */
+    public boolean isPushEnabled() {
+        return pushEnabled;
+    }
+
+    /**
+     * Returns if user notifications are enabled.
+     *
+     * @return {@code true} if user notifications are enabled, otherwise {@code false}.
+     */
+    public boolean getUserNotificationsEnabled() {
+        return userNotificationsEnabled;
+    }
+
+    /**
+     * Returns if the push token is sent during channel registration.
+     *
+     * @return {@code true} if the push token is sent during channel registration, otherwise {@code false}.
+     */
+    public boolean getPushTokenRegistrationEnabled() {
+        return pushTokenRegistrationEnabled;
+    }
+
+    /**
+     * Returns if sound is enabled.
+     *
+     * @return {@code true} if sound is enabled, otherwise {@code false}.
+     */
+    public boolean isSoundEnabled() {
+        return soundEnabled;
+    }
+
+    /**
+     * Returns if vibration is enabled.
+     *
+     * @return {@code true} if vibration is enabled, otherwise {@code false}.
+     */
+    public boolean isVibrateEnabled() {
+        return vibrateEnabled;
+    }
+
+    /**
+     * Returns if quiet time is enabled.
+     *
+     * @return {@code true} if quiet time is enabled, otherwise {@code false}.
+     */
+    public boolean isQuietTimeEnabled() {
+        return quietTimeEnabled;
+    }
+
+    /**
+     * Determines whether the given time falls within quiet time. Always {@code false} if
+     * quiet time is disabled or no interval is set.
+     *
+     * @param now The time to check.
+     * @return {@code true} if the time is in quiet time, otherwise {@code false}.
+     */
+    public boolean isInQuietTime(@NonNull Calendar now) {
+        return quietTimeEnabled && quietTimeInterval != null && quietTimeInterval.isInQuietTime(now);
+    }
+
+    /**
+     * Returns the quiet time interval.
+     *
+     * @return An array of two Date instances, representing the start and end of quiet time, or
+     * {@code null} if no interval is set.
+     */
+    @Nullable
+    public Date[] getQuietTimeInterval() {
+        return quietTimeInterval == null ? null : quietTimeInterval.getQuietTimeIntervalDateArray();
+    }
+
+    /**
+     * Returns the alias.
+     *
+     * @return The alias, or {@code null} if not set.
+     */
+    @Nullable
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * Returns the normalized tags.
+     *
+     * @return An unmodifiable set of tags.
+     */
+    @NonNull
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the channel ID.
+     *
+     * @return The channel ID, or {@code null} if the channel is not created.
+     */
+    @Nullable
+    public String getChannelId() {
+        return channelId;
+    }
+
+    /**
+     * Returns the channel location.
+     *
+     * @return The channel location, or {@code null} if the channel is not created.
+     */
+    @Nullable
+    String getChannelLocation() {
+        return channelLocation;
+    }
+
+    /**
+     * Returns the push registration token.
+     *
+     * @return The registration token, or {@code null} if not registered.
+     */
+    @Nullable
+    public String getRegistrationToken() {
+        return registrationToken;
+    }
+
+    /**
+     * Returns the legacy APID.
+     *
+     * @return The APID, or {@code null} if not set.
+     */
+    @Nullable
+    String getApid() {
+        return apid;
+    }
+
+    /**
+     * Returns if the push token is available for registration.
+     *
+     * @return {@code true} if push is available, otherwise {@code false}.
+     */
+    boolean isPushAvailable() {
+        return pushTokenRegistrationEnabled && !UAStringUtil.isEmpty(registrationToken);
+    }
+}
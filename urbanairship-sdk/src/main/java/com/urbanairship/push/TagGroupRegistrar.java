@@ -0,0 +1,339 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.urbanairship.Logger;
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.http.Response;
+import com.urbanairship.job.Job;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.UAHttpStatusUtil;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sync engine for channel and named user tag groups.
+ * <p/>
+ * Pending mutations for both audiences are kept in a single operation log in the preference data
+ * store. Mutations are collapsed per audience when they are added, and each upload sends the
+ * channel and named user mutations in parallel. Both audiences are uploaded by a single job, so
+ * they share the job's retry backoff.
+ */
+class TagGroupRegistrar {
+
+    @IntDef({ CHANNEL, NAMED_USER })
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Audience {}
+
+    /**
+     * Channel tag groups.
+     */
+    static final int CHANNEL = 0;
+
+    /**
+     * Named user tag groups.
+     */
+    static final int NAMED_USER = 1;
+
+    /**
+     * Key for storing the pending tag group operation log in the {@link PreferenceDataStore}.
+     */
+    static final String OPERATION_LOG_KEY = "com.urbanairship.push.TAG_GROUP_OPERATION_LOG";
+
+    /**
+     * Max number of concurrent tag group requests.
+     */
+    private static final int MAX_CONCURRENT_UPLOADS = 2;
+
+    private static final String AUDIENCE_KEY = "audience";
+    private static final String MUTATION_KEY = "mutation";
+    private static final String CHANNEL_AUDIENCE = "channel";
+    private static final String NAMED_USER_AUDIENCE = "named_user";
+
+    private final PreferenceDataStore dataStore;
+    private final BaseApiClient[] clients;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    private List<List<TagGroupsMutation>> operations;
+    private final Set<Integer> uploading = new HashSet<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param dataStore The preference data store.
+     * @param channelClient The channel API client.
+     * @param namedUserClient The named user API client.
+     */
+    TagGroupRegistrar(@NonNull PreferenceDataStore dataStore, @NonNull ChannelApiClient channelClient, @NonNull NamedUserApiClient namedUserClient) {
+        this.dataStore = dataStore;
+        this.clients = new BaseApiClient[] { channelClient, namedUserClient };
+        this.executor = Executors.newFixedThreadPool(MAX_CONCURRENT_UPLOADS);
+    }
+
+    /**
+     * Adds mutations to the operation log and collapses the audience's pending mutations.
+     *
+     * @param audience The audience.
+     * @param mutations The mutations.
+     */
+    void addMutations(@Audience int audience, @NonNull List<TagGroupsMutation> mutations) {
+        synchronized (lock) {
+            List<TagGroupsMutation> pending = getOperations().get(audience);
+            List<TagGroupsMutation> collapsed = new ArrayList<>();
+
+            // Keep the mutation that is being uploaded as is, so it can be removed once its request finishes
+            if (uploading.contains(audience) && !pending.isEmpty()) {
+                collapsed.add(pending.remove(0));
+            }
+
+            pending.addAll(mutations);
+            collapsed.addAll(TagGroupsMutation.collapseMutations(pending));
+
+            pending.clear();
+            pending.addAll(collapsed);
+            save();
+        }
+    }
+
+    /**
+     * Gets the pending mutations for the audience.
+     *
+     * @param audience The audience.
+     * @return The pending mutations.
+     */
+    @NonNull
+    List<TagGroupsMutation> getMutations(@Audience int audience) {
+        synchronized (lock) {
+            return new ArrayList<>(getOperations().get(audience));
+        }
+    }
+
+    /**
+     * Clears the pending mutations for the audience.
+     *
+     * @param audience The audience.
+     */
+    void clearMutations(@Audience int audience) {
+        synchronized (lock) {
+            getOperations().get(audience).clear();
+            save();
+        }
+    }
+
+    /**
+     * Uploads the pending mutations. The channel and named user mutations are uploaded in
+     * parallel, the mutations of an audience are uploaded in order.
+     *
+     * @param channelId The channel ID, or {@code null} to skip the channel mutations.
+     * @param namedUserId The named user ID, or {@code null} to skip the named user mutations.
+     * @return {@link Job#JOB_RETRY} if any of the uploads should be retried, otherwise {@link Job#JOB_FINISHED}.
+     */
+    @WorkerThread
+    @Job.JobResult
+    int uploadMutations(@Nullable String channelId, @Nullable String namedUserId) {
+        List<Upload> uploads = new ArrayList<>();
+
+        synchronized (lock) {
+            if (channelId != null && !getOperations().get(CHANNEL).isEmpty() && uploading.add(CHANNEL)) {
+                uploads.add(new Upload(CHANNEL, channelId));
+            }
+
+            if (namedUserId != null && !getOperations().get(NAMED_USER).isEmpty() && uploading.add(NAMED_USER)) {
+                uploads.add(new Upload(NAMED_USER, namedUserId));
+            }
+        }
+
+        if (uploads.isEmpty()) {
+            Logger.verbose("TagGroupRegistrar - No pending tag group updates. Skipping update.");
+            return Job.JOB_FINISHED;
+        }
+
+        if (uploads.size() == 1) {
+            return uploads.get(0).call() ? Job.JOB_FINISHED : Job.JOB_RETRY;
+        }
+
+        boolean retry = false;
+        try {
+            for (Future<Boolean> future : executor.invokeAll(uploads)) {
+                retry |= !future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            Logger.error("TagGroupRegistrar - Failed to upload tag groups.", e);
+            retry = true;
+        }
+
+        return retry ? Job.JOB_RETRY : Job.JOB_FINISHED;
+    }
+
+    /**
+     * Uploads the pending mutations for a single audience.
+     */
+    private class Upload implements Callable<Boolean> {
+
+        private final int audience;
+        private final String audienceId;
+
+        Upload(@Audience int audience, @NonNull String audienceId) {
+            this.audience = audience;
+            this.audienceId = audienceId;
+        }
+
+        /**
+         * Uploads the mutations until the audience has no pending mutations.
+         *
+         * @return {@code false} if the upload should be retried, otherwise {@code true}.
+         */
+        @Override
+        public Boolean call() {
+            try {
+                while (true) {
+                    TagGroupsMutation mutation;
+                    synchronized (lock) {
+                        List<TagGroupsMutation> pending = getOperations().get(audience);
+                        if (pending.isEmpty()) {
+                            return true;
+                        }
+
+                        mutation = pending.get(0);
+                    }
+
+                    Response response = clients[audience].updateTagGroups(audienceId, mutation);
+
+                    // 5xx or no response
+                    if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
+                        Logger.info("TagGroupRegistrar - Failed to update %s tag groups, will retry later.", getAudienceName(audience));
+                        return false;
+                    }
+
+                    int status = response.getStatus();
+                    Logger.info("TagGroupRegistrar - Update %s tag groups finished with status: %s", getAudienceName(audience), status);
+
+                    if (!UAHttpStatusUtil.inSuccessRange(status) && status != HttpURLConnection.HTTP_FORBIDDEN && status != HttpURLConnection.HTTP_BAD_REQUEST) {
+                        return true;
+                    }
+
+                    synchronized (lock) {
+                        List<TagGroupsMutation> pending = getOperations().get(audience);
+                        if (!pending.isEmpty() && pending.get(0).equals(mutation)) {
+                            pending.remove(0);
+                            save();
+                        }
+                    }
+                }
+            } finally {
+                synchronized (lock) {
+                    uploading.remove(audience);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the operation log, loading it from the data store and migrating the pending mutations
+     * from older SDK versions if needed.
+     *
+     * @return The pending mutations indexed by audience.
+     */
+    private List<List<TagGroupsMutation>> getOperations() {
+        if (operations != null) {
+            return operations;
+        }
+
+        operations = new ArrayList<>();
+        operations.add(new ArrayList<TagGroupsMutation>());
+        operations.add(new ArrayList<TagGroupsMutation>());
+
+        for (JsonValue value : dataStore.getJsonValue(OPERATION_LOG_KEY).optList()) {
+            JsonMap entry = value.optMap();
+            TagGroupsMutation mutation = TagGroupsMutation.fromJsonValue(entry.opt(MUTATION_KEY));
+            if (mutation == null) {
+                continue;
+            }
+
+            if (NAMED_USER_AUDIENCE.equals(entry.opt(AUDIENCE_KEY).getString())) {
+                operations.get(NAMED_USER).add(mutation);
+            } else {
+                operations.get(CHANNEL).add(mutation);
+            }
+        }
+
+        boolean migrated = migrate(CHANNEL, ChannelJobHandler.PENDING_ADD_TAG_GROUPS_KEY,
+                ChannelJobHandler.PENDING_REMOVE_TAG_GROUPS_KEY, ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY);
+
+        migrated |= migrate(NAMED_USER, NamedUserJobHandler.PENDING_ADD_TAG_GROUPS_KEY,
+                NamedUserJobHandler.PENDING_REMOVE_TAG_GROUPS_KEY, NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY);
+
+        if (migrated) {
+            save();
+        }
+
+        return operations;
+    }
+
+    /**
+     * Migrates the pending mutations stored by the channel and named user job handlers.
+     *
+     * @return {@code true} if any mutations were migrated, otherwise {@code false}.
+     */
+    private boolean migrate(@Audience int audience, String addTagsKey, String removeTagsKey, String mutationsKey) {
+        TagUtils.migrateTagGroups(dataStore, addTagsKey, removeTagsKey, mutationsKey);
+
+        JsonValue legacy = dataStore.getJsonValue(mutationsKey);
+        if (legacy.isNull()) {
+            return false;
+        }
+
+        List<TagGroupsMutation> pending = operations.get(audience);
+        pending.addAll(TagGroupsMutation.fromJsonList(legacy.optList()));
+
+        List<TagGroupsMutation> collapsed = TagGroupsMutation.collapseMutations(pending);
+        pending.clear();
+        pending.addAll(collapsed);
+
+        dataStore.remove(mutationsKey);
+        return true;
+    }
+
+    /**
+     * Saves the operation log.
+     */
+    private void save() {
+        List<JsonMap> entries = new ArrayList<>();
+        for (int audience = 0; audience < operations.size(); audience++) {
+            for (TagGroupsMutation mutation : operations.get(audience)) {
+                entries.add(JsonMap.newBuilder()
+                                   .put(AUDIENCE_KEY, getAudienceName(audience))
+                                   .put(MUTATION_KEY, mutation)
+                                   .build());
+            }
+        }
+
+        if (entries.isEmpty()) {
+            dataStore.remove(OPERATION_LOG_KEY);
+        } else {
+            dataStore.put(OPERATION_LOG_KEY, JsonValue.wrapOpt(entries));
+        }
+    }
+
+    private static String getAudienceName(int audience) {
+        return audience == NAMED_USER ? NAMED_USER_AUDIENCE : CHANNEL_AUDIENCE;
+    }
+}
@@ -54,6 +54,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
     private final Integer primaryColor;
     private final Integer secondaryColor;
     private final int position;
+    private final int priority;
 
     private final String buttonGroupId;
 
@@ -80,6 +81,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         this.buttonActionValues = builder.buttonActionValues;
         this.clickActionValues = builder.clickActionValues == null ? new HashMap<String, ActionValue>() : builder.clickActionValues;
         this.position = builder.position;
+        this.priority = builder.priority;
         this.primaryColor = builder.primaryColor;
         this.secondaryColor = builder.secondaryColor;
     }
@@ -93,6 +95,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         this.alert = parcel.readString();
         this.expiryMS = parcel.readLong();
         this.position = parcel.readInt();
+        this.priority = parcel.readInt();
 
         this.durationMilliseconds = parcel.readByte() == 1 ? parcel.readLong() : null;
         this.primaryColor = parcel.readByte() == 1 ? parcel.readInt() : null;
@@ -120,6 +123,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         dest.writeString(alert);
         dest.writeLong(expiryMS);
         dest.writeInt(position);
+        dest.writeInt(priority);
 
         if (durationMilliseconds == null) {
             dest.writeByte((byte) 0);
@@ -253,6 +257,15 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         return position;
     }
 
+    /**
+     * Returns the message's priority. Pending messages with a higher priority are displayed first.
+     *
+     * @return The message's priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
     /**
      * Returns the message's primary color.
      *
@@ -298,6 +311,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
 
         builder.setId(inAppJson.opt("id").getString())
                .setExtras(inAppJson.opt("extra").getMap())
+               .setPriority(inAppJson.opt("priority").getInt(0))
                .setAlert(displayJson.opt("alert").getString())
                .setPrimaryColor(parseColor(displayJson.opt("primary_color").getString()))
                .setSecondaryColor(parseColor(displayJson.opt("secondary_color").getString()));
@@ -387,6 +401,10 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         inApp.put("id", id);
         inApp.put("expiry_ms", expiryMS);
 
+        if (priority != 0) {
+            inApp.put("priority", priority);
+        }
+
         // Extras
         inApp.put("extra", extras);
 
@@ -436,6 +454,9 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         if (position != that.position) {
             return false;
         }
+        if (priority != that.priority) {
+            return false;
+        }
         if (id != null ? !id.equals(that.id) : that.id != null) {
             return false;
         }
@@ -473,6 +494,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         result = 31 * result + (primaryColor != null ? primaryColor.hashCode() : 0);
         result = 31 * result + (secondaryColor != null ? secondaryColor.hashCode() : 0);
         result = 31 * result + position;
+        result = 31 * result + priority;
         result = 31 * result + (buttonGroupId != null ? buttonGroupId.hashCode() : 0);
         result = 31 * result + clickActionValues.hashCode();
         result = 31 * result + extras.hashCode();
@@ -517,6 +539,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
         private Long durationMilliseconds;
 
         private int position = POSITION_BOTTOM;
+        private int priority;
         private Integer primaryColor;
         private Integer secondaryColor;
 
@@ -538,6 +561,7 @@ public class InAppMessage implements Parcelable, JsonSerializable {
             this.expiryMS = message.expiryMS;
             this.durationMilliseconds = message.durationMilliseconds;
             this.position = message.position;
+            this.priority = message.priority;
             this.clickActionValues = new HashMap<>(message.clickActionValues);
             this.buttonActionValues = new HashMap<>(message.buttonActionValues);
             this.extras = message.extras;
@@ -677,6 +701,20 @@ public class InAppMessage implements Parcelable, JsonSerializable {
             return this;
         }
 
+        /**
+         * Sets the message's priority. Pending messages with a higher priority are displayed
+         * before messages with a lower priority. Messages with the same priority are displayed in
+         * the order they were received. Defaults to 0.
+         *
+         * @param priority The message's priority.
+         * @return The builder.
+         */
+        @NonNull
+        public Builder setPriority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
         /**
          * Sets the message's primary color.
          *
@@ -79,6 +79,7 @@ public class InAppMessageFragment extends Fragment {
     private Timer timer;
     private final List<Listener> listeners = new ArrayList<>();
     private boolean dismissOnRecreate;
+    private View preparedView;
 
     /**
      * Creates arguments for the InAppMessageFragment. Arguments must be set
@@ -194,9 +195,14 @@ public class InAppMessageFragment extends Fragment {
             return null;
         }
 
-        int layout = checkCardViewDependencyAvailable() ? R.layout.ua_fragment_iam_card : R.layout.ua_fragment_iam;
+        SwipeDismissViewLayout view;
+        if (preparedView instanceof SwipeDismissViewLayout && preparedView.getParent() == null) {
+            view = (SwipeDismissViewLayout) preparedView;
+        } else {
+            view = (SwipeDismissViewLayout) inflater.inflate(getLayout(), container, false);
+        }
 
-        SwipeDismissViewLayout view = (SwipeDismissViewLayout) inflater.inflate(layout, container, false);
+        preparedView = null;
 
         // Adjust gravity depending on the message's position
         if (container != null && container instanceof FrameLayout) {
@@ -407,6 +413,25 @@ public class InAppMessageFragment extends Fragment {
         this.dismissOnRecreate = dismissOnRecreate;
     }
 
+    /**
+     * Sets a view that was inflated ahead of time from {@link #getLayout()}. The view is used
+     * instead of inflating the layout the next time the fragment creates its view.
+     *
+     * @param view The prepared view.
+     */
+    void setPreparedView(View view) {
+        this.preparedView = view;
+    }
+
+    /**
+     * Gets the layout used to display the in-app message.
+     *
+     * @return The layout resource ID.
+     */
+    static int getLayout() {
+        return checkCardViewDependencyAvailable() ? R.layout.ua_fragment_iam_card : R.layout.ua_fragment_iam;
+    }
+
     /**
      * Helper method to check if the card view dependency is available or not.
      *
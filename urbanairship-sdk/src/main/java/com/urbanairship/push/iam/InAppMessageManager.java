@@ -7,11 +7,15 @@ import android.content.pm.ActivityInfo;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.annotation.AnimatorRes;
 import android.support.annotation.IdRes;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
 
 import com.urbanairship.ActivityMonitor;
 import com.urbanairship.AirshipComponent;
@@ -54,6 +58,7 @@ public class InAppMessageManager extends AirshipComponent {
     // Preference data store keys
     private final static String KEY_PREFIX = "com.urbanairship.push.iam.";
     private final static String PENDING_IN_APP_MESSAGE_KEY = KEY_PREFIX + "PENDING_IN_APP_MESSAGE";
+    private final static String PENDING_IN_APP_MESSAGES_KEY = KEY_PREFIX + "PENDING_IN_APP_MESSAGES";
     private final static String AUTO_DISPLAY_ENABLED_KEY = KEY_PREFIX + "AUTO_DISPLAY_ENABLED";
     private final static String LAST_DISPLAYED_ID_KEY = KEY_PREFIX + "LAST_DISPLAYED_ID";
 
@@ -85,7 +90,12 @@ public class InAppMessageManager extends AirshipComponent {
     private final Object pendingMessageLock = new Object();
     private InAppMessageFragmentFactory fragmentFactory;
     private long autoDisplayDelayMs;
+    private final InAppMessageQueue pendingMessages;
 
+    // View inflated for the next pending message while the main thread was idle
+    private View preparedView;
+    private String preparedMessageId;
+    private Activity preparedActivity;
 
     // Runnable that we post on the main looper whenever we attempt to auto display a in-app message
     private final Runnable displayRunnable = new Runnable() {
@@ -102,6 +112,15 @@ public class InAppMessageManager extends AirshipComponent {
         }
     };
 
+    // Idle handler that inflates the view for the next pending message
+    private final MessageQueue.IdleHandler prepareViewHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            prepareNextMessageView();
+            return false;
+        }
+    };
+
     /**
      * Default constructor.
      *
@@ -114,6 +133,7 @@ public class InAppMessageManager extends AirshipComponent {
         handler = new Handler(Looper.getMainLooper());
         autoDisplayPendingMessage = isDisplayAsapEnabled();
         this.activityMonitor = activityMonitor;
+        this.pendingMessages = new InAppMessageQueue(dataStore, PENDING_IN_APP_MESSAGES_KEY);
 
         fragmentFactory = new InAppMessageFragmentFactory() {
             @Override
@@ -125,12 +145,22 @@ public class InAppMessageManager extends AirshipComponent {
 
     @Override
     protected void init() {
-        InAppMessage pending = getPendingMessage();
-        if (pending != null && pending.isExpired()) {
-            Logger.debug("InAppMessageManager - pending in-app message expired.");
-            ResolutionEvent resolutionEvent = ResolutionEvent.createExpiredResolutionEvent(pending);
-            UAirship.shared().getAnalytics().addEvent(resolutionEvent);
-            setPendingMessage(null);
+        synchronized (pendingMessageLock) {
+            // Migrate the single pending message from older SDK versions
+            String payload = dataStore.getString(PENDING_IN_APP_MESSAGE_KEY, null);
+            if (payload != null) {
+                dataStore.remove(PENDING_IN_APP_MESSAGE_KEY);
+                try {
+                    InAppMessage legacy = InAppMessage.parseJson(payload);
+                    if (legacy != null) {
+                        pendingMessages.offer(legacy);
+                    }
+                } catch (JsonException e) {
+                    Logger.error("InAppMessageManager - Failed to read pending in-app message: %s", payload, e);
+                }
+            }
+
+            removeExpiredMessages();
         }
 
         listener = new ActivityMonitor.Listener() {
@@ -162,6 +192,7 @@ public class InAppMessageManager extends AirshipComponent {
 
         listener = null;
         handler.removeCallbacks(displayRunnable);
+        clearPreparedView();
     }
 
     /**
@@ -181,6 +212,35 @@ public class InAppMessageManager extends AirshipComponent {
     public long getAutoDisplayDelay() {
         return this.autoDisplayDelayMs;
     }
+
+    /**
+     * Sets the max number of pending in-app messages. When a message is received and the limit is
+     * reached, expired messages are removed first, then the oldest message with the lowest priority.
+     *
+     * @param limit The max number of pending in-app messages.
+     * @throws IllegalArgumentException If the limit is less than 1.
+     */
+    public void setPendingMessageLimit(@IntRange(from = 1) int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+
+        synchronized (pendingMessageLock) {
+            pendingMessages.setMaxSize(limit);
+        }
+    }
+
+    /**
+     * Gets the max number of pending in-app messages.
+     *
+     * @return The max number of pending in-app messages.
+     */
+    public int getPendingMessageLimit() {
+        synchronized (pendingMessageLock) {
+            return pendingMessages.getMaxSize();
+        }
+    }
+
     /**
      * Sets if in-app messages should be displayed as soon as possible or only on app foregrounds.
      * <p/>
@@ -229,68 +289,81 @@ public class InAppMessageManager extends AirshipComponent {
     }
 
     /**
-     * Sets the pending in-app message.
+     * Adds a pending in-app message. Pending messages are displayed one at a time, highest
+     * {@link InAppMessage#getPriority()} first, and then in the order they were received.
+     * A pending message with the same ID is replaced.
      *
-     * @param message The in-app message.
+     * @param message The in-app message, or {@code null} to clear all pending messages.
      */
     public void setPendingMessage(@Nullable final InAppMessage message) {
         synchronized (pendingMessageLock) {
             if (message == null) {
-                dataStore.remove(PENDING_IN_APP_MESSAGE_KEY);
-            } else {
-                InAppMessage previous = getPendingMessage();
-                if (message.equals(previous)) {
-                    return;
-                }
+                pendingMessages.clear();
+                return;
+            }
 
-                // Notify the listener on the main thread of the new pending message
-                handler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        synchronized (listeners) {
-                            for (Listener listener : listeners) {
-                                listener.onPendingMessageAvailable(message);
-                            }
-                        }
-                    }
-                });
+            if (pendingMessages.contains(message)) {
+                return;
+            }
 
-                dataStore.put(PENDING_IN_APP_MESSAGE_KEY, message);
+            removeExpiredMessages();
 
-                if (currentMessage == null && previous != null) {
-                    Logger.debug("InAppMessageManager - pending in-app message replaced.");
-                    ResolutionEvent resolutionEvent = ResolutionEvent.createReplacedResolutionEvent(previous, message);
-                    UAirship.shared().getAnalytics().addEvent(resolutionEvent);
+            InAppMessage removed = pendingMessages.offer(message);
+            if (removed == message) {
+                Logger.debug("InAppMessageManager - pending in-app message limit reached, dropping in-app message: %s", message.getId());
+                return;
+            }
+
+            // Notify the listener on the main thread of the new pending message
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (listeners) {
+                        for (Listener listener : listeners) {
+                            listener.onPendingMessageAvailable(message);
+                        }
+                    }
                 }
+            });
 
-                if (isDisplayAsapEnabled() && getCurrentActivity() != null) {
+            if (removed != null && !removed.equals(currentMessage)) {
+                Logger.debug("InAppMessageManager - pending in-app message replaced.");
+                ResolutionEvent resolutionEvent = ResolutionEvent.createReplacedResolutionEvent(removed, message);
+                UAirship.shared().getAnalytics().addEvent(resolutionEvent);
+            }
+
+            if (getCurrentActivity() != null) {
+                if (isDisplayAsapEnabled()) {
                     autoDisplayPendingMessage = true;
                     handler.removeCallbacks(displayRunnable);
                     handler.post(displayRunnable);
+                } else {
+                    schedulePrepareView();
                 }
             }
         }
     }
 
     /**
-     * Gets the pending in-app message.
+     * Gets the pending in-app message that will be displayed next.
      *
      * @return The pending in-app message.
      */
     @Nullable
     public InAppMessage getPendingMessage() {
         synchronized (pendingMessageLock) {
-            String payload = dataStore.getString(PENDING_IN_APP_MESSAGE_KEY, null);
-            if (payload != null) {
-                try {
-                    return InAppMessage.parseJson(payload);
-                } catch (JsonException e) {
-                    Logger.error("InAppMessageManager - Failed to read pending in-app message: " + payload, e);
-                    setPendingMessage(null);
-                }
-            }
+            return pendingMessages.peek();
+        }
+    }
 
-            return null;
+    /**
+     * Gets the number of pending in-app messages.
+     *
+     * @return The number of pending in-app messages.
+     */
+    public int getPendingMessageCount() {
+        synchronized (pendingMessageLock) {
+            return pendingMessages.size();
         }
     }
 
@@ -367,15 +440,12 @@ public class InAppMessageManager extends AirshipComponent {
         final InAppMessage pending;
 
         synchronized (pendingMessageLock) {
-            pending = getPendingMessage();
-            // Expired event
-            if (pending != null && pending.isExpired()) {
+            if (removeExpiredMessages()) {
                 Logger.debug("InAppMessageManager - Unable to display pending in-app message. Message has expired.");
-                ResolutionEvent resolutionEvent = ResolutionEvent.createExpiredResolutionEvent(pending);
-                UAirship.shared().getAnalytics().addEvent(resolutionEvent);
-                setPendingMessage(null);
                 return false;
             }
+
+            pending = getPendingMessage();
         }
 
         //noinspection ConstantConditions
@@ -441,6 +511,13 @@ public class InAppMessageManager extends AirshipComponent {
 
             currentFragment.setArguments(args);
 
+            if (preparedView != null && preparedActivity == activity && containerId == android.R.id.content
+                    && UAStringUtil.equals(preparedMessageId, pending.getId())) {
+                currentFragment.setPreparedView(preparedView);
+            }
+
+            clearPreparedView();
+
             currentFragment.addListener(fragmentListener);
             currentFragment.setDismissOnRecreate(true);
             currentMessage = pending;
@@ -517,6 +594,85 @@ public class InAppMessageManager extends AirshipComponent {
         return activityReference == null ? null : activityReference.get();
     }
 
+    /**
+     * Removes expired pending messages and adds an expired resolution event for each message.
+     *
+     * @return {@code true} if the next pending message expired, otherwise {@code false}.
+     */
+    private boolean removeExpiredMessages() {
+        synchronized (pendingMessageLock) {
+            InAppMessage next = pendingMessages.peek();
+            List<InAppMessage> expired = pendingMessages.removeExpired();
+            for (InAppMessage message : expired) {
+                Logger.debug("InAppMessageManager - pending in-app message expired: %s", message.getId());
+                ResolutionEvent resolutionEvent = ResolutionEvent.createExpiredResolutionEvent(message);
+                UAirship.shared().getAnalytics().addEvent(resolutionEvent);
+            }
+
+            return next != null && expired.contains(next);
+        }
+    }
+
+    /**
+     * Schedules inflating the view for the next pending message once the main thread is idle.
+     */
+    private void schedulePrepareView() {
+        if (Looper.getMainLooper() != Looper.myLooper()) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    schedulePrepareView();
+                }
+            });
+            return;
+        }
+
+        Looper.myQueue().removeIdleHandler(prepareViewHandler);
+        Looper.myQueue().addIdleHandler(prepareViewHandler);
+    }
+
+    /**
+     * Inflates the in-app message layout for the next pending message in the current activity's
+     * content view, so displaying the message only has to bind the view.
+     */
+    private void prepareNextMessageView() {
+        Activity activity = getCurrentActivity();
+        InAppMessage pending = getPendingMessage();
+
+        if (activity == null || pending == null || pending.isExpired() || currentFragment != null) {
+            return;
+        }
+
+        if (preparedView != null && preparedActivity == activity && UAStringUtil.equals(preparedMessageId, pending.getId())) {
+            return;
+        }
+
+        View container = activity.findViewById(android.R.id.content);
+        LayoutInflater inflater = activity.getLayoutInflater();
+        if (!(container instanceof ViewGroup) || inflater == null) {
+            return;
+        }
+
+        try {
+            preparedView = inflater.inflate(InAppMessageFragment.getLayout(), (ViewGroup) container, false);
+            preparedMessageId = pending.getId();
+            preparedActivity = activity;
+            Logger.verbose("InAppMessageManager - Prepared view for in-app message: %s", pending.getId());
+        } catch (RuntimeException e) {
+            Logger.debug("InAppMessageManager - Failed to prepare in-app message view.", e);
+            clearPreparedView();
+        }
+    }
+
+    /**
+     * Clears the prepared view.
+     */
+    private void clearPreparedView() {
+        preparedView = null;
+        preparedMessageId = null;
+        preparedActivity = null;
+    }
+
     // Life cycle hooks
 
     /**
@@ -549,6 +705,7 @@ public class InAppMessageManager extends AirshipComponent {
         Logger.verbose("InAppMessageManager - Activity paused: " + activity);
         activityReference = null;
         handler.removeCallbacks(displayRunnable);
+        clearPreparedView();
     }
 
     /**
@@ -571,6 +728,10 @@ public class InAppMessageManager extends AirshipComponent {
         if (autoDisplayPendingMessage) {
             handler.postDelayed(displayRunnable, autoDisplayDelayMs);
         }
+
+        if (getPendingMessage() != null) {
+            schedulePrepareView();
+        }
     }
 
     private final InAppMessageFragment.Listener fragmentListener = new InAppMessageFragment.Listener() {
@@ -618,9 +779,9 @@ public class InAppMessageManager extends AirshipComponent {
 
             InAppMessage message = fragment.getMessage();
 
-            synchronized (pendingMessageLock) {
-                if (message != null && message.equals(getPendingMessage())) {
-                    setPendingMessage(null);
+            if (message != null) {
+                synchronized (pendingMessageLock) {
+                    pendingMessages.remove(message);
                 }
             }
 
@@ -632,6 +793,10 @@ public class InAppMessageManager extends AirshipComponent {
                     handler.removeCallbacks(displayRunnable);
                     handler.postDelayed(displayRunnable, autoDisplayDelayMs);
                 }
+
+                if (getCurrentActivity() != null && getPendingMessage() != null) {
+                    schedulePrepareView();
+                }
             }
         }
     };
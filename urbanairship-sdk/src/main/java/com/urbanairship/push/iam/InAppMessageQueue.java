@@ -0,0 +1,246 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push.iam;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.urbanairship.Logger;
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.UAStringUtil;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Persistent queue of pending in-app messages. Messages are ordered by priority, highest first,
+ * and then by the order they were received. The queue is stored as a JSON list in the preference
+ * data store and loaded lazily on first access.
+ * <p/>
+ * The queue is not thread safe. Access is guarded by the {@link InAppMessageManager}.
+ */
+class InAppMessageQueue {
+
+    /**
+     * Default max number of pending messages.
+     */
+    static final int DEFAULT_MAX_SIZE = 5;
+
+    private final PreferenceDataStore dataStore;
+    private final String key;
+    private List<InAppMessage> messages;
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * Default constructor.
+     *
+     * @param dataStore The preference data store.
+     * @param key The preference key used to store the queue.
+     */
+    InAppMessageQueue(@NonNull PreferenceDataStore dataStore, @NonNull String key) {
+        this.dataStore = dataStore;
+        this.key = key;
+    }
+
+    /**
+     * Sets the max number of messages in the queue. Messages over the limit are not removed until
+     * the next message is offered.
+     *
+     * @param maxSize The max number of messages.
+     */
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the max number of messages in the queue.
+     *
+     * @return The max number of messages.
+     */
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the message at the head of the queue.
+     *
+     * @return The message with the highest priority, or {@code null} if the queue is empty.
+     */
+    @Nullable
+    InAppMessage peek() {
+        List<InAppMessage> messages = getMessages();
+        return messages.isEmpty() ? null : messages.get(0);
+    }
+
+    /**
+     * Checks if the queue contains the message.
+     *
+     * @param message The message.
+     * @return {@code true} if the queue contains the message, otherwise {@code false}.
+     */
+    boolean contains(@NonNull InAppMessage message) {
+        return getMessages().contains(message);
+    }
+
+    /**
+     * Returns the number of queued messages.
+     *
+     * @return The number of queued messages.
+     */
+    int size() {
+        return getMessages().size();
+    }
+
+    /**
+     * Adds a message to the queue. A queued message with the same ID is replaced by the new
+     * message. If the queue is full, the message with the lowest priority that was received first
+     * is evicted, which might be the offered message.
+     *
+     * @param message The message.
+     * @return The replaced or evicted message, or {@code null} if no message was removed.
+     */
+    @Nullable
+    InAppMessage offer(@NonNull InAppMessage message) {
+        List<InAppMessage> messages = getMessages();
+        InAppMessage removed = null;
+
+        if (message.getId() != null) {
+            for (Iterator<InAppMessage> iterator = messages.iterator(); iterator.hasNext(); ) {
+                InAppMessage queued = iterator.next();
+                if (UAStringUtil.equals(queued.getId(), message.getId())) {
+                    iterator.remove();
+                    removed = queued;
+                    break;
+                }
+            }
+        }
+
+        // Insert after every message with the same or higher priority
+        int index = messages.size();
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i).getPriority() < message.getPriority()) {
+                index = i;
+                break;
+            }
+        }
+
+        messages.add(index, message);
+
+        if (removed == null && messages.size() > Math.max(maxSize, 1)) {
+            removed = evictLowestPriority(messages);
+        }
+
+        save();
+        return removed;
+    }
+
+    /**
+     * Removes a message from the queue.
+     *
+     * @param message The message.
+     * @return {@code true} if the message was removed, otherwise {@code false}.
+     */
+    boolean remove(@NonNull InAppMessage message) {
+        if (getMessages().remove(message)) {
+            save();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes all expired messages from the queue.
+     *
+     * @return The list of expired messages.
+     */
+    @NonNull
+    List<InAppMessage> removeExpired() {
+        List<InAppMessage> expired = new ArrayList<>();
+        for (Iterator<InAppMessage> iterator = getMessages().iterator(); iterator.hasNext(); ) {
+            InAppMessage message = iterator.next();
+            if (message.isExpired()) {
+                iterator.remove();
+                expired.add(message);
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            save();
+        }
+
+        return expired;
+    }
+
+    /**
+     * Removes all messages from the queue.
+     */
+    void clear() {
+        messages = new ArrayList<>();
+        dataStore.remove(key);
+    }
+
+    /**
+     * Evicts a message to make room in the queue. Expired messages are evicted first, then the
+     * oldest message with the lowest priority.
+     *
+     * @param messages The queued messages.
+     * @return The evicted message.
+     */
+    private static InAppMessage evictLowestPriority(List<InAppMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).isExpired()) {
+                return messages.remove(i);
+            }
+        }
+
+        // The tail has the lowest priority, the first message with that priority is the oldest
+        int lowest = messages.get(messages.size() - 1).getPriority();
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i).getPriority() == lowest) {
+                return messages.remove(i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the queued messages, loading them from the data store if needed.
+     *
+     * @return The mutable list of queued messages.
+     */
+    private List<InAppMessage> getMessages() {
+        if (messages != null) {
+            return messages;
+        }
+
+        messages = new ArrayList<>();
+        for (JsonValue value : dataStore.getJsonValue(key).optList()) {
+            try {
+                InAppMessage message = InAppMessage.parseJson(value.toString());
+                if (message != null) {
+                    messages.add(message);
+                }
+            } catch (JsonException e) {
+                Logger.error("InAppMessageQueue - Failed to read pending in-app message: %s", value, e);
+            }
+        }
+
+        return messages;
+    }
+
+    /**
+     * Saves the queue to the data store.
+     */
+    private void save() {
+        if (messages.isEmpty()) {
+            dataStore.remove(key);
+        } else {
+            dataStore.put(key, JsonValue.wrapOpt(messages));
+        }
+    }
+}
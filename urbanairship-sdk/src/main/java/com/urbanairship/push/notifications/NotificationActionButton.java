@@ -10,14 +10,16 @@ import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.StringRes;
 import android.support.v4.app.NotificationCompat;
+import android.support.v4.app.RemoteInput;
 
 import com.urbanairship.CoreActivity;
 import com.urbanairship.CoreReceiver;
 import com.urbanairship.push.PushManager;
-import com.urbanairship.push.PushMessage;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 /**
@@ -32,6 +34,7 @@ public class NotificationActionButton {
     private final int iconId;
     private final String description;
     private final List<LocalizableRemoteInput> remoteInputs;
+    private volatile Template template;
 
     private NotificationActionButton(String id, int iconId, int labelId, String description, Bundle extras, boolean isForegroundAction, List<LocalizableRemoteInput> remoteInputs) {
         this.id = id;
@@ -118,45 +121,88 @@ public class NotificationActionButton {
      *
      * @param context The application context.
      * @param actionsPayload The actions payload for the interactive buttons.
-     * @param message The PushMessage.
+     * @param pushBundle The push message's bundle.
      * @param notificationId The notification ID.
      * @return The action as a NotificationCompat.Action
      */
-    NotificationCompat.Action createAndroidNotificationAction(Context context, String actionsPayload, PushMessage message, int notificationId) {
-        String label = labelId > 0 ? context.getString(labelId) : "";
-        String actionDescription = description == null ? label : description;
+    NotificationCompat.Action createAndroidNotificationAction(Context context, String actionsPayload, Bundle pushBundle, int notificationId) {
+        Template template = getTemplate(context);
 
-        PendingIntent actionPendingIntent;
-
-        Intent intent = new Intent(PushManager.ACTION_NOTIFICATION_BUTTON_OPENED_PROXY)
+        // The category makes the pending intent unique to this button and push
+        Intent intent = new Intent(template.intent)
                 .addCategory(UUID.randomUUID().toString())
-                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, message.getPushBundle())
+                .putExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE, pushBundle)
                 .putExtra(PushManager.EXTRA_NOTIFICATION_ID, notificationId)
-                .putExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ID, id)
-                .putExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ACTIONS_PAYLOAD, actionsPayload)
-                .putExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_FOREGROUND, isForegroundAction)
-                .putExtra(PushManager.EXTRA_NOTIFICATION_ACTION_BUTTON_DESCRIPTION, actionDescription);
+                .putExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ACTIONS_PAYLOAD, actionsPayload);
 
+        PendingIntent actionPendingIntent;
         if (isForegroundAction) {
-            intent.setClass(context, CoreActivity.class);
             actionPendingIntent = PendingIntent.getActivity(context, 0, intent, 0);
         } else {
-            intent.setClass(context, CoreReceiver.class);
             actionPendingIntent = PendingIntent.getBroadcast(context, 0, intent, 0);
         }
 
-        NotificationCompat.Action.Builder actionBuilder = new NotificationCompat.Action.Builder(iconId, label, actionPendingIntent)
+        NotificationCompat.Action.Builder actionBuilder = new NotificationCompat.Action.Builder(iconId, template.label, actionPendingIntent)
                 .addExtras(extras);
 
-        if (remoteInputs != null) {
-            for (LocalizableRemoteInput remoteInput : remoteInputs) {
-                actionBuilder.addRemoteInput(remoteInput.createRemoteInput(context));
-            }
+        for (RemoteInput remoteInput : template.remoteInputs) {
+            actionBuilder.addRemoteInput(remoteInput);
         }
 
         return actionBuilder.build();
     }
 
+    /**
+     * Gets the button's template, compiling it if it has not been compiled yet for the current
+     * locale.
+     *
+     * @param context The application context.
+     * @return The template.
+     */
+    private Template getTemplate(Context context) {
+        Locale locale = context.getResources().getConfiguration().locale;
+        Template template = this.template;
+
+        if (template == null || !template.locale.equals(locale)) {
+            // Compiling the same template on two threads at once is harmless, either result is used
+            template = new Template(context, locale);
+            this.template = template;
+        }
+
+        return template;
+    }
+
+    /**
+     * The parts of the notification action that are the same for every push: the localized label,
+     * the remote inputs, and the proxy intent with the button's extras. Templates are immutable so
+     * they can be shared between concurrent notification builds.
+     */
+    private class Template {
+        final Locale locale;
+        final String label;
+        final Intent intent;
+        final List<RemoteInput> remoteInputs;
+
+        Template(Context context, Locale locale) {
+            this.locale = locale;
+            this.label = labelId > 0 ? context.getString(labelId) : "";
+
+            this.intent = new Intent(PushManager.ACTION_NOTIFICATION_BUTTON_OPENED_PROXY)
+                    .setClass(context, isForegroundAction ? CoreActivity.class : CoreReceiver.class)
+                    .putExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ID, id)
+                    .putExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_FOREGROUND, isForegroundAction)
+                    .putExtra(PushManager.EXTRA_NOTIFICATION_ACTION_BUTTON_DESCRIPTION, description == null ? label : description);
+
+            List<RemoteInput> inputs = new ArrayList<>();
+            if (NotificationActionButton.this.remoteInputs != null) {
+                for (LocalizableRemoteInput remoteInput : NotificationActionButton.this.remoteInputs) {
+                    inputs.add(remoteInput.createRemoteInput(context));
+                }
+            }
+            this.remoteInputs = Collections.unmodifiableList(inputs);
+        }
+    }
+
     /**
      * Builds the NotificationAction.
      */
@@ -3,6 +3,7 @@
 package com.urbanairship.push.notifications;
 
 import android.content.Context;
+import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.v4.app.NotificationCompat;
 
@@ -18,6 +19,9 @@ import java.util.List;
 
 /**
  * Model object encapsulating the data relevant to a notification action button group.
+ * <p/>
+ * Each button compiles the parts of its Android notification action that do not depend on the
+ * push the first time it is displayed, and only builds the push specific parts afterwards.
  */
 public class NotificationActionButtonGroup {
 
@@ -49,7 +53,7 @@ public class NotificationActionButtonGroup {
      */
     @NonNull
     List<NotificationCompat.Action> createAndroidActions(Context context, PushMessage message, int notificationId, String actionsPayload) {
-        final List<NotificationCompat.Action> androidActions = new ArrayList<>();
+        final List<NotificationCompat.Action> androidActions = new ArrayList<>(actionButtons.size());
 
         JsonMap notificationActionMap = null;
         if (!UAStringUtil.isEmpty(actionsPayload)) {
@@ -61,9 +65,11 @@ public class NotificationActionButtonGroup {
             }
         }
 
-        for (NotificationActionButton action : getNotificationActionButtons()) {
+        Bundle pushBundle = message.getPushBundle();
+
+        for (NotificationActionButton action : actionButtons) {
             String actions = notificationActionMap == null ? null : notificationActionMap.opt(action.getId()).toString();
-            NotificationCompat.Action androidAction = action.createAndroidNotificationAction(context, actions, message, notificationId);
+            NotificationCompat.Action androidAction = action.createAndroidNotificationAction(context, actions, pushBundle, notificationId);
             androidActions.add(androidAction);
         }
 
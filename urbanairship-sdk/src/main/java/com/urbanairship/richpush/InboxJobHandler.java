@@ -13,6 +13,7 @@ import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.UAirship;
 import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
+import com.urbanairship.http.ResponseParser;
 import com.urbanairship.job.Job;
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonList;
@@ -20,6 +21,7 @@ import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.util.UAStringUtil;
 
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -92,6 +94,16 @@ class InboxJobHandler {
     private static final String PAYLOAD_ANDROID_CHANNELS_KEY = "android_channels";
     private static final String PAYLOAD_ADD_KEY = "add";
 
+    /**
+     * Parses the message list response as it is read.
+     */
+    private static final ResponseParser<JsonValue> MESSAGES_RESPONSE_PARSER = new ResponseParser<JsonValue>() {
+        @Override
+        public JsonValue parseResponseBody(@NonNull Reader body) throws Exception {
+            return JsonValue.parseReader(body);
+        }
+    };
+
     private final RichPushResolver resolver;
     private final String hostUrl;
     private final RichPushUser user;
@@ -153,6 +165,11 @@ class InboxJobHandler {
 
             this.syncReadMessageState();
             this.syncDeletedMessageState();
+
+            if (success) {
+                // Send any pending events while the radio is active
+                airship.getAnalytics().onAirshipRequestFinished();
+            }
         }
     }
 
@@ -208,7 +225,7 @@ class InboxJobHandler {
                                           .setHeader("Accept", "application/vnd.urbanairship+json; version=3;")
                                           .setHeader(CHANNEL_ID_HEADER, airship.getPushManager().getChannelId())
                                           .setIfModifiedSince(dataStore.getLong(LAST_MESSAGE_REFRESH_TIME, 0))
-                                          .execute();
+                                          .execute(MESSAGES_RESPONSE_PARSER);
 
         Logger.verbose("InboxJobHandler - Fetch inbox messages response: " + response);
 
@@ -222,17 +239,17 @@ class InboxJobHandler {
 
         // 200
         if (status == HttpURLConnection.HTTP_OK) {
-            JsonList serverMessages = null;
-            try {
-                JsonMap responseJson = JsonValue.parseString(response.getResponseBody()).getMap();
-                if (responseJson != null) {
-                    serverMessages = responseJson.get("messages").getList();
-                }
-            } catch (JsonException e) {
-                Logger.error("Failed to update inbox. Unable to parse response body: " + response.getResponseBody());
+            JsonValue responseJson = response.getParsedBody();
+            if (responseJson == null) {
+                Logger.error("Failed to update inbox. Unable to parse response body.");
                 return false;
             }
 
+            JsonList serverMessages = null;
+            if (responseJson.getMap() != null) {
+                serverMessages = responseJson.getMap().get("messages").getList();
+            }
+
             if (serverMessages == null) {
                 Logger.info("Inbox message list is empty.");
             } else {
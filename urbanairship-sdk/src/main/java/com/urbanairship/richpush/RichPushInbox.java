@@ -2,8 +2,10 @@
 
 package com.urbanairship.richpush;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
@@ -12,6 +14,7 @@ import android.os.ResultReceiver;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
+import android.support.v4.util.LruCache;
 
 import com.urbanairship.ActivityMonitor;
 import com.urbanairship.AirshipComponent;
@@ -22,6 +25,8 @@ import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.UAirship;
 import com.urbanairship.job.Job;
 import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonValue;
 import com.urbanairship.messagecenter.MessageActivity;
 import com.urbanairship.messagecenter.MessageCenterActivity;
 import com.urbanairship.util.UAStringUtil;
@@ -118,6 +123,8 @@ public class RichPushInbox extends AirshipComponent {
     private final JobDispatcher jobDispatcher;
     private final ActivityMonitor.Listener listener;
     private final ActivityMonitor activityMonitor;
+    private final LruCache<String, RichPushMessage> payloadCache;
+    private final ComponentCallbacks2 componentCallbacks;
 
     private int fetchCount = 0;
     private InboxJobHandler inboxJobHandler;
@@ -160,6 +167,33 @@ public class RichPushInbox extends AirshipComponent {
             }
         };
         this.activityMonitor = activityMonitor;
+
+        // Inbox messages in access order, payloads are only released when trimmed under memory pressure
+        this.payloadCache = new LruCache<String, RichPushMessage>(Integer.MAX_VALUE) {
+            @Override
+            protected void entryRemoved(boolean evicted, String key, RichPushMessage oldValue, RichPushMessage newValue) {
+                // Runs under the cache lock, so only the message is locked. Messages no longer
+                // in the inbox keep the payload since their row may be gone.
+                if (evicted) {
+                    oldValue.releasePayload();
+                }
+            }
+        };
+
+        this.componentCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {}
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+        };
     }
 
     @Override
@@ -183,6 +217,7 @@ public class RichPushInbox extends AirshipComponent {
         refresh(false);
 
         activityMonitor.addListener(listener);
+        context.registerComponentCallbacks(componentCallbacks);
     }
 
     @Override
@@ -198,6 +233,7 @@ public class RichPushInbox extends AirshipComponent {
     @Override
     protected void tearDown() {
         activityMonitor.removeListener(listener);
+        context.unregisterComponentCallbacks(componentCallbacks);
     }
 
     /**
@@ -639,6 +675,7 @@ public class RichPushInbox extends AirshipComponent {
                 RichPushMessage message = getMessage(messageId);
                 if (message != null) {
                     message.deleted = true;
+                    message.removedFromInbox();
                     unreadMessages.remove(messageId);
                     readMessages.remove(messageId);
                     deletedMessageIds.add(messageId);
@@ -649,6 +686,51 @@ public class RichPushInbox extends AirshipComponent {
         notifyInboxUpdated();
     }
 
+    /**
+     * Loads the raw payload of a message from the DB. The message keeps the payload until the
+     * inbox is trimmed under memory pressure.
+     *
+     * @param message The message.
+     * @return The raw message payload, or {@link JsonValue#NULL} if the message no longer exists.
+     */
+    @NonNull
+    JsonValue loadMessagePayload(@NonNull RichPushMessage message) {
+        String rawPayload = richPushResolver.getMessagePayload(message.getMessageId());
+        if (rawPayload == null) {
+            return JsonValue.NULL;
+        }
+
+        JsonValue payload;
+        try {
+            payload = JsonValue.parseString(rawPayload);
+        } catch (JsonException e) {
+            Logger.error("RichPushInbox - Failed to parse message payload.", e);
+            return JsonValue.NULL;
+        }
+
+        message.setPayload(payload);
+        if (message.isInInbox()) {
+            // Mark it as recently used
+            payloadCache.put(message.getMessageId(), message);
+        }
+
+        return payload;
+    }
+
+    /**
+     * Releases loaded message payloads at the given trim level. Moderate pressure releases the
+     * least recently used half, anything more severe releases every payload.
+     *
+     * @param level The trim level from {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            payloadCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            payloadCache.trimToSize(payloadCache.size() / 2);
+        }
+    }
+
     /**
      * Refreshes the inbox messages from the DB.
      *
@@ -657,10 +739,20 @@ public class RichPushInbox extends AirshipComponent {
     void refresh(boolean notify) {
 
         List<RichPushMessage> messageList = richPushResolver.getMessages();
+        List<RichPushMessage> inboxMessages = new ArrayList<>();
 
         // Sync the messages
         synchronized (inboxLock) {
 
+            // Replaced messages keep their payloads
+            for (RichPushMessage message : unreadMessages.values()) {
+                message.removedFromInbox();
+            }
+
+            for (RichPushMessage message : readMessages.values()) {
+                message.removedFromInbox();
+            }
+
             // Save the unreadMessageIds
             Set<String> previousUnreadMessageIds = new HashSet<>(unreadMessages.keySet());
             Set<String> previousReadMessageIds = new HashSet<>(readMessages.keySet());
@@ -689,6 +781,8 @@ public class RichPushInbox extends AirshipComponent {
                 // Unread - check the previousUnreadMessageIds if any mark reads are still in process
                 if (previousUnreadMessageIds.contains(message.getMessageId())) {
                     message.unreadClient = true;
+                    message.addedToInbox(this);
+                    inboxMessages.add(message);
                     unreadMessages.put(message.getMessageId(), message);
                     continue;
                 }
@@ -696,11 +790,15 @@ public class RichPushInbox extends AirshipComponent {
                 // Read - check the previousUnreadMessageIds if any mark reads are still in process
                 if (previousReadMessageIds.contains(message.getMessageId())) {
                     message.unreadClient = false;
+                    message.addedToInbox(this);
+                    inboxMessages.add(message);
                     readMessages.put(message.getMessageId(), message);
                     continue;
                 }
 
                 // Otherwise fallback to the current state
+                message.addedToInbox(this);
+                inboxMessages.add(message);
                 if (message.unreadClient) {
                     unreadMessages.put(message.getMessageId(), message);
                 } else {
@@ -709,6 +807,13 @@ public class RichPushInbox extends AirshipComponent {
             }
         }
 
+        // Track the new messages so their payloads can be released under memory pressure. The
+        // replaced messages are already out of the inbox, so removing them keeps their payloads.
+        payloadCache.evictAll();
+        for (RichPushMessage message : inboxMessages) {
+            payloadCache.put(message.getMessageId(), message);
+        }
+
         if (notify) {
             notifyInboxUpdated();
         }
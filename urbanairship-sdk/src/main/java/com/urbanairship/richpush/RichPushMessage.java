@@ -18,6 +18,9 @@ import java.util.Map;
 
 /**
  * The primary data structure for Rich Push messages.
+ * <p/>
+ * Messages in the inbox do not keep the raw payload in memory. It is loaded from the database on
+ * first access and may be released again by the inbox under memory pressure.
  */
 public class RichPushMessage implements Comparable<RichPushMessage> {
 
@@ -31,6 +34,8 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
     final static String EXTRA_KEY = "extra";
     final static String TITLE_KEY = "title";
     final static String UNREAD_KEY = "unread";
+    final static String ICONS_KEY = "icons";
+    final static String LIST_ICON_KEY = "list_icon";
 
     private boolean unreadOrigin;
     private Bundle extras;
@@ -41,7 +46,12 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
     private String messageBodyUrl;
     private String messageReadUrl;
     private String title;
+    private String listIconUrl;
+
+    // Released by the inbox under memory pressure and loaded again through it on demand
     private JsonValue rawJson;
+    private RichPushInbox payloadSource;
+    private boolean inInbox;
 
     // Accessed directly from RichPushInbox
     boolean deleted = false;
@@ -74,6 +84,11 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
         message.unreadOrigin = messageMap.opt(UNREAD_KEY).getBoolean(true);
         message.rawJson = messagePayload;
 
+        JsonValue icons = messageMap.opt(ICONS_KEY);
+        if (icons.isJsonMap()) {
+            message.listIconUrl = icons.getMap().opt(LIST_ICON_KEY).getString();
+        }
+
         String sentMS = messageMap.opt(MESSAGE_SENT_KEY).getString();
         if (UAStringUtil.isEmpty(sentMS)) {
             message.sentMS = System.currentTimeMillis();
@@ -258,11 +273,86 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
 
     /**
      * Gets the entire raw message payload as JSON.
+     * <p/>
+     * The inbox only releases the payload of messages it still holds, and only under memory
+     * pressure. A released payload is loaded again from the database on the next access, which
+     * blocks on disk I/O, so avoid calling this on the main thread. Messages that are no longer
+     * in the inbox keep their payload.
      *
-     * @return The message's payload as JSON.
+     * @return The message's payload as JSON, or {@link JsonValue#NULL} if the payload was
+     * released and the message was deleted from the database before it could be loaded again.
      */
     public JsonValue getRawMessageJson() {
-        return rawJson;
+        RichPushInbox source;
+        synchronized (this) {
+            if (rawJson != null) {
+                return rawJson;
+            }
+
+            source = payloadSource;
+        }
+
+        // Loaded outside of the lock, the inbox may release other messages while caching this one
+        return source.loadMessagePayload(this);
+    }
+
+    /**
+     * Sets the loaded raw message payload.
+     *
+     * @param payload The raw message payload.
+     */
+    synchronized void setPayload(@NonNull JsonValue payload) {
+        rawJson = payload;
+    }
+
+    /**
+     * Called when the message is added to the inbox. The inbox may release the payload from then on.
+     *
+     * @param inbox The inbox that loads the payload.
+     */
+    synchronized void addedToInbox(@NonNull RichPushInbox inbox) {
+        payloadSource = inbox;
+        inInbox = true;
+    }
+
+    /**
+     * Called when the message is removed from the inbox. The message keeps its payload from then on.
+     */
+    synchronized void removedFromInbox() {
+        inInbox = false;
+    }
+
+    /**
+     * Checks if the message is in the inbox.
+     *
+     * @return {@code true} if the message is in the inbox, otherwise {@code false}.
+     */
+    synchronized boolean isInInbox() {
+        return inInbox;
+    }
+
+    /**
+     * Releases the raw message payload if the message is still in the inbox. It will be loaded
+     * again through the inbox on the next access.
+     *
+     * @return {@code true} if the payload was released, otherwise {@code false}.
+     */
+    synchronized boolean releasePayload() {
+        if (!inInbox || payloadSource == null) {
+            return false;
+        }
+
+        rawJson = null;
+        return true;
+    }
+
+    /**
+     * Checks if the raw message payload is loaded.
+     *
+     * @return {@code true} if the payload is loaded, otherwise {@code false}.
+     */
+    synchronized boolean isPayloadLoaded() {
+        return rawJson != null;
     }
 
     /**
@@ -282,12 +372,7 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
      */
     @Nullable
     public String getListIconUrl() {
-        JsonValue icons = getRawMessageJson().getMap().get("icons");
-        if (icons != null && icons.isJsonMap()) {
-            return icons.getMap().opt("list_icon").getString();
-        }
-
-        return null;
+        return listIconUrl;
     }
 
     @Override
@@ -81,6 +81,30 @@ class RichPushResolver extends UrbanAirshipResolver {
         return messages;
     }
 
+    /**
+     * Gets the raw payload of a {@link RichPushMessage} from the database.
+     *
+     * @param messageId The message ID.
+     * @return The raw message payload, or {@code null} if the message does not exist.
+     */
+    @Nullable
+    String getMessagePayload(@NonNull String messageId) {
+        Cursor cursor = this.query(this.uri, new String[] { RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT },
+                WHERE_CLAUSE_MESSAGE_ID, new String[] { messageId }, null);
+        if (cursor == null) {
+            return null;
+        }
+
+        String payload = null;
+        if (cursor.moveToFirst()) {
+            payload = cursor.getString(0);
+        }
+
+        cursor.close();
+
+        return payload;
+    }
+
     /**
      * Gets all the {@link RichPushMessage} IDs in the database.
      *
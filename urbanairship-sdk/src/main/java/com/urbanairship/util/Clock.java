@@ -0,0 +1,26 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+/**
+ * Source of the current time. Classes that schedule work take a clock so the time can be
+ * controlled in tests.
+ *
+ * @hide
+ */
+public class Clock {
+
+    /**
+     * Clock backed by {@link System#currentTimeMillis()}.
+     */
+    public static final Clock DEFAULT_CLOCK = new Clock();
+
+    /**
+     * Gets the current time in milliseconds.
+     *
+     * @return The current time in milliseconds.
+     */
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
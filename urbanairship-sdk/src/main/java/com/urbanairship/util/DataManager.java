@@ -6,6 +6,7 @@ import android.annotation.TargetApi;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
@@ -17,15 +18,23 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.urbanairship.Logger;
+import com.urbanairship.metrics.Metrics;
+import com.urbanairship.metrics.Span;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * An abstract class to manage a SQLiteDatabase.
+ * <p/>
+ * Databases are opened in write-ahead logging mode so reads are not blocked by writes. Writes are
+ * serialized on the database's primary connection while reads use the connection pool. Compiled
+ * statements are cached per SQL string and only used inside a transaction, so a cached statement
+ * is never bound by two threads at once.
  */
 public abstract class DataManager {
     private static final int MAX_ATTEMPTS = 3;
@@ -33,6 +42,41 @@ public abstract class DataManager {
 
     private static final String DATABASE_DIRECTORY_NAME = "com.urbanairship.databases";
 
+    /**
+     * Max number of cached compiled statements.
+     */
+    private static final int MAX_CACHED_STATEMENTS = 16;
+
+    /**
+     * Page cache size for each connection. The databases are small, so the SQLite default is more
+     * memory than they need.
+     */
+    private static final int CACHE_SIZE_PAGES = 256;
+
+    /**
+     * Prefix for cached insert statement keys.
+     */
+    private static final String INSERT_STATEMENT_KEY_PREFIX = "insert:";
+
+    private final Map<String, SQLiteStatement> statementCache = new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+            if (size() > MAX_CACHED_STATEMENTS) {
+                eldest.getValue().close();
+                return true;
+            }
+
+            return false;
+        }
+    };
+
+    private SQLiteDatabase statementCacheDatabase;
+
+    /**
+     * Prefix of the database call metric names.
+     */
+    private final String metricsPrefix;
+
     /**
      * Default Constructor for DataManager
      * @param context The context used for opening and creating databases
@@ -42,6 +86,7 @@ public abstract class DataManager {
      */
     public DataManager(@NonNull Context context, @NonNull String appKey, @NonNull String name, int version) {
         name = migrateDatabase(context, appKey, name);
+        metricsPrefix = Metrics.DATABASE_CALL + getClass().getSimpleName() + ".";
 
         openHelper = new SQLiteOpenHelper(context, name, null, version) {
 
@@ -65,18 +110,45 @@ public abstract class DataManager {
             @Override
             public void onConfigure(SQLiteDatabase db) {
                 super.onConfigure(db);
+                configureConnection(db);
                 DataManager.this.onConfigure(db);
             }
 
             @Override
             public void onOpen(SQLiteDatabase db) {
                 super.onOpen(db);
-                DataManager.this.onOpen(db);
 
+                // onConfigure is only called on Jelly Bean and newer
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+                    configureConnection(db);
+                }
+
+                DataManager.this.onOpen(db);
             }
         };
     }
 
+    /**
+     * Enables write-ahead logging and applies the connection pragmas.
+     *
+     * @param db The database.
+     */
+    private void configureConnection(SQLiteDatabase db) {
+        if (db.isReadOnly()) {
+            return;
+        }
+
+        try {
+            db.enableWriteAheadLogging();
+
+            // NORMAL is durable in WAL mode, the last transactions may only be rolled back on power loss
+            db.execSQL("PRAGMA synchronous = NORMAL;");
+            db.execSQL("PRAGMA cache_size = " + CACHE_SIZE_PAGES + ";");
+        } catch (SQLException e) {
+            Logger.error("DataManager - Failed to configure database %s", db, e);
+        }
+    }
+
     /**
      * Called when the database connection is opened.
      *
@@ -309,26 +381,31 @@ public abstract class DataManager {
      * @return number of rows deleted, or -1 if an error occurred
      */
     public int delete(@NonNull String table, @Nullable String selection, @Nullable String[] selectionArgs) {
-        // If the where clause is null (deletes all rows), set it to "1" so that the delete() call
-        // will return the number of rows deleted rather than 0.
-        if (selection == null) {
-            selection = "1";
-        }
+        Span span = Metrics.startSpan(metricsPrefix, "delete");
+        try {
+            // If the where clause is null (deletes all rows), set it to "1" so that the delete() call
+            // will return the number of rows deleted rather than 0.
+            if (selection == null) {
+                selection = "1";
+            }
 
-        SQLiteDatabase db = getWritableDatabase();
-        if (db == null) {
-            return -1;
-        }
+            SQLiteDatabase db = getWritableDatabase();
+            if (db == null) {
+                return -1;
+            }
 
-        for (int i = 0; i < MAX_ATTEMPTS; i++) {
-            try {
-                return db.delete(table, selection, selectionArgs);
-            } catch (Exception ex) {
-                Logger.error("Unable to delete item from a database", ex);
+            for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                try {
+                    return db.delete(table, selection, selectionArgs);
+                } catch (Exception ex) {
+                    Logger.error("Unable to delete item from a database", ex);
+                }
             }
-        }
 
-        return -1;
+            return -1;
+        } finally {
+            span.end();
+        }
     }
 
     /**
@@ -339,34 +416,44 @@ public abstract class DataManager {
      * @return A list of the values inserted into the database
      */
     public List<ContentValues> bulkInsert(@NonNull String table, @NonNull ContentValues[] values) {
-        SQLiteDatabase db = getWritableDatabase();
-        List<ContentValues> inserted = new ArrayList<>();
-        if (db == null) {
-            return inserted;
-        }
+        Span span = Metrics.startSpan(metricsPrefix, "bulkInsert");
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            List<ContentValues> inserted = new ArrayList<>();
+            if (db == null) {
+                return inserted;
+            }
 
-        db.beginTransaction();
-        SQLiteStatement statement = getInsertStatement(table, db);
+            db.beginTransaction();
+            SQLiteStatement statement = null;
 
-        try {
-            for (ContentValues value : values) {
-                if (tryExecuteStatement(table, statement, value)) {
-                    inserted.add(value);
+            try {
+                statement = getCachedInsertStatement(table, db);
+                for (ContentValues value : values) {
+                    if (tryExecuteStatement(table, statement, value)) {
+                        inserted.add(value);
+                    }
                 }
-            }
 
-            if (!inserted.isEmpty()) {
-                db.setTransactionSuccessful();
+                if (!inserted.isEmpty()) {
+                    db.setTransactionSuccessful();
+                }
+
+                return inserted;
+            } catch (Exception ex) {
+                Logger.error("Unable to insert into database", ex);
+            } finally {
+                if (statement != null) {
+                    statement.releaseReference();
+                }
+
+                db.endTransaction();
             }
 
             return inserted;
-        } catch (Exception ex) {
-            Logger.error("Unable to insert into database", ex);
         } finally {
-            db.endTransaction();
+            span.end();
         }
-
-        return inserted;
     }
 
     /**
@@ -376,46 +463,55 @@ public abstract class DataManager {
      * @return A map of table names to their respective lists of the values inserted into the database
      */
     public Map<String, List<ContentValues>> bulkInsert(@NonNull Map<String, ContentValues[]> values) {
-        SQLiteDatabase db = getWritableDatabase();
-        Map<String, List<ContentValues>> inserted = new HashMap<>();
+        Span span = Metrics.startSpan(metricsPrefix, "bulkInsert");
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            Map<String, List<ContentValues>> inserted = new HashMap<>();
 
-        if (db == null) {
-            return inserted;
-        }
+            if (db == null) {
+                return inserted;
+            }
 
-        db.beginTransaction();
-        try {
-            for (Map.Entry<String, ContentValues[]> entry : values.entrySet()) {
-                List<ContentValues> list = new ArrayList<>();
-                SQLiteStatement statement = getInsertStatement(entry.getKey(), db);
+            db.beginTransaction();
+            try {
+                for (Map.Entry<String, ContentValues[]> entry : values.entrySet()) {
+                    List<ContentValues> list = new ArrayList<>();
 
-                if (entry.getValue().length == 0) {
-                    continue;
-                }
+                    if (entry.getValue().length == 0) {
+                        continue;
+                    }
 
-                for (ContentValues value : entry.getValue()) {
-                    if (!tryExecuteStatement(entry.getKey(), statement, value)) {
-                        Logger.warn("Unable to insert into database table " + entry.getKey() + " - aborting inserts.");
-                        inserted.clear();
-                        return inserted;
+                    SQLiteStatement statement = getCachedInsertStatement(entry.getKey(), db);
+                    try {
+                        for (ContentValues value : entry.getValue()) {
+                            if (!tryExecuteStatement(entry.getKey(), statement, value)) {
+                                Logger.warn("Unable to insert into database table %s - aborting inserts.", entry.getKey());
+                                inserted.clear();
+                                return inserted;
+                            }
+
+                            list.add(value);
+                        }
+                    } finally {
+                        statement.releaseReference();
                     }
 
-                    list.add(value);
+                    inserted.put(entry.getKey(), list);
+                }
+            } catch (Exception ex) {
+                Logger.error("Unable to insert into database", ex);
+            } finally{
+                if (!inserted.isEmpty()) {
+                    db.setTransactionSuccessful();
                 }
 
-                inserted.put(entry.getKey(), list);
-            }
-        } catch (Exception ex) {
-            Logger.error("Unable to insert into database", ex);
-        } finally{
-            if (!inserted.isEmpty()) {
-                db.setTransactionSuccessful();
+                db.endTransaction();
             }
 
-            db.endTransaction();
+            return inserted;
+        } finally {
+            span.end();
         }
-
-        return inserted;
     }
 
     /**
@@ -426,20 +522,25 @@ public abstract class DataManager {
      * @return Row id of the inserted values
      */
     public long insert(@NonNull String table, ContentValues values) {
-        SQLiteDatabase db = getWritableDatabase();
-        if (db == null) {
-            return -1;
-        }
+        Span span = Metrics.startSpan(metricsPrefix, "insert");
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            if (db == null) {
+                return -1;
+            }
 
-        for (int i = 0; i < MAX_ATTEMPTS; i++) {
-            try {
-                return getWritableDatabase().replaceOrThrow(table, null, values);
-            } catch (Exception ex) {
-                Logger.error("Unable to insert into database", ex);
+            for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                try {
+                    return getWritableDatabase().replaceOrThrow(table, null, values);
+                } catch (Exception ex) {
+                    Logger.error("Unable to insert into database", ex);
+                }
             }
-        }
 
-        return -1;
+            return -1;
+        } finally {
+            span.end();
+        }
     }
 
     /**
@@ -453,20 +554,25 @@ public abstract class DataManager {
      */
     public int update(@NonNull String table, ContentValues values, String selection,
                       String[] selectionArgs) {
-        SQLiteDatabase db = getWritableDatabase();
-        if (db == null) {
-            return -1;
-        }
+        Span span = Metrics.startSpan(metricsPrefix, "update");
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            if (db == null) {
+                return -1;
+            }
 
-        for (int i = 0; i < MAX_ATTEMPTS; i++) {
-            try {
-                return db.update(table, values, selection, selectionArgs);
-            } catch (SQLException e) {
-                Logger.error("Update Failed", e);
+            for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                try {
+                    return db.update(table, values, selection, selectionArgs);
+                } catch (SQLException e) {
+                    Logger.error("Update Failed", e);
+                }
             }
-        }
 
-        return -1;
+            return -1;
+        } finally {
+            span.end();
+        }
     }
 
     /**
@@ -484,21 +590,26 @@ public abstract class DataManager {
     }
 
     public Cursor query(@NonNull String table, String[] columns, String selection, String[] selectionArgs, String sortOrder, String limit) {
-        SQLiteDatabase db = getReadableDatabase();
-        if (db == null) {
-            return null;
-        }
+        Span span = Metrics.startSpan(metricsPrefix, "query");
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            if (db == null) {
+                return null;
+            }
 
-        for (int i = 0; i < MAX_ATTEMPTS; i++) {
-            try {
-                return db.query(table, columns, selection,
-                        selectionArgs, null, null, sortOrder, limit);
-            } catch (SQLException e) {
-                Logger.error("Query Failed", e);
+            for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                try {
+                    return fillWindow(db.query(table, columns, selection,
+                            selectionArgs, null, null, sortOrder, limit));
+                } catch (SQLException e) {
+                    Logger.error("Query Failed", e);
+                }
             }
-        }
 
-        return null;
+            return null;
+        } finally {
+            span.end();
+        }
     }
 
     /**
@@ -509,26 +620,164 @@ public abstract class DataManager {
      * @return A cursor with the query results, or null if anything went wrong
      */
     public Cursor rawQuery(@NonNull String query, String[] selectionArgs) {
-        SQLiteDatabase db = getReadableDatabase();
-        if (db == null) {
+        Span span = Metrics.startSpan(metricsPrefix, "rawQuery");
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            if (db == null) {
+                return null;
+            }
+
+            for (int i = 0; i < 3; i++) {
+                try {
+                    return fillWindow(db.rawQuery(query, selectionArgs));
+                } catch (SQLException e) {
+                    Logger.error("Query failed", e);
+                }
+            }
+
             return null;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Fills the first window of a query cursor when metrics are enabled. Query cursors are lazy
+     * and only run the SQL on first access, so without this the query span would only record
+     * the statement compile time.
+     *
+     * @param cursor The query cursor.
+     * @return The cursor.
+     * @throws SQLException if running the query fails. The cursor is closed.
+     */
+    private static Cursor fillWindow(Cursor cursor) {
+        if (cursor == null || !Metrics.isEnabled()) {
+            return cursor;
+        }
+
+        try {
+            cursor.getCount();
+        } catch (SQLException e) {
+            cursor.close();
+            throw e;
         }
 
-        for (int i = 0; i < 3; i++) {
+        return cursor;
+    }
+
+    /**
+     * Executes an UPDATE or DELETE statement with a cached compiled statement. The statement runs
+     * in the caller's transaction, or in its own transaction if the caller is not in one.
+     *
+     * @param db The writable database.
+     * @param sql The SQL statement.
+     * @param bindArgs The arguments to bind to the statement.
+     * @return The number of rows affected.
+     * @throws SQLException if the statement fails to compile or execute.
+     */
+    protected int executeUpdateDelete(@NonNull SQLiteDatabase db, @NonNull String sql, @Nullable Object... bindArgs) {
+        Span span = Metrics.startSpan(metricsPrefix, "executeUpdateDelete");
+        try {
+            boolean ownsTransaction = !db.inTransaction();
+            if (ownsTransaction) {
+                db.beginTransaction();
+            }
+
             try {
-                return db.rawQuery(query, selectionArgs);
-            } catch (SQLException e) {
-                Logger.error("Query failed", e);
+                SQLiteStatement statement = getCachedStatement(db, sql, sql, null);
+                try {
+                    statement.clearBindings();
+                    if (bindArgs != null) {
+                        for (int i = 0; i < bindArgs.length; i++) {
+                            DatabaseUtils.bindObjectToProgram(statement, i + 1, bindArgs[i]);
+                        }
+                    }
+
+                    int rows = statement.executeUpdateDelete();
+                    if (ownsTransaction) {
+                        db.setTransactionSuccessful();
+                    }
+
+                    return rows;
+                } finally {
+                    statement.releaseReference();
+                }
+            } finally {
+                if (ownsTransaction) {
+                    db.endTransaction();
+                }
             }
+        } finally {
+            span.end();
         }
+    }
 
-        return null;
+    /**
+     * Gets the cached insert statement for a table.
+     *
+     * @param table The table name.
+     * @param db The writable database.
+     * @return The insert statement. The caller must release the returned reference.
+     */
+    @NonNull
+    private SQLiteStatement getCachedInsertStatement(@NonNull String table, @NonNull SQLiteDatabase db) {
+        return getCachedStatement(db, INSERT_STATEMENT_KEY_PREFIX + table, null, table);
+    }
+
+    /**
+     * Gets a cached statement, compiling it if needed. A reference is acquired on the returned
+     * statement so it stays valid if it is evicted from the cache while in use.
+     *
+     * @param db The writable database.
+     * @param key The cache key.
+     * @param sql The SQL to compile, or {@code null} to compile the table's insert statement.
+     * @param table The table for an insert statement.
+     * @return The statement. The caller must release the returned reference.
+     */
+    @NonNull
+    private SQLiteStatement getCachedStatement(@NonNull SQLiteDatabase db, @NonNull String key, @Nullable String sql, @Nullable String table) {
+        synchronized (statementCache) {
+            // Statements are bound to the database they were compiled on
+            if (statementCacheDatabase != db) {
+                clearStatementCache();
+                statementCacheDatabase = db;
+            }
+
+            SQLiteStatement statement = statementCache.get(key);
+            if (statement == null) {
+                statement = sql != null ? db.compileStatement(sql) : getInsertStatement(table, db);
+                if (statement == null) {
+                    throw new SQLException("Unable to create insert statement for table " + table);
+                }
+
+                statementCache.put(key, statement);
+            }
+
+            statement.acquireReference();
+            return statement;
+        }
+    }
+
+    /**
+     * Closes and removes the cached statements.
+     */
+    private void clearStatementCache() {
+        synchronized (statementCache) {
+            for (SQLiteStatement statement : statementCache.values()) {
+                statement.close();
+            }
+
+            statementCache.clear();
+            statementCacheDatabase = null;
+        }
     }
 
     /**
      * Closes the connection to the database
      */
     public void close() {
+        clearStatementCache();
+
         try {
             openHelper.close();
         } catch (Exception ex) {
@@ -618,10 +867,12 @@ public abstract class DataManager {
                 return oldFile.getAbsolutePath();
             }
 
-            // Move the journal file if it exists
-            File journal = new File(oldFile.getAbsolutePath() + "-journal");
-            if (journal.exists()) {
-                journal.renameTo(new File(target.getAbsolutePath() + "-journal"));
+            // Move the journal files if they exist
+            for (String suffix : new String[] { "-journal", "-wal", "-shm" }) {
+                File journal = new File(oldFile.getAbsolutePath() + suffix);
+                if (journal.exists()) {
+                    journal.renameTo(new File(target.getAbsolutePath() + suffix));
+                }
             }
         }
 
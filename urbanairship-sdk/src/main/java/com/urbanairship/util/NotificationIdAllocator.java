@@ -0,0 +1,259 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.urbanairship.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.Collection;
+
+/**
+ * Allocates notification IDs from a range and tracks the IDs that are still used by a posted
+ * notification in a bitset.
+ * <p/>
+ * The state is kept in a small memory-mapped file. Every process that maps the file shares the
+ * same pages, so allocations are visible across processes without reading or committing any
+ * preferences, and the OS writes the pages back to disk in the background. Updates are guarded by
+ * an exclusive file lock. If the file is unavailable, the state is only kept in memory.
+ * <p/>
+ * File layout: version, start, range and cursor ints, followed by the bitset as longs.
+ */
+class NotificationIdAllocator {
+
+    private static final int VERSION = 1;
+
+    private static final int VERSION_OFFSET = 0;
+    private static final int START_OFFSET = 4;
+    private static final int RANGE_OFFSET = 8;
+    private static final int CURSOR_OFFSET = 12;
+    private static final int BITSET_OFFSET = 16;
+
+    private final int maxRange;
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+
+    /**
+     * Default constructor.
+     *
+     * @param file The file used to store and share the state, or {@code null} to only keep the
+     * state in memory.
+     * @param maxRange The max range of IDs.
+     */
+    NotificationIdAllocator(@Nullable File file, int maxRange) {
+        this.maxRange = maxRange;
+
+        int size = BITSET_OFFSET + getWordCount(maxRange) * 8;
+        FileChannel channel = null;
+        ByteBuffer buffer = null;
+
+        if (file != null) {
+            try {
+                channel = new RandomAccessFile(file, "rw").getChannel();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                Logger.error("NotificationIdAllocator - Unable to map %s, notification IDs will not be shared between processes.", file, e);
+                closeQuietly(channel);
+                channel = null;
+                buffer = null;
+            }
+        }
+
+        this.channel = channel;
+        this.buffer = buffer == null ? ByteBuffer.allocate(size) : buffer;
+    }
+
+    /**
+     * Allocates the next free ID. IDs are handed out round robin starting after the last
+     * allocated ID, skipping IDs that have not been released. Changing the start or range clears
+     * the allocated IDs.
+     *
+     * @param start The first ID.
+     * @param range The number of IDs.
+     * @return The allocated ID, or -1 if every ID in the range is allocated.
+     */
+    synchronized int allocate(int start, int range) {
+        range = Math.min(range, maxRange);
+        if (range <= 0) {
+            return start;
+        }
+
+        FileLock lock = lock();
+        try {
+            checkRange(start, range);
+
+            int cursor = buffer.getInt(CURSOR_OFFSET);
+            for (int i = 0; i < range; i++) {
+                int offset = (cursor + i) % range;
+                if (!isSet(offset)) {
+                    set(offset, true);
+                    buffer.putInt(CURSOR_OFFSET, (offset + 1) % range);
+                    return start + offset;
+                }
+            }
+
+            return -1;
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Releases an ID so it can be allocated again.
+     *
+     * @param id The ID.
+     */
+    synchronized void release(int id) {
+        FileLock lock = lock();
+        try {
+            int offset = id - buffer.getInt(START_OFFSET);
+            if (buffer.getInt(VERSION_OFFSET) == VERSION && offset >= 0 && offset < buffer.getInt(RANGE_OFFSET)) {
+                set(offset, false);
+            }
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Replaces the allocated IDs with the given IDs. IDs outside of the range are ignored.
+     *
+     * @param start The first ID.
+     * @param range The number of IDs.
+     * @param ids The IDs that are still in use.
+     */
+    synchronized void retainAll(int start, int range, @NonNull Collection<Integer> ids) {
+        range = Math.min(range, maxRange);
+        if (range <= 0) {
+            return;
+        }
+
+        FileLock lock = lock();
+        try {
+            checkRange(start, range);
+
+            for (int i = 0; i < getWordCount(maxRange); i++) {
+                buffer.putLong(BITSET_OFFSET + i * 8, 0);
+            }
+
+            for (Integer id : ids) {
+                if (id != null && id >= start && id < start + range) {
+                    set(id - start, true);
+                }
+            }
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Sets the cursor for the next allocation if the allocator has no state yet.
+     *
+     * @param start The first ID.
+     * @param range The number of IDs.
+     * @param nextId The next ID to allocate.
+     */
+    synchronized void initialize(int start, int range, int nextId) {
+        range = Math.min(range, maxRange);
+        if (range <= 0) {
+            return;
+        }
+
+        FileLock lock = lock();
+        try {
+            if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+                checkRange(start, range);
+                buffer.putInt(CURSOR_OFFSET, Math.max(0, nextId - start) % range);
+            }
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Resets the state if the header does not match the start and range.
+     */
+    private void checkRange(int start, int range) {
+        if (buffer.getInt(VERSION_OFFSET) == VERSION && buffer.getInt(START_OFFSET) == start && buffer.getInt(RANGE_OFFSET) == range) {
+            return;
+        }
+
+        Logger.verbose("NotificationIdAllocator - Resetting notification IDs for start: %s range: %s", start, range);
+
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(START_OFFSET, start);
+        buffer.putInt(RANGE_OFFSET, range);
+        buffer.putInt(CURSOR_OFFSET, 0);
+
+        for (int i = 0; i < getWordCount(maxRange); i++) {
+            buffer.putLong(BITSET_OFFSET + i * 8, 0);
+        }
+    }
+
+    private boolean isSet(int offset) {
+        long word = buffer.getLong(BITSET_OFFSET + (offset / 64) * 8);
+        return (word & (1L << (offset % 64))) != 0;
+    }
+
+    private void set(int offset, boolean value) {
+        int index = BITSET_OFFSET + (offset / 64) * 8;
+        long word = buffer.getLong(index);
+        long mask = 1L << (offset % 64);
+        buffer.putLong(index, value ? word | mask : word & ~mask);
+    }
+
+    /**
+     * Acquires the exclusive file lock.
+     *
+     * @return The file lock, or {@code null} if the state is only kept in memory or the lock
+     * failed.
+     */
+    @Nullable
+    private FileLock lock() {
+        if (channel == null) {
+            return null;
+        }
+
+        try {
+            return channel.lock();
+        } catch (IOException e) {
+            Logger.error("NotificationIdAllocator - Failed to lock notification IDs.", e);
+            return null;
+        }
+    }
+
+    private void unlock(@Nullable FileLock lock) {
+        if (lock == null) {
+            return;
+        }
+
+        try {
+            lock.release();
+        } catch (IOException e) {
+            Logger.error("NotificationIdAllocator - Failed to unlock notification IDs.", e);
+        }
+    }
+
+    private static int getWordCount(int range) {
+        return (Math.max(range, 1) + 63) / 64;
+    }
+
+    private static void closeQuietly(@Nullable FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Logger.debug("NotificationIdAllocator - Failed to close channel.", e);
+        }
+    }
+}
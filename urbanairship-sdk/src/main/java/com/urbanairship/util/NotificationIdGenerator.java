@@ -2,19 +2,34 @@
 
 package com.urbanairship.util;
 
+import android.annotation.TargetApi;
+import android.app.NotificationManager;
 import android.content.Context;
-import android.content.SharedPreferences;
+import android.os.Build;
+import android.service.notification.StatusBarNotification;
 import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
 
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * An auto-incrementing notification ID generator.
+ * <p/>
+ * IDs are handed out round robin from the range and are only reused after the notification
+ * using the ID is released with {@link #release(int)}, which the SDK does when a notification is
+ * opened or dismissed. If every ID is in use, the IDs of the active notifications are reloaded
+ * on Android M and newer before the oldest ID is reused.
  */
 public class NotificationIdGenerator {
 
     private static final String SHARED_PREFERENCES_FILE = "com.urbanairship.notificationidgenerator";
+    private static final String ALLOCATOR_FILE = "com.urbanairship.notification_ids";
 
     private static final String NEXT_ID_KEY = "count";
     private static final int MAX_RANGE = 50;
@@ -22,39 +37,39 @@ public class NotificationIdGenerator {
     private static int start = 1000;
     private static int range = 40; //Android allows a maximum of 50 notifications per package (undocumented)
 
-    private static SharedPreferences getPreferences() {
-        Context appContext = UAirship.getApplicationContext();
-        return appContext.getSharedPreferences(SHARED_PREFERENCES_FILE, Context.MODE_PRIVATE);
-    }
+    private static NotificationIdAllocator allocator;
 
-    private static void putInt(String key, int value) {
-        SharedPreferences prefs = getPreferences();
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(key, value);
-        editor.apply();
-    }
+    /**
+     * Gets the shared allocator, creating it on first use.
+     *
+     * @return The allocator.
+     */
+    @NonNull
+    private static synchronized NotificationIdAllocator getAllocator() {
+        if (allocator == null) {
+            Context appContext = UAirship.getApplicationContext();
+            File file = new File(appContext.getFilesDir(), ALLOCATOR_FILE);
+            allocator = new NotificationIdAllocator(file, MAX_RANGE);
+
+            // Continue after the last ID handed out by older SDK versions
+            int lastId = appContext.getSharedPreferences(SHARED_PREFERENCES_FILE, Context.MODE_PRIVATE).getInt(NEXT_ID_KEY, start);
+            allocator.initialize(start, range, lastId + 1);
+        }
 
-    private static int getInt(String key, int defValue) {
-        return getPreferences().getInt(key, defValue);
+        return allocator;
     }
 
-    //implicitly resets the count
-
     /**
-     * Set the count and start value.
+     * Set the start value. Implicitly releases all IDs.
      *
      * @param value The integer value
      */
     public static void setStart(int value) {
-        putInt(NEXT_ID_KEY, value);
         start = value;
     }
 
-    //implicitly resets the count
-
     /**
-     * Set the number of notifications to display (max range). Implicitly resets
-     * the current id to {@link #getStart()}.
+     * Set the number of notifications to display (max range). Implicitly releases all IDs.
      *
      * @param newRange The number of notifications to display
      */
@@ -65,7 +80,6 @@ public class NotificationIdGenerator {
             newRange = MAX_RANGE;
         }
 
-        putInt(NEXT_ID_KEY, start);
         range = newRange;
     }
 
@@ -88,28 +102,24 @@ public class NotificationIdGenerator {
     }
 
     /**
-     * Store the next ID.
+     * Allocates the next ID.
      *
      * @return The int next ID.
      */
     public static int nextID() {
+        NotificationIdAllocator allocator = getAllocator();
 
-        //get the next id from the shared prefs
-        int id = getInt(NEXT_ID_KEY, start);
-
-        //and write the next value back out
-
-        //store a new next id: increment by one, unless we're already at the maximum
-        int nextId = ++id;
-        if (nextId < start + range) {
-            Logger.verbose("NotificationIdGenerator - Incrementing notification ID count");
-            putInt(NEXT_ID_KEY, nextId);
+        int id = allocator.allocate(start, range);
+        if (id == -1) {
+            Logger.verbose("NotificationIdGenerator - All notification IDs in use, reloading active notification IDs");
+            allocator.retainAll(start, range, getActiveNotificationIds());
+            id = allocator.allocate(start, range);
         }
 
-        //in which case, cycle
-        else {
+        if (id == -1) {
             Logger.verbose("NotificationIdGenerator - Resetting notification ID count");
-            putInt(NEXT_ID_KEY, start);
+            allocator.retainAll(start, range, Collections.<Integer>emptySet());
+            id = allocator.allocate(start, range);
         }
 
         Logger.verbose("NotificationIdGenerator - Notification ID: " + id);
@@ -117,4 +127,45 @@ public class NotificationIdGenerator {
         return id;
     }
 
+    /**
+     * Releases an ID after its notification is dismissed or canceled so it can be reused.
+     *
+     * @param id The notification ID.
+     */
+    public static void release(int id) {
+        getAllocator().release(id);
+    }
+
+    /**
+     * Gets the IDs of the active notifications.
+     *
+     * @return The IDs of the active notifications, or an empty set before Android M.
+     */
+    @NonNull
+    private static Set<Integer> getActiveNotificationIds() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return Collections.emptySet();
+        }
+
+        return getActiveNotificationIdsM();
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    @NonNull
+    private static Set<Integer> getActiveNotificationIdsM() {
+        Set<Integer> ids = new HashSet<>();
+        NotificationManager notificationManager = (NotificationManager) UAirship.getApplicationContext().getSystemService(Context.NOTIFICATION_SERVICE);
+
+        try {
+            for (StatusBarNotification notification : notificationManager.getActiveNotifications()) {
+                if (notification.getTag() == null) {
+                    ids.add(notification.getId());
+                }
+            }
+        } catch (RuntimeException e) {
+            Logger.error("NotificationIdGenerator - Unable to get active notifications.", e);
+        }
+
+        return ids;
+    }
 }
@@ -12,14 +12,10 @@ import android.text.TextUtils;
 
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
-import com.urbanairship.http.Request;
 import com.urbanairship.http.RequestFactory;
-import com.urbanairship.http.Response;
-import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonMap;
-import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.Clock;
 
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -27,17 +23,13 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Defines a request to fetch a {@link Pass}.
  */
 public class PassRequest {
 
-    private static final Executor DEFAULT_REQUEST_EXECUTOR = Executors.newSingleThreadExecutor();
     private static final String PATH_FORMAT = "v1/pass/%s?api_key=%s";
-    private static final String API_REVISION_HEADER_NAME = "Api-Revision";
-    private static final String API_REVISION = "1.2";
     private static final String FIELDS_KEY = "fields";
     private static final String HEADERS_KEY = "headers";
     private static final String PUBLIC_URL_KEY = "publicURL";
@@ -51,8 +43,7 @@ public class PassRequest {
     private final Collection<Field> headers;
     private final String tag;
     private final String externalId;
-    private final RequestFactory requestFactory;
-    private final Executor requestExecutor;
+    private final PassRequestEngine requestEngine;
 
     private CancelableCallback requestCallback;
 
@@ -64,14 +55,23 @@ public class PassRequest {
      * @param requestExecutor A thread executor instance.
      */
     PassRequest(Builder builder, RequestFactory requestFactory, Executor requestExecutor) {
+        this(builder, new PassRequestEngine(requestFactory, requestExecutor, Clock.DEFAULT_CLOCK));
+    }
+
+    /**
+     * Constructor available for testing.
+     *
+     * @param builder The pass request builder instance.
+     * @param requestEngine The engine that executes the request.
+     */
+    PassRequest(Builder builder, PassRequestEngine requestEngine) {
         this.apiKey = builder.apiKey;
         this.templateId = builder.templateId;
         this.fields = builder.fields;
         this.headers = builder.headers;
         this.tag = builder.tag;
         this.externalId = builder.externalId;
-        this.requestFactory = requestFactory;
-        this.requestExecutor = requestExecutor;
+        this.requestEngine = requestEngine;
     }
 
     /**
@@ -80,7 +80,7 @@ public class PassRequest {
      * @param builder The pass request builder instance.
      */
     PassRequest(Builder builder) {
-        this(builder, new RequestFactory(), DEFAULT_REQUEST_EXECUTOR);
+        this(builder, PassRequestEngine.shared());
     }
 
     /**
@@ -105,7 +105,8 @@ public class PassRequest {
 
     /**
      * Executes the request to fetch the {@link Pass}. Must be called on the
-     * UI thread.
+     * UI thread. Requests run concurrently, and a request that matches a
+     * pending or recently finished request shares its result.
      *
      * @param callback A callback for the result.
      * @param looper The looper used for executing the result callback. Defaults to that
@@ -118,71 +119,8 @@ public class PassRequest {
         }
 
         requestCallback = new CancelableCallback(callback, looper);
-        Runnable requestRunnable = new Runnable() {
-            @Override
-            public void run() {
-                Logger.info("Requesting pass " + templateId);
-                URL url;
-
-                try {
-                    url = getPassUrl();
-                } catch (MalformedURLException e) {
-                    Logger.error("PassRequest - Invalid pass URL", e);
-                    return;
-                }
-
-                JsonMap.Builder fieldsJson = JsonMap.newBuilder();
-                for (Field field : fields) {
-                    fieldsJson.putOpt(field.getName(), field.toJsonValue());
-                }
-
-                JsonMap headersJson = null;
-                if (!headers.isEmpty()) {
-                    JsonMap.Builder builder = JsonMap.newBuilder();
-                    for (Field header : headers) {
-                        builder.putOpt(header.getName(), header.toJsonValue());
-                    }
-
-                    headersJson = builder.build();
-                }
-
-                JsonMap body = JsonMap.newBuilder()
-                        .putOpt(HEADERS_KEY, headersJson)
-                        .put(FIELDS_KEY, fieldsJson.build())
-                        .putOpt(TAG_KEY, tag)
-                        .put(PUBLIC_URL_KEY, JsonMap.newBuilder().put(PUBLIC_URL_TYPE_KEY, "multiple").build())
-                        .putOpt(EXTERNAL_ID_KEY, externalId)
-                        .build();
-
-                Request httpRequest = requestFactory.createRequest("POST", url)
-                        .setHeader(API_REVISION_HEADER_NAME, API_REVISION)
-                        .setRequestBody(body.toString(), "application/json");
-
-                Logger.debug("PassRequest - Requesting pass " + url + " with payload: " + body);
-                Response response = httpRequest.execute();
-
-                if (response.getStatus() == HttpURLConnection.HTTP_OK) {
-                    JsonValue json;
-                    try {
-                        json = JsonValue.parseString(response.getResponseBody());
-                    } catch (JsonException e) {
-                        Logger.error("PassRequest - Failed to parse response body " + response.getResponseBody());
-                        return;
-                    }
-
-                    Logger.debug("PassRequest - Received pass response: " + json + " for pass " + url);
-                    requestCallback.setResult(response.getStatus(), Pass.parsePass(json));
-                } else {
-                    Logger.error("PassRequest - Pass " + templateId + " request failed with status " + response.getStatus());
-                    requestCallback.setResult(response.getStatus(), null);
-                }
-
-                // Notify the result
-                requestCallback.run();
-            }
-        };
-
-        requestExecutor.execute(requestRunnable);
+        Logger.info("Requesting pass %s", templateId);
+        requestEngine.execute(this, createRequestBody(), requestCallback);
     }
 
     /**
@@ -194,6 +132,46 @@ public class PassRequest {
         }
     }
 
+    /**
+     * Creates the pass request body.
+     *
+     * @return The request body.
+     */
+    JsonMap createRequestBody() {
+        JsonMap.Builder fieldsJson = JsonMap.newBuilder();
+        for (Field field : fields) {
+            fieldsJson.putOpt(field.getName(), field.toJsonValue());
+        }
+
+        JsonMap headersJson = null;
+        if (!headers.isEmpty()) {
+            JsonMap.Builder builder = JsonMap.newBuilder();
+            for (Field header : headers) {
+                builder.putOpt(header.getName(), header.toJsonValue());
+            }
+
+            headersJson = builder.build();
+        }
+
+        return JsonMap.newBuilder()
+                      .putOpt(HEADERS_KEY, headersJson)
+                      .put(FIELDS_KEY, fieldsJson.build())
+                      .putOpt(TAG_KEY, tag)
+                      .put(PUBLIC_URL_KEY, JsonMap.newBuilder().put(PUBLIC_URL_TYPE_KEY, "multiple").build())
+                      .putOpt(EXTERNAL_ID_KEY, externalId)
+                      .build();
+    }
+
+    /**
+     * Gets the key used to match identical requests.
+     *
+     * @param body The request body.
+     * @return The request key.
+     */
+    String getCacheKey(JsonMap body) {
+        return templateId + ":" + apiKey + ":" + body;
+    }
+
     /**
      * Gets the pass request URL.
      *
@@ -0,0 +1,232 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.wallet;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.urbanairship.Logger;
+import com.urbanairship.http.Request;
+import com.urbanairship.http.RequestFactory;
+import com.urbanairship.http.Response;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.Clock;
+
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes {@link PassRequest}s.
+ * <p/>
+ * Requests run concurrently on a bounded thread pool. Requests are keyed by their template ID,
+ * API key and request body, which contains the fields, headers, tag and external ID. A request
+ * with the same key as a request that is still in flight waits on that request instead of
+ * downloading the pass again, and passes are cached for a short time after they are downloaded.
+ */
+class PassRequestEngine {
+
+    /**
+     * Max number of concurrent pass requests.
+     */
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+
+    /**
+     * Time a downloaded pass is cached.
+     */
+    static final long CACHE_TTL_MS = 5 * 60 * 1000;
+
+    /**
+     * Max number of cached passes.
+     */
+    static final int MAX_CACHE_SIZE = 32;
+
+    private static final String API_REVISION_HEADER_NAME = "Api-Revision";
+    private static final String API_REVISION = "1.2";
+
+    private static PassRequestEngine shared;
+
+    private final RequestFactory requestFactory;
+    private final Executor executor;
+    private final Clock clock;
+
+    private final Object lock = new Object();
+    private final Map<String, List<CancelableCallback>> inFlight = new HashMap<>();
+    private final Map<String, CachedPass> cache = new LinkedHashMap<String, CachedPass>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPass> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Default constructor.
+     *
+     * @param requestFactory The HTTP request factory.
+     * @param executor The executor used to perform the requests.
+     * @param clock The clock used to expire cached passes.
+     */
+    @VisibleForTesting
+    PassRequestEngine(@NonNull RequestFactory requestFactory, @NonNull Executor executor, @NonNull Clock clock) {
+        this.requestFactory = requestFactory;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the shared engine.
+     *
+     * @return The shared engine.
+     */
+    @NonNull
+    static synchronized PassRequestEngine shared() {
+        if (shared == null) {
+            shared = new PassRequestEngine(new RequestFactory(), Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS), Clock.DEFAULT_CLOCK);
+        }
+
+        return shared;
+    }
+
+    /**
+     * Executes a pass request. The callback is notified with the cached pass, the result of a
+     * matching in-flight request, or the result of a new request.
+     *
+     * @param request The pass request.
+     * @param body The request body.
+     * @param callback The callback.
+     */
+    void execute(@NonNull final PassRequest request, @NonNull final JsonMap body, @NonNull CancelableCallback callback) {
+        final String key = request.getCacheKey(body);
+
+        synchronized (lock) {
+            CachedPass cached = cache.get(key);
+            if (cached != null) {
+                if (clock.currentTimeMillis() - cached.time < CACHE_TTL_MS) {
+                    Logger.debug("PassRequestEngine - Using cached pass for request %s", request);
+                    callback.setResult(HttpURLConnection.HTTP_OK, cached.pass);
+                    callback.run();
+                    return;
+                }
+
+                cache.remove(key);
+            }
+
+            List<CancelableCallback> callbacks = inFlight.get(key);
+            if (callbacks != null) {
+                Logger.debug("PassRequestEngine - Waiting on in-flight request %s", request);
+                callbacks.add(callback);
+                return;
+            }
+
+            callbacks = new ArrayList<>();
+            callbacks.add(callback);
+            inFlight.put(key, callbacks);
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                performRequest(key, request, body);
+            }
+        });
+    }
+
+    /**
+     * Performs the request and notifies every callback waiting on it.
+     *
+     * @param key The request key.
+     * @param request The pass request.
+     * @param body The request body.
+     */
+    private void performRequest(String key, PassRequest request, JsonMap body) {
+        boolean notify = false;
+        int status = 0;
+        Pass pass = null;
+
+        try {
+            URL url;
+            try {
+                url = request.getPassUrl();
+            } catch (MalformedURLException e) {
+                Logger.error("PassRequestEngine - Invalid pass URL", e);
+                return;
+            }
+
+            Request httpRequest = requestFactory.createRequest("POST", url)
+                                                .setHeader(API_REVISION_HEADER_NAME, API_REVISION)
+                                                .setRequestBody(body.toString(), "application/json");
+
+            Logger.debug("PassRequestEngine - Requesting pass %s with payload: %s", url, body);
+            Response response = httpRequest.execute();
+
+            if (response == null) {
+                Logger.error("PassRequestEngine - Pass request %s failed.", request);
+                return;
+            }
+
+            status = response.getStatus();
+            if (status == HttpURLConnection.HTTP_OK) {
+                JsonValue json;
+                try {
+                    json = JsonValue.parseString(response.getResponseBody());
+                } catch (JsonException e) {
+                    Logger.error("PassRequestEngine - Failed to parse response body %s", response.getResponseBody());
+                    return;
+                }
+
+                Logger.debug("PassRequestEngine - Received pass response: %s for pass %s", json, url);
+                pass = Pass.parsePass(json);
+            } else {
+                Logger.error("PassRequestEngine - Pass request %s failed with status %s", request, status);
+            }
+
+            notify = true;
+        } finally {
+            List<CancelableCallback> callbacks;
+            synchronized (lock) {
+                callbacks = inFlight.remove(key);
+                if (pass != null) {
+                    cache.put(key, new CachedPass(pass, clock.currentTimeMillis()));
+                }
+            }
+
+            if (notify && callbacks != null) {
+                for (CancelableCallback callback : callbacks) {
+                    callback.setResult(status, pass);
+                    callback.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the cached passes.
+     */
+    void clearCache() {
+        synchronized (lock) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * A downloaded pass.
+     */
+    private static class CachedPass {
+        final Pass pass;
+        final long time;
+
+        CachedPass(Pass pass, long time) {
+            this.pass = pass;
+            this.time = time;
+        }
+    }
+}
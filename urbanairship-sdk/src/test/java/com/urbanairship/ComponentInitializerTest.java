@@ -0,0 +1,261 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ComponentInitializerTest extends BaseTestCase {
+
+    private ExecutorService executor;
+    private List<String> order;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        order = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test tasks run after their dependencies.
+     */
+    @Test
+    public void testDependencyOrder() {
+        ComponentInitializer initializer = new ComponentInitializer(executor)
+                .add("c", new RecordingTask("c"), "a", "b")
+                .add("a", new RecordingTask("a"))
+                .add("b", new RecordingTask("b"), "a");
+
+        initializer.run();
+
+        assertEquals(3, order.size());
+        assertTrue(order.indexOf("a") < order.indexOf("b"));
+        assertTrue(order.indexOf("b") < order.indexOf("c"));
+    }
+
+    /**
+     * Test independent tasks run in parallel.
+     */
+    @Test
+    public void testIndependentTasksRunInParallel() {
+        final CountDownLatch latch = new CountDownLatch(2);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+                try {
+                    // Only returns true if both tasks are running at the same time
+                    if (!latch.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Tasks did not run in parallel");
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        new ComponentInitializer(executor)
+                .add("a", task)
+                .add("b", task)
+                .run();
+
+        assertEquals(0, latch.getCount());
+    }
+
+    /**
+     * Test deferred tasks only run after runDeferred is called.
+     */
+    @Test
+    public void testDeferredTasks() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        ComponentInitializer initializer = new ComponentInitializer(executor)
+                .add("a", new RecordingTask("a"))
+                .addDeferred("b", new RecordingTask("b"), "a")
+                .addDeferred("c", new Runnable() {
+                    @Override
+                    public void run() {
+                        order.add("c");
+                        latch.countDown();
+                    }
+                }, "b");
+
+        initializer.run();
+        assertEquals(Collections.singletonList("a"), order);
+
+        initializer.runDeferred();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, order.size());
+        assertEquals("b", order.get(1));
+        assertEquals("c", order.get(2));
+    }
+
+    /**
+     * Test canceling the deferred tasks waits for the running task and skips the rest.
+     */
+    @Test
+    public void testCancelDeferred() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final ComponentInitializer initializer = new ComponentInitializer(executor)
+                .addDeferred("a", new Runnable() {
+                    @Override
+                    public void run() {
+                        started.countDown();
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException ignored) {
+                        }
+                        order.add("a");
+                    }
+                })
+                .addDeferred("b", new RecordingTask("b"), "a");
+
+        initializer.run();
+        initializer.runDeferred();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread releaseThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                }
+                release.countDown();
+            }
+        });
+        releaseThread.start();
+
+        // Blocks until "a" finishes
+        initializer.cancelDeferred();
+        assertEquals(Collections.singletonList("a"), order);
+
+        // Canceling again or without deferred tasks returns right away
+        initializer.cancelDeferred();
+        new ComponentInitializer(executor).cancelDeferred();
+    }
+
+    /**
+     * Test the initializer thread flag is only set while running non-deferred tasks.
+     */
+    @Test
+    public void testIsInitializerThread() {
+        final boolean[] result = new boolean[1];
+
+        new ComponentInitializer(executor)
+                .add("a", new Runnable() {
+                    @Override
+                    public void run() {
+                        result[0] = ComponentInitializer.isInitializerThread();
+                    }
+                })
+                .run();
+
+        assertTrue(result[0]);
+        assertFalse(ComponentInitializer.isInitializerThread());
+    }
+
+    /**
+     * Test timings are recorded for every task.
+     */
+    @Test
+    public void testTimings() {
+        ComponentInitializer initializer = new ComponentInitializer(executor)
+                .add("a", new RecordingTask("a"))
+                .add("b", new RecordingTask("b"), "a");
+
+        initializer.run();
+
+        assertEquals(2, initializer.getTimings().size());
+        assertTrue(initializer.getTimings().containsKey("a"));
+        assertTrue(initializer.getTimings().containsKey("b"));
+    }
+
+    /**
+     * Test exceptions thrown by a task are rethrown by run.
+     */
+    @Test
+    public void testTaskException() {
+        ComponentInitializer initializer = new ComponentInitializer(executor)
+                .add("a", new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new IllegalArgumentException("failed");
+                    }
+                })
+                .add("b", new RecordingTask("b"), "a");
+
+        try {
+            initializer.run();
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    /**
+     * Test a missing dependency throws an IllegalStateException.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testMissingDependency() {
+        new ComponentInitializer(executor)
+                .add("a", new RecordingTask("a"), "missing")
+                .run();
+    }
+
+    /**
+     * Test a dependency cycle throws an IllegalStateException.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testDependencyCycle() {
+        new ComponentInitializer(executor)
+                .add("a", new RecordingTask("a"), "b")
+                .add("b", new RecordingTask("b"), "a")
+                .run();
+    }
+
+    /**
+     * Test a non-deferred task depending on a deferred task throws an IllegalStateException.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testDependsOnDeferred() {
+        new ComponentInitializer(executor)
+                .addDeferred("a", new RecordingTask("a"))
+                .add("b", new RecordingTask("b"), "a")
+                .run();
+    }
+
+    private class RecordingTask implements Runnable {
+        private final String name;
+
+        RecordingTask(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            order.add(name);
+        }
+    }
+}
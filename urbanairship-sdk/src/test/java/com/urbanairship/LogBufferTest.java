@@ -0,0 +1,123 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class LogBufferTest extends BaseTestCase {
+
+    private int logLevel;
+
+    @Before
+    public void setUp() {
+        logLevel = Logger.logLevel;
+        Logger.logLevel = Log.ERROR;
+    }
+
+    @After
+    public void tearDown() {
+        Logger.setLogBuffer(null);
+        Logger.logLevel = logLevel;
+    }
+
+    /**
+     * Test the buffer keeps the most recent messages.
+     */
+    @Test
+    public void testRingBuffer() {
+        LogBuffer buffer = new LogBuffer(2, Log.VERBOSE);
+        buffer.add(Log.DEBUG, "one", null);
+        buffer.add(Log.DEBUG, "two", null);
+        buffer.add(Log.DEBUG, "three", null);
+
+        List<String> messages = buffer.getMessages();
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).endsWith("D two"));
+        assertTrue(messages.get(1).endsWith("D three"));
+
+        buffer.clear();
+        assertTrue(buffer.getMessages().isEmpty());
+    }
+
+    /**
+     * Test the logger records formatted messages at or above the buffer's level, even if the log
+     * level is higher.
+     */
+    @Test
+    public void testLoggerRecordsMessages() {
+        LogBuffer buffer = new LogBuffer(10, Log.DEBUG);
+        Logger.setLogBuffer(buffer);
+
+        Logger.verbose("Not recorded %s", "verbose");
+        Logger.debug("Recorded %s %d", "debug", 1);
+        Logger.info("Recorded info");
+
+        List<String> messages = buffer.getMessages();
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).endsWith("D Recorded debug 1"));
+        assertTrue(messages.get(1).endsWith("I Recorded info"));
+    }
+
+    /**
+     * Test messages that are only recorded are formatted when the buffer is read.
+     */
+    @Test
+    public void testRecordedMessagesFormattedOnRead() {
+        LogBuffer buffer = new LogBuffer(10, Log.DEBUG);
+        Logger.setLogBuffer(buffer);
+
+        final int[] formatCount = new int[1];
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                formatCount[0]++;
+                return "arg";
+            }
+        };
+
+        Logger.debug("Recorded %s", arg);
+        assertEquals(0, formatCount[0]);
+
+        List<String> messages = buffer.getMessages();
+        assertEquals(1, formatCount[0]);
+        assertTrue(messages.get(0).endsWith("D Recorded arg"));
+    }
+
+    /**
+     * Test a trailing throwable is recorded as the message's exception.
+     */
+    @Test
+    public void testTrailingThrowable() {
+        LogBuffer buffer = new LogBuffer(10, Log.DEBUG);
+        Logger.setLogBuffer(buffer);
+
+        Logger.debug("Failed %s", "request", new IllegalStateException("oops"));
+
+        String message = buffer.getMessages().get(0);
+        assertTrue(message.contains("D Failed request\n"));
+        assertTrue(message.contains("IllegalStateException: oops"));
+    }
+
+    /**
+     * Test isLoggable checks both the log level and the buffer level.
+     */
+    @Test
+    public void testIsLoggable() {
+        assertFalse(Logger.isLoggable(Log.DEBUG));
+        assertTrue(Logger.isLoggable(Log.ERROR));
+
+        Logger.setLogBuffer(new LogBuffer(1, Log.DEBUG));
+        assertTrue(Logger.isLoggable(Log.DEBUG));
+        assertFalse(Logger.isLoggable(Log.VERBOSE));
+    }
+}
@@ -0,0 +1,18 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import com.urbanairship.util.Clock;
+
+/**
+ * Clock used for testing.
+ */
+public class TestClock extends Clock {
+
+    public long currentTimeMillis = System.currentTimeMillis();
+
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+}
@@ -6,7 +6,10 @@ import android.support.annotation.NonNull;
 
 import com.urbanairship.http.Request;
 import com.urbanairship.http.Response;
+import com.urbanairship.http.ResponseParser;
+import com.urbanairship.util.UAHttpStatusUtil;
 
+import java.io.StringReader;
 import java.net.URL;
 import java.util.Map;
 
@@ -26,6 +29,28 @@ public class TestRequest extends Request {
         return response;
     }
 
+    @Override
+    public <T> Response execute(ResponseParser<T> parser) {
+        if (parser == null || response == null || response.getResponseBody() == null
+                || !UAHttpStatusUtil.inSuccessRange(response.getStatus())) {
+            return response;
+        }
+
+        T parsedBody;
+        try {
+            parsedBody = parser.parseResponseBody(new StringReader(response.getResponseBody()));
+        } catch (Exception e) {
+            parsedBody = null;
+        }
+
+        return new Response.Builder(response.getStatus())
+                .setResponseBody(response.getResponseBody())
+                .setResponseHeaders(response.getResponseHeaders())
+                .setLastModified(response.getLastModifiedTime())
+                .setParsedBody(parsedBody)
+                .create();
+    }
+
     /**
      * Get the request body.
      *
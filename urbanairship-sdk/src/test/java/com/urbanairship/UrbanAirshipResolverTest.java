@@ -0,0 +1,143 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import android.content.ContentValues;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+
+public class UrbanAirshipResolverTest extends BaseTestCase {
+
+    private UrbanAirshipResolver resolver;
+    private Uri preferenceUri;
+
+    @Before
+    public void setup() {
+        resolver = new UrbanAirshipResolver(TestApplication.getApplication());
+        preferenceUri = UrbanAirshipProvider.getPreferencesContentUri(TestApplication.getApplication());
+    }
+
+    /**
+     * Test the resolver accesses the provider in the current process directly.
+     */
+    @Test
+    public void testLocalProvider() {
+        assertNotNull(UrbanAirshipProvider.getLocalProvider());
+
+        ContentValues values = new ContentValues();
+        values.put(PreferencesDataManager.COLUMN_NAME_KEY, "key");
+        values.put(PreferencesDataManager.COLUMN_NAME_VALUE, "value");
+        assertNotNull(resolver.insert(preferenceUri, values));
+
+        Cursor cursor = resolver.query(preferenceUri, null, PreferencesDataManager.COLUMN_NAME_KEY + " = ?", new String[] { "key" }, null);
+        assertNotNull(cursor);
+        assertEquals(1, cursor.getCount());
+        cursor.close();
+    }
+
+    /**
+     * Test changes are delivered to observers in the current process.
+     */
+    @Test
+    public void testNotifyChange() {
+        CountingObserver parentObserver = new CountingObserver(false);
+        CountingObserver keyObserver = new CountingObserver(false);
+        CountingObserver otherKeyObserver = new CountingObserver(false);
+
+        resolver.registerContentObserver(preferenceUri, true, parentObserver);
+        resolver.registerContentObserver(Uri.withAppendedPath(preferenceUri, "key"), true, keyObserver);
+        resolver.registerContentObserver(Uri.withAppendedPath(preferenceUri, "other"), true, otherKeyObserver);
+
+        resolver.notifyChange(Uri.withAppendedPath(preferenceUri, "key"), null);
+        assertEquals(1, parentObserver.count);
+        assertEquals(1, keyObserver.count);
+        assertEquals(0, otherKeyObserver.count);
+
+        // Changes to the parent notify every descendant
+        resolver.notifyChange(preferenceUri, null);
+        assertEquals(2, parentObserver.count);
+        assertEquals(2, keyObserver.count);
+        assertEquals(1, otherKeyObserver.count);
+
+        resolver.unregisterContentObserver(parentObserver);
+        resolver.unregisterContentObserver(keyObserver);
+        resolver.unregisterContentObserver(otherKeyObserver);
+
+        resolver.notifyChange(preferenceUri, null);
+        assertEquals(2, parentObserver.count);
+        assertEquals(2, keyObserver.count);
+        assertEquals(1, otherKeyObserver.count);
+    }
+
+    /**
+     * Test the originating observer is only notified if it delivers self notifications.
+     */
+    @Test
+    public void testNotifyChangeSelf() {
+        CountingObserver observer = new CountingObserver(false);
+        CountingObserver selfObserver = new CountingObserver(true);
+
+        resolver.registerContentObserver(preferenceUri, true, observer);
+        resolver.registerContentObserver(preferenceUri, true, selfObserver);
+
+        resolver.notifyChange(preferenceUri, observer);
+        resolver.notifyChange(preferenceUri, selfObserver);
+
+        assertEquals(1, observer.count);
+        assertEquals(2, selfObserver.count);
+
+        resolver.unregisterContentObserver(observer);
+        resolver.unregisterContentObserver(selfObserver);
+    }
+
+    /**
+     * Test changes broadcast from other processes are delivered, and changes made in the current
+     * process are only delivered once.
+     */
+    @Test
+    public void testNotifyChangeOtherProcess() {
+        CountingObserver observer = new CountingObserver(false);
+        resolver.registerContentObserver(preferenceUri, true, observer);
+
+        // Change made in another process
+        TestApplication.getApplication().getContentResolver().notifyChange(preferenceUri, null);
+        assertEquals(1, observer.count);
+
+        // Change made in the current process
+        resolver.notifyChange(preferenceUri, null);
+        assertEquals(2, observer.count);
+
+        resolver.unregisterContentObserver(observer);
+
+        TestApplication.getApplication().getContentResolver().notifyChange(preferenceUri, null);
+        assertEquals(2, observer.count);
+    }
+
+    private static class CountingObserver extends ContentObserver {
+
+        private final boolean deliverSelfNotifications;
+        int count;
+
+        CountingObserver(boolean deliverSelfNotifications) {
+            super(null);
+            this.deliverSelfNotifications = deliverSelfNotifications;
+        }
+
+        @Override
+        public boolean deliverSelfNotifications() {
+            return deliverSelfNotifications;
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            count++;
+        }
+    }
+}
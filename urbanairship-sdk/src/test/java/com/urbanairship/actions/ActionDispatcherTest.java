@@ -0,0 +1,129 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.actions;
+
+import android.support.annotation.NonNull;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class ActionDispatcherTest extends BaseTestCase {
+
+    private ActionDispatcher dispatcher;
+    private List<CapturingRunRequest> started;
+
+    @Before
+    public void setUp() {
+        started = new ArrayList<>();
+        dispatcher = new ActionDispatcher(new ActionRunRequestFactory() {
+            @NonNull
+            @Override
+            public ActionRunRequest createActionRequest(String actionName) {
+                return new CapturingRunRequest();
+            }
+        });
+    }
+
+    /**
+     * Test actions over the situation's concurrency limit are queued until running actions finish.
+     */
+    @Test
+    public void testConcurrencyLimit() {
+        final List<ActionResult> results = new ArrayList<>();
+        ActionCompletionCallback callback = new ActionCompletionCallback() {
+            @Override
+            public void onFinish(@NonNull ActionArguments arguments, @NonNull ActionResult result) {
+                results.add(result);
+            }
+        };
+
+        dispatcher.dispatch(createActions(5), Action.SITUATION_PUSH_RECEIVED, null, callback);
+
+        assertEquals(ActionDispatcher.PUSH_RECEIVED_CONCURRENCY_LIMIT, started.size());
+        assertEquals(ActionDispatcher.PUSH_RECEIVED_CONCURRENCY_LIMIT, dispatcher.getRunningCount(Action.SITUATION_PUSH_RECEIVED));
+        assertEquals(5 - ActionDispatcher.PUSH_RECEIVED_CONCURRENCY_LIMIT, dispatcher.getPendingCount(Action.SITUATION_PUSH_RECEIVED));
+
+        // Finishing an action starts the next one
+        started.get(0).finish();
+        assertEquals(1, results.size());
+        assertEquals(ActionDispatcher.PUSH_RECEIVED_CONCURRENCY_LIMIT + 1, started.size());
+
+        for (int i = 1; i < started.size(); i++) {
+            started.get(i).finish();
+        }
+
+        assertEquals(5, started.size());
+        assertEquals(5, results.size());
+        assertEquals(0, dispatcher.getRunningCount(Action.SITUATION_PUSH_RECEIVED));
+        assertEquals(0, dispatcher.getPendingCount(Action.SITUATION_PUSH_RECEIVED));
+    }
+
+    /**
+     * Test situations have separate limits.
+     */
+    @Test
+    public void testSituationsAreIndependent() {
+        dispatcher.setConcurrencyLimit(Action.SITUATION_PUSH_RECEIVED, 1);
+
+        dispatcher.dispatch(createActions(2), Action.SITUATION_PUSH_RECEIVED, null, null);
+        dispatcher.dispatch(createActions(2), Action.SITUATION_PUSH_OPENED, null, null);
+
+        assertEquals(1, dispatcher.getRunningCount(Action.SITUATION_PUSH_RECEIVED));
+        assertEquals(2, dispatcher.getRunningCount(Action.SITUATION_PUSH_OPENED));
+        assertEquals(3, started.size());
+
+        // Raising the limit starts the queued action
+        dispatcher.setConcurrencyLimit(Action.SITUATION_PUSH_RECEIVED, 2);
+        assertEquals(4, started.size());
+    }
+
+    /**
+     * Test parsing an actions payload.
+     */
+    @Test
+    public void testParseActions() {
+        Map<String, ActionValue> actions = ActionDispatcher.parseActions("{ \"tag_action\": [\"tag\"], \"open_url\": \"https://example.com\" }");
+
+        assertEquals(2, actions.size());
+        assertEquals(ActionValue.wrap("https://example.com"), actions.get("open_url"));
+        assertTrue(ActionDispatcher.parseActions("not json").isEmpty());
+        assertTrue(ActionDispatcher.parseActions(null).isEmpty());
+    }
+
+    private static Map<String, ActionValue> createActions(int count) {
+        Map<String, ActionValue> actions = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            actions.put("action" + i, ActionValue.wrap(i));
+        }
+
+        return actions;
+    }
+
+    /**
+     * Run request that holds on to its callback until finished by the test.
+     */
+    private class CapturingRunRequest extends StubbedActionRunRequest {
+
+        private ActionCompletionCallback callback;
+
+        @Override
+        public void run(ActionCompletionCallback callback) {
+            this.callback = callback;
+            started.add(this);
+        }
+
+        void finish() {
+            callback.onFinish(new ActionArguments(Action.SITUATION_PUSH_RECEIVED, null, null), ActionResult.newEmptyResult());
+        }
+    }
+}
@@ -5,6 +5,7 @@ package com.urbanairship.analytics;
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.TestApplication;
+import com.urbanairship.TestClock;
 import com.urbanairship.UAirship;
 import com.urbanairship.job.Job;
 import com.urbanairship.job.JobDispatcher;
@@ -40,6 +41,8 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
     PushManager mockPushManager;
     Analytics mockAnalytics;
     JobDispatcher mockDispatcher;
+    UploadPolicy mockPolicy;
+    TestClock clock;
 
     String channelId;
     PreferenceDataStore dataStore;
@@ -51,6 +54,17 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         mockDataManager = mock(EventDataManager.class);
         mockAnalytics = mock(Analytics.class);
         mockClient = mock(EventApiClient.class);
+        clock = new TestClock();
+
+        // Default to passing through the requested delay
+        mockPolicy = mock(UploadPolicy.class);
+        when(mockPolicy.getUploadDelay(Mockito.anyInt(), anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return (Long) invocation.getArguments()[1];
+            }
+        });
+        when(mockPolicy.canPiggyback()).thenReturn(true);
 
         Mockito.when(mockPushManager.getChannelId()).thenAnswer(new Answer<String>() {
             @Override
@@ -66,7 +80,7 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         dataStore = TestApplication.getApplication().preferenceDataStore;
 
         jobHandler = new AnalyticsJobHandler(TestApplication.getApplication(), UAirship.shared(),
-                dataStore, mockDispatcher, mockDataManager, mockClient);
+                dataStore, mockDispatcher, mockDataManager, mockClient, mockPolicy, clock);
     }
 
     /**
@@ -346,12 +360,143 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         Job job = Job.newBuilder(AnalyticsJobHandler.ACTION_SEND)
                      .build();
 
-        assertEquals(Job.JOB_RETRY, jobHandler.performJob(job));
+        when(mockPolicy.getRetryDelay(1)).thenReturn(15000L);
+
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
         Mockito.verify(mockClient).sendEvents(UAirship.shared(), events.values());
 
         // If it fails, it should skip deleting events
         Mockito.verify(mockDataManager, Mockito.never()).deleteEvents(events.keySet());
+
+        // Verify it schedules a retry with the policy's backoff
+        verify(mockDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<Job>() {
+            @Override
+            public boolean matches(Object argument) {
+                Job job = (Job) argument;
+                return job.getAction().equals(AnalyticsJobHandler.ACTION_SEND);
+            }
+        }), eq(15000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test consecutive failures back off and new events do not send before the retry.
+     */
+    @Test
+    public void testSendEventsFailsBackOff() {
+        when(mockAnalytics.isEnabled()).thenReturn(true);
+
+        Map<String, String> events = new HashMap<>();
+        events.put("firstEvent", "{ 'firstEventBody' }");
+        when(mockDataManager.getEventCount()).thenReturn(1);
+        when(mockDataManager.getDatabaseSize()).thenReturn(100);
+        when(mockDataManager.getEvents(1)).thenReturn(events);
+        when(mockClient.sendEvents(UAirship.shared(), events.values())).thenReturn(null);
+        when(mockPolicy.getRetryDelay(1)).thenReturn(10000L);
+        when(mockPolicy.getRetryDelay(2)).thenReturn(20000L);
+
+        dataStore.put(AnalyticsJobHandler.MAX_BATCH_SIZE_KEY, 100);
+        dataStore.put(AnalyticsJobHandler.MIN_BATCH_INTERVAL_KEY, 0);
+
+        Job sendJob = Job.newBuilder(AnalyticsJobHandler.ACTION_SEND).build();
+
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(sendJob));
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(sendJob));
+
+        verify(mockPolicy).getRetryDelay(1);
+        verify(mockPolicy).getRetryDelay(2);
+
+        // A high priority event should wait for the retry
+        clock.currentTimeMillis += 5000;
+        Job addJob = Job.newBuilder(AnalyticsJobHandler.ACTION_ADD)
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TYPE, "some-type")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_ID, "event id")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TIME_STAMP, "100")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_DATA, "DATA!")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_SESSION_ID, "session id")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_PRIORITY, Event.HIGH_PRIORITY)
+                        .build();
+
+        // Not scheduled earlier than the retry
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(addJob));
+        verify(mockDispatcher, never()).dispatch(Mockito.any(Job.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test the upload policy can defer an upload.
+     */
+    @Test
+    public void testUploadPolicyDelay() {
+        when(mockAnalytics.isEnabled()).thenReturn(true);
+        when(mockPolicy.getUploadDelay(Event.NORMAL_PRIORITY, 10000L)).thenReturn(60000L);
+
+        Job job = Job.newBuilder(AnalyticsJobHandler.ACTION_ADD)
+                     .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TYPE, "some-type")
+                     .putExtra(AnalyticsJobHandler.EXTRA_EVENT_ID, "event id")
+                     .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TIME_STAMP, "100")
+                     .putExtra(AnalyticsJobHandler.EXTRA_EVENT_DATA, "DATA!")
+                     .putExtra(AnalyticsJobHandler.EXTRA_EVENT_SESSION_ID, "session id")
+                     .putExtra(AnalyticsJobHandler.EXTRA_EVENT_PRIORITY, Event.NORMAL_PRIORITY)
+                     .build();
+
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+
+        verify(mockDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<Job>() {
+            @Override
+            public boolean matches(Object argument) {
+                Job job = (Job) argument;
+                return job.getAction().equals(AnalyticsJobHandler.ACTION_SEND);
+            }
+        }), eq(60000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test a scheduled upload is sent early when piggybacking on another request.
+     */
+    @Test
+    public void testPiggybackUpload() {
+        when(mockAnalytics.isEnabled()).thenReturn(true);
+
+        Map<String, String> events = new HashMap<>();
+        events.put("firstEvent", "{ 'firstEventBody' }");
+        when(mockDataManager.getEventCount()).thenReturn(1);
+        when(mockDataManager.getDatabaseSize()).thenReturn(100);
+        when(mockDataManager.getEvents(1)).thenReturn(events);
+
+        EventResponse response = mock(EventResponse.class);
+        when(response.getStatus()).thenReturn(200);
+        when(mockClient.sendEvents(UAirship.shared(), events.values())).thenReturn(response);
+
+        dataStore.put(AnalyticsJobHandler.MAX_BATCH_SIZE_KEY, 100);
+        dataStore.put(AnalyticsJobHandler.LAST_SEND_KEY, clock.currentTimeMillis - 60000);
+
+        Job piggybackJob = Job.newBuilder(AnalyticsJobHandler.ACTION_PIGGYBACK_SEND).build();
+
+        // Nothing scheduled
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(piggybackJob));
+        verify(mockClient, never()).sendEvents(Mockito.any(UAirship.class), Mockito.anyCollectionOf(String.class));
+
+        // Schedule a low priority upload
+        Job addJob = Job.newBuilder(AnalyticsJobHandler.ACTION_ADD)
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TYPE, "some-type")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_ID, "event id")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TIME_STAMP, "100")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_DATA, "DATA!")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_SESSION_ID, "session id")
+                        .putExtra(AnalyticsJobHandler.EXTRA_EVENT_PRIORITY, Event.LOW_PRIORITY)
+                        .build();
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(addJob));
+
+        // Policy rejects piggybacking
+        when(mockPolicy.canPiggyback()).thenReturn(false);
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(piggybackJob));
+        verify(mockClient, never()).sendEvents(Mockito.any(UAirship.class), Mockito.anyCollectionOf(String.class));
+
+        // Policy allows piggybacking
+        when(mockPolicy.canPiggyback()).thenReturn(true);
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(piggybackJob));
+        verify(mockClient).sendEvents(UAirship.shared(), events.values());
+        verify(mockDataManager).deleteEvents(events.keySet());
     }
 
     /**
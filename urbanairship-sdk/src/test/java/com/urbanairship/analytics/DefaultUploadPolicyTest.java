@@ -0,0 +1,75 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestApplication;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class DefaultUploadPolicyTest extends BaseTestCase {
+
+    private DefaultUploadPolicy policy;
+    private double randomValue;
+
+    @Before
+    public void setUp() {
+        Random random = new Random() {
+            @Override
+            public double nextDouble() {
+                return randomValue;
+            }
+        };
+
+        policy = new DefaultUploadPolicy(TestApplication.getApplication(), random);
+    }
+
+    /**
+     * Test the retry delay doubles with each failure and is capped.
+     */
+    @Test
+    public void testRetryDelayBackOff() {
+        randomValue = 1;
+        assertEquals(DefaultUploadPolicy.INITIAL_RETRY_DELAY, policy.getRetryDelay(1));
+        assertEquals(DefaultUploadPolicy.INITIAL_RETRY_DELAY * 2, policy.getRetryDelay(2));
+        assertEquals(DefaultUploadPolicy.INITIAL_RETRY_DELAY * 4, policy.getRetryDelay(3));
+        assertEquals(DefaultUploadPolicy.MAX_RETRY_DELAY, policy.getRetryDelay(100));
+    }
+
+    /**
+     * Test the retry delay is jittered between half and the full delay.
+     */
+    @Test
+    public void testRetryDelayJitter() {
+        randomValue = 0;
+        assertEquals(DefaultUploadPolicy.INITIAL_RETRY_DELAY / 2, policy.getRetryDelay(1));
+
+        randomValue = 0.5;
+        long delay = policy.getRetryDelay(1);
+        assertTrue(delay > DefaultUploadPolicy.INITIAL_RETRY_DELAY / 2);
+        assertTrue(delay < DefaultUploadPolicy.INITIAL_RETRY_DELAY);
+    }
+
+    /**
+     * Test high priority uploads are never deferred.
+     */
+    @Test
+    public void testHighPriorityNotDeferred() {
+        assertEquals(0, policy.getUploadDelay(Event.HIGH_PRIORITY, 0));
+    }
+
+    /**
+     * Test the policy never shortens the requested delay.
+     */
+    @Test
+    public void testUploadDelayNeverShorter() {
+        assertTrue(policy.getUploadDelay(Event.LOW_PRIORITY, 30000) >= 30000);
+        assertTrue(policy.getUploadDelay(Event.NORMAL_PRIORITY, 10000) >= 10000);
+    }
+}
@@ -2,6 +2,8 @@
 
 package com.urbanairship.analytics;
 
+import android.content.ContentValues;
+
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.json.JsonMap;
 
@@ -228,14 +230,74 @@ public class EventDataManagerTest extends BaseTestCase {
         assertEquals(0, dataManager.getDatabaseSize());
 
         TestEvent event = new TestEvent();
-        int eventSize = event.createEventPayload("session id").length();
+        int eventSize = EventCodec.encode(event.createEventPayload("session id")).length;
 
         insertEvent(event, "session id");
         assertEquals(eventSize, dataManager.getDatabaseSize());
 
-        insertEvent(new TestEvent(), "session id");
-        insertEvent(new TestEvent(), "session id");
-        assertEquals(eventSize * 3, dataManager.getDatabaseSize());
+        TestEvent otherEvent = new TestEvent();
+        int otherEventSize = EventCodec.encode(otherEvent.createEventPayload("session id")).length;
+
+        insertEvent(otherEvent, "session id");
+        assertEquals(eventSize + otherEventSize, dataManager.getDatabaseSize());
+    }
+
+    /**
+     * Test events are stored compressed and events stored as text by older versions are still read.
+     */
+    @Test
+    public void testCompressedEvents() {
+        TestEvent event = new TestEvent("some-id");
+        String payload = event.createEventPayload("session id");
+
+        insertEvent(event, "session id");
+        assertTrue(dataManager.getDatabaseSize() < payload.length());
+
+        ContentValues values = new ContentValues();
+        values.put("type", "test");
+        values.put("event_id", "legacy-id");
+        values.put("data", "{\"legacy\":\"event\"}");
+        values.put("time", "1000");
+        values.put("session_id", "session id");
+        values.put("event_size", 20);
+        dataManager.insert(EventDataManager.Events.TABLE_NAME, values);
+
+        Map<String, String> events = dataManager.getEvents(2);
+        assertEquals(payload, events.get("some-id"));
+        assertEquals("{\"legacy\":\"event\"}", events.get("legacy-id"));
+    }
+
+    /**
+     * Test events that can not be decoded are deleted instead of blocking the queue.
+     */
+    @Test
+    public void testCorruptEventsDeleted() {
+        ContentValues values = new ContentValues();
+        values.put("type", "test");
+        values.put("event_id", "corrupt-id");
+        values.put("data", new byte[] { 1, 2, 3 });
+        values.put("time", "1000");
+        values.put("session_id", "session id");
+        values.put("event_size", 3);
+        dataManager.insert(EventDataManager.Events.TABLE_NAME, values);
+
+        TestEvent event = new TestEvent("some-id");
+        insertEvent(event, "session id");
+
+        Map<String, String> events = dataManager.getEvents(2);
+        assertEquals(1, events.size());
+        assertTrue(events.containsKey("some-id"));
+        assertEquals(1, dataManager.getEventCount());
+    }
+
+    /**
+     * Test encoding and decoding an event payload.
+     */
+    @Test
+    public void testEventCodec() {
+        String payload = new TestEvent().createEventPayload("session id");
+        assertEquals(payload, EventCodec.decode(EventCodec.encode(payload)));
+        assertNull(EventCodec.decode(new byte[] { 1, 2, 3 }));
     }
 
     /**
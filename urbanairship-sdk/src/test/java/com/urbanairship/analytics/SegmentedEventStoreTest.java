@@ -0,0 +1,193 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class SegmentedEventStoreTest extends BaseTestCase {
+
+    private static final int SEGMENT_SIZE = 512;
+
+    private File directory;
+    private SegmentedEventStore store;
+
+    @Before
+    public void setUp() {
+        directory = new File(RuntimeEnvironment.application.getFilesDir(), "segmented_event_store_test");
+        store = new SegmentedEventStore(directory, SEGMENT_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        store.deleteAllEvents();
+    }
+
+    /**
+     * Test events are read back oldest first.
+     */
+    @Test
+    public void testInsertAndGetEvents() {
+        insertEvents(0, 5);
+
+        assertEquals(5, store.getEventCount());
+        assertTrue(store.getDatabaseSize() > 0);
+
+        Map<String, String> events = store.getEvents(3);
+        assertEquals(Arrays.asList("event-0", "event-1", "event-2"), new ArrayList<>(events.keySet()));
+        assertEquals(createPayload(1), events.get("event-1"));
+    }
+
+    /**
+     * Test deleting events from the head deletes the consumed segments and survives reopening the
+     * store.
+     */
+    @Test
+    public void testDeleteEvents() {
+        insertEvents(0, 20);
+        int segmentCount = countSegments();
+        assertTrue(segmentCount > 1);
+
+        assertTrue(store.deleteEvents(store.getEvents(15).keySet()));
+        assertEquals(5, store.getEventCount());
+        assertTrue(countSegments() < segmentCount);
+
+        store = new SegmentedEventStore(directory, SEGMENT_SIZE);
+        assertEquals(5, store.getEventCount());
+        assertEquals(Arrays.asList("event-15", "event-16", "event-17", "event-18", "event-19"),
+                new ArrayList<>(store.getEvents(10).keySet()));
+    }
+
+    /**
+     * Test events deleted out of order are skipped until the head reaches them.
+     */
+    @Test
+    public void testDeleteEventsOutOfOrder() {
+        insertEvents(0, 4);
+
+        assertTrue(store.deleteEvents(new HashSet<>(Arrays.asList("event-1", "event-3"))));
+        assertFalse(store.deleteEvents(new HashSet<>(Arrays.asList("event-1"))));
+        assertEquals(2, store.getEventCount());
+
+        store = new SegmentedEventStore(directory, SEGMENT_SIZE);
+        assertEquals(2, store.getEventCount());
+        assertEquals(Arrays.asList("event-0", "event-2"), new ArrayList<>(store.getEvents(10).keySet()));
+
+        assertTrue(store.deleteEvents(new HashSet<>(Arrays.asList("event-0", "event-2"))));
+        assertEquals(0, store.getEventCount());
+        assertEquals(0, countSegments());
+    }
+
+    /**
+     * Test trimming deletes the oldest segment.
+     */
+    @Test
+    public void testTrimOldestEvents() {
+        insertEvents(0, 20);
+
+        store.trimOldestEvents();
+        int count = store.getEventCount();
+        assertTrue(count > 0 && count < 20);
+
+        List<String> eventIds = new ArrayList<>(store.getEvents(20).keySet());
+        assertEquals("event-" + (20 - count), eventIds.get(0));
+        assertEquals("event-19", eventIds.get(eventIds.size() - 1));
+    }
+
+    /**
+     * Test a torn record at the end of a segment is truncated when the store is opened.
+     */
+    @Test
+    public void testRecoverTornRecord() throws IOException {
+        insertEvents(0, 3);
+        File segment = getNewestSegment();
+
+        // Cut the last record short
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        file.setLength(file.length() - 5);
+        file.close();
+
+        store = new SegmentedEventStore(directory, SEGMENT_SIZE);
+        assertEquals(2, store.getEventCount());
+
+        // Garbage after the last record is dropped as well
+        FileOutputStream out = new FileOutputStream(getNewestSegment(), true);
+        out.write(new byte[] { 0, 0, 0, 10, 1, 2, 3 });
+        out.close();
+
+        store = new SegmentedEventStore(directory, SEGMENT_SIZE);
+        assertEquals(2, store.getEventCount());
+
+        insertEvents(3, 4);
+        assertEquals(Arrays.asList("event-0", "event-1", "event-3"), new ArrayList<>(store.getEvents(10).keySet()));
+    }
+
+    /**
+     * Test deleting all events.
+     */
+    @Test
+    public void testDeleteAllEvents() {
+        insertEvents(0, 10);
+
+        store.deleteAllEvents();
+        assertEquals(0, store.getEventCount());
+        assertEquals(0, store.getDatabaseSize());
+        assertTrue(store.getEvents(10).isEmpty());
+
+        insertEvents(10, 11);
+        assertEquals(1, store.getEventCount());
+    }
+
+    private void insertEvents(int start, int end) {
+        for (int i = start; i < end; i++) {
+            assertTrue(store.insertEvent("test", createPayload(i), "event-" + i, "session", String.valueOf(i)) > 0);
+        }
+    }
+
+    private static String createPayload(int index) {
+        return "{\"type\":\"test\",\"event_id\":\"event-" + index + "\",\"time\":\"" + index + "\",\"data\":{\"session_id\":\"session\"}}";
+    }
+
+    private int countSegments() {
+        File[] files = directory.listFiles();
+        int count = 0;
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".log")) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private File getNewestSegment() {
+        File newest = null;
+        for (File file : directory.listFiles()) {
+            if (file.getName().endsWith(".log") && (newest == null || file.getName().compareTo(newest.getName()) > 0)) {
+                newest = file;
+            }
+        }
+
+        return newest;
+    }
+}
@@ -0,0 +1,217 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestActivityMonitor;
+import com.urbanairship.TestApplication;
+import com.urbanairship.UAirship;
+import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.util.Clock;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Automation throughput benchmarks. Replays an event stream through {@link Automation} and the
+ * {@link AutomationDataManager} and prints events per second, latency percentiles and allocations
+ * per event.
+ * <p/>
+ * Skipped unless the benchmark property is set:
+ * <pre>
+ * ./gradlew :urbanairship-sdk:testDebugUnitTest --tests '*AutomationBenchmark' -Pbenchmark
+ * </pre>
+ * Optional properties:
+ * - "ua.benchmark.schedules": Number of generated schedules. Defaults to 5000.
+ * - "ua.benchmark.events": Number of generated events. Defaults to 2000.
+ * - "ua.benchmark.eventFile": Recorded event stream to replay instead of the generated events.
+ * See {@link AutomationWorkload#loadEvents(File)} for the format.
+ */
+public class AutomationBenchmark extends BaseTestCase {
+
+    private static final long SEED = 42;
+    private static final int WARM_UP_EVENTS = 200;
+
+    private AutomationDataManager dataManager;
+    private Automation automation;
+    private AutomationWorkload workload;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(Boolean.getBoolean("ua.benchmark"));
+
+        workload = new AutomationWorkload(SEED);
+        dataManager = new AutomationDataManager(RuntimeEnvironment.application, "benchmark");
+        automation = new Automation(UAirship.shared().getAnalytics(), dataManager, TestApplication.getApplication().preferenceDataStore,
+                new TestActivityMonitor(), mock(JobDispatcher.class), Clock.DEFAULT_CLOCK);
+
+        int scheduleCount = Integer.getInteger("ua.benchmark.schedules", 5000);
+        automation.setScheduleLimit(Math.max(scheduleCount, 1));
+
+        long start = System.nanoTime();
+        List<ActionScheduleInfo> schedules = workload.generateSchedules(scheduleCount);
+        for (int i = 0; i < schedules.size(); i += 500) {
+            dataManager.insertSchedules(schedules.subList(i, Math.min(i + 500, schedules.size())), System.currentTimeMillis());
+        }
+
+        assertEquals(scheduleCount, dataManager.getScheduleCount());
+        System.out.println(String.format(Locale.US, "Inserted %d schedules in %.1f ms", scheduleCount, (System.nanoTime() - start) / 1e6));
+    }
+
+    @After
+    public void takeDown() {
+        if (dataManager != null) {
+            dataManager.deleteSchedules();
+        }
+    }
+
+    /**
+     * Measures the full event path: trigger lookup, predicate matching, running the triggered
+     * schedules and writing the trigger and schedule updates.
+     */
+    @Test
+    public void benchmarkEventProcessing() throws Exception {
+        final List<AutomationWorkload.Event> events = getEvents();
+        final Result result = new Result("Event processing", events.size());
+
+        // Replay on the event processing executor, the only thread processEvent runs on in production
+        automation.runOnEventExecutor(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < Math.min(WARM_UP_EVENTS, events.size()); i++) {
+                    AutomationWorkload.Event event = events.get(i);
+                    automation.processEvent(event.json, event.type, event.value);
+                }
+
+                for (AutomationWorkload.Event event : events) {
+                    result.start();
+                    automation.processEvent(event.json, event.type, event.value);
+                    result.stop();
+                }
+            }
+        });
+
+        assertEquals(events.size(), result.count);
+        result.print();
+    }
+
+    /**
+     * Measures only the trigger lookup and predicate matching for each event.
+     */
+    @Test
+    public void benchmarkTriggerMatching() throws Exception {
+        List<AutomationWorkload.Event> events = getEvents();
+
+        int matched = 0;
+        Result result = new Result("Trigger matching", events.size());
+        for (AutomationWorkload.Event event : events) {
+            result.start();
+            for (TriggerEntry trigger : dataManager.getTriggers(event.type)) {
+                if (trigger.getPredicate() == null || trigger.getPredicate().apply(event.json)) {
+                    matched++;
+                }
+            }
+            result.stop();
+        }
+
+        result.print();
+        System.out.println("Matched triggers: " + matched);
+    }
+
+    private List<AutomationWorkload.Event> getEvents() throws Exception {
+        String eventFile = System.getProperty("ua.benchmark.eventFile");
+        if (eventFile != null && !eventFile.isEmpty()) {
+            return AutomationWorkload.loadEvents(new File(eventFile));
+        }
+
+        return workload.generateEvents(Integer.getInteger("ua.benchmark.events", 2000));
+    }
+
+    /**
+     * Collects the timings and allocations for a benchmark run.
+     */
+    private static class Result {
+
+        private final String name;
+        private final long[] latencies;
+        private final ThreadMXBean threadBean;
+        private final boolean allocationSupported;
+
+        private int count;
+        private long startTime;
+        private long totalTime;
+        private long startAllocated;
+        private long totalAllocated;
+
+        Result(String name, int size) {
+            this.name = name;
+            this.latencies = new long[size];
+            this.threadBean = ManagementFactory.getThreadMXBean();
+            this.allocationSupported = threadBean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported();
+        }
+
+        void start() {
+            startAllocated = allocatedBytes();
+            startTime = System.nanoTime();
+        }
+
+        void stop() {
+            long latency = System.nanoTime() - startTime;
+            totalAllocated += allocatedBytes() - startAllocated;
+            totalTime += latency;
+            latencies[count++] = latency;
+        }
+
+        void print() {
+            if (count == 0) {
+                System.out.println(name + ": no events");
+                return;
+            }
+
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+
+            StringBuilder builder = new StringBuilder(name).append('\n');
+            builder.append(String.format(Locale.US, "  events:        %d%n", count));
+            builder.append(String.format(Locale.US, "  events/sec:    %.1f%n", count / (totalTime / 1e9)));
+            builder.append(String.format(Locale.US, "  p50 latency:   %.3f ms%n", percentile(sorted, 0.50) / 1e6));
+            builder.append(String.format(Locale.US, "  p99 latency:   %.3f ms%n", percentile(sorted, 0.99) / 1e6));
+            builder.append(String.format(Locale.US, "  max latency:   %.3f ms%n", sorted[sorted.length - 1] / 1e6));
+
+            if (allocationSupported) {
+                builder.append(String.format(Locale.US, "  alloc/event:   %d bytes%n", totalAllocated / count));
+            } else {
+                builder.append("  alloc/event:   unsupported by this JVM\n");
+            }
+
+            System.out.print(builder.toString());
+        }
+
+        private long allocatedBytes() {
+            if (!allocationSupported) {
+                return 0;
+            }
+
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class AutomationDataManagerTest extends BaseTestCase {
 
@@ -39,7 +40,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
     public void testDeleteSchedule() {
         List<ActionScheduleInfo> schedules = createSchedules(20);
 
-        dataManager.insertSchedules(schedules);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<ActionSchedule> retrieved = dataManager.getSchedules();
         assertEquals(20, retrieved.size());
 
@@ -52,7 +53,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
     public void testDeleteSchedulesByTag() {
         List<ActionScheduleInfo> schedules = createSchedules(20);
 
-        dataManager.insertSchedules(schedules);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<ActionSchedule> retrieved = dataManager.getSchedules();
         assertEquals(20, retrieved.size());
 
@@ -64,7 +65,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
     @Test
     public void testDeleteSchedules() {
         List<ActionScheduleInfo> schedules = createSchedules(20);
-        dataManager.insertSchedules(schedules);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<ActionSchedule> retrieved = dataManager.getSchedules();
         assertEquals(20, retrieved.size());
 
@@ -77,7 +78,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
     public void testDeleteSchedulesByList() {
         List<ActionScheduleInfo> schedules = createSchedules(20);
 
-        dataManager.insertSchedules(schedules);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<ActionSchedule> retrieved = dataManager.getSchedules();
         assertEquals(20, retrieved.size());
 
@@ -90,7 +91,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
     public void testGetSchedule() {
         ActionScheduleInfo actionScheduleInfo = createSchedules(1).get(0);
         Trigger trigger = actionScheduleInfo.getTriggers().get(0);
-        dataManager.insertSchedules(Collections.singletonList(actionScheduleInfo));
+        dataManager.insertSchedules(Collections.singletonList(actionScheduleInfo), System.currentTimeMillis());
 
         ActionSchedule retrieved = dataManager.getSchedule(dataManager.getSchedules("group 0").get(0).getId());
         assertEquals(actionScheduleInfo.getGroup(), retrieved.getInfo().getGroup());
@@ -136,7 +137,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
             schedules.add(schedule);
         }
 
-        dataManager.insertSchedules(schedules);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<ActionSchedule> retrieved = dataManager.getSchedules("group");
         assertEquals(20, retrieved.size());
     }
@@ -144,14 +145,23 @@ public class AutomationDataManagerTest extends BaseTestCase {
     @Test
     public void testGetSchedules() {
         List<ActionScheduleInfo> schedules = createSchedules(20);
-        dataManager.insertSchedules(schedules);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<ActionSchedule> retrieved = dataManager.getSchedules();
         assertEquals(20, retrieved.size());
     }
 
+    @Test
+    public void testGetScheduleIds() {
+        dataManager.insertSchedules(createSchedules(20), System.currentTimeMillis());
+
+        String id = dataManager.getSchedules("group 3").get(0).getId();
+        assertEquals(Collections.singleton(id), dataManager.getScheduleIds("group 3"));
+        assertTrue(dataManager.getScheduleIds("not a group").isEmpty());
+    }
+
     @Test
     public void testGetSchedulesWithList() {
-        dataManager.insertSchedules(createSchedules(2));
+        dataManager.insertSchedules(createSchedules(2), System.currentTimeMillis());
         List<ActionSchedule> retrieved = dataManager.getSchedules(new HashSet<>(Arrays.asList(dataManager.getSchedules().get(0).getId(), dataManager.getSchedules().get(1).getId())));
         assertEquals(2, retrieved.size());
     }
@@ -166,9 +176,9 @@ public class AutomationDataManagerTest extends BaseTestCase {
                 .setGroup("group")
                 .setStart(System.currentTimeMillis() + 1000000)
                 .build();
-        dataManager.insertSchedules(Collections.singletonList(futureSchedule));
+        dataManager.insertSchedules(Collections.singletonList(futureSchedule), System.currentTimeMillis());
         List<ActionScheduleInfo> schedules = createSchedules(20);
-        dataManager.insertSchedules(schedules);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<TriggerEntry> retrieved = dataManager.getTriggers(Trigger.LIFE_CYCLE_FOREGROUND);
         assertEquals(20, retrieved.size());
     }
@@ -201,7 +211,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
                                                                         .addTrigger(secondTrigger)
                                                                         .build();
 
-        dataManager.insertSchedules(Arrays.asList(firstActionScheduleInfo, secondActionScheduleInfo));
+        dataManager.insertSchedules(Arrays.asList(firstActionScheduleInfo, secondActionScheduleInfo), System.currentTimeMillis());
         List<ActionSchedule> schedules = dataManager.getSchedules();
         Collections.sort(schedules, new Comparator<ActionSchedule>() {
             @Override
@@ -254,7 +264,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
     public void testInsertSchedule() {
         ActionScheduleInfo actionScheduleInfo = createSchedules(1).get(0);
         Trigger trigger = actionScheduleInfo.getTriggers().get(0);
-        dataManager.insertSchedules(Collections.singletonList(actionScheduleInfo));
+        dataManager.insertSchedules(Collections.singletonList(actionScheduleInfo), System.currentTimeMillis());
 
         List<ActionSchedule> schedules = dataManager.getSchedules();
         assertEquals(1, schedules.size());
@@ -292,7 +302,7 @@ public class AutomationDataManagerTest extends BaseTestCase {
     public void testUpdateLists() {
         List<ActionScheduleInfo> schedules = createSchedules(20);
 
-        List<ActionSchedule> inserted = dataManager.insertSchedules(schedules);
+        List<ActionSchedule> inserted = dataManager.insertSchedules(schedules, System.currentTimeMillis());
         List<String> ids = new ArrayList<>();
         for (ActionSchedule schedule : inserted) {
             ids.add(schedule.getId());
@@ -312,6 +322,116 @@ public class AutomationDataManagerTest extends BaseTestCase {
         assertEquals(0, dataManager.getSchedules().size());
     }
 
+    @Test
+    public void testTimeTriggerDeadlinesStartInPast() {
+        long now = 1000000L;
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(Triggers.newDelayTriggerBuilder().setSeconds(10).build())
+                                                        .setStart(now - 5000)
+                                                        .build();
+
+        dataManager.insertSchedules(Collections.singletonList(schedule), now);
+
+        // Deadlines are based on the supplied time, not the schedule start
+        List<TriggerEntry> triggers = dataManager.getTimeTriggers();
+        assertEquals(1, triggers.size());
+        assertEquals(now + 10000, triggers.get(0).getDeadline());
+    }
+
+    @Test
+    public void testTimeTriggerDeadlines() {
+        long start = System.currentTimeMillis() + 100000;
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(Triggers.newDelayTriggerBuilder().setSeconds(10).build())
+                                                        .addTrigger(Triggers.newDateTriggerBuilder().setDate(start + 5000).build())
+                                                        .addTrigger(Triggers.newForegroundTriggerBuilder().setGoal(1).build())
+                                                        .setStart(start)
+                                                        .setEnd(start + 100000)
+                                                        .build();
+
+        String id = dataManager.insertSchedules(Collections.singletonList(schedule), System.currentTimeMillis()).get(0).getId();
+
+        // Only the time based triggers have deadlines
+        List<TriggerEntry> triggers = dataManager.getTimeTriggers();
+        assertEquals(2, triggers.size());
+        assertEquals(triggers.size(), dataManager.getTimeTriggers(Collections.singleton(id)).size());
+
+        Map<String, Long> deadlines = new HashMap<>();
+        for (TriggerEntry trigger : triggers) {
+            if (trigger.getType() == Trigger.DELAY) {
+                assertEquals(start + 10000, trigger.getDeadline());
+            } else {
+                assertEquals(start + 5000, trigger.getDeadline());
+            }
+
+            deadlines.put(trigger.getId(), -1L);
+        }
+
+        assertEquals(Collections.singletonMap(id, start + 100000), dataManager.getScheduleEnds());
+
+        // Clearing the deadlines stops the timers
+        dataManager.updateTriggerDeadlines(deadlines);
+        assertEquals(0, dataManager.getTimeTriggers().size());
+        assertEquals(2, dataManager.getTriggerEntries(deadlines.keySet()).size());
+    }
+
+    @Test
+    public void testScheduleCount() {
+        assertEquals(0, dataManager.getScheduleCount());
+
+        dataManager.insertSchedules(createSchedules(20), System.currentTimeMillis());
+        assertEquals(20, dataManager.getScheduleCount());
+
+        dataManager.deleteSchedule(dataManager.getSchedules("group 1").get(0).getId());
+        assertEquals(19, dataManager.getScheduleCount());
+
+        dataManager.deleteSchedules("group 2");
+        assertEquals(18, dataManager.getScheduleCount());
+
+        dataManager.bulkDeleteSchedules(Arrays.asList(dataManager.getSchedules("group 3").get(0).getId(), "not a schedule"));
+        assertEquals(17, dataManager.getScheduleCount());
+        assertEquals(17, dataManager.getSchedules().size());
+
+        dataManager.deleteSchedules();
+        assertEquals(0, dataManager.getScheduleCount());
+    }
+
+    @Test
+    public void testDeleteFinishedSchedules() {
+        long now = System.currentTimeMillis();
+
+        ActionScheduleInfo expired = ActionScheduleInfo.newBuilder()
+                                                       .addAction("test_action", JsonValue.wrap("action_value"))
+                                                       .addTrigger(Triggers.newForegroundTriggerBuilder().setGoal(1).build())
+                                                       .setGroup("expired")
+                                                       .setEnd(now - 1000)
+                                                       .build();
+
+        ActionScheduleInfo exhausted = ActionScheduleInfo.newBuilder()
+                                                         .addAction("test_action", JsonValue.wrap("action_value"))
+                                                         .addTrigger(Triggers.newForegroundTriggerBuilder().setGoal(1).build())
+                                                         .setGroup("exhausted")
+                                                         .setLimit(1)
+                                                         .build();
+
+        List<ActionScheduleInfo> schedules = createSchedules(5);
+        schedules.add(expired);
+        schedules.add(exhausted);
+        dataManager.insertSchedules(schedules, System.currentTimeMillis());
+
+        String exhaustedId = dataManager.getSchedules("exhausted").get(0).getId();
+        Map<String, List<String>> updates = new HashMap<>();
+        updates.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, Collections.singletonList(exhaustedId));
+        dataManager.updateLists(updates);
+
+        assertEquals(2, dataManager.deleteFinishedSchedules(now));
+        assertEquals(5, dataManager.getScheduleCount());
+        assertEquals(5, dataManager.getSchedules().size());
+        assertEquals(0, dataManager.deleteFinishedSchedules(now));
+    }
+
     private List<ActionScheduleInfo> createSchedules(int amount) {
         List<ActionScheduleInfo> schedules = new ArrayList<>();
         for (int i = 0; i < amount; i++) {
@@ -9,8 +9,11 @@ import com.urbanairship.BaseTestCase;
 import com.urbanairship.PendingResult;
 import com.urbanairship.TestActivityMonitor;
 import com.urbanairship.TestApplication;
+import com.urbanairship.TestClock;
 import com.urbanairship.UAirship;
 import com.urbanairship.analytics.CustomEvent;
+import com.urbanairship.job.Job;
+import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.location.CircularRegion;
 import com.urbanairship.location.ProximityRegion;
@@ -19,6 +22,8 @@ import com.urbanairship.location.RegionEvent;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
 import org.robolectric.Robolectric;
 import org.robolectric.Shadows;
 
@@ -31,9 +36,15 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anySet;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -47,6 +58,8 @@ public class AutomationTest extends BaseTestCase {
     private AutomationDataManager automationDataManager;
     private Automation automation;
     private TestActivityMonitor activityMonitor;
+    private JobDispatcher jobDispatcher;
+    private TestClock clock;
 
     private Trigger customEventTrigger;
     private ActionScheduleInfo customEventActionSchedule;
@@ -58,7 +71,10 @@ public class AutomationTest extends BaseTestCase {
         activityMonitor.register();
 
         automationDataManager = mock(AutomationDataManager.class);
-        automation = new Automation(UAirship.shared().getAnalytics(), automationDataManager, TestApplication.getApplication().preferenceDataStore, activityMonitor);
+        jobDispatcher = mock(JobDispatcher.class);
+        clock = new TestClock();
+        automation = new Automation(UAirship.shared().getAnalytics(), automationDataManager, TestApplication.getApplication().preferenceDataStore,
+                activityMonitor, jobDispatcher, clock);
         automation.init();
 
         customEventTrigger = Triggers.newCustomEventTriggerBuilder()
@@ -90,7 +106,7 @@ public class AutomationTest extends BaseTestCase {
 
     @Test
     public void testCustomEventMatch() throws Exception {
-        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
         String id  = automation.schedule(customEventActionSchedule).getId();
 
         assertEquals("automation id", id);
@@ -143,7 +159,7 @@ public class AutomationTest extends BaseTestCase {
         Trigger trigger = actionScheduleInfo.getTriggers().get(0);
         TriggerEntry triggerEntry = new TriggerEntry(trigger.getType(), trigger.getGoal(), trigger.getPredicate(), "1", "automation id", 0.0);
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(actionScheduleInfo))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", actionScheduleInfo, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(actionScheduleInfo)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", actionScheduleInfo, 0)));
         automation.schedule(actionScheduleInfo);
 
         when(automationDataManager.getTriggers(Trigger.CUSTOM_EVENT_VALUE)).thenReturn(Collections.singletonList(triggerEntry));
@@ -187,7 +203,7 @@ public class AutomationTest extends BaseTestCase {
         Trigger trigger = actionScheduleInfo.getTriggers().get(0);
         TriggerEntry triggerEntry = new TriggerEntry(trigger.getType(), trigger.getGoal(), trigger.getPredicate(), "1", "automation id", 0.0);
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(actionScheduleInfo))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", actionScheduleInfo, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(actionScheduleInfo)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", actionScheduleInfo, 0)));
         automation.schedule(actionScheduleInfo);
 
         when(automationDataManager.getTriggers(Trigger.REGION_ENTER)).thenReturn(Collections.singletonList(triggerEntry));
@@ -211,7 +227,7 @@ public class AutomationTest extends BaseTestCase {
 
     @Test
     public void testCustomEventNoMatch() throws Exception {
-        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
         String id  = automation.schedule(customEventActionSchedule).getId();
 
         assertEquals("automation id", id);
@@ -235,7 +251,7 @@ public class AutomationTest extends BaseTestCase {
 
     @Test
     public void testCustomEventScheduleFulfillment() throws Exception {
-        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
         String id  = automation.schedule(customEventActionSchedule).getId();
 
         assertEquals("automation id", id);
@@ -261,7 +277,7 @@ public class AutomationTest extends BaseTestCase {
 
     @Test
     public void testCustomEventScheduleLimitReached() throws Exception {
-        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
         String id  = automation.schedule(customEventActionSchedule).getId();
 
         assertEquals("automation id", id);
@@ -287,7 +303,7 @@ public class AutomationTest extends BaseTestCase {
 
     @Test
     public void testCustomEventNoTriggers() throws Exception {
-        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
         String id  = automation.schedule(customEventActionSchedule).getId();
 
         assertEquals("automation id", id);
@@ -319,7 +335,7 @@ public class AutomationTest extends BaseTestCase {
                 .addAction("test_action", JsonValue.wrap("action_value"))
                 .build();
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(schedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
         String id  = automation.schedule(schedule).getId();
         assertEquals("automation id", id);
 
@@ -352,7 +368,7 @@ public class AutomationTest extends BaseTestCase {
                                                         .addAction("test_action", JsonValue.wrap("action_value"))
                                                         .build();
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(schedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
         String id  = automation.schedule(schedule).getId();
         assertEquals("automation id", id);
 
@@ -390,7 +406,7 @@ public class AutomationTest extends BaseTestCase {
                 .build();
 
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(schedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
         String id  = automation.schedule(schedule).getId();
 
         assertEquals("automation id", id);
@@ -424,7 +440,7 @@ public class AutomationTest extends BaseTestCase {
                                                         .build();
 
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(schedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
         String id  = automation.schedule(schedule).getId();
 
         assertEquals("automation id", id);
@@ -462,7 +478,7 @@ public class AutomationTest extends BaseTestCase {
                                                         .build();
 
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(schedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
         String id  = automation.schedule(schedule).getId();
 
         assertEquals("automation id", id);
@@ -497,7 +513,7 @@ public class AutomationTest extends BaseTestCase {
                                                         .setEnd(System.currentTimeMillis() - 100)
                                                         .build();
 
-        when(automationDataManager.insertSchedules(Collections.singletonList(schedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
         String id  = automation.schedule(schedule).getId();
 
         assertEquals("automation id", id);
@@ -520,7 +536,7 @@ public class AutomationTest extends BaseTestCase {
 
     @Test
     public void testScheduleAsync() throws Exception {
-        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
 
         final CountDownLatch latch = new CountDownLatch(1);
         automation.scheduleAsync(customEventActionSchedule, new PendingResult.ResultCallback<ActionSchedule>() {
@@ -534,12 +550,12 @@ public class AutomationTest extends BaseTestCase {
             Shadows.shadowOf(Looper.myLooper()).runToEndOfTasks();
         }
 
-        verify(automationDataManager).insertSchedules(Collections.singletonList(customEventActionSchedule));
+        verify(automationDataManager).insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong());
     }
 
     @Test
     public void testInactivityWithoutSchedules() throws Exception {
-        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(customEventActionSchedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
 
         new CustomEvent.Builder("name")
                 .create()
@@ -558,4 +574,204 @@ public class AutomationTest extends BaseTestCase {
 
         verify(automationDataManager).getTriggers(anyInt());
     }
+
+    @Test
+    public void testDelayTrigger() throws Exception {
+        Trigger trigger = Triggers.newDelayTriggerBuilder()
+                                  .setSeconds(10)
+                                  .build();
+
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(trigger)
+                                                        .setLimit(2)
+                                                        .build();
+
+        long deadline = clock.currentTimeMillis + 10000;
+        TriggerEntry triggerEntry = new TriggerEntry(Trigger.DELAY, 10, null, "1", "automation id", 0.0, deadline);
+
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.getTimeTriggers(anyCollection())).thenReturn(Collections.singletonList(triggerEntry));
+        when(automationDataManager.getTriggerEntries(anyCollection())).thenReturn(Collections.singletonList(triggerEntry));
+        when(automationDataManager.getSchedules(anySet())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+
+        automation.schedule(schedule);
+        Thread.sleep(SLEEP_TIME);
+
+        // Verify the job is scheduled for the deadline
+        verify(jobDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<Job>() {
+            @Override
+            public boolean matches(Object argument) {
+                return ((Job) argument).getAction().equals(Automation.ACTION_PROCESS_TIMERS);
+            }
+        }), eq(10000L), eq(TimeUnit.MILLISECONDS));
+
+        // Not due yet
+        clock.currentTimeMillis += 5000;
+        automation.onPerformJob(UAirship.shared(), Job.newBuilder(Automation.ACTION_PROCESS_TIMERS).build());
+        verify(automationDataManager, never()).getTriggerEntries(anyCollection());
+
+        // Due
+        clock.currentTimeMillis += 5000;
+        automation.onPerformJob(UAirship.shared(), Job.newBuilder(Automation.ACTION_PROCESS_TIMERS).build());
+
+        verify(automationDataManager).updateTriggerDeadlines(Collections.singletonMap("1", -1L));
+
+        updatesMap.remove(AutomationDataManager.TRIGGERS_TO_RESET_QUERY);
+        updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, Collections.singletonList("automation id"));
+        verify(automationDataManager).updateLists(updatesMap);
+    }
+
+    @Test
+    public void testIntervalTrigger() throws Exception {
+        Trigger trigger = Triggers.newIntervalTriggerBuilder()
+                                  .setSeconds(60)
+                                  .build();
+
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(trigger)
+                                                        .setLimit(10)
+                                                        .build();
+
+        long deadline = clock.currentTimeMillis + 60000;
+        TriggerEntry triggerEntry = new TriggerEntry(Trigger.INTERVAL, 60, null, "1", "automation id", 0.0, deadline);
+
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.getTimeTriggers(anyCollection())).thenReturn(Collections.singletonList(triggerEntry));
+        when(automationDataManager.getTriggerEntries(anyCollection())).thenReturn(Collections.singletonList(triggerEntry));
+        when(automationDataManager.getSchedules(anySet())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+
+        automation.schedule(schedule);
+        Thread.sleep(SLEEP_TIME);
+
+        clock.currentTimeMillis += 60000;
+        automation.onPerformJob(UAirship.shared(), Job.newBuilder(Automation.ACTION_PROCESS_TIMERS).build());
+
+        // Verify the trigger is rearmed for the next interval
+        verify(automationDataManager).updateTriggerDeadlines(Collections.singletonMap("1", deadline + 60000));
+
+        // Once for the first deadline and once for the next
+        verify(jobDispatcher, Mockito.times(2)).dispatch(Mockito.argThat(new ArgumentMatcher<Job>() {
+            @Override
+            public boolean matches(Object argument) {
+                return ((Job) argument).getAction().equals(Automation.ACTION_PROCESS_TIMERS);
+            }
+        }), eq(60000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testDeletedScheduleTriggerTimersRemoved() throws Exception {
+        Trigger trigger = Triggers.newIntervalTriggerBuilder()
+                                  .setSeconds(60)
+                                  .build();
+
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(trigger)
+                                                        .setLimit(1)
+                                                        .build();
+
+        long deadline = clock.currentTimeMillis + 60000;
+        TriggerEntry triggerEntry = new TriggerEntry(Trigger.INTERVAL, 60, null, "1", "automation id", 0.0, deadline);
+
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.getTimeTriggers(anyCollection())).thenReturn(Collections.singletonList(triggerEntry));
+        when(automationDataManager.getTriggerEntries(anyCollection())).thenReturn(Collections.singletonList(triggerEntry));
+        when(automationDataManager.getSchedules(anySet())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+
+        automation.schedule(schedule);
+        Thread.sleep(SLEEP_TIME);
+
+        clock.currentTimeMillis += 60000;
+        automation.onPerformJob(UAirship.shared(), Job.newBuilder(Automation.ACTION_PROCESS_TIMERS).build());
+
+        // The schedule hit its limit, verify the rearmed trigger timer is removed with it
+        verify(jobDispatcher).cancel(Automation.ACTION_PROCESS_TIMERS);
+    }
+
+    @Test
+    public void testCancelRemovesTimers() throws Exception {
+        Trigger trigger = Triggers.newDelayTriggerBuilder()
+                                  .setSeconds(10)
+                                  .build();
+
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(trigger)
+                                                        .build();
+
+        TriggerEntry triggerEntry = new TriggerEntry(Trigger.DELAY, 10, null, "1", "automation id", 0.0, clock.currentTimeMillis + 10000);
+
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+        when(automationDataManager.getTimeTriggers(anyCollection())).thenReturn(Collections.singletonList(triggerEntry));
+
+        automation.schedule(schedule);
+        Thread.sleep(SLEEP_TIME);
+
+        automation.cancel("automation id");
+        Thread.sleep(SLEEP_TIME);
+
+        // Verify only the canceled schedule's timers are removed without reloading the rest
+        verify(automationDataManager).deleteSchedule("automation id");
+        verify(automationDataManager, never()).getTimeTriggers();
+        verify(jobDispatcher).cancel(Automation.ACTION_PROCESS_TIMERS);
+    }
+
+    @Test
+    public void testExpiredScheduleRemoved() throws Exception {
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(Triggers.newForegroundTriggerBuilder().setGoal(1).build())
+                                                        .setEnd(clock.currentTimeMillis + 1000)
+                                                        .build();
+
+        when(automationDataManager.insertSchedules(eq(Collections.singletonList(schedule)), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+
+        automation.schedule(schedule);
+        Thread.sleep(SLEEP_TIME);
+
+        clock.currentTimeMillis += 2000;
+        automation.onPerformJob(UAirship.shared(), Job.newBuilder(Automation.ACTION_PROCESS_TIMERS).build());
+
+        // Verify the schedule is deleted without waiting on a trigger
+        verify(automationDataManager).bulkDeleteSchedules(Collections.singletonList("automation id"));
+    }
+
+    @Test
+    public void testScheduleLimit() throws Exception {
+        ActionScheduleInfo schedule = ActionScheduleInfo.newBuilder()
+                                                        .addAction("test_action", JsonValue.wrap("action_value"))
+                                                        .addTrigger(Triggers.newForegroundTriggerBuilder().setGoal(1).build())
+                                                        .build();
+
+        automation.setScheduleLimit(10);
+        when(automationDataManager.getScheduleCount()).thenReturn(10L);
+
+        // Nothing to compact
+        assertNull(automation.schedule(schedule));
+        verify(automationDataManager, never()).insertSchedules(anyList(), anyLong());
+        verify(automationDataManager).deleteFinishedSchedules(clock.currentTimeMillis());
+
+        // Compacting frees up room
+        when(automationDataManager.deleteFinishedSchedules(clock.currentTimeMillis())).thenReturn(1);
+        when(automationDataManager.getScheduleCount()).thenReturn(10L, 9L);
+        when(automationDataManager.insertSchedules(anyList(), anyLong())).thenReturn(Collections.singletonList(new ActionSchedule("automation id", schedule, 0)));
+
+        assertNotNull(automation.schedule(schedule));
+        verify(automationDataManager).insertSchedules(eq(Collections.singletonList(schedule)), anyLong());
+    }
+
+    @Test
+    public void testCompactionJob() {
+        automation.onPerformJob(UAirship.shared(), Job.newBuilder(Automation.ACTION_COMPACT_SCHEDULES).build());
+
+        verify(automationDataManager).deleteFinishedSchedules(clock.currentTimeMillis());
+        verify(jobDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<Job>() {
+            @Override
+            public boolean matches(Object argument) {
+                return ((Job) argument).getAction().equals(Automation.ACTION_COMPACT_SCHEDULES);
+            }
+        }), eq(Automation.COMPACTION_INTERVAL_MS), eq(TimeUnit.MILLISECONDS));
+    }
 }
@@ -0,0 +1,237 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import com.urbanairship.analytics.CustomEvent;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonMatcher;
+import com.urbanairship.json.JsonPredicate;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.json.ValueMatcher;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic schedules and event streams for the automation benchmarks. Everything is generated
+ * from a seed so runs before and after an SDK upgrade replay the same workload.
+ */
+class AutomationWorkload {
+
+    private static final String[] EVENT_NAMES = new String[] { "purchase", "add_to_cart", "view_item", "search", "share", "level_up", "login", "rate_app" };
+    private static final String[] CATEGORIES = new String[] { "shoes", "books", "games", "music", "garden", "toys" };
+    private static final String[] SCREENS = new String[] { "home", "cart", "checkout", "settings", "profile" };
+
+    /**
+     * A single event to replay.
+     */
+    static class Event {
+        final int type;
+        final double value;
+        final JsonValue json;
+
+        Event(int type, double value, JsonValue json) {
+            this.type = type;
+            this.value = value;
+            this.json = json;
+        }
+    }
+
+    private final Random random;
+
+    /**
+     * Creates a workload.
+     *
+     * @param seed The random seed.
+     */
+    AutomationWorkload(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates schedules. Most of the schedules use custom event triggers with multi-matcher
+     * predicates, the rest use screen and lifecycle triggers.
+     *
+     * @param count The number of schedules.
+     * @return The list of schedules.
+     */
+    List<ActionScheduleInfo> generateSchedules(int count) {
+        List<ActionScheduleInfo> schedules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ActionScheduleInfo.Builder builder = ActionScheduleInfo.newBuilder()
+                                                                   .setGroup("campaign " + (i % 50))
+                                                                   .setLimit(Integer.MAX_VALUE)
+                                                                   .addAction("benchmark_action", JsonValue.wrap(i));
+
+            int triggers = 1 + random.nextInt(3);
+            for (int j = 0; j < triggers; j++) {
+                builder.addTrigger(generateTrigger());
+            }
+
+            schedules.add(builder.build());
+        }
+
+        return schedules;
+    }
+
+    /**
+     * Generates a stream of events.
+     *
+     * @param count The number of events.
+     * @return The list of events.
+     */
+    List<Event> generateEvents(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int roll = random.nextInt(10);
+            if (roll < 8) {
+                CustomEvent event = new CustomEvent.Builder(pick(EVENT_NAMES))
+                        .setEventValue(random.nextInt(200))
+                        .addProperty("category", pick(CATEGORIES))
+                        .addProperty("price", random.nextInt(200))
+                        .addProperty("premium", random.nextBoolean())
+                        .create();
+
+                // Value triggers are fed the event value like Automation does for custom events
+                if (roll == 0) {
+                    events.add(new Event(Trigger.CUSTOM_EVENT_VALUE, event.getEventValue().doubleValue(), event.toJsonValue()));
+                } else {
+                    events.add(new Event(Trigger.CUSTOM_EVENT_COUNT, 1, event.toJsonValue()));
+                }
+            } else if (roll == 8) {
+                events.add(new Event(Trigger.SCREEN_VIEW, 1, JsonValue.wrap(pick(SCREENS))));
+            } else {
+                events.add(new Event(random.nextBoolean() ? Trigger.LIFE_CYCLE_FOREGROUND : Trigger.LIFE_CYCLE_BACKGROUND, 1, JsonValue.NULL));
+            }
+        }
+
+        return events;
+    }
+
+    /**
+     * Loads a recorded event stream. The file contains one JSON object per line with a "type"
+     * using the trigger type names ("custom_event_count", "screen", "foreground", ...), an optional
+     * "value" that defaults to 1, and an optional "event" payload.
+     *
+     * @param file The recorded stream.
+     * @return The list of events.
+     * @throws IOException If the file could not be read.
+     * @throws JsonException If a line is not a valid event.
+     */
+    static List<Event> loadEvents(File file) throws IOException, JsonException {
+        List<Event> events = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                JsonMap map = JsonValue.parseString(line).optMap();
+                int type = parseType(map.opt("type").getString(""));
+                double value = map.opt("value").getDouble(1);
+                events.add(new Event(type, value, map.opt("event")));
+            }
+        } finally {
+            reader.close();
+        }
+
+        return events;
+    }
+
+    private Trigger generateTrigger() {
+        int roll = random.nextInt(10);
+        if (roll < 8) {
+            int type = roll == 0 ? Trigger.CUSTOM_EVENT_VALUE : Trigger.CUSTOM_EVENT_COUNT;
+            return new Trigger(type, 1 + random.nextInt(20), generatePredicate());
+        }
+
+        if (roll == 8) {
+            JsonPredicate predicate = JsonPredicate.newBuilder()
+                                                   .setPredicateType(JsonPredicate.OR_PREDICATE_TYPE)
+                                                   .addMatcher(JsonMatcher.newBuilder()
+                                                                          .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap(pick(SCREENS))))
+                                                                          .build())
+                                                   .build();
+            return new Trigger(Trigger.SCREEN_VIEW, 1 + random.nextInt(5), predicate);
+        }
+
+        return random.nextBoolean() ? Triggers.newForegroundTriggerBuilder().setGoal(1 + random.nextInt(5)).build()
+                                    : Triggers.newBackgroundTriggerBuilder().setGoal(1 + random.nextInt(5)).build();
+    }
+
+    /**
+     * Generates a custom event predicate that matches the event name, a category from a set of
+     * alternatives, a price range and an optional flag.
+     */
+    private JsonPredicate generatePredicate() {
+        JsonPredicate.Builder categories = JsonPredicate.newBuilder()
+                                                        .setPredicateType(JsonPredicate.OR_PREDICATE_TYPE);
+
+        int categoryCount = 1 + random.nextInt(3);
+        for (int i = 0; i < categoryCount; i++) {
+            categories.addMatcher(JsonMatcher.newBuilder()
+                                             .setScope(CustomEvent.PROPERTIES)
+                                             .setKey("category")
+                                             .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap(pick(CATEGORIES))))
+                                             .build());
+        }
+
+        double min = random.nextInt(100);
+        JsonPredicate.Builder builder = JsonPredicate.newBuilder()
+                                                     .setPredicateType(JsonPredicate.AND_PREDICATE_TYPE)
+                                                     .addMatcher(JsonMatcher.newBuilder()
+                                                                            .setKey(CustomEvent.EVENT_NAME)
+                                                                            .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap(pick(EVENT_NAMES))))
+                                                                            .build())
+                                                     .addMatcher(JsonMatcher.newBuilder()
+                                                                            .setScope(CustomEvent.PROPERTIES)
+                                                                            .setKey("price")
+                                                                            .setValueMatcher(ValueMatcher.newNumberRangeMatcher(min, min + 100))
+                                                                            .build())
+                                                     .addPredicate(categories.build());
+
+        if (random.nextBoolean()) {
+            builder.addMatcher(JsonMatcher.newBuilder()
+                                          .setScope(CustomEvent.PROPERTIES)
+                                          .setKey("premium")
+                                          .setValueMatcher(ValueMatcher.newIsPresentMatcher())
+                                          .build());
+        }
+
+        return builder.build();
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static int parseType(String type) throws JsonException {
+        switch (type) {
+            case "custom_event_count":
+                return Trigger.CUSTOM_EVENT_COUNT;
+            case "custom_event_value":
+                return Trigger.CUSTOM_EVENT_VALUE;
+            case "foreground":
+                return Trigger.LIFE_CYCLE_FOREGROUND;
+            case "background":
+                return Trigger.LIFE_CYCLE_BACKGROUND;
+            case "screen":
+                return Trigger.SCREEN_VIEW;
+            case "region_enter":
+                return Trigger.REGION_ENTER;
+            case "region_exit":
+                return Trigger.REGION_EXIT;
+            default:
+                throw new JsonException("Invalid event type: " + type);
+        }
+    }
+}
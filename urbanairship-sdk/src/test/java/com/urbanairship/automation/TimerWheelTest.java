@@ -0,0 +1,163 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class TimerWheelTest extends BaseTestCase {
+
+    private static final long START = 1000000000L;
+
+    private TimerWheel<String> timerWheel;
+
+    @Before
+    public void setUp() {
+        timerWheel = new TimerWheel<>(1000, START);
+    }
+
+    /**
+     * Test timers expire once their deadline passes.
+     */
+    @Test
+    public void testAdvance() {
+        timerWheel.add("a", START + 1500, "a");
+        timerWheel.add("b", START + 5000, "b");
+
+        assertTrue(timerWheel.advance(START + 1000).isEmpty());
+        assertEquals(keys(timerWheel.advance(START + 1500)), listOf("a"));
+        assertTrue(timerWheel.advance(START + 4999).isEmpty());
+        assertEquals(keys(timerWheel.advance(START + 5000)), listOf("b"));
+        assertEquals(0, timerWheel.size());
+    }
+
+    /**
+     * Test timers on upper levels cascade down and expire.
+     */
+    @Test
+    public void testCascade() {
+        // Minutes, hours and days out
+        timerWheel.add("minutes", START + 90 * 1000, "minutes");
+        timerWheel.add("hours", START + 3 * 60 * 60 * 1000, "hours");
+        timerWheel.add("days", START + 10L * 24 * 60 * 60 * 1000, "days");
+
+        List<String> expired = new ArrayList<>();
+        for (long time = START; time <= START + 11L * 24 * 60 * 60 * 1000; time += 30 * 1000) {
+            expired.addAll(keys(timerWheel.advance(time)));
+        }
+
+        assertEquals(listOf("minutes", "hours", "days"), expired);
+    }
+
+    /**
+     * Test advancing far past the deadlines expires everything at once.
+     */
+    @Test
+    public void testAdvanceLargeGap() {
+        timerWheel.add("a", START + 1000, "a");
+        timerWheel.add("b", START + 100 * 1000, "b");
+        timerWheel.add("c", START + 1000L * 1000 * 1000, "c");
+
+        assertEquals(2, timerWheel.advance(START + 200 * 1000).size());
+        assertEquals(1, timerWheel.size());
+    }
+
+    /**
+     * Test past deadlines expire on the next advance.
+     */
+    @Test
+    public void testPastDeadline() {
+        timerWheel.add("a", START - 10000, "a");
+        assertEquals(keys(timerWheel.advance(START)), listOf("a"));
+    }
+
+    /**
+     * Test the next deadline is the earliest timer.
+     */
+    @Test
+    public void testNextDeadline() {
+        assertEquals(-1, timerWheel.getNextDeadline());
+
+        timerWheel.add("far", START + 5L * 60 * 60 * 1000, "far");
+        timerWheel.add("near", START + 70 * 1000, "near");
+        timerWheel.add("nearest", START + 2000, "nearest");
+
+        assertEquals(START + 2000, timerWheel.getNextDeadline());
+
+        timerWheel.remove("nearest");
+        assertEquals(START + 70 * 1000, timerWheel.getNextDeadline());
+
+        timerWheel.advance(START + 70 * 1000);
+        assertEquals(START + 5L * 60 * 60 * 1000, timerWheel.getNextDeadline());
+    }
+
+    /**
+     * Test adding a timer with an existing key replaces it.
+     */
+    @Test
+    public void testReplace() {
+        timerWheel.add("a", START + 1000, "a");
+        timerWheel.add("a", START + 60000, "a");
+
+        assertEquals(1, timerWheel.size());
+        assertTrue(timerWheel.advance(START + 1000).isEmpty());
+        assertEquals(START + 60000, timerWheel.getNextDeadline());
+    }
+
+    /**
+     * Test removing timers.
+     */
+    @Test
+    public void testRemove() {
+        timerWheel.add("a", START + 1000, "a");
+
+        assertTrue(timerWheel.remove("a"));
+        assertFalse(timerWheel.remove("a"));
+        assertTrue(timerWheel.advance(START + 1000).isEmpty());
+    }
+
+    /**
+     * Test removing and expiring timers that share a slot leaves the other timers in the slot.
+     */
+    @Test
+    public void testRemoveSharedSlot() {
+        timerWheel.add("a", START + 1100, "a");
+        timerWheel.add("b", START + 1500, "b");
+        timerWheel.add("c", START + 1900, "c");
+        timerWheel.add("d", START + 1200, "d");
+
+        assertTrue(timerWheel.remove("a"));
+        assertEquals(3, timerWheel.size());
+
+        assertEquals(new HashSet<>(listOf("b", "d")), new HashSet<>(keys(timerWheel.advance(START + 1500))));
+        assertTrue(timerWheel.remove("c"));
+        assertEquals(0, timerWheel.size());
+        assertTrue(timerWheel.advance(START + 1900).isEmpty());
+    }
+
+    private static List<String> keys(List<TimerWheel.Timer<String>> timers) {
+        List<String> keys = new ArrayList<>();
+        for (TimerWheel.Timer<String> timer : timers) {
+            keys.add(timer.key);
+        }
+        return keys;
+    }
+
+    private static List<String> listOf(String... values) {
+        List<String> list = new ArrayList<>();
+        for (String value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -15,6 +15,8 @@ import com.urbanairship.json.ValueMatcher;
 import org.junit.Test;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 public class TriggerTest extends BaseTestCase {
 
@@ -89,4 +91,52 @@ public class TriggerTest extends BaseTestCase {
 
         Trigger.parseJson(triggerJson.toJsonValue());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test parsing time based trigger JSON.
+     */
+    @Test
+    public void testParseTimeTriggers() throws JsonException {
+        Trigger delay = Trigger.parseJson(JsonMap.newBuilder()
+                                                 .put("type", "delay")
+                                                 .put("goal", 30)
+                                                 .build()
+                                                 .toJsonValue());
+
+        assertEquals(Trigger.DELAY, delay.getType());
+        assertEquals(30.0, delay.getGoal());
+        assertTrue(delay.isTimeBased());
+
+        Trigger interval = Trigger.parseJson(JsonMap.newBuilder()
+                                                    .put("type", "interval")
+                                                    .put("goal", 3600)
+                                                    .build()
+                                                    .toJsonValue());
+
+        assertEquals(Trigger.INTERVAL, interval.getType());
+        assertEquals(3600.0, interval.getGoal());
+
+        Trigger date = Trigger.parseJson(JsonMap.newBuilder()
+                                                .put("type", "date")
+                                                .put("date", "2016-01-01T00:00:00")
+                                                .build()
+                                                .toJsonValue());
+
+        assertEquals(Trigger.DATE, date.getType());
+        assertEquals(1451606400000.0, date.getGoal());
+        assertFalse(Triggers.newForegroundTriggerBuilder().build().isTimeBased());
+    }
+
+    /**
+     * Test parsing an interval trigger without an interval throws a JsonException.
+     */
+    @Test(expected = JsonException.class)
+    public void testParseInvalidInterval() throws JsonException {
+        JsonMap triggerJson = JsonMap.newBuilder()
+                                     .put("type", "interval")
+                                     .put("goal", 0)
+                                     .build();
+
+        Trigger.parseJson(triggerJson.toJsonValue());
+    }
+}
@@ -0,0 +1,73 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.js;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class HostTrieTest extends BaseTestCase {
+
+    HostTrie<String> trie;
+
+    @Before
+    public void setup() {
+        trie = new HostTrie<>();
+    }
+
+    /**
+     * Test exact hosts only match the same host.
+     */
+    @Test
+    public void testExactHost() {
+        trie.addExact("www.urbanairship.com", "exact");
+
+        assertEquals(Collections.singletonList("exact"), match("www.urbanairship.com"));
+        assertTrue(match("urbanairship.com").isEmpty());
+        assertTrue(match("what.www.urbanairship.com").isEmpty());
+        assertTrue(match("www.urbanairship.com.hackers.io").isEmpty());
+    }
+
+    /**
+     * Test wild card domains match the domain and any subdomain.
+     */
+    @Test
+    public void testWildcardHost() {
+        trie.addWildcard("urbanairship.com", "wildcard");
+
+        assertEquals(Collections.singletonList("wildcard"), match("urbanairship.com"));
+        assertEquals(Collections.singletonList("wildcard"), match("www.urbanairship.com"));
+        assertEquals(Collections.singletonList("wildcard"), match("a.b.c.urbanairship.com"));
+        assertTrue(match("lololurbanairship.com").isEmpty());
+        assertTrue(match("com").isEmpty());
+    }
+
+    /**
+     * Test a lookup collects both wild card and exact values along the host.
+     */
+    @Test
+    public void testMixedHosts() {
+        trie.addWildcard("urbanairship.com", "wildcard");
+        trie.addExact("www.urbanairship.com", "exact");
+        trie.addExact("urbanairship.com", "root");
+
+        assertEquals(Arrays.asList("wildcard", "exact"), match("www.urbanairship.com"));
+        assertEquals(Arrays.asList("wildcard", "root"), match("urbanairship.com"));
+        assertEquals(Collections.singletonList("wildcard"), match("dl.urbanairship.com"));
+    }
+
+    private List<String> match(String host) {
+        List<String> results = new ArrayList<>();
+        trie.match(host, results);
+        return results;
+    }
+}
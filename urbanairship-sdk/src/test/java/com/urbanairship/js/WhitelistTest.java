@@ -268,6 +268,47 @@ public class WhitelistTest extends BaseTestCase {
         assertTrue(whitelist.isWhitelisted("https://what.urbanairship.com/anythingHTML/foo/bar/index.html"));
         assertTrue(whitelist.isWhitelisted("https://urbanairship.com/what/index.html"));
     }
-}
 
+    /**
+     * Test cached decisions are cleared when an entry is added.
+     */
+    @Test
+    public void testAddEntryClearsCachedDecisions() {
+        assertFalse(whitelist.isWhitelisted("https://www.urbanairship.com/index.html"));
+
+        assertTrue(whitelist.addEntry("https://www.urbanairship.com"));
+
+        assertTrue(whitelist.isWhitelisted("https://www.urbanairship.com/index.html"));
+    }
+
+    /**
+     * Test wild card subdomains match deeply nested subdomains.
+     */
+    @Test
+    public void testHostWildCardNestedSubDomain() {
+        assertTrue(whitelist.addEntry("https://*.urbanairship.com/*"));
+
+        // Accept
+        assertTrue(whitelist.isWhitelisted("https://a.b.c.urbanairship.com/index.html"));
 
+        // Reject
+        assertFalse(whitelist.isWhitelisted("http://a.b.c.urbanairship.com/index.html"));
+        assertFalse(whitelist.isWhitelisted("https://urbanairship.com.hackers.io/index.html"));
+    }
+
+    /**
+     * Test wild cards in the middle of a path.
+     */
+    @Test
+    public void testPathInnerWildCard() {
+        assertTrue(whitelist.addEntry("https://urbanairship.com/foo/*/index.html"));
+
+        // Accept
+        assertTrue(whitelist.isWhitelisted("https://urbanairship.com/foo/bar/index.html"));
+        assertTrue(whitelist.isWhitelisted("https://urbanairship.com/foo/bar/baz/index.html"));
+
+        // Reject
+        assertFalse(whitelist.isWhitelisted("https://urbanairship.com/foo/bar/test.html"));
+        assertFalse(whitelist.isWhitelisted("https://urbanairship.com/bar/foo/index.html"));
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -349,6 +350,33 @@ public class JsonValueTest extends BaseTestCase {
         assertEquals(JsonValue.wrap(jsonArray), JsonValue.parseString(jsonArray.toString()));
     }
 
+    /**
+     * Test parsing JSON from a reader produces the same JsonValue as parsing the string.
+     */
+    @Test
+    public void testParseReader() throws JsonException, JSONException {
+        assertEquals(JsonValue.wrap("Hello"), JsonValue.parseReader(new StringReader("\"Hello\"")));
+        assertEquals(JsonValue.wrap(1), JsonValue.parseReader(new StringReader("1")));
+        assertEquals(JsonValue.wrap(true), JsonValue.parseReader(new StringReader("true")));
+        assertEquals(JsonValue.wrap(Long.MAX_VALUE), JsonValue.parseReader(new StringReader(String.valueOf(Long.MAX_VALUE))));
+        assertEquals(JsonValue.wrap(1.4), JsonValue.parseReader(new StringReader(String.valueOf(1.4))));
+        assertEquals(JsonValue.NULL, JsonValue.parseReader(new StringReader("null")));
+        assertEquals(JsonValue.NULL, JsonValue.parseReader(new StringReader("")));
+
+        JSONObject json = new JSONObject(primitiveMap);
+        json.put("map", new JSONObject(primitiveMap));
+        json.put("collection", new JSONArray(primitiveList));
+        assertEquals(JsonValue.parseString(json.toString()), JsonValue.parseReader(new StringReader(json.toString())));
+    }
+
+    /**
+     * Test parsing invalid JSON from a reader throws a JsonException.
+     */
+    @Test(expected = JsonException.class)
+    public void testParseReaderInvalid() throws JsonException {
+        JsonValue.parseReader(new StringReader("{\"key\": "));
+    }
+
 
     /**
      * Test trying to wrap Double.NaN throws an exception.
@@ -0,0 +1,83 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.graphics.Bitmap;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class ImageDiskCacheTest extends BaseTestCase {
+
+    private File directory;
+    private Bitmap bitmap;
+
+    @Before
+    public void setup() {
+        directory = new File(RuntimeEnvironment.application.getCacheDir(), "image-disk-cache-test");
+        bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Test storing and getting a cached image.
+     */
+    @Test
+    public void testPutGet() {
+        ImageDiskCache cache = new ImageDiskCache(directory, 1024 * 1024);
+        assertNull(cache.get("http://example.com/image.png,size(10x10)"));
+
+        assertTrue(cache.put("http://example.com/image.png,size(10x10)", bitmap));
+
+        File file = cache.get("http://example.com/image.png,size(10x10)");
+        assertNotNull(file);
+        assertTrue(file.exists());
+
+        // Different size is a different entry
+        assertNull(cache.get("http://example.com/image.png,size(20x20)"));
+    }
+
+    /**
+     * Test the least recently used files are removed when the cache grows past its max size.
+     */
+    @Test
+    public void testTrim() {
+        ImageDiskCache cache = new ImageDiskCache(directory, 1024 * 1024);
+        assertTrue(cache.put("first", bitmap));
+        long entrySize = cache.getSize();
+        assertTrue(entrySize > 0);
+
+        ImageDiskCache smallCache = new ImageDiskCache(directory, entrySize);
+        assertTrue(new File(directory, directory.list()[0]).setLastModified(System.currentTimeMillis() - 10000));
+        assertTrue(smallCache.put("second", bitmap));
+
+        assertNull(smallCache.get("first"));
+        assertNotNull(smallCache.get("second"));
+        assertEquals(entrySize, smallCache.getSize());
+    }
+
+    /**
+     * Test clearing the cache removes all the files.
+     */
+    @Test
+    public void testClear() {
+        ImageDiskCache cache = new ImageDiskCache(directory, 1024 * 1024);
+        cache.put("first", bitmap);
+        cache.put("second", bitmap);
+
+        cache.clear();
+
+        assertNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertEquals(0, cache.getSize());
+    }
+}
@@ -0,0 +1,83 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class MessageListDiffTest extends BaseTestCase {
+
+    /**
+     * Test marking a message read only changes its row.
+     */
+    @Test
+    public void testChanged() {
+        List<MessageListDiff.Item> oldItems = Arrays.asList(item("a", false), item("b", false), item("c", false));
+        List<MessageListDiff.Item> newItems = Arrays.asList(item("a", false), item("b", true), item("c", false));
+
+        MessageListDiff diff = MessageListDiff.calculate(oldItems, newItems);
+
+        assertFalse(diff.isStructuralChange());
+        assertEquals(Collections.singletonList(1), diff.getChanged());
+        assertTrue(diff.getInserted().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+    }
+
+    /**
+     * Test inserted and removed messages.
+     */
+    @Test
+    public void testInsertedAndRemoved() {
+        List<MessageListDiff.Item> oldItems = Arrays.asList(item("a", false), item("b", false), item("c", false));
+        List<MessageListDiff.Item> newItems = Arrays.asList(item("d", false), item("a", false), item("c", true));
+
+        MessageListDiff diff = MessageListDiff.calculate(oldItems, newItems);
+
+        assertTrue(diff.isStructuralChange());
+        assertEquals(Collections.singletonList(0), diff.getInserted());
+        assertEquals(Collections.singletonList(1), diff.getRemoved());
+        assertEquals(Collections.singletonList(2), diff.getChanged());
+    }
+
+    /**
+     * Test reordered messages are a structural change.
+     */
+    @Test
+    public void testMoved() {
+        List<MessageListDiff.Item> oldItems = Arrays.asList(item("a", false), item("b", false));
+        List<MessageListDiff.Item> newItems = Arrays.asList(item("b", false), item("a", false));
+
+        MessageListDiff diff = MessageListDiff.calculate(oldItems, newItems);
+
+        assertTrue(diff.isStructuralChange());
+        assertTrue(diff.getInserted().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getChanged().isEmpty());
+    }
+
+    /**
+     * Test identical snapshots have no changes.
+     */
+    @Test
+    public void testNoChanges() {
+        List<MessageListDiff.Item> items = Arrays.asList(item("a", false), item("b", true));
+
+        MessageListDiff diff = MessageListDiff.calculate(items, Arrays.asList(item("a", false), item("b", true)));
+
+        assertFalse(diff.isStructuralChange());
+        assertTrue(diff.getChanged().isEmpty());
+    }
+
+    private static MessageListDiff.Item item(String messageId, boolean read) {
+        return new MessageListDiff.Item(messageId, read, "title", 1000, null);
+    }
+}
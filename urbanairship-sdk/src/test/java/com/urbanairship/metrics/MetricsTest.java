@@ -0,0 +1,106 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.metrics;
+
+import android.support.annotation.NonNull;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class MetricsTest extends BaseTestCase {
+
+    @Before
+    public void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setListener(null);
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    /**
+     * Test counters and histograms aggregate the recorded values.
+     */
+    @Test
+    public void testRecord() {
+        Metrics.increment("counter", 2);
+        Metrics.increment("counter", 3);
+
+        for (int i = 1; i <= 100; i++) {
+            Metrics.record("histogram", i);
+        }
+
+        assertEquals(5L, (long) Metrics.getCounters().get("counter"));
+
+        Histogram histogram = Metrics.getHistograms().get("histogram");
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean());
+
+        // Percentiles are bucket upper bounds
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(100));
+    }
+
+    /**
+     * Test nothing is recorded when metrics are disabled.
+     */
+    @Test
+    public void testDisabled() {
+        Metrics.setEnabled(false);
+
+        Metrics.increment("counter", 1);
+        Metrics.record("histogram", 1);
+        assertEquals(0, Metrics.startSpan("span").end());
+
+        assertNull(Metrics.getCounters().get("counter"));
+        assertTrue(Metrics.getHistograms().isEmpty());
+    }
+
+    /**
+     * Test the listener is notified of counters and span durations.
+     */
+    @Test
+    public void testListener() {
+        Metrics.setEnabled(false);
+
+        final List<String> recorded = new ArrayList<>();
+        Metrics.setListener(new MetricsListener() {
+            @Override
+            public void onCounterIncremented(@NonNull String name, long delta) {
+                recorded.add(name + ":" + delta);
+            }
+
+            @Override
+            public void onValueRecorded(@NonNull String name, long value) {
+                recorded.add(name);
+            }
+        });
+
+        // Setting a listener enables metrics
+        assertTrue(Metrics.isEnabled());
+
+        Metrics.increment(Metrics.EVENTS_ADDED, 1);
+        Metrics.startSpan(Metrics.ACTION_RUN, "test_action").end();
+
+        assertEquals(2, recorded.size());
+        assertEquals(Metrics.EVENTS_ADDED + ":1", recorded.get(0));
+        assertEquals(Metrics.ACTION_RUN + "test_action", recorded.get(1));
+        assertEquals(1, Metrics.getHistograms().get(Metrics.ACTION_RUN + "test_action").getCount());
+    }
+}
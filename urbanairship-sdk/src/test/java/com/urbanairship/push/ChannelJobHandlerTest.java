@@ -27,8 +27,8 @@ import java.net.URL;
 import java.util.Collections;
 import java.util.HashSet;
 
-import static junit.framework.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
@@ -48,6 +48,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
     private PushManager pushManager;
     private ChannelApiClient client;
     private ChannelJobHandler jobHandler;
+    private TagGroupRegistrar tagGroupRegistrar;
     private RichPushInbox richPushInbox;
     private RichPushUser richPushUser;
     private JobDispatcher mockDispatcher;
@@ -67,8 +68,9 @@ public class ChannelJobHandlerTest extends BaseTestCase {
 
 
         // Extend it to make handleIntent public so we can call it directly
+        tagGroupRegistrar = new TagGroupRegistrar(dataStore, client, mock(NamedUserApiClient.class));
         jobHandler = new ChannelJobHandler(TestApplication.getApplication(), UAirship.shared(),
-                TestApplication.getApplication().preferenceDataStore, mockDispatcher, client);
+                TestApplication.getApplication().preferenceDataStore, mockDispatcher, client, tagGroupRegistrar);
     }
 
     /**
@@ -261,6 +263,33 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         assertNotSame("Last registration time should be updated", dataStore.getLong("com.urbanairship.push.LAST_REGISTRATION_TIME", 0), lastRegistrationTime);
     }
 
+    /**
+     * Test an unchanged payload completes the registration journal without updating the channel.
+     */
+    @Test
+    public void testUpdateChannelUpToDate() {
+        pushManager.setChannel(fakeChannelId, fakeChannelLocation);
+        pushManager.setAlias("someAlias");
+
+        // Last registration from a previous process
+        ChannelRegistrationPayload payload = pushManager.getNextChannelRegistrationPayload();
+        dataStore.put("com.urbanairship.push.LAST_REGISTRATION_PAYLOAD", payload.toString());
+        dataStore.put("com.urbanairship.push.LAST_REGISTRATION_TIME", System.currentTimeMillis());
+
+        ChannelRegistrationJournal journal = pushManager.getRegistrationJournal();
+        assertNull(journal.startPayload());
+
+        Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_CHANNEL_REGISTRATION).build();
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+
+        verifyZeroInteractions(client);
+
+        // Next payload builds on the last one
+        assertEquals(payload, journal.startPayload());
+        assertFalse(journal.hasChanged(ChannelRegistrationPayload.ALIAS_KEY));
+        assertEquals(payload, pushManager.getNextChannelRegistrationPayload());
+    }
+
     /**
      * Test updating channel returns a 409 recreates the channel.
      */
@@ -310,7 +339,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         Assert.assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
         // Verify pending tags are saved
-        assertEquals(mutations, dataStore.getJsonValue(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY));
+        assertEquals(Collections.singletonList(mutation), tagGroupRegistrar.getMutations(TagGroupRegistrar.CHANNEL));
     }
 
     /**
@@ -372,7 +401,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         Mockito.verify(client).updateTagGroups(fakeChannelId, mutation);
 
         // Verify pending tag groups are empty
-        assertNull(dataStore.getString(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(0, tagGroupRegistrar.getMutations(TagGroupRegistrar.CHANNEL).size());
     }
 
     /**
@@ -433,7 +462,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         Mockito.verify(client).updateTagGroups(fakeChannelId, mutation);
 
         // Verify pending tags persist
-        assertNotNull(dataStore.getString(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(1, tagGroupRegistrar.getMutations(TagGroupRegistrar.CHANNEL).size());
     }
 
     /**
@@ -445,7 +474,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         pushManager.setChannel(fakeChannelId, fakeChannelLocation);
 
         // Clear pending changes
-        dataStore.remove(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY);
+        tagGroupRegistrar.clearMutations(TagGroupRegistrar.CHANNEL);
 
         // Perform the update
         Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS).build();
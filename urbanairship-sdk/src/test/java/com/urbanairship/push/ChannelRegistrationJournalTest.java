@@ -0,0 +1,89 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class ChannelRegistrationJournalTest extends BaseTestCase {
+
+    private ChannelRegistrationJournal journal;
+    private ChannelRegistrationPayload payload;
+
+    @Before
+    public void setUp() {
+        journal = new ChannelRegistrationJournal();
+        payload = new ChannelRegistrationPayload.Builder()
+                .setAlias("alias")
+                .setDeviceType("android")
+                .build();
+    }
+
+    /**
+     * Test every field is read until the first registration succeeds.
+     */
+    @Test
+    public void testIncompleteJournal() {
+        journal.setLastPayload(payload);
+
+        assertNull(journal.startPayload());
+        assertTrue(journal.hasChanged(ChannelRegistrationPayload.ALIAS_KEY));
+        assertTrue(journal.hasChanged(ChannelRegistrationPayload.TAGS_KEY));
+    }
+
+    /**
+     * Test only the changed fields are read after a registration succeeds.
+     */
+    @Test
+    public void testPreferenceChanges() {
+        journal.startPayload();
+        journal.onRegistrationSucceeded(payload);
+
+        assertSame(payload, journal.startPayload());
+        assertFalse(journal.hasChanged(ChannelRegistrationPayload.ALIAS_KEY));
+
+        journal.onPreferenceChange(PushManager.ALIAS_KEY);
+        journal.onPreferenceChange(PushManager.REGISTRATION_TOKEN_KEY);
+        journal.onPreferenceChange("some.other.key");
+
+        assertTrue(journal.hasChanged(ChannelRegistrationPayload.ALIAS_KEY));
+        assertTrue(journal.hasChanged(ChannelRegistrationPayload.PUSH_ADDRESS_KEY));
+        assertFalse(journal.hasChanged(ChannelRegistrationPayload.TAGS_KEY));
+        assertFalse(journal.hasChanged(ChannelRegistrationPayload.APID_KEY));
+    }
+
+    /**
+     * Test changes recorded while a payload is being registered are kept.
+     */
+    @Test
+    public void testChangeDuringRegistration() {
+        journal.startPayload();
+        journal.onRegistrationSucceeded(payload);
+
+        journal.recordChange(ChannelRegistrationPayload.ALIAS_KEY);
+        journal.startPayload();
+        journal.recordChange(ChannelRegistrationPayload.TAGS_KEY);
+        journal.onRegistrationSucceeded(payload);
+
+        assertFalse(journal.hasChanged(ChannelRegistrationPayload.ALIAS_KEY));
+        assertTrue(journal.hasChanged(ChannelRegistrationPayload.TAGS_KEY));
+    }
+
+    /**
+     * Test the payload copy keeps its fields and JSON.
+     */
+    @Test
+    public void testPayloadCopy() {
+        ChannelRegistrationPayload copy = new ChannelRegistrationPayload.Builder(payload).build();
+        assertEquals(payload, copy);
+        assertEquals(payload.toString(), copy.toString());
+    }
+}
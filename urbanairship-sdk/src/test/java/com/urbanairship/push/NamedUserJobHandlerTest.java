@@ -29,7 +29,6 @@ import java.util.HashSet;
 import java.util.UUID;
 
 import static junit.framework.Assert.assertEquals;
-import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.assertNotEquals;
 import static org.mockito.Mockito.mock;
@@ -45,6 +44,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
     private PushManager pushManager;
     private PreferenceDataStore dataStore;
     private NamedUserJobHandler jobHandler;
+    private TagGroupRegistrar tagGroupRegistrar;
 
     private String changeToken;
     private JobDispatcher mockDispatcher;
@@ -69,7 +69,8 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
             }
         });
 
-        jobHandler = new NamedUserJobHandler(UAirship.shared(), dataStore, mockDispatcher, namedUserClient);
+        tagGroupRegistrar = new TagGroupRegistrar(dataStore, mock(ChannelApiClient.class), namedUserClient);
+        jobHandler = new NamedUserJobHandler(UAirship.shared(), dataStore, mockDispatcher, namedUserClient, tagGroupRegistrar);
 
         Shadows.shadowOf(RuntimeEnvironment.application).clearStartedServices();
     }
@@ -290,7 +291,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Assert.assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
         // Verify pending tags are saved
-        assertEquals(mutations, dataStore.getJsonValue(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY));
+        assertEquals(Collections.singletonList(mutation), tagGroupRegistrar.getMutations(TagGroupRegistrar.NAMED_USER));
     }
 
     /**
@@ -316,7 +317,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
             @Override
             public boolean matches(Object argument) {
                 Job job = (Job) argument;
-                return job.getAction().equals(NamedUserJobHandler.ACTION_UPDATE_TAG_GROUPS);
+                return job.getAction().equals(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS);
             }
         }));
     }
@@ -352,7 +353,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Mockito.verify(namedUserClient).updateTagGroups("namedUserId", mutation);
 
         // Verify pending tag groups are empty
-        assertNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(0, tagGroupRegistrar.getMutations(TagGroupRegistrar.NAMED_USER).size());
     }
 
     /**
@@ -413,7 +414,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Mockito.verify(namedUserClient).updateTagGroups("namedUserId", mutation);
 
         // Verify pending tags persist
-        assertNotNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(1, tagGroupRegistrar.getMutations(TagGroupRegistrar.NAMED_USER).size());
     }
 
     /**
@@ -425,7 +426,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         when(namedUser.getId()).thenReturn("namedUserId");
 
         // Clear pending changes
-        dataStore.remove(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY);
+        tagGroupRegistrar.clearMutations(TagGroupRegistrar.NAMED_USER);
 
         // Perform the update
         Job job = Job.newBuilder(NamedUserJobHandler.ACTION_UPDATE_TAG_GROUPS).build();
@@ -467,7 +468,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Mockito.verify(namedUserClient).updateTagGroups("namedUserId", mutation);
 
         // Verify pending tag groups are empty
-        assertNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(0, tagGroupRegistrar.getMutations(TagGroupRegistrar.NAMED_USER).size());
     }
 
     /**
@@ -479,6 +480,8 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         dataStore.put(NamedUserJobHandler.PENDING_ADD_TAG_GROUPS_KEY, "");
         dataStore.put(NamedUserJobHandler.PENDING_REMOVE_TAG_GROUPS_KEY, "");
         dataStore.put(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, "");
+        tagGroupRegistrar.addMutations(TagGroupRegistrar.NAMED_USER, Collections.singletonList(
+                TagGroupsMutation.newAddTagsMutation("test", new HashSet<>(Lists.newArrayList("tag1")))));
 
         // Perform the update
         Job job = Job.newBuilder(NamedUserJobHandler.ACTION_CLEAR_PENDING_NAMED_USER_TAGS).build();
@@ -488,5 +491,6 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         assertNull(dataStore.getString(NamedUserJobHandler.PENDING_ADD_TAG_GROUPS_KEY, null));
         assertNull(dataStore.getString(NamedUserJobHandler.PENDING_REMOVE_TAG_GROUPS_KEY, null));
         assertNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(0, tagGroupRegistrar.getMutations(TagGroupRegistrar.NAMED_USER).size());
     }
 }
@@ -148,7 +148,7 @@ public class NamedUserTest extends BaseTestCase {
             @Override
             public boolean matches(Object argument) {
                 Job job = (Job) argument;
-                return job.getAction().equals(NamedUserJobHandler.ACTION_UPDATE_TAG_GROUPS);
+                return job.getAction().equals(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS);
             }
         }));
     }
@@ -261,7 +261,7 @@ public class NamedUserTest extends BaseTestCase {
             @Override
             public boolean matches(Object argument) {
                 Job job = (Job) argument;
-                return job.getAction().equals(NamedUserJobHandler.ACTION_UPDATE_TAG_GROUPS);
+                return job.getAction().equals(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS);
             }
         }));
     }
@@ -14,6 +14,12 @@ import android.support.v4.app.NotificationManagerCompat;
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.TestApplication;
 import com.urbanairship.UAirship;
+import com.urbanairship.actions.Action;
+import com.urbanairship.actions.ActionArguments;
+import com.urbanairship.actions.ActionCompletionCallback;
+import com.urbanairship.actions.ActionDispatcher;
+import com.urbanairship.actions.ActionResult;
+import com.urbanairship.actions.ActionValue;
 import com.urbanairship.analytics.Analytics;
 import com.urbanairship.analytics.PushArrivedEvent;
 import com.urbanairship.job.Job;
@@ -22,6 +28,7 @@ import com.urbanairship.push.notifications.NotificationFactory;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -31,6 +38,7 @@ import org.robolectric.shadows.ShadowApplication;
 import org.robolectric.shadows.ShadowPendingIntent;
 
 import java.util.List;
+import java.util.Map;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
@@ -38,6 +46,9 @@ import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -56,6 +67,8 @@ public class PushJobHandlerTest extends BaseTestCase {
     private Notification notification;
     private NotificationFactory notificationFactory;
 
+    private ActionDispatcher actionDispatcher;
+
     private PushJobHandler jobHandler;
 
     @Before
@@ -102,8 +115,64 @@ public class PushJobHandlerTest extends BaseTestCase {
         TestApplication.getApplication().setPushManager(pushManager);
         TestApplication.getApplication().setAnalytics(analytics);
 
+        // Finish every dispatched action right away
+        actionDispatcher = mock(ActionDispatcher.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Map<String, ActionValue> actions = (Map<String, ActionValue>) invocation.getArguments()[0];
+                ActionCompletionCallback callback = (ActionCompletionCallback) invocation.getArguments()[3];
+                for (ActionValue value : actions.values()) {
+                    callback.onFinish(new ActionArguments(Action.SITUATION_PUSH_RECEIVED, value, null), ActionResult.newEmptyResult());
+                }
+                return null;
+            }
+        }).when(actionDispatcher).dispatch(any(Map.class), anyInt(), any(Bundle.class), any(ActionCompletionCallback.class));
+
         jobHandler = new PushJobHandler(TestApplication.getApplication(), UAirship.shared(),
-                TestApplication.getApplication().preferenceDataStore, notificationManager);
+                TestApplication.getApplication().preferenceDataStore, notificationManager, actionDispatcher);
+    }
+
+    /**
+     * Test the push actions are dispatched with the push received situation and the push metadata.
+     */
+    @Test
+    public void testDeliverPushActions() {
+        when(pushManager.isPushEnabled()).thenReturn(true);
+        when(pushManager.getUserNotificationsEnabled()).thenReturn(true);
+
+        pushBundle.putString(PushMessage.EXTRA_ACTIONS, "{ \"action_name\": \"action_value\", \"other_action\": 1 }");
+
+        Job job = Job.newBuilder(PushJobHandler.ACTION_RECEIVE_GCM_MESSAGE).setExtras(pushBundle).build();
+        assertEquals(Job.JOB_PENDING, jobHandler.performJob(job));
+
+        // The mock dispatcher finishes the actions right away, which finishes the job
+        assertTrue(job.isFinished());
+
+        ArgumentCaptor<Map> actionsCaptor = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Bundle> metadataCaptor = ArgumentCaptor.forClass(Bundle.class);
+        verify(actionDispatcher).dispatch(actionsCaptor.capture(), eq(Action.SITUATION_PUSH_RECEIVED), metadataCaptor.capture(), any(ActionCompletionCallback.class));
+
+        Map actions = actionsCaptor.getValue();
+        assertEquals(2, actions.size());
+        assertEquals("action_value", ((ActionValue) actions.get("action_name")).getString());
+
+        PushMessage metadataMessage = metadataCaptor.getValue().getParcelable(ActionArguments.PUSH_MESSAGE_METADATA);
+        assertEquals("testSendID", metadataMessage.getSendId());
+    }
+
+    /**
+     * Test a push without actions finishes the job right away.
+     */
+    @Test
+    public void testPushWithoutActionsFinishesJob() {
+        when(pushManager.isPushEnabled()).thenReturn(true);
+        when(pushManager.getUserNotificationsEnabled()).thenReturn(true);
+
+        Job job = Job.newBuilder(PushJobHandler.ACTION_RECEIVE_GCM_MESSAGE).setExtras(pushBundle).build();
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+
+        verify(actionDispatcher, Mockito.never()).dispatch(any(Map.class), anyInt(), any(Bundle.class), any(ActionCompletionCallback.class));
     }
 
     /**
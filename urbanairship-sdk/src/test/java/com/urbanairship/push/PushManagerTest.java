@@ -14,6 +14,7 @@ import com.urbanairship.analytics.Analytics;
 import com.urbanairship.analytics.Event;
 import com.urbanairship.job.Job;
 import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.json.JsonValue;
 import com.urbanairship.push.notifications.DefaultNotificationFactory;
 import com.urbanairship.push.notifications.NotificationActionButtonGroup;
 
@@ -26,7 +27,9 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -34,7 +37,9 @@ import java.util.Set;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.atLeastOnce;
@@ -1033,4 +1038,35 @@ public class PushManagerTest extends BaseTestCase {
         assertEquals("admIdToken", preferenceDataStore.getString(PushManager.REGISTRATION_TOKEN_KEY, null));
         assertTrue(preferenceDataStore.getBoolean(PushManager.REGISTRATION_TOKEN_MIGRATED_KEY, false));
     }
+
+    /**
+     * Test the push settings snapshot is reused until one of its preferences changes.
+     */
+    @Test
+    public void testPushSettingsSnapshot() {
+        pushManager.setSoundEnabled(true);
+        PushSettings settings = pushManager.getPushSettings();
+        assertTrue(settings.isSoundEnabled());
+        assertSame(settings, pushManager.getPushSettings());
+
+        // Unrelated preference
+        preferenceDataStore.put(PushManager.LAST_RECEIVED_METADATA, "metadata");
+        assertSame(settings, pushManager.getPushSettings());
+
+        pushManager.setSoundEnabled(false);
+        assertNotSame(settings, pushManager.getPushSettings());
+        assertFalse(pushManager.getPushSettings().isSoundEnabled());
+        assertTrue(settings.isSoundEnabled());
+    }
+
+    /**
+     * Test tags that were stored without being normalized are repaired when read.
+     */
+    @Test
+    public void testPushSettingsNormalizesStoredTags() {
+        preferenceDataStore.put(PushManager.TAGS_KEY, JsonValue.wrapOpt(Arrays.asList("tag", "  ")));
+
+        assertEquals(Collections.singleton("tag"), pushManager.getPushSettings().getTags());
+        assertEquals(JsonValue.wrapOpt(Collections.singletonList("tag")), preferenceDataStore.getJsonValue(PushManager.TAGS_KEY));
+    }
 }
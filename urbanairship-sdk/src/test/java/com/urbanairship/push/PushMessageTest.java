@@ -30,6 +30,7 @@ import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -497,6 +498,26 @@ public class PushMessageTest extends BaseTestCase {
         assertEquals(actions, message.getActions());
     }
 
+    /**
+     * Test get actions returns a new map each call that is not affected by changes to previously
+     * returned maps.
+     */
+    @Test
+    public void testGetActionsReturnsCopy() throws JsonException {
+        Map<String, ActionValue> actions = new HashMap<>();
+        actions.put("action_name", ActionValue.wrap("action_value"));
+
+        Bundle bundle = new Bundle();
+        bundle.putString(PushMessage.EXTRA_ACTIONS, JsonValue.wrap(actions).toString());
+        PushMessage message = new PushMessage(bundle);
+
+        Map<String, ActionValue> first = message.getActions();
+        first.put("another_action", ActionValue.wrap("value"));
+
+        assertEquals(actions, message.getActions());
+        assertNotSame(first, message.getActions());
+    }
+
     /**
      * Test get actions returns an empty map if its unable to parse the actions payload.
      */
@@ -0,0 +1,139 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import com.google.common.collect.Lists;
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.TestApplication;
+import com.urbanairship.http.Response;
+import com.urbanairship.job.Job;
+import com.urbanairship.json.JsonValue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class TagGroupRegistrarTest extends BaseTestCase {
+
+    private PreferenceDataStore dataStore;
+    private ChannelApiClient channelClient;
+    private NamedUserApiClient namedUserClient;
+    private TagGroupRegistrar registrar;
+
+    private TagGroupsMutation addTags;
+    private TagGroupsMutation removeTags;
+
+    @Before
+    public void setUp() {
+        dataStore = TestApplication.getApplication().preferenceDataStore;
+        channelClient = mock(ChannelApiClient.class);
+        namedUserClient = mock(NamedUserApiClient.class);
+        registrar = new TagGroupRegistrar(dataStore, channelClient, namedUserClient);
+
+        addTags = TagGroupsMutation.newAddTagsMutation("group", new HashSet<>(Lists.newArrayList("tag1", "tag2")));
+        removeTags = TagGroupsMutation.newRemoveTagsMutation("group", new HashSet<>(Lists.newArrayList("tag2")));
+    }
+
+    /**
+     * Test mutations are collapsed per audience.
+     */
+    @Test
+    public void testAddMutationsCollapses() {
+        registrar.addMutations(TagGroupRegistrar.CHANNEL, Collections.singletonList(addTags));
+        registrar.addMutations(TagGroupRegistrar.CHANNEL, Collections.singletonList(removeTags));
+        registrar.addMutations(TagGroupRegistrar.NAMED_USER, Collections.singletonList(addTags));
+
+        List<TagGroupsMutation> expected = TagGroupsMutation.collapseMutations(Lists.newArrayList(addTags, removeTags));
+        assertEquals(expected, registrar.getMutations(TagGroupRegistrar.CHANNEL));
+        assertEquals(Collections.singletonList(addTags), registrar.getMutations(TagGroupRegistrar.NAMED_USER));
+
+        // Verify the operation log is shared by a new registrar
+        TagGroupRegistrar other = new TagGroupRegistrar(dataStore, channelClient, namedUserClient);
+        assertEquals(expected, other.getMutations(TagGroupRegistrar.CHANNEL));
+        assertEquals(Collections.singletonList(addTags), other.getMutations(TagGroupRegistrar.NAMED_USER));
+    }
+
+    /**
+     * Test uploading both audiences.
+     */
+    @Test
+    public void testUploadMutations() {
+        registrar.addMutations(TagGroupRegistrar.CHANNEL, Collections.singletonList(addTags));
+        registrar.addMutations(TagGroupRegistrar.NAMED_USER, Collections.singletonList(removeTags));
+
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(200);
+        when(channelClient.updateTagGroups("channel", addTags)).thenReturn(response);
+        when(namedUserClient.updateTagGroups("namedUser", removeTags)).thenReturn(response);
+
+        assertEquals(Job.JOB_FINISHED, registrar.uploadMutations("channel", "namedUser"));
+
+        verify(channelClient).updateTagGroups("channel", addTags);
+        verify(namedUserClient).updateTagGroups("namedUser", removeTags);
+
+        assertEquals(0, registrar.getMutations(TagGroupRegistrar.CHANNEL).size());
+        assertEquals(0, registrar.getMutations(TagGroupRegistrar.NAMED_USER).size());
+        assertNull(dataStore.getString(TagGroupRegistrar.OPERATION_LOG_KEY, null));
+    }
+
+    /**
+     * Test a server error on one audience retries only its pending mutations.
+     */
+    @Test
+    public void testUploadMutationsServerError() {
+        registrar.addMutations(TagGroupRegistrar.CHANNEL, Collections.singletonList(addTags));
+        registrar.addMutations(TagGroupRegistrar.NAMED_USER, Collections.singletonList(removeTags));
+
+        Response success = mock(Response.class);
+        when(success.getStatus()).thenReturn(200);
+        when(channelClient.updateTagGroups("channel", addTags)).thenReturn(success);
+
+        Response error = mock(Response.class);
+        when(error.getStatus()).thenReturn(500);
+        when(namedUserClient.updateTagGroups("namedUser", removeTags)).thenReturn(error);
+
+        assertEquals(Job.JOB_RETRY, registrar.uploadMutations("channel", "namedUser"));
+
+        assertEquals(0, registrar.getMutations(TagGroupRegistrar.CHANNEL).size());
+        assertEquals(Collections.singletonList(removeTags), registrar.getMutations(TagGroupRegistrar.NAMED_USER));
+    }
+
+    /**
+     * Test audiences without an ID are skipped.
+     */
+    @Test
+    public void testUploadMutationsNoNamedUser() {
+        registrar.addMutations(TagGroupRegistrar.NAMED_USER, Collections.singletonList(addTags));
+
+        assertEquals(Job.JOB_FINISHED, registrar.uploadMutations("channel", null));
+
+        verifyZeroInteractions(channelClient, namedUserClient);
+        assertEquals(Collections.singletonList(addTags), registrar.getMutations(TagGroupRegistrar.NAMED_USER));
+    }
+
+    /**
+     * Test the pending mutations from the channel and named user job handlers are migrated.
+     */
+    @Test
+    public void testMigration() {
+        dataStore.put(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(Collections.singletonList(addTags)));
+        dataStore.put(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(Collections.singletonList(removeTags)));
+
+        assertEquals(Collections.singletonList(addTags), registrar.getMutations(TagGroupRegistrar.CHANNEL));
+        assertEquals(Collections.singletonList(removeTags), registrar.getMutations(TagGroupRegistrar.NAMED_USER));
+
+        assertNull(dataStore.getString(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+    }
+}
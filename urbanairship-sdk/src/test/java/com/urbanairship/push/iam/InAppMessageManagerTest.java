@@ -295,11 +295,11 @@ public class InAppMessageManagerTest extends BaseTestCase {
 
     /**
      * Test set pending in-app message generates a replace resolution event if a previous, not shown
-     * message exists.
+     * message with the same ID exists.
      */
     @Test
     public void testSetPendingMessageGeneratesReplaceEvent() {
-        final InAppMessage otherMessage = new InAppMessage.Builder().setId(UUID.randomUUID().toString()).create();
+        final InAppMessage otherMessage = new InAppMessage.Builder(message).setAlert("oh hi again").create();
         // Set the pending in-app message
         inAppMessageManager.setPendingMessage(message);
 
@@ -355,6 +355,95 @@ public class InAppMessageManagerTest extends BaseTestCase {
         }));
     }
 
+    /**
+     * Test pending in-app messages are queued by priority and then by the order they were received.
+     */
+    @Test
+    public void testPendingMessagePriority() {
+        InAppMessage first = new InAppMessage.Builder(message).setId("first").create();
+        InAppMessage second = new InAppMessage.Builder(message).setId("second").create();
+        InAppMessage important = new InAppMessage.Builder(message).setId("important").setPriority(10).create();
+
+        inAppMessageManager.setPendingMessage(first);
+        inAppMessageManager.setPendingMessage(second);
+        inAppMessageManager.setPendingMessage(important);
+
+        assertEquals(3, inAppMessageManager.getPendingMessageCount());
+        assertEquals(important, inAppMessageManager.getPendingMessage());
+
+        // Verify the queue is persisted
+        InAppMessageManager restored = new InAppMessageManager(TestApplication.getApplication().preferenceDataStore, new TestActivityMonitor());
+        assertEquals(3, restored.getPendingMessageCount());
+        assertEquals(important, restored.getPendingMessage());
+
+        // Clear the queue
+        inAppMessageManager.setPendingMessage(null);
+        assertEquals(0, inAppMessageManager.getPendingMessageCount());
+        assertNull(inAppMessageManager.getPendingMessage());
+    }
+
+    /**
+     * Test the pending message limit evicts expired messages first, then the oldest message with
+     * the lowest priority.
+     */
+    @Test
+    public void testPendingMessageLimit() {
+        inAppMessageManager.setPendingMessageLimit(2);
+        assertEquals(2, inAppMessageManager.getPendingMessageLimit());
+
+        final InAppMessage low = new InAppMessage.Builder(message).setId("low").create();
+        final InAppMessage high = new InAppMessage.Builder(message).setId("high").setPriority(5).create();
+        final InAppMessage newest = new InAppMessage.Builder(message).setId("newest").create();
+
+        inAppMessageManager.setPendingMessage(low);
+        inAppMessageManager.setPendingMessage(high);
+        inAppMessageManager.setPendingMessage(newest);
+
+        // The oldest, lowest priority message is evicted
+        assertEquals(2, inAppMessageManager.getPendingMessageCount());
+        assertEquals(high, inAppMessageManager.getPendingMessage());
+
+        verify(mockAnalytics).addEvent(argThat(new ArgumentMatcher<Event>() {
+            @Override
+            public boolean matches(Object o) {
+                if (!(o instanceof ResolutionEvent)) {
+                    return false;
+                }
+
+                ResolutionEvent event = (ResolutionEvent) o;
+                try {
+                    EventTestUtils.validateEventValue(event, "id", low.getId());
+                    EventTestUtils.validateNestedEventValue(event, "resolution", "type", "replaced");
+                    EventTestUtils.validateNestedEventValue(event, "resolution", "replacement_id", newest.getId());
+                } catch (JSONException e) {
+                    return false;
+                }
+                return true;
+            }
+        }));
+    }
+
+    /**
+     * Test setting an invalid pending message limit throws.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPendingMessageLimit() {
+        inAppMessageManager.setPendingMessageLimit(0);
+    }
+
+    /**
+     * Test init migrates the single pending message stored by older SDK versions.
+     */
+    @Test
+    public void testInitMigratesPendingMessage() {
+        TestApplication.getApplication().preferenceDataStore.put("com.urbanairship.push.iam.PENDING_IN_APP_MESSAGE", message);
+
+        inAppMessageManager.init();
+
+        assertEquals(message, inAppMessageManager.getPendingMessage());
+        assertNull(TestApplication.getApplication().preferenceDataStore.getString("com.urbanairship.push.iam.PENDING_IN_APP_MESSAGE", null));
+    }
+
     /**
      * Test init checks and removes a expired pending in app message.
      */
@@ -296,6 +296,30 @@ public class InAppMessageTest extends BaseTestCase {
         assertEquals(original, same);
     }
 
+    /**
+     * Test the priority is parsed, serialized and parceled.
+     */
+    @Test
+    public void testPriority() throws JsonException {
+        assertEquals(0, InAppMessage.parseJson(VALID_JSON).getPriority());
+
+        InAppMessage message = new InAppMessage.Builder(InAppMessage.parseJson(VALID_JSON))
+                .setPriority(10)
+                .create();
+        assertEquals(10, message.getPriority());
+
+        InAppMessage fromJson = InAppMessage.parseJson(message.toJsonValue().toString());
+        assertEquals(10, fromJson.getPriority());
+        assertEquals(message, fromJson);
+
+        Parcel parcel = Parcel.obtain();
+        message.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        assertEquals(message, InAppMessage.CREATOR.createFromParcel(parcel));
+
+        assertFalse(message.equals(new InAppMessage.Builder(message).setPriority(0).create()));
+    }
+
     /**
      * Test expiry and duration do not suffer from sub-second precision loss when serializing to json.
      */
@@ -0,0 +1,81 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push.notifications;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.v4.app.NotificationCompat;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.push.PushManager;
+import com.urbanairship.push.PushMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+public class NotificationActionButtonGroupTest extends BaseTestCase {
+
+    private NotificationActionButtonGroup group;
+
+    @Before
+    public void setUp() {
+        group = new NotificationActionButtonGroup.Builder()
+                .addNotificationActionButton(new NotificationActionButton.Builder("yes")
+                        .setDescription("Yes")
+                        .build())
+                .addNotificationActionButton(new NotificationActionButton.Builder("no")
+                        .setPerformsInForeground(false)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Test every push gets its own intents with the push specific extras while the button
+     * extras stay the same.
+     */
+    @Test
+    public void testCreateAndroidActions() {
+        List<NotificationCompat.Action> first = group.createAndroidActions(RuntimeEnvironment.application, createMessage("first"), 100, "{\"yes\":{\"tag_action\":\"yes\"}}");
+        List<NotificationCompat.Action> second = group.createAndroidActions(RuntimeEnvironment.application, createMessage("second"), 200, null);
+
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+
+        Intent firstYes = shadowOf(first.get(0).actionIntent).getSavedIntent();
+        Intent secondYes = shadowOf(second.get(0).actionIntent).getSavedIntent();
+
+        assertEquals(PushManager.ACTION_NOTIFICATION_BUTTON_OPENED_PROXY, firstYes.getAction());
+        assertFalse(firstYes.filterEquals(secondYes));
+
+        assertEquals("yes", firstYes.getStringExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ID));
+        assertEquals("Yes", firstYes.getStringExtra(PushManager.EXTRA_NOTIFICATION_ACTION_BUTTON_DESCRIPTION));
+        assertTrue(firstYes.getBooleanExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_FOREGROUND, false));
+        assertEquals(100, firstYes.getIntExtra(PushManager.EXTRA_NOTIFICATION_ID, -1));
+        assertEquals("{\"tag_action\":\"yes\"}", firstYes.getStringExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ACTIONS_PAYLOAD));
+        assertEquals("first", firstYes.getBundleExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE).getString(PushMessage.EXTRA_ALERT));
+
+        assertEquals("yes", secondYes.getStringExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ID));
+        assertEquals(200, secondYes.getIntExtra(PushManager.EXTRA_NOTIFICATION_ID, -1));
+        assertNull(secondYes.getStringExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ACTIONS_PAYLOAD));
+        assertEquals("second", secondYes.getBundleExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE).getString(PushMessage.EXTRA_ALERT));
+
+        Intent secondNo = shadowOf(second.get(1).actionIntent).getSavedIntent();
+        assertEquals("no", secondNo.getStringExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_ID));
+        assertFalse(secondNo.getBooleanExtra(PushManager.EXTRA_NOTIFICATION_BUTTON_FOREGROUND, true));
+    }
+
+    private static PushMessage createMessage(String alert) {
+        Bundle extras = new Bundle();
+        extras.putString(PushMessage.EXTRA_ALERT, alert);
+        return new PushMessage(extras);
+    }
+}
@@ -2,6 +2,7 @@
 
 package com.urbanairship.richpush;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.os.Bundle;
 import android.os.ResultReceiver;
@@ -12,6 +13,8 @@ import com.urbanairship.Cancelable;
 import com.urbanairship.TestApplication;
 import com.urbanairship.job.Job;
 import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonValue;
 
 import junit.framework.Assert;
 
@@ -22,6 +25,7 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -30,6 +34,7 @@ import java.util.concurrent.Executor;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -427,6 +432,75 @@ public class RichPushInboxTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Test inbox messages keep the payload until it is released under memory pressure.
+     */
+    @Test
+    public void testMessagePayloadTrimMemory() {
+        RichPushMessage message = inbox.getMessage("1_message_id");
+        assertTrue(message.isPayloadLoaded());
+
+        JsonValue payload = inbox.loadMessagePayload(message);
+        assertEquals("1_message_id", payload.optMap().opt(RichPushMessage.MESSAGE_ID_KEY).getString());
+        assertTrue(message.isPayloadLoaded());
+        assertEquals(payload, message.getRawMessageJson());
+
+        // Moderate pressure only releases the least recently used half
+        inbox.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertTrue(message.isPayloadLoaded());
+
+        inbox.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertFalse(message.isPayloadLoaded());
+        assertEquals("1_message_id", message.getMessageId());
+        assertNotNull(message.getExtras());
+
+        // Loads the payload again through the inbox
+        assertEquals(payload, message.getRawMessageJson());
+        assertTrue(message.isPayloadLoaded());
+    }
+
+    /**
+     * Test messages that are no longer in the inbox keep their payload when the inbox is trimmed.
+     */
+    @Test
+    public void testRemovedMessageKeepsPayload() {
+        RichPushMessage message = inbox.getMessage("2_message_id");
+        inbox.loadMessagePayload(message);
+
+        inbox.deleteMessages(new HashSet<>(Collections.singletonList("2_message_id")));
+        inbox.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+        assertTrue(message.isPayloadLoaded());
+    }
+
+    /**
+     * Test a message replaced by a refresh keeps its payload after its row is deleted.
+     */
+    @Test
+    public void testReplacedMessageKeepsPayload() {
+        RichPushMessage message = inbox.getMessage("3_message_id");
+
+        inbox.refresh(false);
+        new RichPushResolver(RuntimeEnvironment.application).deleteMessages(Collections.singleton("3_message_id"));
+        inbox.refresh(false);
+        inbox.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+        assertEquals("3_message_id", message.getRawMessageJson().optMap().opt(RichPushMessage.MESSAGE_ID_KEY).getString());
+    }
+
+    /**
+     * Test loading the payload of a message that no longer exists.
+     */
+    @Test
+    public void testLoadMissingMessagePayload() throws JsonException {
+        RichPushMessage message = RichPushMessage.create(JsonValue.parseString("{\"message_id\": \"missing\"}"), true, false);
+        message.addedToInbox(inbox);
+        assertTrue(message.releasePayload());
+
+        assertEquals(JsonValue.NULL, inbox.loadMessagePayload(message));
+        assertFalse(message.isPayloadLoaded());
+    }
+
     /**
      * Helper method to convert a list of rich push messages
      * to a map of message ids to messages
@@ -0,0 +1,136 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+
+public class NotificationIdAllocatorTest extends BaseTestCase {
+
+    private File file;
+    private NotificationIdAllocator allocator;
+
+    @Before
+    public void setUp() {
+        file = new File(RuntimeEnvironment.application.getFilesDir(), "notification_ids_test");
+        file.delete();
+
+        allocator = new NotificationIdAllocator(file, 50);
+    }
+
+    @After
+    public void takeDown() {
+        file.delete();
+    }
+
+    /**
+     * Test IDs are allocated round robin and skip IDs that are still in use.
+     */
+    @Test
+    public void testAllocate() {
+        assertEquals(1000, allocator.allocate(1000, 3));
+        assertEquals(1001, allocator.allocate(1000, 3));
+        assertEquals(1002, allocator.allocate(1000, 3));
+
+        // Every ID is in use
+        assertEquals(-1, allocator.allocate(1000, 3));
+
+        // Release the middle ID
+        allocator.release(1001);
+        assertEquals(1001, allocator.allocate(1000, 3));
+        assertEquals(-1, allocator.allocate(1000, 3));
+    }
+
+    /**
+     * Test releasing IDs outside of the range is ignored.
+     */
+    @Test
+    public void testReleaseOutOfRange() {
+        assertEquals(1000, allocator.allocate(1000, 1));
+
+        allocator.release(999);
+        allocator.release(1001);
+
+        assertEquals(-1, allocator.allocate(1000, 1));
+    }
+
+    /**
+     * Test changing the start or range resets the allocated IDs.
+     */
+    @Test
+    public void testRangeChange() {
+        assertEquals(1000, allocator.allocate(1000, 2));
+        assertEquals(1001, allocator.allocate(1000, 2));
+
+        assertEquals(1000, allocator.allocate(1000, 3));
+        assertEquals(2000, allocator.allocate(2000, 3));
+    }
+
+    /**
+     * Test retaining only the active IDs.
+     */
+    @Test
+    public void testRetainAll() {
+        for (int i = 0; i < 4; i++) {
+            allocator.allocate(1000, 4);
+        }
+
+        allocator.retainAll(1000, 4, Arrays.asList(1000, 1002, 5000));
+
+        assertEquals(1001, allocator.allocate(1000, 4));
+        assertEquals(1003, allocator.allocate(1000, 4));
+        assertEquals(-1, allocator.allocate(1000, 4));
+    }
+
+    /**
+     * Test the range is capped to the max range.
+     */
+    @Test
+    public void testMaxRange() {
+        NotificationIdAllocator allocator = new NotificationIdAllocator(null, 2);
+
+        assertEquals(1000, allocator.allocate(1000, 10));
+        assertEquals(1001, allocator.allocate(1000, 10));
+        assertEquals(-1, allocator.allocate(1000, 10));
+    }
+
+    /**
+     * Test the state is shared with another allocator using the same file.
+     */
+    @Test
+    public void testSharedState() {
+        assertEquals(1000, allocator.allocate(1000, 10));
+        assertEquals(1001, allocator.allocate(1000, 10));
+
+        NotificationIdAllocator other = new NotificationIdAllocator(file, 50);
+        assertEquals(1002, other.allocate(1000, 10));
+
+        assertEquals(1003, allocator.allocate(1000, 10));
+
+        // Every ID but 1001 is in use, the other allocator should see the same bitset
+        allocator.retainAll(1000, 10, Arrays.asList(1000, 1002, 1003, 1004, 1005, 1006, 1007, 1008, 1009));
+        assertEquals(1001, other.allocate(1000, 10));
+        assertEquals(-1, allocator.allocate(1000, 10));
+    }
+
+    /**
+     * Test initialize only sets the cursor when there is no state.
+     */
+    @Test
+    public void testInitialize() {
+        allocator.initialize(1000, 10, 1005);
+        assertEquals(1005, allocator.allocate(1000, 10));
+
+        allocator.initialize(1000, 10, 1000);
+        assertEquals(1006, allocator.allocate(1000, 10));
+    }
+}
@@ -5,6 +5,7 @@ package com.urbanairship.wallet;
 import android.net.Uri;
 
 import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestClock;
 import com.urbanairship.TestRequest;
 import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
@@ -18,6 +19,8 @@ import org.mockito.stubbing.Answer;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 
@@ -244,4 +247,74 @@ public class PassRequestTest extends BaseTestCase{
         when(requestFactory.createRequest(anyString(), any(URL.class))).thenAnswer(answer);
         passRequest.execute(callback, null);
     }
+
+    @Test
+    public void testDuplicateRequestsShareResult() throws Exception {
+        TestRequest testRequest = new TestRequest();
+        testRequest.response = new Response.Builder(HttpURLConnection.HTTP_OK)
+                .setResponseBody("{ \"id\": \"5\", \"publicUrl\": { \"path\": \"https://goo.gl/pass\" } }")
+                .create();
+
+        RequestFactory requestFactory = Mockito.mock(RequestFactory.class);
+        when(requestFactory.createRequest(anyString(), any(URL.class))).thenReturn(testRequest);
+
+        final List<Runnable> runnables = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                runnables.add(command);
+            }
+        };
+
+        TestClock clock = new TestClock();
+        PassRequestEngine engine = new PassRequestEngine(requestFactory, executor, clock);
+
+        PassRequest.Builder builder = PassRequest.newBuilder()
+                .setApiKey("test_api_key")
+                .setTemplateId("test_template_id")
+                .setExternalId("id123");
+
+        final List<Pass> passes = new ArrayList<>();
+        Callback callback = new Callback() {
+            @Override
+            public void onResult(Pass pass) {
+                passes.add(pass);
+            }
+
+            @Override
+            public void onError(int errorCode) {
+                throw new RuntimeException();
+            }
+        };
+
+        // Two identical requests and a request for a different external ID
+        new PassRequest(builder, engine).execute(callback, null);
+        new PassRequest(builder, engine).execute(callback, null);
+        PassRequest.Builder otherBuilder = PassRequest.newBuilder()
+                .setApiKey("test_api_key")
+                .setTemplateId("test_template_id")
+                .setExternalId("id456");
+
+        new PassRequest(otherBuilder, engine).execute(callback, null);
+
+        assertEquals(2, runnables.size());
+        for (Runnable runnable : runnables) {
+            runnable.run();
+        }
+
+        assertEquals(3, passes.size());
+        Mockito.verify(requestFactory, Mockito.times(2)).createRequest(anyString(), any(URL.class));
+
+        // Cached
+        runnables.clear();
+        new PassRequest(builder, engine).execute(callback, null);
+        assertEquals(0, runnables.size());
+        assertEquals(4, passes.size());
+        assertEquals("5", passes.get(3).getId());
+
+        // Expired
+        clock.currentTimeMillis += PassRequestEngine.CACHE_TTL_MS;
+        new PassRequest(builder, engine).execute(callback, null);
+        assertEquals(1, runnables.size());
+    }
 }